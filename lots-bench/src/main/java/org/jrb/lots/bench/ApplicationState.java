@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.jrb.lots.SpringApplication;
+import org.jrb.lots.bench.data.DatasetGenerator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * JMH state holding a LOTS application context booted against the LOCAL
+ * embedded database, without a servlet container. One context is started per
+ * trial so every benchmark sees a fresh database, optionally pre-filled by a
+ * {@link DatasetGenerator} (see {@link #DATASET_THINGS}).
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+	/**
+	 * System property giving the number of things to generate into the
+	 * database before benchmarking (default none).
+	 */
+	public static final String DATASET_THINGS = "lots.dataset.things";
+
+	/**
+	 * System property giving the tag vocabulary size of a generated dataset.
+	 */
+	public static final String DATASET_TAGS = "lots.dataset.tags";
+
+	private ConfigurableApplicationContext context;
+
+	@Setup(Level.Trial)
+	public void start() throws SQLException {
+		context = new SpringApplicationBuilder(SpringApplication.class)
+				.profiles(SpringApplication.ENV_LOCAL)
+				.showBanner(false)
+				.web(false)
+				.run("--spring.jpa.show-sql=false");
+
+		final long things = Long.getLong(DATASET_THINGS, 0L);
+		if (things > 0) {
+			new DatasetGenerator.Builder()
+					.setThings(things)
+					.setTags(Integer.getInteger(DATASET_TAGS, 1000))
+					.build()
+					.generate(getBean(DataSource.class));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		if (context != null) {
+			context.close();
+			context = null;
+		}
+	}
+
+	public <T> T getBean(final String name, final Class<T> type) {
+		return context.getBean(name, type);
+	}
+
+	public <T> T getBean(final Class<T> type) {
+		return context.getBean(type);
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line arguments given as <code>--name=value</code> pairs; a bare
+ * <code>--name</code> is taken as <code>--name=true</code>.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class Arguments {
+
+	private final Map<String, String> values = new LinkedHashMap<>();
+
+	public Arguments(final String... args) {
+		for (final String arg : args) {
+			if (!arg.startsWith("--")) {
+				throw new IllegalArgumentException("Unrecognized argument! arg = " + arg);
+			}
+			final int separator = arg.indexOf('=');
+			if (separator < 0) {
+				values.put(arg.substring(2), Boolean.TRUE.toString());
+			} else {
+				values.put(arg.substring(2, separator), arg.substring(separator + 1));
+			}
+		}
+	}
+
+	public String get(final String name, final String defaultValue) {
+		final String value = values.get(name);
+		return (value != null) ? value : defaultValue;
+	}
+
+	public boolean getBoolean(final String name, final boolean defaultValue) {
+		return Boolean.parseBoolean(get(name, Boolean.toString(defaultValue)));
+	}
+
+	public double getDouble(final String name, final double defaultValue) {
+		return Double.parseDouble(get(name, Double.toString(defaultValue)));
+	}
+
+	public int getInt(final String name, final int defaultValue) {
+		return Integer.parseInt(get(name, Integer.toString(defaultValue)));
+	}
+
+	public long getLong(final String name, final long defaultValue) {
+		return Long.parseLong(get(name, Long.toString(defaultValue)));
+	}
+
+	/**
+	 * Retrieves the arguments whose names start with a prefix.
+	 * 
+	 * @param prefix
+	 *            the name prefix
+	 * @return the matching values, keyed by name without the prefix
+	 */
+	public Map<String, String> getPrefixed(final String prefix) {
+		final Map<String, String> prefixed = new LinkedHashMap<>();
+		for (final Map.Entry<String, String> entry : values.entrySet()) {
+			if (entry.getKey().startsWith(prefix)) {
+				prefixed.put(entry.getKey().substring(prefix.length()), entry.getValue());
+			}
+		}
+		return prefixed;
+	}
+
+	@Override
+	public String toString() {
+		return values.toString();
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.jrb.commons.security.CachingAuthenticationProvider;
+import org.jrb.lots.SecurityConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.actuate.metrics.repository.InMemoryMetricRepository;
+import org.springframework.boot.actuate.metrics.writer.DefaultCounterService;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+
+import com.google.common.io.BaseEncoding;
+
+/**
+ * Benchmarks the per-request cost of HTTP basic authentication. The baseline,
+ * <code>plain</code>, is the provider Spring Boot configures by default and
+ * {@link SecurityConfig} keeps: the password kept and compared in plain text.
+ * <code>bcrypt</code> is the opt-in BCrypt hash, checked on every request, and
+ * the <code>-cached</code> variants put the
+ * {@link CachingAuthenticationProvider} in front of either. Each invocation is
+ * a stateless request, authenticated from scratch.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AuthenticationBenchmark {
+
+	@Param({ "plain", "plain-cached", "bcrypt", "bcrypt-cached" })
+	private String provider;
+
+	private BasicAuthenticationFilter filter;
+
+	private MockHttpServletRequest request;
+
+	private final FilterChain chain = new FilterChain() {
+		@Override
+		public void doFilter(final ServletRequest request, final ServletResponse response)
+				throws IOException, ServletException {
+			// the request reaches the application
+		}
+	};
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		final boolean bcrypt = provider.startsWith("bcrypt");
+		final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(10);
+		final InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(Collections.<UserDetails> singletonList(
+				new User("user", bcrypt ? encoder.encode("secret") : "secret",
+						AuthorityUtils.createAuthorityList("ROLE_USER"))));
+		final DaoAuthenticationProvider dao = new DaoAuthenticationProvider();
+		dao.setUserDetailsService(users);
+		if (bcrypt) {
+			dao.setPasswordEncoder(encoder);
+		}
+		final AuthenticationProvider authenticationProvider = provider.endsWith("-cached")
+				? new CachingAuthenticationProvider(dao, 5, TimeUnit.MINUTES, 10000,
+						new DefaultCounterService(new InMemoryMetricRepository()))
+				: dao;
+
+		filter = new BasicAuthenticationFilter(new ProviderManager(Collections.singletonList(authenticationProvider)));
+		filter.afterPropertiesSet();
+		request = new MockHttpServletRequest("GET", "/api/thing/42");
+		request.addHeader("Authorization", "Basic "
+				+ BaseEncoding.base64().encode("user:secret".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Benchmark
+	public MockHttpServletResponse authenticate() throws IOException, ServletException {
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			filter.doFilter(request, response, chain);
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+		return response;
+	}
+
+}
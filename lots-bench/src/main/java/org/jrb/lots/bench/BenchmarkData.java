@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jrb.lots.domain.Thing;
+import org.springframework.beans.DirectFieldAccessor;
+
+/**
+ * Builds detached domain objects shaped like those returned by the services,
+ * for benchmarks that do not touch the database.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public final class BenchmarkData {
+
+	public static final String TAG_PREFIX = "BENCH_TAG_";
+
+	public static final String THING_PREFIX = "BENCH_THING_";
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Builds a persisted-looking thing carrying the given number of tag names.
+	 * 
+	 * @param id
+	 *            the thing identifier
+	 * @param tagCount
+	 *            the number of tag names
+	 * @return the thing
+	 */
+	public static Thing newThing(final long id, final int tagCount) {
+		final Thing.Builder builder = new Thing.Builder()
+				.setName(THING_PREFIX + id)
+				.setDescription("This is benchmark thing #" + id)
+				.markAsCreated();
+		for (int i = 0; i < tagCount; i++) {
+			builder.addTagname(TAG_PREFIX + i);
+		}
+		final Thing thing = builder.build();
+		final DirectFieldAccessor accessor = new DirectFieldAccessor(thing);
+		accessor.setPropertyValue("id", id);
+		accessor.setPropertyValue("version", 0);
+		return thing;
+	}
+
+	/**
+	 * Builds a list of persisted-looking things.
+	 * 
+	 * @param size
+	 *            the number of things
+	 * @param tagCount
+	 *            the number of tag names per thing
+	 * @return the things
+	 */
+	public static List<Thing> newThings(final int size, final int tagCount) {
+		final List<Thing> things = new ArrayList<>(size);
+		for (int i = 1; i <= size; i++) {
+			things.add(newThing(i, tagCount));
+		}
+		return things;
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the List Of ThingS (LOTS) benchmarks. Accepts the standard
+ * JMH command line, but unless told otherwise writes its results as JSON to
+ * {@value #DEFAULT_RESULT} so that runs from different builds can be
+ * compared.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public final class BenchmarkRunner {
+
+	public static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+	private BenchmarkRunner() {
+	}
+
+	/**
+	 * Main entry point for the LOTS benchmarks.
+	 * 
+	 * @param args
+	 *            the JMH command line arguments
+	 * @throws Exception
+	 *             if the benchmarks cannot be run
+	 */
+	public static void main(final String[] args) throws Exception {
+		final CommandLineOptions cmdOptions = new CommandLineOptions(args);
+		if (cmdOptions.shouldHelp() || cmdOptions.shouldList() || cmdOptions.shouldListWithParams()
+				|| cmdOptions.shouldListProfilers() || cmdOptions.shouldListResultFormats()) {
+			Main.main(args);
+			return;
+		}
+
+		final ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdOptions);
+		if (!cmdOptions.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!cmdOptions.getResult().hasValue()) {
+			options.result(DEFAULT_RESULT);
+		}
+		new Runner(options.build()).run();
+	}
+
+}
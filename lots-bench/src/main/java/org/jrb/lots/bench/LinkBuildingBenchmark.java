@@ -0,0 +1,131 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jrb.commons.service.ServiceException;
+import org.jrb.commons.web.ResponseUtils;
+import org.jrb.commons.web.controller.CrudControllerUtils;
+import org.jrb.commons.web.controller.CrudControllerUtils.CreateEntityCallback;
+import org.jrb.commons.web.controller.CrudControllerUtils.FindEntityCallback;
+import org.jrb.lots.domain.Thing;
+import org.jrb.lots.web.controller.ThingController;
+import org.jrb.lots.web.response.ThingListResponse;
+import org.jrb.lots.web.response.ThingResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.Link;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Benchmarks the HATEOAS link building performed by {@link CrudControllerUtils}
+ * for every entity response, both in isolation and as part of the full
+ * find/create response assembly (service callbacks return immediately).
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LinkBuildingBenchmark {
+
+	private CrudControllerUtils<Thing, ThingResponse, ThingListResponse> controllerUtils;
+
+	private Thing thing;
+
+	private CreateEntityCallback<Thing> createCallback;
+
+	private FindEntityCallback<Thing> findCallback;
+
+	@Setup(Level.Trial)
+	public void setUp(final ApplicationState application) {
+		final ResponseUtils responseUtils = application.getBean(ResponseUtils.class);
+		controllerUtils = new CrudControllerUtils<Thing, ThingResponse, ThingListResponse>(responseUtils);
+		thing = BenchmarkData.newThing(42, 3);
+		createCallback = new CreateEntityCallback<Thing>() {
+			@Override
+			public Thing createEntity(final Thing entity) throws ServiceException {
+				return thing;
+			}
+		};
+		findCallback = new FindEntityCallback<Thing>() {
+			@Override
+			public Thing findEntity(final Long entityId) throws ServiceException {
+				return thing;
+			}
+		};
+
+		// link builders resolve the base URI from the current request
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/thing/42");
+		request.setServerName("localhost");
+		request.setServerPort(9999);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Benchmark
+	public Link collectionLink() {
+		return linkTo(ThingController.class).withRel("things");
+	}
+
+	@Benchmark
+	public Link selfLink() {
+		return linkTo(ThingController.class).slash(thing).withSelfRel();
+	}
+
+	@Benchmark
+	public ResponseEntity<ThingResponse> createEntity() throws ServiceException {
+		return controllerUtils.createEntity(thing, Thing.class, ThingResponse.class, ThingController.class,
+				createCallback);
+	}
+
+	@Benchmark
+	public ResponseEntity<ThingResponse> findEntity() throws ServiceException {
+		return controllerUtils.findEntity(42L, Thing.class, ThingResponse.class, ThingController.class,
+				findCallback);
+	}
+
+}
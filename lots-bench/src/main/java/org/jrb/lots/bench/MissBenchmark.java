@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.jrb.commons.web.MessageResponse;
+import org.jrb.commons.web.ResponseUtils;
+import org.jrb.lots.service.tag.TagService;
+import org.jrb.lots.service.tag.TagServiceException;
+import org.jrb.lots.service.tag.UnknownTagException;
+import org.jrb.lots.service.thing.ThingService;
+import org.jrb.lots.service.thing.ThingServiceException;
+import org.jrb.lots.service.thing.UnknownThingException;
+import org.jrb.lots.web.GlobalExceptionHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Benchmarks the throughput of a workload made only of misses: lookups of
+ * unknown things and tags through the application's service proxies, turned
+ * into a 404 response by {@link GlobalExceptionHandler}. The
+ * <code>*Response</code> benchmarks compare the cheap error response with a
+ * regular message response.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MissBenchmark {
+
+	private GlobalExceptionHandler handler;
+
+	private ResponseUtils responseUtils;
+
+	private TagService tagService;
+
+	private ThingService thingService;
+
+	@Setup(Level.Trial)
+	public void setUp(final ApplicationState application) {
+		handler = application.getBean(GlobalExceptionHandler.class);
+		responseUtils = application.getBean(ResponseUtils.class);
+		tagService = application.getBean("tagService", TagService.class);
+		thingService = application.getBean("thingService", ThingService.class);
+	}
+
+	private static long missingId() {
+		return -1 - ThreadLocalRandom.current().nextInt(1000000);
+	}
+
+	@Benchmark
+	public ResponseEntity<MessageResponse> findMissingTag() throws TagServiceException {
+		try {
+			tagService.findTag(missingId());
+			throw new IllegalStateException("Tag found!");
+		} catch (final UnknownTagException e) {
+			return handler.handleNotFoundError(e);
+		}
+	}
+
+	@Benchmark
+	public ResponseEntity<MessageResponse> findMissingThing() throws ThingServiceException {
+		try {
+			thingService.findThing(missingId());
+			throw new IllegalStateException("Thing found!");
+		} catch (final UnknownThingException e) {
+			return handler.handleNotFoundError(e);
+		}
+	}
+
+	@Benchmark
+	public ResponseEntity<MessageResponse> errorResponse() {
+		return responseUtils.createErrorResponse(
+				UnknownThingException.forId(missingId()).getMessage(), HttpStatus.NOT_FOUND);
+	}
+
+	@Benchmark
+	public ResponseEntity<MessageResponse> messageResponse() {
+		return responseUtils.createMessageResponse(
+				UnknownThingException.forId(missingId()).getMessage(), HttpStatus.NOT_FOUND);
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.jrb.lots.WebConfig;
+import org.jrb.lots.web.response.ThingListResponse;
+import org.jrb.lots.web.response.ThingResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.Link;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Benchmarks the JSON rendering of thing responses with the same mapper the
+ * application registers with Spring MVC. Output is streamed to a counting
+ * sink so only serialization, not buffering, is measured.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	private static final int TAGS_PER_THING = 3;
+
+	/**
+	 * A single thing response, as returned by <code>GET /api/thing/{id}</code>.
+	 */
+	@State(Scope.Benchmark)
+	public static class ThingState {
+
+		private ObjectMapper objectMapper;
+
+		private ThingResponse response;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			objectMapper = WebConfig.objectMapper();
+			response = new ThingResponse();
+			response.setEntity(BenchmarkData.newThing(1, TAGS_PER_THING));
+			response.add(new Link("http://localhost/api/thing", "things"));
+		}
+
+	}
+
+	/**
+	 * A thing list response, as returned by <code>GET /api/thing</code>.
+	 */
+	@State(Scope.Benchmark)
+	public static class ThingListState {
+
+		@Param({ "10", "1000", "100000" })
+		public int size;
+
+		private ObjectMapper objectMapper;
+
+		private ThingListResponse response;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			objectMapper = WebConfig.objectMapper();
+			response = new ThingListResponse();
+			response.setContent(BenchmarkData.newThings(size, TAGS_PER_THING));
+		}
+
+	}
+
+	private static long write(final ObjectMapper objectMapper, final Object value) throws IOException {
+		final CountingOutputStream out = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+		objectMapper.writeValue(out, value);
+		return out.getByteCount();
+	}
+
+	@Benchmark
+	public long serializeThing(final ThingState state) throws IOException {
+		return write(state.objectMapper, state.response);
+	}
+
+	@Benchmark
+	public long serializeThingList(final ThingListState state) throws IOException {
+		return write(state.objectMapper, state.response);
+	}
+
+}
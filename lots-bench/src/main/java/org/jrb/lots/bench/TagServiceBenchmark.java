@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.jrb.lots.domain.Tag;
+import org.jrb.lots.service.tag.TagService;
+import org.jrb.lots.service.tag.TagServiceException;
+import org.jrb.lots.service.tag.UnknownTagException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link TagService#findTag(String)} through the application's
+ * service proxy: cache hits, cache misses on known tags (one repository
+ * lookup) and lookups of unknown tags.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TagServiceBenchmark {
+
+	@Param({ "100" })
+	public int tagCount;
+
+	private TagService tagService;
+
+	private String[] tagnames;
+
+	@Setup(Level.Trial)
+	public void setUp(final ApplicationState application) throws TagServiceException {
+		tagService = application.getBean("tagService", TagService.class);
+		tagnames = new String[tagCount];
+		for (int i = 0; i < tagCount; i++) {
+			tagnames[i] = BenchmarkData.TAG_PREFIX + i;
+			tagService.createTag(tagnames[i], null);
+			tagService.findTag(tagnames[i]);
+		}
+	}
+
+	private String randomTagname() {
+		return tagnames[ThreadLocalRandom.current().nextInt(tagCount)];
+	}
+
+	@Benchmark
+	public Tag findTagHit() throws TagServiceException {
+		return tagService.findTag(randomTagname());
+	}
+
+	@Benchmark
+	public Tag findTagLoad() throws TagServiceException {
+		final String tagname = randomTagname();
+		tagService.clearCache(tagname);
+		return tagService.findTag(tagname);
+	}
+
+	@Benchmark
+	public Object findTagUnknown() throws TagServiceException {
+		try {
+			return tagService.findTag("UNKNOWN_" + ThreadLocalRandom.current().nextInt(tagCount));
+		} catch (final UnknownTagException e) {
+			return e;
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jrb.lots.domain.Thing;
+import org.jrb.lots.service.tag.TagService;
+import org.jrb.lots.service.tag.TagServiceException;
+import org.jrb.lots.service.thing.ThingService;
+import org.jrb.lots.service.thing.ThingServiceException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link ThingService} creation with a given number of (existing)
+ * tags, and lookup of a thing including the hydration of its tag names.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThingServiceBenchmark {
+
+	@Param({ "0", "1", "5", "20" })
+	public int tagCount;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private ThingService thingService;
+
+	private Long thingId;
+
+	private String thingName;
+
+	@Setup(Level.Trial)
+	public void setUp(final ApplicationState application) throws TagServiceException, ThingServiceException {
+		thingService = application.getBean("thingService", ThingService.class);
+		final TagService tagService = application.getBean("tagService", TagService.class);
+		for (int i = 0; i < tagCount; i++) {
+			tagService.createTag(BenchmarkData.TAG_PREFIX + i, null);
+		}
+		final Thing thing = thingService.createThing(newThing());
+		thingId = thing.getId();
+		thingName = thing.getName();
+	}
+
+	private Thing newThing() {
+		final Thing.Builder builder = new Thing.Builder()
+				.setName(BenchmarkData.THING_PREFIX + sequence.incrementAndGet())
+				.setDescription("This is a benchmark thing");
+		for (int i = 0; i < tagCount; i++) {
+			builder.addTagname(BenchmarkData.TAG_PREFIX + i);
+		}
+		return builder.build();
+	}
+
+	@Benchmark
+	public Thing createThing() throws ThingServiceException {
+		return thingService.createThing(newThing());
+	}
+
+	@Benchmark
+	public Thing findThingById() throws ThingServiceException {
+		return thingService.findThing(thingId);
+	}
+
+	@Benchmark
+	public Thing findThingByName() throws ThingServiceException {
+		return thingService.findThing(thingName);
+	}
+
+}
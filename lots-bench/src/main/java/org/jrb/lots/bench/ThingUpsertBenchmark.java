@@ -0,0 +1,129 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jrb.lots.domain.Thing;
+import org.jrb.lots.service.tag.TagService;
+import org.jrb.lots.service.tag.TagServiceException;
+import org.jrb.lots.service.thing.ThingService;
+import org.jrb.lots.service.thing.ThingServiceException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks "create or update by name" as a sync job performs it, over a
+ * rotating population of names that are created on the first pass and
+ * updated with a new description afterwards: the find-then-write pattern
+ * ({@link ThingService#findThing(String, boolean)}, then a create or an
+ * update) against a single {@link ThingService#upsertThing(Thing)} and its
+ * batched {@link ThingService#upsertThings(List)} variant. Times are per
+ * thing. Note the find-then-write update leaves the tags untouched, while
+ * both upserts also replace them.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThingUpsertBenchmark {
+
+	private static final int BATCH_SIZE = 50;
+
+	@Param({ "0", "5" })
+	public int tagCount;
+
+	@Param({ "1000" })
+	public int population;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private ThingService thingService;
+
+	@Setup(Level.Trial)
+	public void setUp(final ApplicationState application) throws TagServiceException {
+		thingService = application.getBean("thingService", ThingService.class);
+		final TagService tagService = application.getBean("tagService", TagService.class);
+		for (int i = 0; i < tagCount; i++) {
+			tagService.createTag(BenchmarkData.TAG_PREFIX + i, null);
+		}
+	}
+
+	private Thing nextThing() {
+		final long next = sequence.incrementAndGet();
+		final Thing.Builder builder = new Thing.Builder()
+				.setName(BenchmarkData.THING_PREFIX + (next % population))
+				.setDescription("This is benchmark thing revision #" + next);
+		for (int i = 0; i < tagCount; i++) {
+			builder.addTagname(BenchmarkData.TAG_PREFIX + i);
+		}
+		return builder.build();
+	}
+
+	@Benchmark
+	public Thing findThenWrite() throws ThingServiceException {
+		final Thing submitted = nextThing();
+		final Thing existing = thingService.findThing(submitted.getName(), true);
+		if (existing == null) {
+			return thingService.createThing(submitted);
+		}
+		return thingService.updateThing(new Thing.Builder()
+				.from(existing)
+				.setDescription(submitted.getDescription())
+				.build());
+	}
+
+	@Benchmark
+	public Thing upsert() throws ThingServiceException {
+		return thingService.upsertThing(nextThing());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public List<Thing> upsertBatch() throws ThingServiceException {
+		final List<Thing> things = new ArrayList<>(BATCH_SIZE);
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			things.add(nextThing());
+		}
+		return thingService.upsertThings(things);
+	}
+
+}
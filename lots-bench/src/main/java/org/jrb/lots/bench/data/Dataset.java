@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench.data;
+
+/**
+ * Describes a dataset written by a {@link DatasetGenerator}. Things and tags
+ * occupy contiguous identifier ranges and their names are derived from their
+ * identifiers, so the dataset can be addressed without holding its rows in
+ * memory.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class Dataset {
+
+	public static final String TAG_PREFIX = "DATA_TAG_";
+
+	public static final String THING_PREFIX = "DATA_THING_";
+
+	private static final String FILLER = "abcdefghijklmnopqrstuvwxyz";
+
+	/**
+	 * Builds the name of a generated row: the prefix and identifier, padded
+	 * with pseudo-random letters (derived from the identifier) to the
+	 * requested length.
+	 * 
+	 * @param prefix
+	 *            the name prefix
+	 * @param id
+	 *            the row identifier
+	 * @param length
+	 *            the minimum name length
+	 * @return the name
+	 */
+	static String name(final String prefix, final long id, final int length) {
+		final StringBuilder name = new StringBuilder(Math.max(length, prefix.length() + 20))
+				.append(prefix)
+				.append(id);
+		if (name.length() < length) {
+			name.append('_');
+		}
+		long state = id * 0x9E3779B97F4A7C15L;
+		while (name.length() < length) {
+			state = state * 6364136223846793005L + 1442695040888963407L;
+			name.append(FILLER.charAt((int) ((state >>> 33) % FILLER.length())));
+		}
+		return name.toString();
+	}
+
+	private final long firstThingId;
+	private final long thingCount;
+	private final long firstTagId;
+	private final int tagCount;
+	private final long linkCount;
+	private final int nameLength;
+
+	public Dataset(
+			final long firstThingId,
+			final long thingCount,
+			final long firstTagId,
+			final int tagCount,
+			final long linkCount,
+			final int nameLength) {
+		this.firstThingId = firstThingId;
+		this.thingCount = thingCount;
+		this.firstTagId = firstTagId;
+		this.tagCount = tagCount;
+		this.linkCount = linkCount;
+		this.nameLength = nameLength;
+	}
+
+	public long getFirstTagId() {
+		return firstTagId;
+	}
+
+	public long getFirstThingId() {
+		return firstThingId;
+	}
+
+	public long getLinkCount() {
+		return linkCount;
+	}
+
+	public int getTagCount() {
+		return tagCount;
+	}
+
+	public long getThingCount() {
+		return thingCount;
+	}
+
+	/**
+	 * Derives the name of a generated tag. Tags are named by popularity rank,
+	 * the lowest identifier being the most frequently linked.
+	 * 
+	 * @param id
+	 *            the tag identifier
+	 * @return the tag name
+	 */
+	public String tagName(final long id) {
+		return TAG_PREFIX + (id - firstTagId);
+	}
+
+	/**
+	 * Derives the name of a generated thing.
+	 * 
+	 * @param id
+	 *            the thing identifier
+	 * @return the thing name
+	 */
+	public String thingName(final long id) {
+		return name(THING_PREFIX, id, nameLength);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " ["
+				+ "things=" + thingCount + " from id " + firstThingId + ", "
+				+ "tags=" + tagCount + " from id " + firstTagId + ", "
+				+ "links=" + linkCount
+				+ "]";
+	}
+
+}
@@ -0,0 +1,327 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench.data;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Random;
+
+import javax.sql.DataSource;
+
+import org.hsqldb.jdbc.JDBCDriver;
+import org.jrb.commons.jdbc.SchemaUtils;
+import org.jrb.lots.bench.Arguments;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Generates a synthetic LOTS dataset straight into the <code>tag</code>,
+ * <code>thing</code> and <code>thing_tags</code> tables through batched JDBC
+ * inserts. Each thing is linked to a Zipf-distributed number of distinct tags
+ * (at least one), which are themselves drawn from the tag vocabulary with Zipf
+ * popularity. Identifiers are assigned explicitly after the current maximum
+ * and the identity columns are restarted past them, so the application can
+ * keep creating rows afterwards. Generation is deterministic for a given seed.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class DatasetGenerator {
+
+	public static class Builder {
+
+		private final DatasetGenerator generator;
+
+		public Builder() {
+			generator = new DatasetGenerator();
+		}
+
+		public DatasetGenerator build() {
+			if (generator.things < 1 || generator.tags < 1) {
+				throw new IllegalArgumentException("Dataset needs at least one thing and one tag!");
+			}
+			if (generator.nameLength > MAX_NAME_LENGTH) {
+				throw new IllegalArgumentException("Name length exceeds " + MAX_NAME_LENGTH + "!");
+			}
+			generator.maxTagsPerThing = Math.min(Math.max(generator.maxTagsPerThing, 1), generator.tags);
+			return generator;
+		}
+
+		public Builder setBatchSize(final int batchSize) {
+			generator.batchSize = batchSize;
+			return this;
+		}
+
+		public Builder setMaxTagsPerThing(final int maxTagsPerThing) {
+			generator.maxTagsPerThing = maxTagsPerThing;
+			return this;
+		}
+
+		public Builder setNameLength(final int nameLength) {
+			generator.nameLength = nameLength;
+			return this;
+		}
+
+		public Builder setSeed(final long seed) {
+			generator.seed = seed;
+			return this;
+		}
+
+		public Builder setSkew(final double skew) {
+			generator.skew = skew;
+			return this;
+		}
+
+		public Builder setTags(final int tags) {
+			generator.tags = tags;
+			return this;
+		}
+
+		public Builder setThings(final long things) {
+			generator.things = things;
+			return this;
+		}
+
+	}
+
+	public static final int MAX_NAME_LENGTH = 255;
+
+	private static final Logger LOG = LoggerFactory.getLogger(DatasetGenerator.class);
+
+	private static final String INSERT_LINK = "insert into thing_tags (thing, tags) values (?, ?)";
+
+	private static final String INSERT_TAG =
+			"insert into tag (id, name, description, created_on, updated_on, version) values (?, ?, ?, ?, ?, 0)";
+
+	private static final String INSERT_THING =
+			"insert into thing (id, name, description, created_on, updated_on, version) values (?, ?, ?, ?, ?, 0)";
+
+	private static final long PROGRESS_INTERVAL = 1000000;
+
+	private static final int SNAPSHOT_CACHE_ROWS = 1000000;
+
+	private static final int SNAPSHOT_CACHE_SIZE = 1000000;
+
+	private long things = 10000;
+	private int tags = 1000;
+	private int maxTagsPerThing = 10;
+	private int nameLength = 24;
+	private double skew = 1.0;
+	private long seed = 42;
+	private int batchSize = 5000;
+
+	private DatasetGenerator() {
+	}
+
+	/**
+	 * Writes the dataset to the given database, which must already hold the
+	 * LOTS schema.
+	 * 
+	 * @param dataSource
+	 *            the target database
+	 * @return a description of the generated dataset
+	 * @throws SQLException
+	 *             if the dataset cannot be written
+	 */
+	public Dataset generate(final DataSource dataSource) throws SQLException {
+		final long started = System.nanoTime();
+		try (final Connection connection = dataSource.getConnection()) {
+			final boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				final Dataset dataset = generate(connection);
+				connection.commit();
+				LOG.info("Generated {} in {} ms", dataset, (System.nanoTime() - started) / 1000000);
+				return dataset;
+			} catch (final SQLException | RuntimeException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(autoCommit);
+			}
+		}
+	}
+
+	private Dataset generate(final Connection connection) throws SQLException {
+		final Random random = new Random(seed);
+		final ZipfDistribution tagPopularity = new ZipfDistribution(tags, skew);
+		final ZipfDistribution tagsPerThing = new ZipfDistribution(maxTagsPerThing, skew);
+		final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+		final long firstTagId = nextId(connection, "tag");
+		final long firstThingId = nextId(connection, "thing");
+		final Dataset dataset = new Dataset(firstThingId, things, firstTagId, tags, 0, nameLength);
+
+		// write the tag vocabulary
+		try (final PreparedStatement insertTag = connection.prepareStatement(INSERT_TAG)) {
+			for (int rank = 0; rank < tags; rank++) {
+				final long id = firstTagId + rank;
+				insertTag.setLong(1, id);
+				insertTag.setString(2, dataset.tagName(id));
+				insertTag.setString(3, null);
+				insertTag.setTimestamp(4, timestamp);
+				insertTag.setTimestamp(5, timestamp);
+				insertTag.addBatch();
+				if ((rank + 1) % batchSize == 0) {
+					insertTag.executeBatch();
+				}
+			}
+			if (tags % batchSize != 0) {
+				insertTag.executeBatch();
+			}
+		}
+
+		// write things and their tag links, flushing things before their links
+		long links = 0;
+		final long[] selected = new long[maxTagsPerThing];
+		try (final PreparedStatement insertThing = connection.prepareStatement(INSERT_THING);
+				final PreparedStatement insertLink = connection.prepareStatement(INSERT_LINK)) {
+			for (long n = 0; n < things; n++) {
+				final long id = firstThingId + n;
+				insertThing.setLong(1, id);
+				insertThing.setString(2, dataset.thingName(id));
+				insertThing.setString(3, "Generated thing #" + n);
+				insertThing.setTimestamp(4, timestamp);
+				insertThing.setTimestamp(5, timestamp);
+				insertThing.addBatch();
+
+				final int count = tagsPerThing.sample(random) + 1;
+				for (int i = 0; i < count; i++) {
+					long tagId;
+					do {
+						tagId = firstTagId + tagPopularity.sample(random);
+					} while (contains(selected, i, tagId));
+					selected[i] = tagId;
+					insertLink.setLong(1, id);
+					insertLink.setLong(2, tagId);
+					insertLink.addBatch();
+				}
+				links += count;
+
+				if ((n + 1) % batchSize == 0) {
+					insertThing.executeBatch();
+					insertLink.executeBatch();
+					connection.commit();
+				}
+				if ((n + 1) % PROGRESS_INTERVAL == 0) {
+					LOG.info("Generated {} of {} things", n + 1, things);
+				}
+			}
+			if (things % batchSize != 0) {
+				insertThing.executeBatch();
+				insertLink.executeBatch();
+			}
+		}
+
+		// let the application continue allocating identifiers past the dataset
+		try (final Statement statement = connection.createStatement()) {
+			statement.execute("alter table tag alter column id restart with " + (firstTagId + tags));
+			statement.execute("alter table thing alter column id restart with " + (firstThingId + things));
+		}
+
+		return new Dataset(firstThingId, things, firstTagId, tags, links, nameLength);
+	}
+
+	private static boolean contains(final long[] values, final int length, final long value) {
+		for (int i = 0; i < length; i++) {
+			if (values[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static long nextId(final Connection connection, final String table) throws SQLException {
+		try (final Statement statement = connection.createStatement();
+				final ResultSet rs = statement.executeQuery("select coalesce(max(id), 0) from " + table)) {
+			rs.next();
+			return rs.getLong(1) + 1;
+		}
+	}
+
+	/**
+	 * Writes a dataset snapshot to a standalone HSQLDB database (by default a
+	 * file database with cached tables under <code>target/dataset</code>),
+	 * creating the LOTS schema first if necessary. Generated rows are consistent
+	 * by construction, so referential integrity checks and the transaction log
+	 * are suspended while loading. Accepts
+	 * <code>--url</code>, <code>--user</code>, <code>--password</code>,
+	 * <code>--things</code>, <code>--tags</code>, <code>--max-tags-per-thing</code>,
+	 * <code>--name-length</code>, <code>--skew</code>, <code>--seed</code> and
+	 * <code>--batch-size</code>.
+	 * 
+	 * @param args
+	 *            the generator options
+	 * @throws Exception
+	 *             if the snapshot cannot be written
+	 */
+	public static void main(final String[] args) throws Exception {
+		final Arguments arguments = new Arguments(args);
+		final String url = arguments.get("url", "jdbc:hsqldb:file:target/dataset/lots");
+		final DatasetGenerator generator = new Builder()
+				.setThings(arguments.getLong("things", 1000000))
+				.setTags(arguments.getInt("tags", 10000))
+				.setMaxTagsPerThing(arguments.getInt("max-tags-per-thing", 10))
+				.setNameLength(arguments.getInt("name-length", 24))
+				.setSkew(arguments.getDouble("skew", 1.0))
+				.setSeed(arguments.getLong("seed", 42))
+				.setBatchSize(arguments.getInt("batch-size", 5000))
+				.build();
+
+		final SimpleDriverDataSource dataSource = new SimpleDriverDataSource(
+				new JDBCDriver(), url, arguments.get("user", "sa"), arguments.get("password", ""));
+		final boolean fileDatabase = url.startsWith("jdbc:hsqldb:file:");
+		try (final Connection connection = dataSource.getConnection();
+				final Statement statement = connection.createStatement()) {
+			if (!SchemaUtils.hasTable(connection, "THING")) {
+				if (fileDatabase) {
+					statement.execute("set database default table type cached");
+				}
+				new ResourceDatabasePopulator(new ClassPathResource("sql/schema.sql")).populate(connection);
+			}
+			if (fileDatabase) {
+				statement.execute("set files log false");
+				statement.execute("set files cache rows " + SNAPSHOT_CACHE_ROWS);
+				statement.execute("set files cache size " + SNAPSHOT_CACHE_SIZE);
+			}
+			statement.execute("set database referential integrity false");
+		}
+
+		generator.generate(dataSource);
+
+		try (final Connection connection = dataSource.getConnection();
+				final Statement statement = connection.createStatement()) {
+			statement.execute("set database referential integrity true");
+			if (fileDatabase) {
+				statement.execute("set files log true");
+			}
+			statement.execute("shutdown");
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench.data;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipf distribution over the ranks <code>0..n-1</code>, where rank
+ * <em>k</em> is drawn with a probability proportional to
+ * <code>1 / (k + 1)^exponent</code>. Sampling is a binary search of the
+ * precomputed cumulative distribution.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class ZipfDistribution {
+
+	private final double[] cumulative;
+
+	public ZipfDistribution(final int n, final double exponent) {
+		if (n < 1) {
+			throw new IllegalArgumentException("Zipf distribution needs at least one rank! n = " + n);
+		}
+		cumulative = new double[n];
+		double total = 0.0;
+		for (int k = 0; k < n; k++) {
+			total += 1.0 / Math.pow(k + 1, exponent);
+			cumulative[k] = total;
+		}
+		for (int k = 0; k < n; k++) {
+			cumulative[k] /= total;
+		}
+	}
+
+	public int getSize() {
+		return cumulative.length;
+	}
+
+	/**
+	 * Draws a rank.
+	 * 
+	 * @param random
+	 *            the source of randomness
+	 * @return a rank between zero (the most likely) and <code>n-1</code>
+	 */
+	public int sample(final Random random) {
+		final int index = Arrays.binarySearch(cumulative, random.nextDouble());
+		return Math.min((index >= 0) ? index : -index - 1, cumulative.length - 1);
+	}
+
+}
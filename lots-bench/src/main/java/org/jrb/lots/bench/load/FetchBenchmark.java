@@ -0,0 +1,220 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench.load;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares ways for a client to fetch many things from the List Of ThingS
+ * (LOTS) application. Each round fetches the same number of random things
+ * with every mode:
+ * <ul>
+ * <li><em>close</em> - one request after the other, each on a new connection</li>
+ * <li><em>keep-alive</em> - one request after the other on a persistent
+ * HTTP/1.1 connection</li>
+ * <li><em>parallel</em> - all requests at once over a pool of persistent
+ * connections, up to <em>connections</em></li>
+ * <li><em>multi-get</em> - a single <code>GET /api/thing?ids=...</code></li>
+ * </ul>
+ * Fetches that fail, e.g. parallel ones shed by the concurrency limit, are
+ * counted rather than retried. Accepts the same arguments as
+ * {@link LoadTest}; see {@link LoadOptions}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public final class FetchBenchmark {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FetchBenchmark.class);
+
+	private static final String THING_PATH = "/api/thing";
+
+	private enum Mode {
+		CLOSE("close"), KEEP_ALIVE("keep-alive"), PARALLEL("parallel"), MULTI_GET("multi-get");
+
+		private final String name;
+
+		private Mode(final String name) {
+			this.name = name;
+		}
+
+	}
+
+	private final CloseableHttpClient client;
+	private final Workload workload;
+	private final ExecutorService executor;
+	private final int fetchSize;
+	private final AtomicInteger failures = new AtomicInteger();
+
+	private FetchBenchmark(
+			final CloseableHttpClient client,
+			final Workload workload,
+			final ExecutorService executor,
+			final int fetchSize) {
+		this.client = client;
+		this.workload = workload;
+		this.executor = executor;
+		this.fetchSize = fetchSize;
+	}
+
+	/**
+	 * Main entry point for the LOTS fetch benchmark.
+	 * 
+	 * @param args
+	 *            the load test options
+	 * @throws Exception
+	 *             if the benchmark cannot be run
+	 */
+	public static void main(final String[] args) throws Exception {
+		final LoadOptions options = new LoadOptions(args);
+		LOG.info("Starting fetch benchmark: {}", options);
+
+		final int rounds = options.getRounds();
+		final List<long[]> results = new ArrayList<>();
+		final List<Integer> failures = new ArrayList<>();
+		final ConfigurableApplicationContext context = LoadTest.start(options);
+		try {
+			final Workload workload = LoadTest.seed(context, options);
+			final ExecutorService executor =
+					Executors.newFixedThreadPool(Math.min(options.getConnections(), options.getFetchSize()));
+			try (final CloseableHttpClient client = LoadTest.newClient(options)) {
+				final FetchBenchmark benchmark = new FetchBenchmark(client, workload, executor, options.getFetchSize());
+				for (final Mode mode : Mode.values()) {
+					benchmark.run(mode, Math.max(1, rounds / 10));
+					benchmark.failures.set(0);
+					results.add(benchmark.run(mode, rounds));
+					failures.add(benchmark.failures.get());
+				}
+			} finally {
+				executor.shutdownNow();
+			}
+		} finally {
+			context.close();
+		}
+
+		System.out.println(String.format("%-12s %10s %10s %10s %12s %10s",
+				"mode", "mean ms", "p50 ms", "p99 ms", "things/s", "failures"));
+		for (final Mode mode : Mode.values()) {
+			final long[] latencies = results.get(mode.ordinal());
+			long total = 0;
+			for (final long latency : latencies) {
+				total += latency;
+			}
+			System.out.println(String.format("%-12s %10.2f %10.2f %10.2f %12.0f %10d",
+					mode.name,
+					millis(total / latencies.length),
+					millis(latencies[latencies.length / 2]),
+					millis(latencies[(int) Math.min(latencies.length - 1, Math.ceil(latencies.length * 0.99) - 1)]),
+					(double) options.getFetchSize() * latencies.length / (total / 1e9),
+					failures.get(mode.ordinal())));
+		}
+	}
+
+	private static double millis(final long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 * Fetches things in rounds.
+	 * 
+	 * @return the sorted round latencies, in nanoseconds
+	 */
+	private long[] run(final Mode mode, final int rounds) throws Exception {
+		final long[] latencies = new long[rounds];
+		for (int round = 0; round < rounds; round++) {
+			final long[] ids = new long[fetchSize];
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = workload.randomThingId();
+			}
+			final long start = System.nanoTime();
+			fetch(mode, ids);
+			latencies[round] = System.nanoTime() - start;
+		}
+		Arrays.sort(latencies);
+		return latencies;
+	}
+
+	private void fetch(final Mode mode, final long[] ids) throws Exception {
+		switch (mode) {
+		case CLOSE:
+		case KEEP_ALIVE:
+			for (final long id : ids) {
+				get(THING_PATH + "/" + id, mode == Mode.CLOSE);
+			}
+			break;
+		case PARALLEL:
+			final List<Future<Void>> futures = new ArrayList<>(ids.length);
+			for (final long id : ids) {
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						get(THING_PATH + "/" + id, false);
+						return null;
+					}
+				}));
+			}
+			for (final Future<Void> future : futures) {
+				future.get();
+			}
+			break;
+		case MULTI_GET:
+			final StringBuilder path = new StringBuilder(THING_PATH).append("?ids=");
+			for (int i = 0; i < ids.length; i++) {
+				path.append((i > 0) ? "," : "").append(ids[i]);
+			}
+			get(path.toString(), false);
+			break;
+		}
+	}
+
+	private void get(final String path, final boolean close) throws IOException {
+		final HttpGet request = new HttpGet(workload.uri(path));
+		if (close) {
+			request.setHeader("Connection", "close");
+		}
+		try (final CloseableHttpResponse response = client.execute(request)) {
+			EntityUtils.consume(response.getEntity());
+			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+				failures.incrementAndGet();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,222 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench.load;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.jrb.commons.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Open-model load generator. Requests are issued on a fixed schedule derived
+ * from the arrival rate, independently of how quickly earlier requests
+ * complete, and each latency is measured from the request's intended start
+ * time. A slow server therefore shows up as queueing delay in the recorded
+ * latencies rather than as a silently reduced request rate (coordinated
+ * omission).
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class LoadGenerator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(LoadGenerator.class);
+
+	/**
+	 * Per-operation measurements.
+	 */
+	private static class Recorder {
+
+		private final LatencyHistogram latencies = new LatencyHistogram();
+
+		private final AtomicLong errors = new AtomicLong();
+
+		void record(final long latencyNanos, final boolean successful) {
+			latencies.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+			if (!successful) {
+				errors.incrementAndGet();
+			}
+		}
+
+		LoadResult.OperationResult toResult(final double seconds) {
+			final LoadResult.OperationResult result = new LoadResult.OperationResult();
+			final long requests = latencies.getCount();
+			result.setRequests(requests);
+			result.setErrors(errors.get());
+			result.setThroughput((requests - errors.get()) / seconds);
+			result.setMean(latencies.getMean() / 1000.0);
+			result.setP50(latencies.getValueAtPercentile(50.0) / 1000.0);
+			result.setP90(latencies.getValueAtPercentile(90.0) / 1000.0);
+			result.setP99(latencies.getValueAtPercentile(99.0) / 1000.0);
+			result.setP999(latencies.getValueAtPercentile(99.9) / 1000.0);
+			result.setMax(latencies.getMax() / 1000.0);
+			return result;
+		}
+
+	}
+
+	/**
+	 * A single scheduled request.
+	 */
+	private class Request implements Runnable {
+
+		private final Operation operation;
+
+		private final long intendedStart;
+
+		private final Recorder recorder;
+
+		Request(final Operation operation, final long intendedStart, final Recorder recorder) {
+			this.operation = operation;
+			this.intendedStart = intendedStart;
+			this.recorder = recorder;
+		}
+
+		@Override
+		public void run() {
+			boolean successful = false;
+			try {
+				final HttpUriRequest request = operation.request(workload);
+				try (final CloseableHttpResponse response = client.execute(request)) {
+					operation.completed(workload, response);
+					EntityUtils.consume(response.getEntity());
+					successful = operation.isSuccessful(response.getStatusLine().getStatusCode());
+				}
+			} catch (final IOException | RuntimeException e) {
+				LOG.debug("{} failed: {}", operation.getName(), e.getMessage());
+			}
+			if (recorder != null) {
+				recorder.record(System.nanoTime() - intendedStart, successful);
+				completed.incrementAndGet();
+			}
+		}
+
+	}
+
+	private final CloseableHttpClient client;
+
+	private final Workload workload;
+
+	private final LoadOptions options;
+
+	private final Operation[] operations;
+
+	private final int[] cumulativeWeights;
+
+	private final AtomicLong completed = new AtomicLong();
+
+	public LoadGenerator(final CloseableHttpClient client, final Workload workload, final LoadOptions options) {
+		this.client = client;
+		this.workload = workload;
+		this.options = options;
+
+		final Map<Operation, Integer> mix = options.getMix();
+		operations = mix.keySet().toArray(new Operation[mix.size()]);
+		cumulativeWeights = new int[operations.length];
+		int total = 0;
+		for (int i = 0; i < operations.length; i++) {
+			total += mix.get(operations[i]);
+			cumulativeWeights[i] = total;
+		}
+	}
+
+	private Operation nextOperation() {
+		final int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+		for (int i = 0; i < cumulativeWeights.length; i++) {
+			if (pick < cumulativeWeights[i]) {
+				return operations[i];
+			}
+		}
+		return operations[operations.length - 1];
+	}
+
+	/**
+	 * Drives the workload for the configured warmup and measurement periods.
+	 * 
+	 * @return the measured result
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for outstanding requests
+	 */
+	public LoadResult run() throws InterruptedException {
+		final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+		for (final Operation operation : operations) {
+			recorders.put(operation, new Recorder());
+		}
+
+		final int connections = options.getConnections();
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(connections, connections,
+				0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+
+		final double rate = options.getRate();
+		final long start = System.nanoTime();
+		final long measureStart = start + options.getWarmupNanos();
+		final long end = measureStart + options.getDurationNanos();
+		LOG.info("Offering {} req/s until {} s", rate, TimeUnit.NANOSECONDS.toSeconds(end - start));
+
+		long measured = 0;
+		for (long i = 0;; i++) {
+			final long intendedStart = start + (long) (i * 1e9 / rate);
+			if (intendedStart >= end) {
+				break;
+			}
+			long delay;
+			while ((delay = intendedStart - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(delay);
+			}
+			final Operation operation = nextOperation();
+			final boolean measuring = intendedStart >= measureStart;
+			executor.execute(new Request(operation, intendedStart, measuring ? recorders.get(operation) : null));
+			if (measuring) {
+				measured++;
+			}
+		}
+
+		executor.shutdown();
+		if (!executor.awaitTermination(options.getTimeoutMillis() * 2L, TimeUnit.MILLISECONDS)) {
+			executor.shutdownNow();
+		}
+
+		final LoadResult result = new LoadResult();
+		final double seconds = options.getDurationNanos() / 1e9;
+		result.setRate(rate);
+		result.setDuration(seconds);
+		result.setIncomplete(measured - completed.get());
+		for (final Map.Entry<Operation, Recorder> entry : recorders.entrySet()) {
+			result.getOperations().put(entry.getKey().getName(), entry.getValue().toResult(seconds));
+		}
+		return result;
+	}
+
+}
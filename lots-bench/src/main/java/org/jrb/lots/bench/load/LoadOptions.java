@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench.load;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jrb.lots.bench.Arguments;
+
+/**
+ * Options of a load test run, given on the command line as
+ * <code>--name=value</code> pairs.
+ * <ul>
+ * <li><em>rate</em> - requests per second issued, regardless of how fast
+ * they complete (default 200)</li>
+ * <li><em>duration</em> - measured seconds (default 60)</li>
+ * <li><em>warmup</em> - unmeasured seconds before the measurement (default 10)</li>
+ * <li><em>mix</em> - relative operation weights, e.g.
+ * <code>findThing=50,createThing=10</code> (default {@link #DEFAULT_MIX})</li>
+ * <li><em>things</em>, <em>tags</em>, <em>max-tags-per-thing</em>,
+ * <em>name-length</em>, <em>skew</em>, <em>seed</em> - shape of the generated
+ * dataset (default 10000, 1000, 5, 24, 1.0, 42; see
+ * {@link org.jrb.lots.bench.data.DatasetGenerator})</li>
+ * <li><em>connections</em> - maximum concurrent requests (default 256)</li>
+ * <li><em>timeout</em> - request timeout in milliseconds (default 5000)</li>
+ * <li><em>result</em> - where results are written (default
+ * target/load-result.json)</li>
+ * <li><em>baseline</em> - baseline results to compare with (default
+ * target/load-baseline.json); created from the first run</li>
+ * <li><em>threshold</em> - tolerated degradation in percent (default 10)</li>
+ * <li><em>update-baseline</em> - replace the baseline with this run</li>
+ * <li><em>fetch-size</em>, <em>rounds</em> - things fetched per round and
+ * measured rounds of {@link FetchBenchmark} (default 50, 200)</li>
+ * <li><em>app.*</em> - application properties, e.g.
+ * <code>--app.http.async.virtual-threads=true</code></li>
+ * </ul>
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class LoadOptions {
+
+	public static final String DEFAULT_MIX =
+			"findThing=50,listThings=1,createThing=10,updateThing=10,deleteThing=4,findTag=20,listTags=3,createTag=2";
+
+	private final Arguments arguments;
+
+	public LoadOptions(final String... args) {
+		arguments = new Arguments(args);
+	}
+
+	private String get(final String name, final String defaultValue) {
+		return arguments.get(name, defaultValue);
+	}
+
+	/**
+	 * Retrieves the application properties to run the server with.
+	 * 
+	 * @return the properties as command line arguments
+	 */
+	public List<String> getApplicationArguments() {
+		final List<String> applicationArguments = new ArrayList<>();
+		for (final Map.Entry<String, String> entry : arguments.getPrefixed("app.").entrySet()) {
+			applicationArguments.add("--" + entry.getKey() + "=" + entry.getValue());
+		}
+		return applicationArguments;
+	}
+
+	public String getBaseline() {
+		return get("baseline", "target/load-baseline.json");
+	}
+
+	public int getConnections() {
+		return Integer.parseInt(get("connections", "256"));
+	}
+
+	public long getDurationNanos() {
+		return TimeUnit.SECONDS.toNanos(Long.parseLong(get("duration", "60")));
+	}
+
+	public int getFetchSize() {
+		return Integer.parseInt(get("fetch-size", "50"));
+	}
+
+	public Map<Operation, Integer> getMix() {
+		final Map<Operation, Integer> mix = new LinkedHashMap<>();
+		for (final String entry : get("mix", DEFAULT_MIX).split(",")) {
+			final String[] pair = entry.trim().split("=");
+			if (pair.length != 2) {
+				throw new IllegalArgumentException("Invalid mix entry! entry = " + entry);
+			}
+			final int weight = Integer.parseInt(pair[1].trim());
+			if (weight > 0) {
+				mix.put(Operation.forName(pair[0].trim()), weight);
+			}
+		}
+		if (mix.isEmpty()) {
+			throw new IllegalArgumentException("Operation mix is empty!");
+		}
+		return mix;
+	}
+
+	public double getRate() {
+		return Double.parseDouble(get("rate", "200"));
+	}
+
+	public int getRounds() {
+		return Integer.parseInt(get("rounds", "200"));
+	}
+
+	public String getResult() {
+		return get("result", "target/load-result.json");
+	}
+
+	public int getTags() {
+		return Integer.parseInt(get("tags", "1000"));
+	}
+
+	public int getMaxTagsPerThing() {
+		return Integer.parseInt(get("max-tags-per-thing", "5"));
+	}
+
+	public int getNameLength() {
+		return Integer.parseInt(get("name-length", "24"));
+	}
+
+	public long getSeed() {
+		return Long.parseLong(get("seed", "42"));
+	}
+
+	public double getSkew() {
+		return Double.parseDouble(get("skew", "1.0"));
+	}
+
+	public long getThings() {
+		return Long.parseLong(get("things", "10000"));
+	}
+
+	public double getThreshold() {
+		return Double.parseDouble(get("threshold", "10"));
+	}
+
+	public int getTimeoutMillis() {
+		return Integer.parseInt(get("timeout", "5000"));
+	}
+
+	public long getWarmupNanos() {
+		return TimeUnit.SECONDS.toNanos(Long.parseLong(get("warmup", "10")));
+	}
+
+	public boolean isUpdateBaseline() {
+		return Boolean.parseBoolean(get("update-baseline", "false"));
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " " + arguments;
+	}
+
+}
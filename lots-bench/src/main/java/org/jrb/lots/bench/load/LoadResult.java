@@ -0,0 +1,277 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * The outcome of a load test run: per-operation throughput, error counts and
+ * latency percentiles (in milliseconds, measured from each request's intended
+ * start). Results are stored as JSON and may be compared with a baseline.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class LoadResult {
+
+	/**
+	 * Statistics for a single operation.
+	 */
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public static class OperationResult {
+
+		private long requests;
+		private long errors;
+		private double throughput;
+		private double mean;
+		private double p50;
+		private double p90;
+		private double p99;
+		private double p999;
+		private double max;
+
+		public long getErrors() {
+			return errors;
+		}
+
+		public double getErrorRate() {
+			return (requests > 0) ? (double) errors / requests : 0.0;
+		}
+
+		public double getMax() {
+			return max;
+		}
+
+		public double getMean() {
+			return mean;
+		}
+
+		public double getP50() {
+			return p50;
+		}
+
+		public double getP90() {
+			return p90;
+		}
+
+		public double getP99() {
+			return p99;
+		}
+
+		public double getP999() {
+			return p999;
+		}
+
+		public long getRequests() {
+			return requests;
+		}
+
+		public double getThroughput() {
+			return throughput;
+		}
+
+		public void setErrors(final long errors) {
+			this.errors = errors;
+		}
+
+		public void setMax(final double max) {
+			this.max = max;
+		}
+
+		public void setMean(final double mean) {
+			this.mean = mean;
+		}
+
+		public void setP50(final double p50) {
+			this.p50 = p50;
+		}
+
+		public void setP90(final double p90) {
+			this.p90 = p90;
+		}
+
+		public void setP99(final double p99) {
+			this.p99 = p99;
+		}
+
+		public void setP999(final double p999) {
+			this.p999 = p999;
+		}
+
+		public void setRequests(final long requests) {
+			this.requests = requests;
+		}
+
+		public void setThroughput(final double throughput) {
+			this.throughput = throughput;
+		}
+
+	}
+
+	/**
+	 * Operations with fewer baseline requests than this are too noisy to be
+	 * compared.
+	 */
+	public static final long MIN_COMPARABLE_REQUESTS = 100;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.configure(SerializationFeature.INDENT_OUTPUT, true);
+
+	public static LoadResult read(final File file) throws IOException {
+		return MAPPER.readValue(file, LoadResult.class);
+	}
+
+	private double rate;
+
+	private double duration;
+
+	private long incomplete;
+
+	private Map<String, OperationResult> operations = new LinkedHashMap<>();
+
+	/**
+	 * Compares this result with a baseline.
+	 * 
+	 * @param baseline
+	 *            the baseline result
+	 * @param thresholdPercent
+	 *            the tolerated degradation, in percent
+	 * @return a description of each regression; empty if there are none
+	 */
+	public List<String> compare(final LoadResult baseline, final double thresholdPercent) {
+		final List<String> regressions = new ArrayList<>();
+		final double factor = 1.0 + thresholdPercent / 100.0;
+		for (final Map.Entry<String, OperationResult> entry : baseline.operations.entrySet()) {
+			final OperationResult before = entry.getValue();
+			final OperationResult after = operations.get(entry.getKey());
+			if (after == null || before.requests < MIN_COMPARABLE_REQUESTS) {
+				continue;
+			}
+			final String name = entry.getKey();
+			if (after.p50 > before.p50 * factor) {
+				regressions.add(regression(name, "p50", before.p50, after.p50));
+			}
+			if (after.p99 > before.p99 * factor) {
+				regressions.add(regression(name, "p99", before.p99, after.p99));
+			}
+			if (after.getErrorRate() > before.getErrorRate() + thresholdPercent / 100.0) {
+				regressions.add(regression(name, "error rate", before.getErrorRate(), after.getErrorRate()));
+			}
+		}
+		if (getThroughput() * factor < baseline.getThroughput()) {
+			regressions.add(regression("all", "throughput", baseline.getThroughput(), getThroughput()));
+		}
+		if (incomplete > baseline.incomplete) {
+			regressions.add(regression("all", "incomplete", baseline.incomplete, incomplete));
+		}
+		return regressions;
+	}
+
+	public double getDuration() {
+		return duration;
+	}
+
+	public long getIncomplete() {
+		return incomplete;
+	}
+
+	public Map<String, OperationResult> getOperations() {
+		return operations;
+	}
+
+	/**
+	 * Calculates the successful requests per second across all operations.
+	 * Individual operations are not compared on throughput, as their share of
+	 * a randomly mixed workload varies from run to run.
+	 * 
+	 * @return the overall throughput
+	 */
+	public double getThroughput() {
+		double throughput = 0.0;
+		for (final OperationResult op : operations.values()) {
+			throughput += op.throughput;
+		}
+		return throughput;
+	}
+
+	public double getRate() {
+		return rate;
+	}
+
+	/**
+	 * Prints a human-readable summary of this result.
+	 * 
+	 * @param out
+	 *            the stream to print to
+	 */
+	public void print(final PrintStream out) {
+		out.printf("%-12s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+				"operation", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+		for (final Map.Entry<String, OperationResult> entry : operations.entrySet()) {
+			final OperationResult op = entry.getValue();
+			out.printf("%-12s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+					entry.getKey(), op.requests, op.errors, op.throughput, op.p50, op.p90, op.p99, op.p999, op.max);
+		}
+		out.printf("offered %.1f req/s for %.0f s; achieved %.1f req/s; %d requests incomplete%n",
+				rate, duration, getThroughput(), incomplete);
+	}
+
+	private String regression(final String name, final String metric, final double before, final double after) {
+		return String.format("%s %s: %.3f -> %.3f", name, metric, before, after);
+	}
+
+	public void setDuration(final double duration) {
+		this.duration = duration;
+	}
+
+	public void setIncomplete(final long incomplete) {
+		this.incomplete = incomplete;
+	}
+
+	public void setOperations(final Map<String, OperationResult> operations) {
+		this.operations = operations;
+	}
+
+	public void setRate(final double rate) {
+		this.rate = rate;
+	}
+
+	public void write(final File file) throws IOException {
+		final File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		MAPPER.writeValue(file, this);
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench.load;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.jrb.lots.SpringApplication;
+import org.jrb.lots.bench.data.Dataset;
+import org.jrb.lots.bench.data.DatasetGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * End-to-end load test of the List Of ThingS (LOTS) application. Boots the
+ * application on an ephemeral loopback port against the LOCAL embedded
+ * database, generates a dataset, drives a mixed CRUD workload against
+ * <code>/api/thing</code> and <code>/api/tag</code> at a fixed arrival rate
+ * and compares the outcome with a stored baseline. Exits with status 1 when a
+ * regression beyond the threshold is found. See {@link LoadOptions} for the
+ * accepted arguments.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public final class LoadTest {
+
+	private static final Logger LOG = LoggerFactory.getLogger(LoadTest.class);
+
+	private static final String LOOPBACK = "127.0.0.1";
+
+	private LoadTest() {
+	}
+
+	/**
+	 * Main entry point for the LOTS load test.
+	 * 
+	 * @param args
+	 *            the load test options
+	 * @throws Exception
+	 *             if the load test cannot be run
+	 */
+	public static void main(final String[] args) throws Exception {
+		final LoadOptions options = new LoadOptions(args);
+		LOG.info("Starting load test: {}", options);
+
+		final LoadResult result;
+		final ConfigurableApplicationContext context = start(options);
+		try {
+			final Workload workload = seed(context, options);
+			try (final CloseableHttpClient client = newClient(options)) {
+				result = new LoadGenerator(client, workload, options).run();
+			}
+		} finally {
+			context.close();
+		}
+
+		result.print(System.out);
+		result.write(new File(options.getResult()));
+
+		final File baselineFile = new File(options.getBaseline());
+		if (options.isUpdateBaseline() || !baselineFile.exists()) {
+			result.write(baselineFile);
+			LOG.info("Baseline written to {}", baselineFile);
+			return;
+		}
+		final LoadResult baseline = LoadResult.read(baselineFile);
+		if (baseline.getRate() != result.getRate()) {
+			LOG.warn("Baseline was recorded at {} req/s, not {}; skipping comparison", baseline.getRate(),
+					result.getRate());
+			return;
+		}
+		final List<String> regressions = result.compare(baseline, options.getThreshold());
+		if (!regressions.isEmpty()) {
+			for (final String regression : regressions) {
+				System.out.println("REGRESSION " + regression);
+			}
+			System.exit(1);
+		}
+		LOG.info("No regressions beyond {}% of {}", options.getThreshold(), baselineFile);
+	}
+
+	/**
+	 * Boots the application on an ephemeral loopback port.
+	 * 
+	 * @param options
+	 *            the load test options
+	 * @return the application context
+	 */
+	static ConfigurableApplicationContext start(final LoadOptions options) {
+		final List<String> applicationArguments = new ArrayList<>(Arrays.asList(
+				"--http.server.address=" + LOOPBACK,
+				"--http.server.port=0",
+				"--security.basic.enabled=false",
+				"--spring.jpa.show-sql=false"));
+		boolean rateLimitSet = false;
+		for (final String argument : options.getApplicationArguments()) {
+			applicationArguments.add(argument);
+			rateLimitSet |= argument.startsWith("--http.ratelimit.enabled=");
+		}
+		if (!rateLimitSet) {
+			// all load comes from one client, which would be held to its budget
+			applicationArguments.add("--http.ratelimit.enabled=false");
+		}
+
+		return new SpringApplicationBuilder(SpringApplication.class)
+				.profiles(SpringApplication.ENV_LOCAL)
+				.showBanner(false)
+				.run(applicationArguments.toArray(new String[applicationArguments.size()]));
+	}
+
+	static CloseableHttpClient newClient(final LoadOptions options) {
+		final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(options.getConnections());
+		connectionManager.setDefaultMaxPerRoute(options.getConnections());
+		final RequestConfig requestConfig = RequestConfig.custom()
+				.setConnectTimeout(options.getTimeoutMillis())
+				.setConnectionRequestTimeout(options.getTimeoutMillis())
+				.setSocketTimeout(options.getTimeoutMillis())
+				.build();
+		return HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setDefaultRequestConfig(requestConfig)
+				.build();
+	}
+
+	static Workload seed(final ConfigurableApplicationContext context, final LoadOptions options)
+			throws SQLException {
+		final int port = ((EmbeddedWebApplicationContext) context).getEmbeddedServletContainer().getPort();
+		final Dataset dataset = new DatasetGenerator.Builder()
+				.setThings(options.getThings())
+				.setTags(options.getTags())
+				.setMaxTagsPerThing(options.getMaxTagsPerThing())
+				.setNameLength(options.getNameLength())
+				.setSkew(options.getSkew())
+				.setSeed(options.getSeed())
+				.build()
+				.generate(context.getBean(DataSource.class));
+		return new Workload("http://" + LOOPBACK + ":" + port, dataset, options.getMaxTagsPerThing(), options.getSkew());
+	}
+
+}
@@ -0,0 +1,209 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench.load;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPatch;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+
+/**
+ * The CRUD operations exercised by a load test, each able to build its next
+ * request against a {@link Workload}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public enum Operation {
+
+	FIND_THING("findThing") {
+		@Override
+		public HttpUriRequest request(final Workload workload) {
+			return new HttpGet(workload.uri(THING_PATH + "/" + workload.randomThingId()));
+		}
+	},
+
+	FIND_MISSING_THING("findMissingThing") {
+		@Override
+		public HttpUriRequest request(final Workload workload) {
+			return new HttpGet(workload.uri(THING_PATH + "/" + workload.randomMissingThingId()));
+		}
+
+		@Override
+		public boolean isSuccessful(final int status) {
+			return status == HttpStatus.SC_NOT_FOUND;
+		}
+	},
+
+	LIST_THINGS("listThings") {
+		@Override
+		public HttpUriRequest request(final Workload workload) {
+			return new HttpGet(workload.uri(THING_PATH));
+		}
+	},
+
+	CREATE_THING("createThing") {
+		@Override
+		public HttpUriRequest request(final Workload workload) {
+			final StringBuilder tagnames = new StringBuilder();
+			for (final String tagname : workload.randomTagnames()) {
+				tagnames.append(tagnames.length() > 0 ? ",\"" : "\"").append(tagname).append('"');
+			}
+			return json(new HttpPost(workload.uri(THING_PATH)),
+					"{\"name\":\"" + workload.nextName("LOAD_THING_") + "\","
+							+ "\"description\":\"Created under load\","
+							+ "\"tagnames\":[" + tagnames + "]}");
+		}
+
+		@Override
+		public void completed(final Workload workload, final HttpResponse response) {
+			final Header location = response.getFirstHeader("Location");
+			if (response.getStatusLine().getStatusCode() == HttpStatus.SC_CREATED && location != null) {
+				final String uri = location.getValue();
+				workload.thingCreated(Long.valueOf(uri.substring(uri.lastIndexOf('/') + 1)));
+			}
+		}
+	},
+
+	UPDATE_THING("updateThing") {
+		@Override
+		public HttpUriRequest request(final Workload workload) {
+			final long thingId = workload.randomThingId();
+			return json(new HttpPatch(workload.uri(THING_PATH + "/" + thingId)),
+					"{\"name\":\"" + workload.thingName(thingId) + "\","
+							+ "\"description\":\"Updated under load " + System.nanoTime() + "\"}");
+		}
+	},
+
+	DELETE_THING("deleteThing") {
+		@Override
+		public HttpUriRequest request(final Workload workload) {
+			final Long thingId = workload.pollCreatedThingId();
+			return (thingId != null)
+					? new HttpDelete(workload.uri(THING_PATH + "/" + thingId))
+					: FIND_THING.request(workload);
+		}
+	},
+
+	FIND_TAG("findTag") {
+		@Override
+		public HttpUriRequest request(final Workload workload) {
+			return new HttpGet(workload.uri(TAG_PATH + "/" + workload.randomTagId()));
+		}
+	},
+
+	FIND_MISSING_TAG("findMissingTag") {
+		@Override
+		public HttpUriRequest request(final Workload workload) {
+			return new HttpGet(workload.uri(TAG_PATH + "/" + workload.randomMissingTagId()));
+		}
+
+		@Override
+		public boolean isSuccessful(final int status) {
+			return status == HttpStatus.SC_NOT_FOUND;
+		}
+	},
+
+	LIST_TAGS("listTags") {
+		@Override
+		public HttpUriRequest request(final Workload workload) {
+			return new HttpGet(workload.uri(TAG_PATH));
+		}
+	},
+
+	CREATE_TAG("createTag") {
+		@Override
+		public HttpUriRequest request(final Workload workload) {
+			return json(new HttpPost(workload.uri(TAG_PATH)),
+					"{\"name\":\"" + workload.nextName("LOAD_TAG_") + "\"}");
+		}
+	};
+
+	private static final String TAG_PATH = "/api/tag";
+
+	private static final String THING_PATH = "/api/thing";
+
+	public static Operation forName(final String name) {
+		for (final Operation operation : values()) {
+			if (operation.name.equals(name)) {
+				return operation;
+			}
+		}
+		throw new IllegalArgumentException("Unknown operation! name = " + name);
+	}
+
+	private static <T extends HttpEntityEnclosingRequestBase> T json(final T request, final String body) {
+		request.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+		return request;
+	}
+
+	private final String name;
+
+	private Operation(final String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Notified of the response to a request of this operation, before its
+	 * content is consumed.
+	 * 
+	 * @param workload
+	 *            the workload that issued the request
+	 * @param response
+	 *            the response
+	 */
+	public void completed(final Workload workload, final HttpResponse response) {
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Tells whether a response status is the expected outcome of this
+	 * operation.
+	 * 
+	 * @param status
+	 *            the response status code
+	 * @return <code>true</code> if the request succeeded
+	 */
+	public boolean isSuccessful(final int status) {
+		return status < 400;
+	}
+
+	/**
+	 * Builds the next request of this operation.
+	 * 
+	 * @param workload
+	 *            the workload supplying target URIs and entity identifiers
+	 * @return the request
+	 */
+	public abstract HttpUriRequest request(Workload workload);
+
+}
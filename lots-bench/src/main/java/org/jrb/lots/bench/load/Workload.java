@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.bench.load;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jrb.lots.bench.data.Dataset;
+import org.jrb.lots.bench.data.ZipfDistribution;
+
+/**
+ * The workload a load test runs: the base URI of the application under test,
+ * the generated {@link Dataset} it addresses and the things created during
+ * the run (which are the only ones ever deleted, so lookups of generated
+ * things keep succeeding). New things are tagged like generated ones, with a
+ * Zipf-distributed number of tags of Zipf-distributed popularity.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class Workload {
+
+	private final String baseUri;
+
+	private final Dataset dataset;
+
+	private final ZipfDistribution tagPopularity;
+
+	private final ZipfDistribution tagsPerThing;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final Queue<Long> createdThingIds = new ConcurrentLinkedQueue<>();
+
+	public Workload(
+			final String baseUri,
+			final Dataset dataset,
+			final int maxTagsPerThing,
+			final double skew) {
+		this.baseUri = baseUri;
+		this.dataset = dataset;
+		this.tagPopularity = new ZipfDistribution(dataset.getTagCount(), skew);
+		this.tagsPerThing = new ZipfDistribution(Math.min(maxTagsPerThing, dataset.getTagCount()), skew);
+	}
+
+	public String nextName(final String prefix) {
+		return prefix + System.currentTimeMillis() + "_" + sequence.incrementAndGet();
+	}
+
+	public Long pollCreatedThingId() {
+		return createdThingIds.poll();
+	}
+
+	public long randomTagId() {
+		return dataset.getFirstTagId() + ThreadLocalRandom.current().nextInt(dataset.getTagCount());
+	}
+
+	public String[] randomTagnames() {
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		final String[] selected = new String[tagsPerThing.sample(random) + 1];
+		for (int i = 0; i < selected.length; i++) {
+			selected[i] = dataset.tagName(dataset.getFirstTagId() + tagPopularity.sample(random));
+		}
+		return selected;
+	}
+
+	/**
+	 * Returns an identifier that no tag of the dataset, nor one created while
+	 * under load, can have.
+	 */
+	public long randomMissingTagId() {
+		return -1 - ThreadLocalRandom.current().nextInt(dataset.getTagCount());
+	}
+
+	/**
+	 * Returns an identifier that no thing of the dataset, nor one created while
+	 * under load, can have.
+	 */
+	public long randomMissingThingId() {
+		return -1 - ThreadLocalRandom.current().nextLong(dataset.getThingCount());
+	}
+
+	public long randomThingId() {
+		return dataset.getFirstThingId() + ThreadLocalRandom.current().nextLong(dataset.getThingCount());
+	}
+
+	public void thingCreated(final Long thingId) {
+		createdThingIds.add(thingId);
+	}
+
+	public String thingName(final long thingId) {
+		return dataset.thingName(thingId);
+	}
+
+	public String uri(final String path) {
+		return baseUri + path;
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.jdbc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.apache.tomcat.jdbc.pool.ConnectionPool;
+import org.apache.tomcat.jdbc.pool.DataSourceProxy;
+import org.apache.tomcat.jdbc.pool.PoolConfiguration;
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Actuator endpoint exposing the state of a pooled {@link DataSource}: the
+ * number of open, active and idle connections, how many threads are waiting
+ * for one, and the configured bounds. Decorating data sources (such as a
+ * {@link StatementCountingDataSource}) are looked through, and a
+ * {@link ReadWriteRoutingDataSource} is reported per side along with the
+ * number of connections routed to it.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class ConnectionPoolEndpoint extends AbstractEndpoint<Map<String, Object>> {
+
+	private final DataSource dataSource;
+
+	public ConnectionPoolEndpoint(final DataSource dataSource) {
+		super("/dbpool");
+		this.dataSource = dataSource;
+	}
+
+	@Override
+	public Map<String, Object> invoke() {
+		final DataSource target = unwrap(dataSource);
+		if (target instanceof ReadWriteRoutingDataSource) {
+			final ReadWriteRoutingDataSource routing = (ReadWriteRoutingDataSource) target;
+			final Map<String, Object> result = new LinkedHashMap<>();
+			final Map<String, Object> primary = describe(routing.getPrimary());
+			primary.put("routed", routing.getPrimaryConnections());
+			result.put(ReadWriteRoutingDataSource.PRIMARY, primary);
+			final Map<String, Object> replica = describe(routing.getReplica());
+			replica.put("routed", routing.getReplicaConnections());
+			result.put(ReadWriteRoutingDataSource.REPLICA, replica);
+			return result;
+		}
+		return describe(target);
+	}
+
+	private Map<String, Object> describe(final DataSource dataSource) {
+		final Map<String, Object> result = new LinkedHashMap<>();
+		final DataSource target = unwrap(dataSource);
+		final ConnectionPool pool = (target instanceof DataSourceProxy) ? ((DataSourceProxy) target).getPool() : null;
+		result.put("pooled", pool != null);
+		if (pool != null) {
+			final PoolConfiguration config = pool.getPoolProperties();
+			result.put("name", pool.getName());
+			result.put("size", pool.getSize());
+			result.put("active", pool.getActive());
+			result.put("idle", pool.getIdle());
+			result.put("waiting", pool.getWaitCount());
+			result.put("maxActive", config.getMaxActive());
+			result.put("minIdle", config.getMinIdle());
+			result.put("maxWait", config.getMaxWait());
+		}
+		return result;
+	}
+
+	private DataSource unwrap(final DataSource dataSource) {
+		DataSource target = dataSource;
+		while (target instanceof DelegatingDataSource) {
+			target = ((DelegatingDataSource) target).getTargetDataSource();
+		}
+		return target;
+	}
+
+}
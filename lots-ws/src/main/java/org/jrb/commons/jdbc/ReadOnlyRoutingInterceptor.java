@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.jdbc;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+
+/**
+ * Method interceptor entering each service call into the current
+ * {@link RoutingContext}, as read-only if the method (or its declaring type)
+ * is annotated {@link ReadOnly} and as writing otherwise. Calls made outside
+ * a bound context get a context of their own.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class ReadOnlyRoutingInterceptor implements MethodInterceptor {
+
+	private final ConcurrentMap<Method, Boolean> readOnlyMethods = new ConcurrentHashMap<>();
+
+	@Override
+	public Object invoke(final MethodInvocation invocation) throws Throwable {
+		final boolean readOnly = isReadOnly(invocation);
+		RoutingContext context = RoutingContext.current();
+		final boolean owner = (context == null);
+		if (owner) {
+			context = RoutingContext.begin();
+		}
+		context.enter(readOnly);
+		try {
+			return invocation.proceed();
+		} finally {
+			context.exit(readOnly);
+			if (owner) {
+				RoutingContext.end();
+			}
+		}
+	}
+
+	private boolean isReadOnly(final MethodInvocation invocation) {
+		final Method method = invocation.getMethod();
+		Boolean readOnly = readOnlyMethods.get(method);
+		if (readOnly == null) {
+			final Class<?> targetClass = (invocation.getThis() != null)
+					? AopUtils.getTargetClass(invocation.getThis())
+					: method.getDeclaringClass();
+			final Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+			readOnly = AnnotationUtils.findAnnotation(specificMethod, ReadOnly.class) != null
+					|| AnnotationUtils.findAnnotation(method, ReadOnly.class) != null
+					|| AnnotationUtils.findAnnotation(method.getDeclaringClass(), ReadOnly.class) != null;
+			readOnlyMethods.putIfAbsent(method, readOnly);
+		}
+		return readOnly;
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.jdbc;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Data source handing out replica connections while the current
+ * {@link RoutingContext} allows it, and primary connections otherwise
+ * (including when no context is bound). The number of connections routed to
+ * each side is counted.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+	public final static String PRIMARY = "primary";
+	public final static String REPLICA = "replica";
+
+	private final DataSource primary;
+	private final DataSource replica;
+	private final AtomicLong primaryConnections = new AtomicLong();
+	private final AtomicLong replicaConnections = new AtomicLong();
+
+	public ReadWriteRoutingDataSource(final DataSource primary, final DataSource replica) {
+		this.primary = primary;
+		this.replica = replica;
+		final Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		targets.put(REPLICA, replica);
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		setLenientFallback(false);
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Closes both target data sources if they have a public, no-argument
+	 * <code>close</code> method, as their own bean definitions would have
+	 * inferred.
+	 */
+	public void close() {
+		close(replica);
+		close(primary);
+	}
+
+	private void close(final DataSource dataSource) {
+		final Method close = ClassUtils.getMethodIfAvailable(dataSource.getClass(), "close");
+		if (close != null) {
+			ReflectionUtils.invokeMethod(close, dataSource);
+		}
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		final RoutingContext context = RoutingContext.current();
+		if (context != null && context.isReplicaAllowed()) {
+			replicaConnections.incrementAndGet();
+			return REPLICA;
+		}
+		primaryConnections.incrementAndGet();
+		return PRIMARY;
+	}
+
+	public DataSource getPrimary() {
+		return primary;
+	}
+
+	public long getPrimaryConnections() {
+		return primaryConnections.get();
+	}
+
+	public DataSource getReplica() {
+		return replica;
+	}
+
+	public long getReplicaConnections() {
+		return replicaConnections.get();
+	}
+
+}
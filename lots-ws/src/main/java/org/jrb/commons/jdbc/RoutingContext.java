@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.jdbc;
+
+/**
+ * Tracks, per thread, whether the current unit of work may read from a
+ * replica. A unit of work is routed to the replica only while every enclosing
+ * service call is {@link ReadOnly}; once a writing call is entered, all nested
+ * reads stay on the primary so they see the pending changes. A unit of work
+ * may also be pinned to the primary as a whole (e.g. right after its client
+ * wrote), and records whether it wrote anything itself.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class RoutingContext {
+
+	private final static ThreadLocal<RoutingContext> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * Binds a new routing context to the current thread.
+	 * 
+	 * @return the new context
+	 */
+	public static RoutingContext begin() {
+		final RoutingContext context = new RoutingContext();
+		CURRENT.set(context);
+		return context;
+	}
+
+	/**
+	 * Retrieves the routing context bound to the current thread.
+	 * 
+	 * @return the current context, or <code>null</code> if none
+	 */
+	public static RoutingContext current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Rebinds context captured on another thread to the current thread, as when
+	 * an asynchronous request continues on a worker or is dispatched back to
+	 * the container.
+	 * 
+	 * @param context
+	 *            the context to bind, possibly <code>null</code>
+	 * @return the given context
+	 */
+	public static RoutingContext resume(final RoutingContext context) {
+		if (context != null) {
+			CURRENT.set(context);
+		} else {
+			CURRENT.remove();
+		}
+		return context;
+	}
+
+	/**
+	 * Unbinds any routing context from the current thread.
+	 */
+	public static void end() {
+		CURRENT.remove();
+	}
+
+	private int readDepth;
+	private int writeDepth;
+	private boolean primaryOnly;
+	private boolean written;
+
+	/**
+	 * Enters a service call.
+	 * 
+	 * @param readOnly
+	 *            <code>true</code> if the call only reads
+	 */
+	public void enter(final boolean readOnly) {
+		if (readOnly) {
+			readDepth++;
+		} else {
+			writeDepth++;
+			written = true;
+		}
+	}
+
+	/**
+	 * Leaves a service call previously {@link #enter(boolean) entered}.
+	 * 
+	 * @param readOnly
+	 *            <code>true</code> if the call only reads
+	 */
+	public void exit(final boolean readOnly) {
+		if (readOnly) {
+			readDepth--;
+		} else {
+			writeDepth--;
+		}
+	}
+
+	public boolean isPrimaryOnly() {
+		return primaryOnly;
+	}
+
+	/**
+	 * Determines if connections obtained now may come from a replica.
+	 * 
+	 * @return <code>true</code> if only read-only calls are in progress and
+	 *         the unit of work is not pinned to the primary
+	 */
+	public boolean isReplicaAllowed() {
+		return readDepth > 0 && writeDepth == 0 && !primaryOnly;
+	}
+
+	/**
+	 * Determines if a writing service call has been entered.
+	 * 
+	 * @return <code>true</code> if this unit of work (possibly) wrote
+	 */
+	public boolean isWritten() {
+		return written;
+	}
+
+	public void setPrimaryOnly(final boolean primaryOnly) {
+		this.primaryOnly = primaryOnly;
+	}
+
+	@Override
+	public String toString() {
+		return "RoutingContext [readDepth=" + readDepth + ", writeDepth=" + writeDepth
+				+ ", primaryOnly=" + primaryOnly + ", written=" + written + "]";
+	}
+
+}
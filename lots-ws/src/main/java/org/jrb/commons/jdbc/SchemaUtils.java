@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.jdbc;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Schema utilities for persistent databases.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public final class SchemaUtils {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SchemaUtils.class);
+
+	private SchemaUtils() {
+	}
+
+	/**
+	 * Runs a schema script unless the database already holds a given table.
+	 * 
+	 * @param dataSource
+	 *            the database
+	 * @param script
+	 *            the schema script
+	 * @param table
+	 *            the table whose presence marks the schema as created
+	 * @return <code>true</code> if the script was run
+	 * @throws SQLException
+	 *             if the database cannot be inspected or the script fails
+	 */
+	public static boolean createIfMissing(final DataSource dataSource, final Resource script, final String table)
+			throws SQLException {
+		try (final Connection connection = dataSource.getConnection()) {
+			if (hasTable(connection, table)) {
+				return false;
+			}
+			LOG.info("Creating schema from {}", script);
+			final ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
+			populator.addScript(script);
+			populator.populate(connection);
+			if (!connection.getAutoCommit()) {
+				connection.commit();
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Determines if a table exists, whatever the case the database stores its
+	 * name in.
+	 * 
+	 * @param connection
+	 *            the database connection
+	 * @param table
+	 *            the table name
+	 * @return <code>true</code> if the table exists
+	 * @throws SQLException
+	 *             if the database cannot be inspected
+	 */
+	public static boolean hasTable(final Connection connection, final String table) throws SQLException {
+		final DatabaseMetaData metaData = connection.getMetaData();
+		for (final String name : new String[] { table, table.toUpperCase(), table.toLowerCase() }) {
+			try (final ResultSet rs = metaData.getTables(null, null, name, new String[] { "TABLE" })) {
+				if (rs.next()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.jdbc;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A statement captured by the {@link SlowStatementLog}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class SlowStatement {
+
+	private final Date timestamp;
+	private final String sql;
+	private final List<String> binds;
+	private final double elapsedMillis;
+	private final long rows;
+	private final String plan;
+
+	public SlowStatement(
+			final Date timestamp,
+			final String sql,
+			final List<String> binds,
+			final double elapsedMillis,
+			final long rows,
+			final String plan) {
+		this.timestamp = timestamp;
+		this.sql = sql;
+		this.binds = binds;
+		this.elapsedMillis = elapsedMillis;
+		this.rows = rows;
+		this.plan = plan;
+	}
+
+	public List<String> getBinds() {
+		return binds;
+	}
+
+	public double getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public String getPlan() {
+		return plan;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public Date getTimestamp() {
+		return timestamp;
+	}
+
+	@Override
+	public String toString() {
+		return "SlowStatement [sql=" + sql + ", binds=" + binds + ", elapsedMillis=" + elapsedMillis
+				+ ", rows=" + rows + "]";
+	}
+
+}
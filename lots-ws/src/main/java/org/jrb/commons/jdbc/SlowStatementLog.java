@@ -0,0 +1,208 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Log of statements exceeding a time threshold, held in a bounded ring
+ * buffer. Slow statements are handed off to a single background thread which
+ * normalizes the SQL, renders the bind values, captures the HSQLDB execution
+ * plan and appends the entry; if that thread falls behind, further slow
+ * statements are dropped rather than delaying the caller.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class SlowStatementLog {
+
+	private final static Logger LOG = LoggerFactory.getLogger(SlowStatementLog.class);
+
+	private final static Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+	private final static Pattern NUMERIC_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+	private final static Pattern WHITESPACE = Pattern.compile("\\s+");
+	private final static Pattern EXPLAINABLE = Pattern.compile("^(?i)\\s*(select|insert|update|delete|merge)\\b.*", Pattern.DOTALL);
+
+	private final long thresholdNanos;
+	private final boolean redactBinds;
+	private final boolean explain;
+
+	private final SlowStatement[] entries;
+	private long next;
+
+	private final ThreadPoolExecutor executor;
+
+	public SlowStatementLog(
+			final long thresholdMillis,
+			final int capacity,
+			final boolean redactBinds,
+			final boolean explain) {
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+		this.redactBinds = redactBinds;
+		this.explain = explain;
+		this.entries = new SlowStatement[capacity];
+		this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(capacity),
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(final Runnable runnable) {
+						final Thread thread = new Thread(runnable, "slow-statement-log");
+						thread.setDaemon(true);
+						return thread;
+					}
+				},
+				new ThreadPoolExecutor.DiscardPolicy());
+	}
+
+	/**
+	 * Normalizes SQL by replacing literals with placeholders and collapsing
+	 * whitespace, so that equivalent statements read the same.
+	 * 
+	 * @param sql
+	 *            the raw SQL
+	 * @return the normalized SQL
+	 */
+	static String normalize(final String sql) {
+		String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+		normalized = NUMERIC_LITERAL.matcher(normalized).replaceAll("?");
+		return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+	}
+
+	private synchronized void append(final SlowStatement entry) {
+		entries[(int) (next++ % entries.length)] = entry;
+	}
+
+	private String explain(final DataSource dataSource, final String sql) {
+		if (!explain || !EXPLAINABLE.matcher(sql).matches()) {
+			return null;
+		}
+		try (final Connection connection = dataSource.getConnection();
+				final PreparedStatement statement = connection.prepareStatement("EXPLAIN PLAN FOR " + sql);
+				final ResultSet resultSet = statement.executeQuery()) {
+			final StringBuilder plan = new StringBuilder();
+			while (resultSet.next()) {
+				plan.append(resultSet.getString(1)).append('\n');
+			}
+			return plan.toString();
+		} catch (final Exception e) {
+			LOG.debug("Unable to explain statement! sql = {}", sql, e);
+			return "unavailable: " + e.getMessage();
+		}
+	}
+
+	/**
+	 * Retrieves the logged statements, most recent first.
+	 * 
+	 * @return the slow statements
+	 */
+	public synchronized List<SlowStatement> getEntries() {
+		final int size = (int) Math.min(next, entries.length);
+		final List<SlowStatement> result = new ArrayList<>(size);
+		for (int i = 1; i <= size; i++) {
+			result.add(entries[(int) ((next - i) % entries.length)]);
+		}
+		return result;
+	}
+
+	public boolean isEnabled() {
+		return thresholdNanos > 0 && entries.length > 0;
+	}
+
+	public boolean isSlow(final long elapsedNanos) {
+		return elapsedNanos >= thresholdNanos;
+	}
+
+	private List<String> render(final Object[] binds) {
+		if (binds == null) {
+			return Collections.emptyList();
+		}
+		final List<String> rendered = new ArrayList<>(binds.length);
+		for (final Object bind : binds) {
+			if (bind == null) {
+				rendered.add("null");
+			} else if (redactBinds) {
+				rendered.add("<" + bind.getClass().getSimpleName() + ">");
+			} else {
+				rendered.add(bind.toString());
+			}
+		}
+		return rendered;
+	}
+
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Queues a slow statement for logging.
+	 * 
+	 * @param dataSource
+	 *            the (undecorated) DataSource on which to explain the
+	 *            statement
+	 * @param sql
+	 *            the SQL executed
+	 * @param binds
+	 *            the bind values, indexed from zero; may be <code>null</code>
+	 * @param elapsedNanos
+	 *            the execution time
+	 * @param rows
+	 *            the rows read or updated
+	 */
+	public void submit(
+			final DataSource dataSource,
+			final String sql,
+			final Object[] binds,
+			final long elapsedNanos,
+			final long rows) {
+		final Date timestamp = new Date();
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				final String normalized = (sql != null) ? normalize(sql) : null;
+				append(new SlowStatement(
+						timestamp,
+						normalized,
+						render(binds),
+						TimeUnit.NANOSECONDS.toMicros(elapsedNanos) / 1000.0,
+						rows,
+						(sql != null) ? explain(dataSource, sql) : null));
+			}
+		});
+	}
+
+}
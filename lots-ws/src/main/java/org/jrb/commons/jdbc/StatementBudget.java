@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.jdbc;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.core.env.PropertyResolver;
+
+/**
+ * Resolves the expected number of statements per endpoint from properties of
+ * the form <code>{prefix}.{endpoint}</code>, falling back to
+ * <code>{prefix}.default</code>. Resolved budgets are cached.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class StatementBudget {
+
+	private final ConcurrentMap<String, Integer> budgets = new ConcurrentHashMap<>();
+
+	private final PropertyResolver resolver;
+	private final String prefix;
+	private final int defaultBudget;
+	private final boolean failOverBudget;
+
+	public StatementBudget(final PropertyResolver resolver, final String prefix) {
+		this.resolver = resolver;
+		this.prefix = prefix;
+		this.defaultBudget = resolver.getProperty(prefix + ".default", Integer.class, Integer.MAX_VALUE);
+		this.failOverBudget = "fail".equalsIgnoreCase(resolver.getProperty(prefix + ".mode", "log"));
+	}
+
+	/**
+	 * Resolves the statement budget of an endpoint.
+	 * 
+	 * @param endpoint
+	 *            the endpoint key
+	 * @return the statement budget
+	 */
+	public int forEndpoint(final String endpoint) {
+		Integer budget = budgets.get(endpoint);
+		if (budget == null) {
+			budget = resolver.getProperty(prefix + "." + endpoint, Integer.class, defaultBudget);
+			budgets.putIfAbsent(endpoint, budget);
+		}
+		return budget;
+	}
+
+	public boolean isFailOverBudget() {
+		return failOverBudget;
+	}
+
+}
@@ -0,0 +1,260 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource decorator feeding the {@link StatementStatistics} bound to the
+ * current thread and, optionally, a {@link SlowStatementLog}. Every
+ * <code>execute*</code> call on a statement counts as one statement; rows are
+ * counted as result set rows read plus update counts, and every explicit
+ * <code>commit</code> as one commit. Connections are decorated when they are
+ * obtained, so statements are counted on a connection obtained while
+ * statistics are bound to the thread. When neither statistics nor a slow
+ * statement log are active at that point, the connection is returned as is,
+ * at the cost of one thread-local lookup; otherwise every connection,
+ * statement and result set is proxied, at the cost of a reflective call each.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+	/**
+	 * Wraps connections so that the statements they create, and their
+	 * commits, are counted.
+	 */
+	private class ConnectionHandler implements InvocationHandler {
+
+		private final Connection target;
+
+		public ConnectionHandler(final Connection target) {
+			this.target = target;
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+			final Object result = invokeTarget(target, method, args);
+			if ("commit".equals(method.getName())) {
+				final StatementStatistics statistics = StatementStatistics.current();
+				if (statistics != null) {
+					statistics.commitExecuted();
+				}
+				return result;
+			}
+			if (result instanceof Statement) {
+				final String sql = (args != null && args.length > 0 && args[0] instanceof String) ? (String) args[0] : null;
+				return wrap(method.getReturnType(), new StatementHandler((Statement) result, sql));
+			}
+			return result;
+		}
+
+	}
+
+	/**
+	 * Counts rows read from a result set.
+	 */
+	private static class ResultSetHandler implements InvocationHandler {
+
+		private final ResultSet target;
+		private final StatementHandler owner;
+
+		public ResultSetHandler(final ResultSet target, final StatementHandler owner) {
+			this.target = target;
+			this.owner = owner;
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+			final Object result = invokeTarget(target, method, args);
+			if (Boolean.TRUE.equals(result) && "next".equals(method.getName())) {
+				final StatementStatistics statistics = StatementStatistics.current();
+				if (statistics != null) {
+					statistics.rowsAffected(1);
+				}
+				owner.rowRead();
+			}
+			return result;
+		}
+
+	}
+
+	/**
+	 * Counts and times executed statements, capturing bind values and slow
+	 * executions when a slow statement log is active.
+	 */
+	private class StatementHandler implements InvocationHandler {
+
+		private final Statement target;
+		private final String preparedSql;
+		private Object[] binds;
+
+		private String slowSql;
+		private Object[] slowBinds;
+		private long slowElapsedNanos;
+		private long slowRows;
+
+		public StatementHandler(final Statement target, final String preparedSql) {
+			this.target = target;
+			this.preparedSql = preparedSql;
+		}
+
+		private void bind(final int index, final Object value) {
+			if (binds == null) {
+				binds = new Object[Math.max(index, 8)];
+			} else if (index > binds.length) {
+				binds = Arrays.copyOf(binds, Math.max(index, binds.length * 2));
+			}
+			binds[index - 1] = value;
+		}
+
+		private void flushSlowStatement() {
+			if (slowElapsedNanos > 0) {
+				slowStatementLog.submit(getTargetDataSource(), slowSql, slowBinds, slowElapsedNanos, slowRows);
+				slowSql = null;
+				slowBinds = null;
+				slowElapsedNanos = 0;
+				slowRows = 0;
+			}
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+			final String name = method.getName();
+			if (slowStatementLog != null) {
+				if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+					bind((Integer) args[0], args[1]);
+				} else if ("clearParameters".equals(name)) {
+					binds = null;
+				} else if ("close".equals(name)) {
+					flushSlowStatement();
+				}
+			}
+
+			final StatementStatistics statistics = StatementStatistics.current();
+			if (!name.startsWith("execute") || (statistics == null && slowStatementLog == null)) {
+				return wrapResult(method, invokeTarget(target, method, args));
+			}
+
+			if (statistics != null) {
+				statistics.checkBudget();
+			}
+			if (slowStatementLog != null) {
+				flushSlowStatement();
+			}
+			final long startTime = System.nanoTime();
+			final Object result = invokeTarget(target, method, args);
+			final long elapsedNanos = System.nanoTime() - startTime;
+
+			long rows = 0;
+			if (result instanceof Integer) {
+				rows = (Integer) result;
+			} else if (result instanceof int[]) {
+				for (final int count : (int[]) result) {
+					rows += Math.max(count, 0);
+				}
+			}
+			if (statistics != null) {
+				statistics.statementExecuted(elapsedNanos);
+				statistics.rowsAffected(rows);
+			}
+			if (slowStatementLog != null && slowStatementLog.isSlow(elapsedNanos)) {
+				slowSql = (args != null && args.length > 0 && args[0] instanceof String) ? (String) args[0] : preparedSql;
+				slowBinds = (binds != null) ? binds.clone() : null;
+				slowElapsedNanos = elapsedNanos;
+				slowRows = rows;
+			}
+			return wrapResult(method, result);
+		}
+
+		private void rowRead() {
+			if (slowElapsedNanos > 0) {
+				slowRows++;
+			}
+		}
+
+		private Object wrapResult(final Method method, final Object result) {
+			if (result instanceof ResultSet) {
+				return wrap(method.getReturnType(), new ResultSetHandler((ResultSet) result, this));
+			}
+			return result;
+		}
+
+	}
+
+	private static Object invokeTarget(final Object target, final Method method, final Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (final InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}
+
+	private static Object wrap(final Class<?> type, final InvocationHandler handler) {
+		return Proxy.newProxyInstance(
+				StatementCountingDataSource.class.getClassLoader(),
+				new Class<?>[] { type },
+				handler);
+	}
+
+	private final SlowStatementLog slowStatementLog;
+
+	public StatementCountingDataSource(final DataSource targetDataSource) {
+		this(targetDataSource, null);
+	}
+
+	public StatementCountingDataSource(final DataSource targetDataSource, final SlowStatementLog slowStatementLog) {
+		super(targetDataSource);
+		this.slowStatementLog = (slowStatementLog != null && slowStatementLog.isEnabled()) ? slowStatementLog : null;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return decorate(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(final String username, final String password) throws SQLException {
+		return decorate(super.getConnection(username, password));
+	}
+
+	private Connection decorate(final Connection connection) {
+		if (slowStatementLog == null && StatementStatistics.current() == null) {
+			return connection;
+		}
+		return (Connection) wrap(Connection.class, new ConnectionHandler(connection));
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.jdbc;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the JDBC statements executed, rows touched, commits issued and time
+ * spent in the database by a unit of work, usually a single HTTP request.
+ * Statistics are bound to the executing thread between {@link #begin()} and
+ * {@link #end()} and are populated by {@link StatementCountingDataSource}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class StatementStatistics {
+
+	private final static ThreadLocal<StatementStatistics> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * Binds new statistics to the current thread.
+	 * 
+	 * @return the new statistics
+	 */
+	public static StatementStatistics begin() {
+		final StatementStatistics statistics = new StatementStatistics();
+		CURRENT.set(statistics);
+		return statistics;
+	}
+
+	/**
+	 * Retrieves the statistics bound to the current thread.
+	 * 
+	 * @return the current statistics, or <code>null</code> if none
+	 */
+	public static StatementStatistics current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Rebinds statistics captured on another thread to the current thread, as when
+	 * an asynchronous request continues on a worker or is dispatched back to
+	 * the container.
+	 * 
+	 * @param statistics
+	 *            the statistics to bind, possibly <code>null</code>
+	 * @return the given statistics
+	 */
+	public static StatementStatistics resume(final StatementStatistics statistics) {
+		if (statistics != null) {
+			CURRENT.set(statistics);
+		} else {
+			CURRENT.remove();
+		}
+		return statistics;
+	}
+
+	/**
+	 * Unbinds any statistics from the current thread.
+	 */
+	public static void end() {
+		CURRENT.remove();
+	}
+
+	private int statements;
+	private int commits;
+	private long rows;
+	private long elapsedNanos;
+	private int budget = Integer.MAX_VALUE;
+	private boolean failOverBudget;
+
+	/**
+	 * Verifies that another statement may be executed without exceeding the
+	 * budget.
+	 * 
+	 * @throws StatementBudgetExceededException
+	 *             if the budget would be exceeded and failing has been
+	 *             requested
+	 */
+	public void checkBudget() throws StatementBudgetExceededException {
+		if (failOverBudget && statements >= budget) {
+			throw new StatementBudgetExceededException(budget);
+		}
+	}
+
+	public void commitExecuted() {
+		this.commits++;
+	}
+
+	public int getBudget() {
+		return budget;
+	}
+
+	public int getCommits() {
+		return commits;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public double getElapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMicros(elapsedNanos) / 1000.0;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public int getStatements() {
+		return statements;
+	}
+
+	public boolean isOverBudget() {
+		return statements > budget;
+	}
+
+	public void rowsAffected(final long count) {
+		rows += count;
+	}
+
+	/**
+	 * Sets the maximum number of statements expected for this unit of work.
+	 * 
+	 * @param budget
+	 *            the statement budget
+	 * @param failOverBudget
+	 *            <code>true</code> if statements beyond the budget should fail;
+	 *            otherwise, <code>false</code> to merely flag the overrun
+	 */
+	public void setBudget(final int budget, final boolean failOverBudget) {
+		this.budget = budget;
+		this.failOverBudget = failOverBudget;
+	}
+
+	public void statementExecuted(final long elapsedNanos) {
+		this.statements++;
+		this.elapsedNanos += elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "StatementStatistics [statements=" + statements + ", rows=" + rows
+				+ ", commits=" + commits + ", elapsedMillis=" + getElapsedMillis() + ", budget=" + budget + "]";
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.AbstractEndpoint;
+
+/**
+ * Actuator endpoint exposing the percentiles of every histogram held by a
+ * {@link LatencyRegistry}. All times are reported in milliseconds.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class LatencyEndpoint extends AbstractEndpoint<Map<String, Map<String, Object>>> {
+
+	private final LatencyRegistry registry;
+
+	public LatencyEndpoint(final LatencyRegistry registry) {
+		super("/latency");
+		this.registry = registry;
+	}
+
+	private static double millis(final double micros) {
+		return micros / 1000.0;
+	}
+
+	@Override
+	public Map<String, Map<String, Object>> invoke() {
+		final Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+		for (final Map.Entry<String, LatencyHistogram> entry : registry.snapshot().entrySet()) {
+			final LatencyHistogram histogram = entry.getValue();
+			final long count = histogram.getCount();
+			if (count == 0) {
+				continue;
+			}
+			final Map<String, Object> stats = new LinkedHashMap<>();
+			stats.put("count", count);
+			stats.put("mean", millis(histogram.getMean()));
+			stats.put("p50", millis(histogram.getValueAtPercentile(50.0)));
+			stats.put("p90", millis(histogram.getValueAtPercentile(90.0)));
+			stats.put("p99", millis(histogram.getValueAtPercentile(99.0)));
+			stats.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+			stats.put("max", millis(histogram.getMax()));
+			result.put(entry.getKey(), stats);
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.metrics;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Spring MVC interceptor recording the latency of every handled request into
+ * a {@link LatencyRegistry}, keyed by HTTP method, mapped URI pattern and
+ * response status (e.g. <code>http.GET./api/thing/{thingId}.200</code>).
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class LatencyHandlerInterceptor extends HandlerInterceptorAdapter {
+
+	private static final String START_TIME = LatencyHandlerInterceptor.class.getName() + ".START_TIME";
+
+	private final LatencyRegistry registry;
+
+	public LatencyHandlerInterceptor(final LatencyRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public void afterCompletion(
+			final HttpServletRequest request,
+			final HttpServletResponse response,
+			final Object handler,
+			final Exception ex) throws Exception {
+		final Long startTime = (Long) request.getAttribute(START_TIME);
+		if (startTime != null) {
+			final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			final String name = new StringBuilder(64)
+					.append("http.")
+					.append(request.getMethod())
+					.append('.')
+					.append(pattern != null ? pattern : "unmapped")
+					.append('.')
+					.append(response.getStatus())
+					.toString();
+			registry.record(name, System.nanoTime() - startTime);
+		}
+	}
+
+	@Override
+	public boolean preHandle(
+			final HttpServletRequest request,
+			final HttpServletResponse response,
+			final Object handler) throws Exception {
+		// an asynchronous request is timed from its first dispatch
+		if (request.getAttribute(START_TIME) == null) {
+			request.setAttribute(START_TIME, System.nanoTime());
+		}
+		return true;
+	}
+
+}
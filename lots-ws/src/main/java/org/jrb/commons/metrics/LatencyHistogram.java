@@ -0,0 +1,154 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free, fixed-footprint latency histogram using HDR-style log-linear
+ * buckets. Each power of two is split into 32 linear sub-buckets, bounding
+ * the relative error of any reported percentile to roughly 3%. Values are
+ * unit-agnostic; callers decide the recorded resolution.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT = 31;
+	private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+	public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong max = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+
+	static int bucketIndex(final long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		final int exponent = 63 - Long.numberOfLeadingZeros(value);
+		final int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+	}
+
+	static long highestEquivalentValue(final int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		final int shift = index / SUB_BUCKET_COUNT - 1;
+		final long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * Adds the contents of another histogram to this one.
+	 * 
+	 * @param other
+	 *            the histogram to be added
+	 */
+	public void add(final LatencyHistogram other) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			final long count = other.counts.get(i);
+			if (count > 0) {
+				counts.addAndGet(i, count);
+			}
+		}
+		total.addAndGet(other.total.get());
+		updateMax(other.max.get());
+	}
+
+	public long getCount() {
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			count += counts.get(i);
+		}
+		return count;
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		final long count = getCount();
+		return (count > 0) ? (double) total.get() / count : 0.0;
+	}
+
+	/**
+	 * Calculates the value at or below which the given percentage of recorded
+	 * values fall.
+	 * 
+	 * @param percentile
+	 *            the percentile, between 0 and 100
+	 * @return the value at the percentile, or zero if nothing has been recorded
+	 */
+	public long getValueAtPercentile(final double percentile) {
+		final long count = getCount();
+		if (count == 0) {
+			return 0;
+		}
+		final long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+		long running = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			running += counts.get(i);
+			if (running >= target) {
+				return Math.min(highestEquivalentValue(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Records a single value. Negative values are recorded as zero and values
+	 * beyond {@link #MAX_VALUE} are clamped.
+	 * 
+	 * @param value
+	 *            the value to be recorded
+	 */
+	public void record(final long value) {
+		final long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+		counts.incrementAndGet(bucketIndex(clamped));
+		total.addAndGet(clamped);
+		updateMax(clamped);
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+		total.set(0);
+		max.set(0);
+	}
+
+	private void updateMax(final long value) {
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+}
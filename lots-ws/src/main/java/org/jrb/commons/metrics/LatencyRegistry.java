@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of named {@link RollingLatencyHistogram}s. Latencies are recorded
+ * with microsecond resolution.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class LatencyRegistry {
+
+	private final ConcurrentMap<String, RollingLatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+	private final long window;
+	private final TimeUnit windowUnit;
+	private final int sliceCount;
+
+	public LatencyRegistry(final long window, final TimeUnit windowUnit, final int sliceCount) {
+		this.window = window;
+		this.windowUnit = windowUnit;
+		this.sliceCount = sliceCount;
+	}
+
+	/**
+	 * Retrieves the histogram of a given name, creating it if necessary.
+	 * 
+	 * @param name
+	 *            the histogram name
+	 * @return the histogram
+	 */
+	public RollingLatencyHistogram histogram(final String name) {
+		RollingLatencyHistogram histogram = histograms.get(name);
+		if (histogram == null) {
+			histogram = new RollingLatencyHistogram(window, windowUnit, sliceCount);
+			final RollingLatencyHistogram existing = histograms.putIfAbsent(name, histogram);
+			if (existing != null) {
+				histogram = existing;
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * Records an elapsed time against the named histogram.
+	 * 
+	 * @param name
+	 *            the histogram name
+	 * @param elapsedNanos
+	 *            the elapsed time in nanoseconds
+	 */
+	public void record(final String name, final long elapsedNanos) {
+		histogram(name).record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+	}
+
+	/**
+	 * Takes a snapshot of every registered histogram over its rolling window.
+	 * 
+	 * @return the snapshots, sorted by name
+	 */
+	public SortedMap<String, LatencyHistogram> snapshot() {
+		final SortedMap<String, LatencyHistogram> snapshot = new TreeMap<>();
+		for (final Map.Entry<String, RollingLatencyHistogram> entry : histograms.entrySet()) {
+			snapshot.put(entry.getKey(), entry.getValue().snapshot());
+		}
+		return snapshot;
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * AOP interceptor recording the latency of every invoked method into a
+ * {@link LatencyRegistry}, keyed by a prefix, the declaring type and the
+ * method name (e.g. <code>service.ThingService.findThing</code>).
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class MethodLatencyInterceptor implements MethodInterceptor {
+
+	private final ConcurrentMap<Method, String> names = new ConcurrentHashMap<>();
+
+	private final LatencyRegistry registry;
+	private final String prefix;
+
+	public MethodLatencyInterceptor(final LatencyRegistry registry, final String prefix) {
+		this.registry = registry;
+		this.prefix = prefix;
+	}
+
+	@Override
+	public Object invoke(final MethodInvocation invocation) throws Throwable {
+		final long startTime = System.nanoTime();
+		try {
+			return invocation.proceed();
+		} finally {
+			registry.record(name(invocation.getMethod()), System.nanoTime() - startTime);
+		}
+	}
+
+	private String name(final Method method) {
+		String name = names.get(method);
+		if (name == null) {
+			name = prefix + "." + method.getDeclaringClass().getSimpleName() + "." + method.getName();
+			names.putIfAbsent(method, name);
+		}
+		return name;
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram over a rolling time window. The window is divided into a
+ * ring of slices, each a {@link LatencyHistogram}; a slice is recycled once
+ * the window has moved past it. Recycling is lock-free, so a handful of
+ * samples recorded at the exact moment a slice rolls over may be lost.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class RollingLatencyHistogram {
+
+	private final long origin = System.nanoTime();
+	private final long sliceNanos;
+	private final LatencyHistogram[] slices;
+	private final AtomicLongArray epochs;
+
+	public RollingLatencyHistogram(final long window, final TimeUnit unit, final int sliceCount) {
+		if (sliceCount < 1 || window < sliceCount) {
+			throw new IllegalArgumentException("Invalid window! window = " + window + ", sliceCount = " + sliceCount);
+		}
+		this.sliceNanos = unit.toNanos(window) / sliceCount;
+		this.slices = new LatencyHistogram[sliceCount];
+		this.epochs = new AtomicLongArray(sliceCount);
+		for (int i = 0; i < sliceCount; i++) {
+			slices[i] = new LatencyHistogram();
+		}
+	}
+
+	private long epoch() {
+		return (System.nanoTime() - origin) / sliceNanos;
+	}
+
+	/**
+	 * Records a single value into the current slice.
+	 * 
+	 * @param value
+	 *            the value to be recorded
+	 */
+	public void record(final long value) {
+		final long epoch = epoch();
+		final int index = (int) (epoch % slices.length);
+		final long current = epochs.get(index);
+		if (current != epoch && epochs.compareAndSet(index, current, epoch)) {
+			slices[index].reset();
+		}
+		slices[index].record(value);
+	}
+
+	/**
+	 * Merges all slices still inside the window into a new histogram.
+	 * 
+	 * @return a point-in-time copy of the rolling window
+	 */
+	public LatencyHistogram snapshot() {
+		final long epoch = epoch();
+		final LatencyHistogram snapshot = new LatencyHistogram();
+		for (int i = 0; i < slices.length; i++) {
+			if (epoch - epochs.get(i) < slices.length) {
+				snapshot.add(slices[i]);
+			}
+		}
+		return snapshot;
+	}
+
+}
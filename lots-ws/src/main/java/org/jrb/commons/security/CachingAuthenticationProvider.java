@@ -0,0 +1,215 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.BaseEncoding;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Authentication provider remembering the credentials another provider has
+ * verified, so that a stateless client sending the same credentials with
+ * every request pays for password hashing once per expiry period instead of
+ * once per request.
+ * <p>
+ * Entries are keyed by an HMAC-SHA256 digest of the user name and password
+ * under a key drawn at random when the provider is created; neither the
+ * password nor a digest that could be attacked offline is kept. Only
+ * successful authentications are remembered, so a changed password or a
+ * disabled account takes effect once the entry expires. Concurrent requests
+ * with the same credentials share a single verification. Hits and misses are
+ * counted as <code>security.auth.cache.hit</code> and
+ * <code>security.auth.cache.miss</code>.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+	private final static String ALGORITHM = "HmacSHA256";
+
+	private final AuthenticationProvider delegate;
+	private final Cache<String, Authentication> verified;
+	private final CounterService counterService;
+	private final ThreadLocal<Mac> macs;
+
+	/**
+	 * @param delegate
+	 *            the provider verifying credentials
+	 * @param ttl
+	 *            the time verified credentials are remembered
+	 * @param unit
+	 *            the unit of the time to live
+	 * @param maxEntries
+	 *            the maximum number of credentials remembered
+	 * @param counterService
+	 *            the service counting cache hits and misses
+	 */
+	public CachingAuthenticationProvider(
+			final AuthenticationProvider delegate,
+			final long ttl,
+			final TimeUnit unit,
+			final long maxEntries,
+			final CounterService counterService) {
+		this.delegate = delegate;
+		this.verified = CacheBuilder.newBuilder()
+				.expireAfterWrite(ttl, unit)
+				.maximumSize(maxEntries)
+				.build();
+		this.counterService = counterService;
+
+		final byte[] secret = new byte[32];
+		new SecureRandom().nextBytes(secret);
+		final SecretKeySpec key = new SecretKeySpec(secret, ALGORITHM);
+		this.macs = new ThreadLocal<Mac>() {
+			@Override
+			protected Mac initialValue() {
+				try {
+					final Mac mac = Mac.getInstance(ALGORITHM);
+					mac.init(key);
+					return mac;
+				} catch (final GeneralSecurityException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		};
+	}
+
+	@Override
+	public Authentication authenticate(final Authentication authentication) throws AuthenticationException {
+		if (!(authentication instanceof UsernamePasswordAuthenticationToken) || authentication.getCredentials() == null) {
+			return delegate.authenticate(authentication);
+		}
+
+		final String digest = digest(authentication.getName(), authentication.getCredentials().toString());
+		final Verification verification = new Verification(authentication);
+		final Authentication cached;
+		try {
+			// concurrent requests with the same credentials wait for one verification
+			cached = verified.get(digest, verification);
+		} catch (final ExecutionException e) {
+			return ((NotVerifiedException) e.getCause()).result;
+		} catch (final UncheckedExecutionException e) {
+			throw Throwables.propagate(e.getCause());
+		}
+		if (verification.result != null) {
+			return verification.result;
+		}
+		counterService.increment("security.auth.cache.hit");
+		return copy(cached);
+	}
+
+	/**
+	 * @return the number of credentials remembered
+	 */
+	public long getSize() {
+		return verified.size();
+	}
+
+	/**
+	 * Forgets all verified credentials.
+	 */
+	public void invalidateAll() {
+		verified.invalidateAll();
+	}
+
+	@Override
+	public boolean supports(final Class<?> authentication) {
+		return delegate.supports(authentication);
+	}
+
+	/**
+	 * Copies an authentication without its credentials, so that request
+	 * details attached by the caller are never shared between requests.
+	 */
+	private static Authentication copy(final Authentication authentication) {
+		return new UsernamePasswordAuthenticationToken(
+				authentication.getPrincipal(), null, authentication.getAuthorities());
+	}
+
+	/**
+	 * Verifies credentials missing from the cache with the delegate, keeping
+	 * its result for the caller.
+	 */
+	private class Verification implements Callable<Authentication> {
+
+		private final Authentication authentication;
+		private Authentication result;
+
+		Verification(final Authentication authentication) {
+			this.authentication = authentication;
+		}
+
+		@Override
+		public Authentication call() throws NotVerifiedException {
+			counterService.increment("security.auth.cache.miss");
+			result = delegate.authenticate(authentication);
+			if (result == null || !result.isAuthenticated()) {
+				throw new NotVerifiedException(result);
+			}
+			return copy(result);
+		}
+
+	}
+
+	/**
+	 * Signals a result of the delegate that is not remembered.
+	 */
+	private static class NotVerifiedException extends Exception {
+
+		private static final long serialVersionUID = -3702981349816529176L;
+
+		private final Authentication result;
+
+		NotVerifiedException(final Authentication result) {
+			super(null, null, false, false);
+			this.result = result;
+		}
+
+	}
+
+	private String digest(final String name, final String password) {
+		final Mac mac = macs.get();
+		mac.update(name.getBytes(StandardCharsets.UTF_8));
+		mac.update((byte) 0);
+		return BaseEncoding.base16().encode(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+	}
+
+}
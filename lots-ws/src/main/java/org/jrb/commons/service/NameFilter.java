@@ -0,0 +1,167 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+/**
+ * In-memory Bloom filter of the names in use for one kind of entity, letting
+ * a service tell a name that is definitely new from one that may exist
+ * before it writes. A name reported as possibly existing must still be
+ * confirmed against the database; the unique constraint on the name remains
+ * the final arbiter, so a name missing from the filter (for example one
+ * written by another process) costs no more than not having a filter.
+ * <p>
+ * Names are never removed: deleted names become false positives until the
+ * filter is next loaded. The filter is sized on load for twice the number of
+ * names found, and at least the configured number of names.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class NameFilter {
+
+	private final static Logger LOG = LoggerFactory.getLogger(NameFilter.class);
+
+	private final String name;
+	private final int expectedNames;
+	private final double fpp;
+
+	private volatile BloomFilter<CharSequence> filter;
+	private final AtomicLong checks = new AtomicLong();
+	private final AtomicLong negatives = new AtomicLong();
+	private final AtomicLong falsePositives = new AtomicLong();
+
+	/**
+	 * @param name
+	 *            a name for the filter, used in logging
+	 * @param expectedNames
+	 *            the minimum number of names to size the filter for
+	 * @param fpp
+	 *            the desired false positive probability at that size
+	 */
+	public NameFilter(final String name, final int expectedNames, final double fpp) {
+		this.name = name;
+		this.expectedNames = expectedNames;
+		this.fpp = fpp;
+		this.filter = BloomFilter.create(Funnels.unencodedCharsFunnel(), expectedNames, fpp);
+	}
+
+	/**
+	 * Replaces the filter contents with the names returned by a query.
+	 * 
+	 * @param dataSource
+	 *            the database to query
+	 * @param countSql
+	 *            a query counting the names
+	 * @param namesSql
+	 *            a query selecting the names as its first column
+	 */
+	public void load(final DataSource dataSource, final String countSql, final String namesSql) {
+		final long start = System.currentTimeMillis();
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.setFetchSize(1000);
+		final long count = jdbcTemplate.queryForObject(countSql, Long.class);
+		final int size = (int) Math.min(Integer.MAX_VALUE, Math.max(expectedNames, 2 * count));
+		final BloomFilter<CharSequence> loaded = BloomFilter.create(Funnels.unencodedCharsFunnel(), size, fpp);
+		jdbcTemplate.query(namesSql, new RowCallbackHandler() {
+			@Override
+			public void processRow(final ResultSet rs) throws SQLException {
+				loaded.put(rs.getString(1));
+			}
+		});
+		synchronized (this) {
+			filter = loaded;
+		}
+		LOG.info("Loaded {} {} names in {}ms, sized for {} names", count, name,
+				System.currentTimeMillis() - start, size);
+	}
+
+	/**
+	 * @param name
+	 *            a name
+	 * @return <code>false</code> if the name is definitely not in use;
+	 *         <code>true</code> if it may be
+	 */
+	public boolean mightContain(final String name) {
+		checks.incrementAndGet();
+		final boolean maybe = filter.mightContain(name);
+		if (!maybe) {
+			negatives.incrementAndGet();
+		}
+		return maybe;
+	}
+
+	/**
+	 * Records a name as in use.
+	 * 
+	 * @param name
+	 *            the name
+	 */
+	public synchronized void put(final String name) {
+		if (name != null) {
+			filter.put(name);
+		}
+	}
+
+	/**
+	 * Records that a name the filter reported as possibly in use was not.
+	 */
+	public void falsePositive() {
+		falsePositives.incrementAndGet();
+	}
+
+	public long getChecks() {
+		return checks.get();
+	}
+
+	public long getFalsePositives() {
+		return falsePositives.get();
+	}
+
+	public long getNegatives() {
+		return negatives.get();
+	}
+
+	public double getExpectedFpp() {
+		return filter.expectedFpp();
+	}
+
+	@Override
+	public String toString() {
+		return "NameFilter [name=" + name + ", checks=" + checks + ", negatives=" + negatives + ", falsePositives="
+				+ falsePositives + ", expectedFpp=" + getExpectedFpp() + "]";
+	}
+
+}
@@ -0,0 +1,172 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.service;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Method interceptor re-running {@link Idempotent} service calls that failed
+ * because of a transient concurrency conflict (optimistic or pessimistic
+ * locking failures, deadlocks and serialization failures), anywhere in the
+ * cause chain. Attempts are bounded and separated by an exponential backoff
+ * with full jitter, so that colliding writers spread out instead of meeting
+ * again.
+ * <p>
+ * Only the outermost call retries: a call joining an already active
+ * transaction cannot recover from a failure that has marked that transaction
+ * rollback-only, so it is left to the caller owning the transaction.
+ * <p>
+ * Each retry, recovery and exhausted call is counted as
+ * <code>service.retry.&lt;Class.method&gt;</code>,
+ * <code>service.retry.recovered.&lt;Class.method&gt;</code> and
+ * <code>service.retry.exhausted.&lt;Class.method&gt;</code> respectively.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class RetryInterceptor implements MethodInterceptor {
+
+	private final static Logger LOG = LoggerFactory.getLogger(RetryInterceptor.class);
+
+	private final CounterService counterService;
+	private final int maxAttempts;
+	private final long initialBackoff;
+	private final long maxBackoff;
+	private final ConcurrentMap<Method, String> idempotentMethods = new ConcurrentHashMap<>();
+
+	/**
+	 * @param counterService
+	 *            the counters to record retries into
+	 * @param maxAttempts
+	 *            the total number of attempts per call, including the first
+	 * @param initialBackoff
+	 *            the upper bound of the first backoff, in milliseconds
+	 * @param maxBackoff
+	 *            the upper bound of any backoff, in milliseconds
+	 */
+	public RetryInterceptor(final CounterService counterService, final int maxAttempts, final long initialBackoff,
+			final long maxBackoff) {
+		this.counterService = counterService;
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.initialBackoff = Math.max(0, initialBackoff);
+		this.maxBackoff = Math.max(this.initialBackoff, maxBackoff);
+	}
+
+	@Override
+	public Object invoke(final MethodInvocation invocation) throws Throwable {
+		final String name = idempotentName(invocation);
+		if (name == null || maxAttempts == 1 || !(invocation instanceof ProxyMethodInvocation)
+				|| TransactionSynchronizationManager.isActualTransactionActive()) {
+			return invocation.proceed();
+		}
+		for (int attempt = 1;; attempt++) {
+			try {
+				final Object result = ((ProxyMethodInvocation) invocation).invocableClone().proceed();
+				if (attempt > 1) {
+					counterService.increment("service.retry.recovered." + name);
+				}
+				return result;
+			} catch (final Throwable t) {
+				if (!isRetryable(t)) {
+					throw t;
+				}
+				if (attempt >= maxAttempts) {
+					counterService.increment("service.retry.exhausted." + name);
+					LOG.warn("Giving up on {} after {} attempts: {}", name, attempt, t.getMessage());
+					throw t;
+				}
+				counterService.increment("service.retry." + name);
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Retrying " + name + " after attempt " + attempt + ": " + t.getMessage());
+				}
+				backoff(attempt);
+			}
+		}
+	}
+
+	/**
+	 * Determines whether the given failure, or any of its causes, is a
+	 * transient concurrency conflict that a later attempt may not hit.
+	 * 
+	 * @param t
+	 *            the failure
+	 * @return <code>true</code> if the failed call may be retried
+	 */
+	public static boolean isRetryable(final Throwable t) {
+		for (Throwable cause = t; cause != null; cause = (cause.getCause() != cause) ? cause.getCause() : null) {
+			if (cause instanceof ConcurrencyFailureException
+					|| cause instanceof TransientDataAccessException
+					|| cause instanceof SQLTransactionRollbackException) {
+				return true;
+			}
+			if (cause instanceof SQLException) {
+				final String state = ((SQLException) cause).getSQLState();
+				if (state != null && state.startsWith("40")) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void backoff(final int attempt) throws InterruptedException {
+		final long ceiling = Math.min(maxBackoff, initialBackoff << Math.min(attempt - 1, 30));
+		if (ceiling > 0) {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+		}
+	}
+
+	private String idempotentName(final MethodInvocation invocation) {
+		final Method method = invocation.getMethod();
+		String name = idempotentMethods.get(method);
+		if (name == null) {
+			final Class<?> targetClass = (invocation.getThis() != null)
+					? AopUtils.getTargetClass(invocation.getThis())
+					: method.getDeclaringClass();
+			final Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+			final boolean idempotent = AnnotationUtils.findAnnotation(specificMethod, Idempotent.class) != null
+					|| AnnotationUtils.findAnnotation(method, Idempotent.class) != null
+					|| AnnotationUtils.findAnnotation(method.getDeclaringClass(), Idempotent.class) != null;
+			name = idempotent ? method.getDeclaringClass().getSimpleName() + "." + method.getName() : "";
+			idempotentMethods.putIfAbsent(method, name);
+		}
+		return name.isEmpty() ? null : name;
+	}
+
+}
@@ -22,9 +22,19 @@
  */
 package org.jrb.commons.service;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
 /**
  * Indicates a a general, unexpected error occurred within a service
  * implementation.
+ * <p>
+ * Subclasses reporting an expected outcome (an unknown, duplicate or stale
+ * entity) may instead be created through
+ * {@link #ServiceException(Throwable, String, Object...)}: such instances are
+ * thrown often and caught by a handler that only needs their message, so they
+ * skip filling in a stack trace and only format their message, with
+ * {@link String#format(String, Object...)}, when it is first requested.
  * 
  * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
  */
@@ -32,12 +42,37 @@ public class ServiceException extends RuntimeException {
 
 	private static final long serialVersionUID = 6158733205034220468L;
 
+	private final String format;
+	private final transient Object[] args;
+	private volatile String message;
+
 	public ServiceException(final String message) {
 		super(message);
+		this.format = null;
+		this.args = null;
+	}
+
+	/**
+	 * Creates a stackless exception for an expected outcome, whose message is
+	 * formatted lazily.
+	 * 
+	 * @param cause
+	 *            the cause, if any
+	 * @param format
+	 *            the message format
+	 * @param args
+	 *            the message arguments
+	 */
+	protected ServiceException(final Throwable cause, final String format, final Object... args) {
+		super(null, cause, false, false);
+		this.format = format;
+		this.args = args;
 	}
 
 	public ServiceException(final String message, final Throwable cause) {
 		super(message, cause);
+		this.format = null;
+		this.args = null;
 	}
 
 	public ServiceException(final String message, 
@@ -45,10 +80,32 @@ public class ServiceException extends RuntimeException {
 			final boolean enableSuppression,
 			final boolean writableStackTrace) {
 		super(message, cause, enableSuppression, writableStackTrace);
+		this.format = null;
+		this.args = null;
 	}
 
 	public ServiceException(final Throwable cause) {
 		super(cause);
+		this.format = null;
+		this.args = null;
+	}
+
+	@Override
+	public String getMessage() {
+		if (format == null) {
+			return super.getMessage();
+		}
+		String formatted = message;
+		if (formatted == null) {
+			formatted = String.format(format, args);
+			message = formatted;
+		}
+		return formatted;
+	}
+
+	private void writeObject(final ObjectOutputStream out) throws IOException {
+		getMessage();
+		out.defaultWriteObject();
 	}
 
 }
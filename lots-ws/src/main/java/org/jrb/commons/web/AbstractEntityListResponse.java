@@ -39,6 +39,7 @@ import com.fasterxml.jackson.annotation.JsonInclude.Include;
 public class AbstractEntityListResponse<E> extends AbstractResponse implements EntityListResponse<E> {
 
 	private List<E> content;
+	private List<Long> missing;
 	private Integer number;
 	private Integer numberOfElements;
 	private Integer size;
@@ -53,6 +54,14 @@ public class AbstractEntityListResponse<E> extends AbstractResponse implements E
 		return content;
 	}
 
+	/* (non-Javadoc)
+	 * @see org.jrb.commons.web.EntityListResponse#getMissing()
+	 */
+	@Override
+	public List<Long> getMissing() {
+		return missing;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.jrb.commons.web.EntityListResponse#getNumber()
 	 */
@@ -101,6 +110,14 @@ public class AbstractEntityListResponse<E> extends AbstractResponse implements E
 		this.content = content;
 	}
 
+	/* (non-Javadoc)
+	 * @see org.jrb.commons.web.EntityListResponse#setMissing(java.util.List)
+	 */
+	@Override
+	public void setMissing(final List<Long> missing) {
+		this.missing = missing;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.jrb.commons.web.EntityListResponse#setPage(org.springframework.data.domain.Page)
 	 */
@@ -22,7 +22,7 @@
  */
 package org.jrb.commons.web;
 
-import java.util.Date;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -33,7 +33,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * Base RESTFUL resource that supports application identification and status
- * within the response headers.
+ * within the response headers. The standard headers are held as typed fields;
+ * only additional, response-specific headers are kept in a map, which is not
+ * allocated until the first such header is added.
  * 
  * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
  */
@@ -41,81 +43,93 @@ public abstract class AbstractResponse extends ResourceSupport implements Respon
 
 	public final static String HEADER_ELAPSED_TIME = "x-elapsed-time";
 	public final static String HEADER_PRODUCT = "x-product";
-	public final static String HEADER_START_TIME = "x-start-time";
 	public final static String HEADER_STATUS = "x-status";
 	public final static String HEADER_VERSION = "x-version";
 
-	@JsonIgnore
-	private final Map<String, Object> headers = new HashMap<>();
+	private Map<String, String> headers;
+	private Long elapsedTime;
+	private String product;
+	private long startTime;
+	private HttpStatus status;
+	private String version;
 
 	@Override
-	public void addHeader(final String key, final Object value) {
+	public void addHeader(final String key, final String value) {
+		if (headers == null) {
+			headers = new HashMap<>(4);
+		}
 		headers.put(key, value);
 	}
 
 	@Override
-	public <T> T getHeader(final String key, final Class<T> headerClass) {
-		return headerClass.cast(headers.get(key));
+	public String getHeader(final String key) {
+		return (headers != null) ? headers.get(key) : null;
 	}
 
 	@Override
-	public Map<String, Object> getHeaders() {
-		return headers;
+	@JsonIgnore
+	public Map<String, String> getHeaders() {
+		return (headers != null) ? headers : Collections.<String, String> emptyMap();
 	}
 
 	@Override
 	@JsonIgnore
 	public Long getElapsedTime() {
-		return getHeader(HEADER_ELAPSED_TIME, Long.class);
+		return elapsedTime;
 	}
 
 	@Override
 	@JsonIgnore
 	public String getProduct() {
-		return getHeader(HEADER_PRODUCT, String.class);
+		return product;
 	}
 
 	@Override
 	@JsonIgnore
-	public Date getStartTime() {
-		return getHeader(HEADER_START_TIME, Date.class);
+	public long getStartTime() {
+		return startTime;
 	}
 
 	@Override
 	@JsonIgnore
 	public HttpStatus getStatus() {
-		return getHeader(HEADER_STATUS, HttpStatus.class);
+		return status;
 	}
 
 	@Override
 	@JsonIgnore
 	public String getVersion() {
-		return getHeader(HEADER_VERSION, String.class);
+		return version;
+	}
+
+	@Override
+	public boolean hasHeaders() {
+		return headers != null && !headers.isEmpty();
 	}
 
 	@Override
 	public void setElapsedTime(final Long elapsedTime) {
-		headers.put(HEADER_ELAPSED_TIME, elapsedTime);
+		this.elapsedTime = elapsedTime;
 	}
 
 	@Override
 	public void setProduct(final String product) {
-		headers.put(HEADER_PRODUCT, product);
+		this.product = product;
 	}
 
 	@Override
-	public void setStartTime(final Date startTime) {
-		headers.put(HEADER_START_TIME, startTime);
+	public void setStartTime(final long startTime) {
+		this.startTime = startTime;
 	}
 
 	@Override
 	public void setStatus(final HttpStatus status) {
-		headers.put(HEADER_STATUS, status);
+		this.status = status;
 	}
 
 	@Override
 	public void setVersion(final String version) {
-		headers.put(HEADER_VERSION, version);
+		this.version = version;
 	}
 
 }
@@ -0,0 +1,164 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response wrapper giving a servlet filter one last chance to set headers
+ * after its chain has produced a response, but before the response commits.
+ * {@link #onCommit()} is invoked exactly once, just before the first body
+ * byte, flush, error or redirect reaches the wrapped response, or when the
+ * filter calls {@link #commitHeaders()} for a response without a body.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public abstract class CommitAwareResponseWrapper extends HttpServletResponseWrapper {
+
+	private boolean committed;
+	private ServletOutputStream outputStream;
+	private PrintWriter writer;
+
+	public CommitAwareResponseWrapper(final HttpServletResponse response) {
+		super(response);
+	}
+
+	/**
+	 * Invokes {@link #onCommit()} if it has not already been invoked and the
+	 * wrapped response has not yet been committed.
+	 */
+	public void commitHeaders() {
+		if (!committed) {
+			committed = true;
+			if (!getResponse().isCommitted()) {
+				onCommit();
+			}
+		}
+	}
+
+	@Override
+	public void flushBuffer() throws IOException {
+		commitHeaders();
+		super.flushBuffer();
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (outputStream == null) {
+			final ServletOutputStream delegate = super.getOutputStream();
+			outputStream = new ServletOutputStream() {
+				@Override
+				public void close() throws IOException {
+					commitHeaders();
+					delegate.close();
+				}
+
+				@Override
+				public void flush() throws IOException {
+					commitHeaders();
+					delegate.flush();
+				}
+
+				@Override
+				public void write(final byte[] b, final int off, final int len) throws IOException {
+					commitHeaders();
+					delegate.write(b, off, len);
+				}
+
+				@Override
+				public void write(final int b) throws IOException {
+					commitHeaders();
+					delegate.write(b);
+				}
+			};
+		}
+		return outputStream;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (writer == null) {
+			writer = new PrintWriter(super.getWriter()) {
+				@Override
+				public void close() {
+					commitHeaders();
+					super.close();
+				}
+
+				@Override
+				public void flush() {
+					commitHeaders();
+					super.flush();
+				}
+
+				@Override
+				public void write(final char[] buf, final int off, final int len) {
+					commitHeaders();
+					super.write(buf, off, len);
+				}
+
+				@Override
+				public void write(final int c) {
+					commitHeaders();
+					super.write(c);
+				}
+
+				@Override
+				public void write(final String s, final int off, final int len) {
+					commitHeaders();
+					super.write(s, off, len);
+				}
+			};
+		}
+		return writer;
+	}
+
+	/**
+	 * Called once, immediately before the wrapped response commits.
+	 */
+	protected abstract void onCommit();
+
+	@Override
+	public void sendError(final int sc) throws IOException {
+		commitHeaders();
+		super.sendError(sc);
+	}
+
+	@Override
+	public void sendError(final int sc, final String msg) throws IOException {
+		commitHeaders();
+		super.sendError(sc, msg);
+	}
+
+	@Override
+	public void sendRedirect(final String location) throws IOException {
+		commitHeaders();
+		super.sendRedirect(location);
+	}
+
+}
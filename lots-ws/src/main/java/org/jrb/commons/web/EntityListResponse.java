@@ -38,6 +38,8 @@ public interface EntityListResponse<E> extends Response {
 
 	List<E> getContent();
 
+	List<Long> getMissing();
+
 	Integer getNumber();
 
 	Integer getNumberOfElements();
@@ -50,6 +52,8 @@ public interface EntityListResponse<E> extends Response {
 
 	void setContent(List<E> content);
 
+	void setMissing(List<Long> missing);
+
 	void setPage(Page<E> page);
 
 }
\ No newline at end of file
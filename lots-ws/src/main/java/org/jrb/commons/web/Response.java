@@ -22,7 +22,6 @@
  */
 package org.jrb.commons.web;
 
-import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -41,11 +40,11 @@ public interface Response {
 	
 	void add(Iterable<Link> links);
 	
-	void addHeader(String key, Object value);
+	void addHeader(String key, String value);
 
-	<T> T getHeader(String key, Class<T> headerClass);
+	String getHeader(String key);
 
-	Map<String, Object> getHeaders();
+	Map<String, String> getHeaders();
 
 	Long getElapsedTime();
 	
@@ -55,11 +54,13 @@ public interface Response {
 
 	String getProduct();
 
-	Date getStartTime();
+	long getStartTime();
 
 	HttpStatus getStatus();
 
 	String getVersion();
+
+	boolean hasHeaders();
 	
 	boolean hasLinks();
 
@@ -67,7 +68,7 @@ public interface Response {
 
 	void setProduct(String product);
 
-	void setStartTime(Date startTime);
+	void setStartTime(long startTime);
 
 	void setStatus(HttpStatus status);
 
@@ -22,10 +22,16 @@
  */
 package org.jrb.commons.web;
 
+import java.lang.reflect.Constructor;
 import java.util.Collections;
-import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
 import org.springframework.core.env.Environment;
@@ -41,6 +47,36 @@ import org.springframework.http.ResponseEntity;
  */
 public class ResponseUtils {
 
+	/**
+	 * Fallback {@link ResponseFactory} for response classes that have not been
+	 * registered. The constructor is resolved once and reused thereafter.
+	 * 
+	 * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+	 */
+	private static class ConstructorResponseFactory<R extends Response> implements ResponseFactory<R> {
+
+		private final Constructor<R> constructor;
+
+		public ConstructorResponseFactory(final Class<R> responseClass) {
+			try {
+				this.constructor = responseClass.getDeclaredConstructor();
+				this.constructor.setAccessible(true);
+			} catch (final NoSuchMethodException e) {
+				throw new IllegalArgumentException("No default constructor! responseClass = " + responseClass, e);
+			}
+		}
+
+		@Override
+		public R newResponse() {
+			try {
+				return constructor.newInstance();
+			} catch (final ReflectiveOperationException e) {
+				throw new RuntimeException(e.getMessage(), e);
+			}
+		}
+
+	}
+
 	@Resource
 	private Environment env;
 
@@ -50,16 +86,57 @@ public class ResponseUtils {
 	@Resource
 	private String version;
 
-	public <R extends Response> R createResponse(Class<R> responseClass) {
-		try {
-			final R response = responseClass.newInstance();
-			response.setProduct(product);
-			response.setVersion(version);
-			response.setStartTime(new Date());
-			return response;
-		} catch (InstantiationException | IllegalAccessException e) {
-			throw new RuntimeException(e.getMessage(), e);
+	private final ConcurrentMap<Class<?>, ResponseFactory<?>> factories = new ConcurrentHashMap<>();
+
+	private final Map<HttpStatus, List<String>> statusHeaders = new EnumMap<>(HttpStatus.class);
+
+	private final Map<HttpStatus, HttpHeaders> errorHeaders = new EnumMap<>(HttpStatus.class);
+
+	private List<String> productHeader;
+
+	private List<String> versionHeader;
+
+	@PostConstruct
+	public void init() {
+		productHeader = Collections.singletonList(product);
+		versionHeader = Collections.singletonList(version);
+		for (final HttpStatus status : HttpStatus.values()) {
+			statusHeaders.put(status, Collections.singletonList(status.toString()));
+			if (status.series() == HttpStatus.Series.CLIENT_ERROR) {
+				final HttpHeaders headers = new HttpHeaders();
+				headers.put(AbstractResponse.HEADER_PRODUCT, productHeader);
+				headers.put(AbstractResponse.HEADER_VERSION, versionHeader);
+				headers.put(AbstractResponse.HEADER_STATUS, statusHeaders.get(status));
+				headers.set(AbstractResponse.HEADER_ELAPSED_TIME, "0");
+				errorHeaders.put(status, HttpHeaders.readOnlyHttpHeaders(headers));
+			}
 		}
+		register(MessageResponse.class, new ResponseFactory<MessageResponse>() {
+			@Override
+			public MessageResponse newResponse() {
+				return new MessageResponse();
+			}
+		});
+	}
+
+	/**
+	 * Registers the factory used to create responses of a given class.
+	 * 
+	 * @param responseClass
+	 *            the response class
+	 * @param factory
+	 *            the factory creating instances of the response class
+	 */
+	public <R extends Response> void register(final Class<R> responseClass, final ResponseFactory<R> factory) {
+		factories.put(responseClass, factory);
+	}
+
+	public <R extends Response> R createResponse(final Class<R> responseClass) {
+		final R response = factory(responseClass).newResponse();
+		response.setProduct(product);
+		response.setVersion(version);
+		response.setStartTime(System.nanoTime());
+		return response;
 	}
 
 	public ResponseEntity<MessageResponse> createMessageResponse(final String message) {
@@ -74,6 +151,46 @@ public class ResponseUtils {
 		return finalize(response, status);
 	}
 
+	/**
+	 * Creates a message response for an expected client error, such as a 404
+	 * for an unknown id or a 409 for a stale update. The body is identical to
+	 * that of {@link #createMessageResponse(String, HttpStatus)}, but the
+	 * response is created directly, is not timed, and shares headers that are
+	 * prebuilt for each client error status.
+	 * 
+	 * @param message
+	 *            the error message
+	 * @param status
+	 *            the client error status
+	 * @return the error response
+	 */
+	public ResponseEntity<MessageResponse> createErrorResponse(final String message, final HttpStatus status) {
+		final HttpHeaders headers = errorHeaders.get(status);
+		if (headers == null) {
+			return createMessageResponse(message, status);
+		}
+		final MessageResponse response = new MessageResponse();
+		response.setProduct(product);
+		response.setVersion(version);
+		response.setElapsedTime(0L);
+		response.setStatus(status);
+		response.setMessage(message);
+		return new ResponseEntity<MessageResponse>(response, headers, status);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <R extends Response> ResponseFactory<R> factory(final Class<R> responseClass) {
+		ResponseFactory<R> factory = (ResponseFactory<R>) factories.get(responseClass);
+		if (factory == null) {
+			factory = new ConstructorResponseFactory<R>(responseClass);
+			final ResponseFactory<R> existing = (ResponseFactory<R>) factories.putIfAbsent(responseClass, factory);
+			if (existing != null) {
+				factory = existing;
+			}
+		}
+		return factory;
+	}
+
 	public <R extends Response> ResponseEntity<R> finalize(final R response) {
 		return finalize(response, HttpStatus.OK, new HttpHeaders());
 	}
@@ -83,14 +200,19 @@ public class ResponseUtils {
 	}
 
 	public <R extends Response> ResponseEntity<R> finalize(final R response, final HttpStatus status, final HttpHeaders headers) {
-		final long startTime = response.getStartTime().getTime();
-		response.setElapsedTime(new Date().getTime() - startTime);
-		for (final Map.Entry<String, ?> header : response.getHeaders().entrySet()) {
-			final String value = header.getValue().toString();
-			headers.put(header.getKey(), Collections.singletonList(value));
-		}
+		final long elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - response.getStartTime());
+		response.setElapsedTime(elapsedTime);
 		response.setStatus(status);
-		return new ResponseEntity<R>(response, headers, response.getStatus());
+		headers.put(AbstractResponse.HEADER_PRODUCT, productHeader);
+		headers.put(AbstractResponse.HEADER_VERSION, versionHeader);
+		headers.put(AbstractResponse.HEADER_STATUS, statusHeaders.get(status));
+		headers.set(AbstractResponse.HEADER_ELAPSED_TIME, Long.toString(elapsedTime));
+		if (response.hasHeaders()) {
+			for (final Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+				headers.set(header.getKey(), header.getValue());
+			}
+		}
+		return new ResponseEntity<R>(response, headers, status);
 	}
 
 }
@@ -0,0 +1,149 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.async;
+
+import java.util.concurrent.Callable;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+import org.jrb.commons.jdbc.RoutingContext;
+import org.jrb.commons.jdbc.StatementStatistics;
+import org.jrb.commons.web.timing.ServerTiming;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptorAdapter;
+
+/**
+ * Interceptor carrying the thread-bound state of a request, namely its
+ * {@link ServerTiming}, {@link StatementStatistics} and
+ * {@link RoutingContext}, over to the worker thread that completes it
+ * asynchronously.
+ * <p>
+ * Spring itself binds the request to the worker, but Jetty resets the paths
+ * of a request once its dispatch returns, which breaks the links built from
+ * the current request. The worker is therefore bound to a view of the request
+ * with its paths as they were when it went asynchronous.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class RequestContextInterceptor extends CallableProcessingInterceptorAdapter {
+
+	private final static String ATTRIBUTE = RequestContextInterceptor.class.getName() + ".CONTEXT";
+
+	/**
+	 * A request whose paths are fixed at those of the current dispatch.
+	 */
+	private static class DispatchedRequest extends HttpServletRequestWrapper {
+
+		private final String contextPath;
+		private final String servletPath;
+		private final String pathInfo;
+		private final String requestURI;
+		private final String queryString;
+
+		public DispatchedRequest(final HttpServletRequest request) {
+			super(request);
+			this.contextPath = request.getContextPath();
+			this.servletPath = request.getServletPath();
+			this.pathInfo = request.getPathInfo();
+			this.requestURI = request.getRequestURI();
+			this.queryString = request.getQueryString();
+		}
+
+		@Override
+		public String getContextPath() {
+			return contextPath;
+		}
+
+		@Override
+		public String getPathInfo() {
+			return pathInfo;
+		}
+
+		@Override
+		public String getQueryString() {
+			return queryString;
+		}
+
+		@Override
+		public String getRequestURI() {
+			return requestURI;
+		}
+
+		@Override
+		public String getServletPath() {
+			return servletPath;
+		}
+
+	}
+
+	/**
+	 * The thread-bound state of a request.
+	 */
+	private static class Context {
+
+		private final ServerTiming timing = ServerTiming.current();
+		private final StatementStatistics statistics = StatementStatistics.current();
+		private final RoutingContext routing = RoutingContext.current();
+		private final RequestAttributes attributes;
+
+		public Context(final HttpServletRequest request) {
+			this.attributes = (request != null) ? new ServletRequestAttributes(new DispatchedRequest(request)) : null;
+		}
+
+	}
+
+	@Override
+	public <T> void beforeConcurrentHandling(final NativeWebRequest request, final Callable<T> task) {
+		final Context context = new Context(request.getNativeRequest(HttpServletRequest.class));
+		request.setAttribute(ATTRIBUTE, context, RequestAttributes.SCOPE_REQUEST);
+	}
+
+	@Override
+	public <T> void preProcess(final NativeWebRequest request, final Callable<T> task) {
+		final Context context = (Context) request.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (context != null) {
+			if (context.attributes != null) {
+				RequestContextHolder.setRequestAttributes(context.attributes);
+			}
+			ServerTiming.resume(context.timing);
+			StatementStatistics.resume(context.statistics);
+			RoutingContext.resume(context.routing);
+		}
+	}
+
+	/**
+	 * Unbinds the state of the request from the worker; Spring, whose
+	 * interceptor runs after this one, unbinds the request attributes.
+	 */
+	@Override
+	public <T> void postProcess(final NativeWebRequest request, final Callable<T> task, final Object result) {
+		ServerTiming.end();
+		StatementStatistics.end();
+		RoutingContext.end();
+	}
+
+}
@@ -0,0 +1,243 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.async;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+/**
+ * Bounded executor for the asynchronous handling of one class of requests.
+ * Handlers return the {@link WebAsyncTask} of {@link #submit(Callable)},
+ * releasing the container thread while a fixed pool of workers does the
+ * work.
+ * <p>
+ * At most <code>threads + queue</code> requests are admitted at once; further
+ * requests are refused up front with a {@link RequestRejectedException}
+ * rather than being handed to an executor that would reject them after the
+ * request has gone asynchronous. A request not completed within the timeout
+ * is answered with the same exception if its work has not started yet, and
+ * the work is then skipped; once started, the work runs on and the request
+ * is answered with a {@link RequestTimeoutException}, which carries no retry
+ * hint. Rejections and timeouts are counted as
+ * <code>http.async.&lt;name&gt;.rejected</code> and
+ * <code>http.async.&lt;name&gt;.timeout</code>, and the admitted requests are
+ * gauged as <code>http.async.&lt;name&gt;.active</code>.
+ * <p>
+ * On a runtime with virtual threads, the executor may instead run each
+ * admitted request on a virtual thread of its own. The thread count then caps
+ * the requests running at once, and so their demand on the connection pool,
+ * while the others park cheaply rather than wait in a queue.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class RequestExecutor {
+
+	private final static Logger LOG = LoggerFactory.getLogger(RequestExecutor.class);
+
+	/**
+	 * The states of an admitted request: its work either starts or expires,
+	 * whichever comes first.
+	 */
+	private static enum State {
+		PENDING, RUNNING, EXPIRED
+	}
+
+	private final String name;
+	private final int capacity;
+	private final long timeout;
+	private final long retryAfter;
+	private final CounterService counterService;
+	private final GaugeService gaugeService;
+	private final Semaphore permits;
+	private final Semaphore running;
+	private final AsyncTaskExecutor executor;
+
+	/**
+	 * @param name
+	 *            the name of the executor, used for its threads and metrics
+	 * @param threads
+	 *            the number of worker threads
+	 * @param queue
+	 *            the number of admitted requests that may wait for a worker
+	 * @param timeout
+	 *            how long a request may take, in milliseconds
+	 * @param retryAfter
+	 *            the retry hint given to refused requests, in seconds
+	 * @param counterService
+	 *            the service counting rejections and timeouts
+	 * @param gaugeService
+	 *            the service gauging admitted requests
+	 */
+	public RequestExecutor(
+			final String name,
+			final int threads,
+			final int queue,
+			final long timeout,
+			final long retryAfter,
+			final CounterService counterService,
+			final GaugeService gaugeService) {
+		this(name, threads, queue, timeout, retryAfter, false, counterService, gaugeService);
+	}
+
+	/**
+	 * @param name
+	 *            the name of the executor, used for its threads and metrics
+	 * @param threads
+	 *            the number of worker threads, or of requests running at once
+	 *            on virtual threads
+	 * @param queue
+	 *            the number of admitted requests that may wait to run
+	 * @param timeout
+	 *            how long a request may take, in milliseconds
+	 * @param retryAfter
+	 *            the retry hint given to refused requests, in seconds
+	 * @param virtual
+	 *            whether to run requests on virtual threads, if the runtime
+	 *            has them
+	 * @param counterService
+	 *            the service counting rejections and timeouts
+	 * @param gaugeService
+	 *            the service gauging admitted requests
+	 */
+	public RequestExecutor(
+			final String name,
+			final int threads,
+			final int queue,
+			final long timeout,
+			final long retryAfter,
+			final boolean virtual,
+			final CounterService counterService,
+			final GaugeService gaugeService) {
+		this.name = name;
+		this.capacity = threads + queue;
+		this.timeout = timeout;
+		this.retryAfter = retryAfter;
+		this.counterService = counterService;
+		this.gaugeService = gaugeService;
+		this.permits = new Semaphore(capacity);
+		final ThreadFactory virtualThreads = virtual ? VirtualThreads.factory("http-" + name + "-") : null;
+		if (virtualThreads != null) {
+			this.running = new Semaphore(threads);
+			this.executor = new SimpleAsyncTaskExecutor(virtualThreads);
+		} else {
+			if (virtual) {
+				LOG.warn("Virtual threads are not available; {} requests run on platform threads", name);
+			}
+			final ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+			pool.setCorePoolSize(threads);
+			pool.setMaxPoolSize(threads);
+			// a worker may still be finishing a request whose permit it has
+			// released, so the queue holds every admitted request
+			pool.setQueueCapacity(capacity);
+			pool.setThreadNamePrefix("http-" + name + "-");
+			pool.setDaemon(true);
+			pool.initialize();
+			this.running = null;
+			this.executor = pool;
+		}
+	}
+
+	/**
+	 * @return the number of requests currently admitted
+	 */
+	public int getActive() {
+		return capacity - permits.availablePermits();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean isVirtual() {
+		return running != null;
+	}
+
+	public void shutdown() {
+		if (executor instanceof ThreadPoolTaskExecutor) {
+			((ThreadPoolTaskExecutor) executor).shutdown();
+		}
+	}
+
+	/**
+	 * Admits a request for asynchronous handling.
+	 * 
+	 * @param callable
+	 *            the handling of the request
+	 * @return the task to be returned by the handler
+	 * @throws RequestRejectedException
+	 *             if the executor is at capacity
+	 */
+	public <T> WebAsyncTask<T> submit(final Callable<T> callable) {
+		if (!permits.tryAcquire()) {
+			counterService.increment("http.async." + name + ".rejected");
+			throw new RequestRejectedException("Too many " + name + " requests in progress", retryAfter);
+		}
+		gaugeService.submit("http.async." + name + ".active", getActive());
+		final AtomicReference<State> state = new AtomicReference<State>(State.PENDING);
+		final WebAsyncTask<T> task = new WebAsyncTask<T>(timeout, executor, new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				try {
+					if (running == null) {
+						return state.compareAndSet(State.PENDING, State.RUNNING) ? callable.call() : null;
+					}
+					running.acquire();
+					try {
+						return state.compareAndSet(State.PENDING, State.RUNNING) ? callable.call() : null;
+					} finally {
+						running.release();
+					}
+				} finally {
+					permits.release();
+				}
+			}
+		});
+		task.onTimeout(new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				counterService.increment("http.async." + name + ".timeout");
+				if (state.compareAndSet(State.PENDING, State.EXPIRED)) {
+					throw new RequestRejectedException("The " + name + " request timed out before it started", retryAfter);
+				}
+				throw new RequestTimeoutException("The " + name + " request timed out");
+			}
+		});
+		return task;
+	}
+
+}
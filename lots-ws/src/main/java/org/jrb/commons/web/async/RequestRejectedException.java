@@ -0,0 +1,53 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.async;
+
+/**
+ * Thrown when a request cannot be admitted to, or does not start within the
+ * timeout of, its {@link RequestExecutor}. Such requests are answered with a
+ * <code>503 Service Unavailable</code> carrying a <code>Retry-After</code>
+ * hint; the exception is expected under load, so it is stackless.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class RequestRejectedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final String HEADER_RETRY_AFTER = "Retry-After";
+
+	private final long retryAfter;
+
+	public RequestRejectedException(final String message, final long retryAfter) {
+		super(message, null, false, false);
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * @return the number of seconds after which the client may retry
+	 */
+	public long getRetryAfter() {
+		return retryAfter;
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.async;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to the virtual threads of Java 21 and later from code compiled for
+ * earlier releases.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+final class VirtualThreads {
+
+	private final static Method OF_VIRTUAL;
+	private final static Method NAME;
+	private final static Method FACTORY;
+
+	static {
+		Method ofVirtual = null;
+		Method name = null;
+		Method factory = null;
+		try {
+			final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			name = builder.getMethod("name", String.class, long.class);
+			factory = builder.getMethod("factory");
+		} catch (final ReflectiveOperationException e) {
+			ofVirtual = null;
+		}
+		OF_VIRTUAL = ofVirtual;
+		NAME = name;
+		FACTORY = factory;
+	}
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * Creates a factory of virtual threads named with a prefix and a counter.
+	 * 
+	 * @param prefix
+	 *            the thread name prefix
+	 * @return the thread factory, or <code>null</code> if the runtime has no
+	 *         virtual threads
+	 */
+	static ThreadFactory factory(final String prefix) {
+		if (OF_VIRTUAL == null) {
+			return null;
+		}
+		try {
+			final Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+			return (ThreadFactory) FACTORY.invoke(builder);
+		} catch (final ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	static boolean isAvailable() {
+		return OF_VIRTUAL != null;
+	}
+
+}
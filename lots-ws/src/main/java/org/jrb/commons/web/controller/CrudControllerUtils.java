@@ -24,7 +24,12 @@ package org.jrb.commons.web.controller;
 
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.atteo.evo.inflector.English;
@@ -33,6 +38,7 @@ import org.jrb.commons.web.EntityListResponse;
 import org.jrb.commons.web.EntityResponse;
 import org.jrb.commons.web.MessageResponse;
 import org.jrb.commons.web.ResponseUtils;
+import org.jrb.commons.web.timing.ServerTiming;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -114,6 +120,32 @@ public class CrudControllerUtils<E, R extends EntityResponse<E>, L extends Entit
 
 	}
 
+	/**
+	 * Callback used by {@link CrudControllerUtils} to perform the actual logic
+	 * to locate several entities by identifier.
+	 * 
+	 * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+	 * 
+	 * @param <E>
+	 *            the type of entity affected by this callback
+	 */
+	public interface FindEntitiesCallback<E> {
+
+		/**
+		 * Finds the entities with the given identifiers.
+		 * 
+		 * @param entityIds
+		 *            the distinct entity identifiers
+		 * @return the entities found, keyed by identifier; unknown
+		 *         identifiers are left out
+		 * @throws ServiceException
+		 *             if any unexpected error occurs while finding these
+		 *             entities
+		 */
+		Map<Long, E> findEntities(Collection<Long> entityIds) throws ServiceException;
+
+	}
+
 	/**
 	 * Callback used by {@link CrudControllerUtils} to perform the actual logic
 	 * to retrieve multiple entities.
@@ -199,14 +231,18 @@ public class CrudControllerUtils<E, R extends EntityResponse<E>, L extends Entit
 			final CreateEntityCallback<E> callback) throws ServiceException {
 
 		final R response = responseUtils.createResponse(entityResponseClass);
+		final long serviceMark = ServerTiming.start();
 		final E createdEntity = callback.createEntity(entity);
+		ServerTiming.stop(ServerTiming.PHASE_SERVICE, serviceMark);
 		response.setEntity(createdEntity);
 
+		final long linksMark = ServerTiming.start();
 		response.add(linkTo(controllerClass).slash(createdEntity).withSelfRel());
 		response.add(linkTo(controllerClass).withRel(entityRel(entityClass)));
 
 		final HttpHeaders headers = new HttpHeaders();
 		headers.setLocation(linkTo(getClass()).slash(createdEntity).toUri());
+		ServerTiming.stop(ServerTiming.PHASE_LINKS, linksMark);
 
 		return responseUtils.finalize(response, HttpStatus.CREATED, headers);
 	}
@@ -240,10 +276,14 @@ public class CrudControllerUtils<E, R extends EntityResponse<E>, L extends Entit
 			final DeleteEntityCallback<E> callback) throws ServiceException {
 
 		final MessageResponse response = responseUtils.createResponse(MessageResponse.class);
+		final long serviceMark = ServerTiming.start();
 		callback.deleteEntity(entityId);
+		ServerTiming.stop(ServerTiming.PHASE_SERVICE, serviceMark);
 		response.setMessage(entityClass.getSimpleName() + "(" + entityId + ") has been deleted");
 
+		final long linksMark = ServerTiming.start();
 		response.add(linkTo(controllerClass).withRel(entityRel(entityClass)));
+		ServerTiming.stop(ServerTiming.PHASE_LINKS, linksMark);
 
 		return responseUtils.finalize(response, HttpStatus.OK);
 	}
@@ -303,14 +343,60 @@ public class CrudControllerUtils<E, R extends EntityResponse<E>, L extends Entit
 			final FindEntityCallback<E> callback) throws ServiceException {
 
 		final R response = responseUtils.createResponse(entityResponseClass);
+		final long serviceMark = ServerTiming.start();
 		final E entity = callback.findEntity(entityId);
+		ServerTiming.stop(ServerTiming.PHASE_SERVICE, serviceMark);
 		response.setEntity(entity);
 
+		final long linksMark = ServerTiming.start();
 		response.add(linkTo(controllerClass).withRel(entityRel(entityClass)));
+		ServerTiming.stop(ServerTiming.PHASE_LINKS, linksMark);
 
 		return responseUtils.finalize(response, HttpStatus.OK);
 	}
 
+	/**
+	 * Spring MVC controller utility method that finds several domain entities
+	 * by identifier in one request. The entities are listed in the order their
+	 * identifiers were requested, each once, and the identifiers of unknown
+	 * entities are listed as <em>missing</em> rather than failing the request.
+	 * 
+	 * @param entityIds
+	 *            the identifiers of the entities sought
+	 * @param entityListResponseClass
+	 *            the class to use in generating the response
+	 * @param callback
+	 *            a callback containing the actual logic to find the entities
+	 * @return a Spring MVC response containing the found entities
+	 * @throws ServiceException
+	 *             if any unexpected error occurs while finding these entities
+	 */
+	public ResponseEntity<L> findEntities(
+			final List<Long> entityIds,
+			final Class<L> entityListResponseClass,
+			final FindEntitiesCallback<E> callback) throws ServiceException {
+		final L response = responseUtils.createResponse(entityListResponseClass);
+		final Set<Long> distinctIds = new LinkedHashSet<>(entityIds);
+		distinctIds.remove(null);
+		final long serviceMark = ServerTiming.start();
+		final Map<Long, E> entities = callback.findEntities(distinctIds);
+		ServerTiming.stop(ServerTiming.PHASE_SERVICE, serviceMark);
+
+		final List<E> content = new ArrayList<>(entities.size());
+		final List<Long> missing = new ArrayList<>();
+		for (final Long entityId : distinctIds) {
+			final E entity = entities.get(entityId);
+			if (entity != null) {
+				content.add(entity);
+			} else {
+				missing.add(entityId);
+			}
+		}
+		response.setContent(content);
+		response.setMissing(missing);
+		return responseUtils.finalize(response, HttpStatus.OK);
+	}
+
 	/**
 	 * Spring MVC controller utility method that retrieves entities of a
 	 * particular type.
@@ -329,7 +415,9 @@ public class CrudControllerUtils<E, R extends EntityResponse<E>, L extends Entit
 			final Class<L> entityListResponseClass,
 			final RetrieveEntitiesCallback<E> callback) throws ServiceException {
 		final L response = responseUtils.createResponse(entityListResponseClass);
+		final long serviceMark = ServerTiming.start();
 		final List<E> entityList = callback.retrieveEntities();
+		ServerTiming.stop(ServerTiming.PHASE_SERVICE, serviceMark);
 		response.setContent(entityList);
 		return responseUtils.finalize(response, HttpStatus.OK);
 	}
@@ -370,11 +458,15 @@ public class CrudControllerUtils<E, R extends EntityResponse<E>, L extends Entit
 			final UpdateEntityCallback<E> callback) throws ServiceException {
 
 		final R response = responseUtils.createResponse(entityResponseClass);
+		final long serviceMark = ServerTiming.start();
 		final E updatedEntity = callback.updateEntity(entityId, entity);
+		ServerTiming.stop(ServerTiming.PHASE_SERVICE, serviceMark);
 		response.setEntity(updatedEntity);
 
+		final long linksMark = ServerTiming.start();
 		response.add(linkTo(controllerClass).slash(updatedEntity).withSelfRel());
 		response.add(linkTo(controllerClass).withRel(entityRel(entityClass)));
+		ServerTiming.stop(ServerTiming.PHASE_LINKS, linksMark);
 
 		return responseUtils.finalize(response, HttpStatus.OK);
 	}
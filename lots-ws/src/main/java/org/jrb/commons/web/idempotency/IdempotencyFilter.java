@@ -0,0 +1,313 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.idempotency;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Servlet filter making POSTs to a set of paths safe to retry. A request
+ * carrying an <code>Idempotency-Key</code> header is executed once; its
+ * response is kept for a bounded time in a bounded store and replayed, marked
+ * with an <code>Idempotent-Replayed</code> header, to any later request from
+ * the same principal with the same key, method, path and body. A duplicate
+ * that arrives while the first request is still running waits for its
+ * response rather than executing alongside it, and a key reused with another
+ * body is refused with a <code>422 Unprocessable Entity</code>.
+ * <p>
+ * Keys are scoped to the authenticated principal, so the filter must run
+ * after the security filter chain; anonymous requests are passed on without
+ * idempotency. Server errors, container error pages and responses with bodies
+ * over the size bound are not kept, so a retry after them executes again. An
+ * asynchronous request holds its key until the dispatch that completes it.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+	public static final String HEADER_KEY = "Idempotency-Key";
+	public static final String HEADER_REPLAYED = "Idempotent-Replayed";
+
+	private final static Logger LOG = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+	private static final int MAX_KEY_LENGTH = 255;
+
+	private final static String ATTRIBUTE = IdempotencyFilter.class.getName() + ".EXECUTION";
+
+	private final Set<String> paths;
+	private final ConcurrentMap<String, Claim> responses;
+	private final int maxBody;
+	private final long waitTimeout;
+
+	/**
+	 * @param paths
+	 *            the request paths, relative to the context, whose POSTs honor
+	 *            the idempotency key
+	 * @param ttl
+	 *            how long a response is kept, in <code>unit</code>
+	 * @param unit
+	 *            the unit of <code>ttl</code>
+	 * @param maxKeys
+	 *            the maximum number of responses kept
+	 * @param maxBody
+	 *            the largest response body kept, in bytes
+	 * @param waitTimeout
+	 *            how long a duplicate waits for the in-flight response, in
+	 *            milliseconds
+	 */
+	public IdempotencyFilter(
+			final Set<String> paths,
+			final long ttl,
+			final TimeUnit unit,
+			final long maxKeys,
+			final int maxBody,
+			final long waitTimeout) {
+		this.paths = paths;
+		this.responses = CacheBuilder.newBuilder()
+				.expireAfterWrite(ttl, unit)
+				.maximumSize(maxKeys)
+				.<String, Claim> build()
+				.asMap();
+		this.maxBody = maxBody;
+		this.waitTimeout = waitTimeout;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(final HttpServletRequest request) throws ServletException {
+		return !"POST".equals(request.getMethod())
+				|| request.getHeader(HEADER_KEY) == null
+				|| request.getUserPrincipal() == null
+				|| !paths.contains(request.getRequestURI().substring(request.getContextPath().length()));
+	}
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	@Override
+	protected void doFilterInternal(
+			final HttpServletRequest request,
+			final HttpServletResponse response,
+			final FilterChain filterChain) throws ServletException, IOException {
+		HttpServletRequest executed = request;
+		final Execution execution;
+		if (isAsyncDispatch(request)) {
+			execution = (Execution) request.getAttribute(ATTRIBUTE);
+			if (execution == null) {
+				filterChain.doFilter(request, response);
+				return;
+			}
+			execution.resume(response);
+		} else {
+			final BufferedRequestWrapper buffered = new BufferedRequestWrapper(request);
+			execution = claim(buffered, digest(buffered.getBody()), response);
+			if (execution == null) {
+				return;
+			}
+			executed = buffered;
+		}
+
+		RecordedResponse recorded = null;
+		boolean suspended = false;
+		try {
+			filterChain.doFilter(executed, execution.recorder);
+			if (isAsyncStarted(request)) {
+				execution.suspend(request);
+				suspended = true;
+				return;
+			}
+			recorded = execution.recorder.getRecordedResponse();
+			if (recorded != null && recorded.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+				recorded = null;
+			}
+		} finally {
+			if (!suspended) {
+				execution.complete(recorded);
+			}
+		}
+	}
+
+	/**
+	 * Claims the idempotency key of a request, first waiting out or replaying
+	 * any earlier request with the same key.
+	 * 
+	 * @return the execution of the claimed key, or <code>null</code> if the
+	 *         response has already been sent
+	 */
+	private Execution claim(
+			final HttpServletRequest request,
+			final byte[] digest,
+			final HttpServletResponse response) throws ServletException, IOException {
+		final String idempotencyKey = request.getHeader(HEADER_KEY);
+		if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+					HEADER_KEY + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+			return null;
+		}
+		final Principal principal = request.getUserPrincipal();
+		final String key = principal.getName() + " " + request.getMethod() + " " + request.getRequestURI() + " "
+				+ idempotencyKey;
+
+		final Claim pending = new Claim(digest);
+		Claim existing;
+		while ((existing = responses.putIfAbsent(key, pending)) != null) {
+			if (!MessageDigest.isEqual(digest, existing.digest)) {
+				response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+						HEADER_KEY + " was already used with another request body");
+				return null;
+			}
+			final RecordedResponse recorded;
+			try {
+				recorded = existing.response.get(waitTimeout, TimeUnit.MILLISECONDS);
+			} catch (final TimeoutException | InterruptedException e) {
+				if (e instanceof InterruptedException) {
+					Thread.currentThread().interrupt();
+				}
+				response.sendError(HttpServletResponse.SC_CONFLICT,
+						"A request with this " + HEADER_KEY + " is still in progress");
+				return null;
+			} catch (final ExecutionException e) {
+				throw new ServletException(e.getCause());
+			}
+			if (recorded != null) {
+				LOG.debug("Replaying response for {}", key);
+				response.setHeader(HEADER_REPLAYED, "true");
+				recorded.replay(response);
+				return null;
+			}
+			// the earlier request was not kept; compete to execute this one
+		}
+
+		return new Execution(key, pending, new RecordingResponseWrapper(response, maxBody));
+	}
+
+	private static byte[] digest(final byte[] body) throws ServletException {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(body);
+		} catch (final NoSuchAlgorithmException e) {
+			throw new ServletException(e);
+		}
+	}
+
+	/**
+	 * What is kept for an idempotency key: the digest of the request body
+	 * and, once complete, the response, or <code>null</code> if not kept.
+	 */
+	private static class Claim {
+
+		private final byte[] digest;
+		private final SettableFuture<RecordedResponse> response = SettableFuture.create();
+
+		Claim(final byte[] digest) {
+			this.digest = digest;
+		}
+
+	}
+
+	/**
+	 * The claim of a request on its idempotency key, carried across the
+	 * dispatches of an asynchronous request.
+	 */
+	private class Execution implements AsyncListener {
+
+		private final String key;
+		private final Claim pending;
+		private RecordingResponseWrapper recorder;
+
+		Execution(
+				final String key,
+				final Claim pending,
+				final RecordingResponseWrapper recorder) {
+			this.key = key;
+			this.pending = pending;
+			this.recorder = recorder;
+		}
+
+		void suspend(final HttpServletRequest request) {
+			request.setAttribute(ATTRIBUTE, this);
+			request.getAsyncContext().addListener(this);
+		}
+
+		void resume(final ServletResponse response) {
+			if (response != recorder
+					&& !(response instanceof ServletResponseWrapper
+					&& ((ServletResponseWrapper) response).isWrapperFor(recorder))) {
+				recorder = new RecordingResponseWrapper((HttpServletResponse) response, maxBody);
+			}
+		}
+
+		void complete(final RecordedResponse recorded) {
+			if (pending.response.set(recorded) && recorded == null) {
+				responses.remove(key, pending);
+			}
+		}
+
+		@Override
+		public void onComplete(final AsyncEvent event) {
+			// releases the key should the request never be dispatched again
+			complete(null);
+		}
+
+		@Override
+		public void onError(final AsyncEvent event) {
+			complete(null);
+		}
+
+		@Override
+		public void onStartAsync(final AsyncEvent event) {
+			event.getAsyncContext().addListener(this);
+		}
+
+		@Override
+		public void onTimeout(final AsyncEvent event) {
+			// the timeout is answered by a further dispatch
+		}
+
+	}
+
+}
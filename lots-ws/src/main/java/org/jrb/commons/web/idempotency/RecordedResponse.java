@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.idempotency;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Immutable copy of a completed response (its status, the headers set while
+ * producing it and its body) that can be written again in answer to a
+ * repeated request.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class RecordedResponse {
+
+	private final int status;
+	private final String contentType;
+	private final Map<String, List<String>> headers;
+	private final byte[] body;
+
+	public RecordedResponse(
+			final int status,
+			final String contentType,
+			final Map<String, List<String>> headers,
+			final byte[] body) {
+		this.status = status;
+		this.contentType = contentType;
+		this.headers = Collections.unmodifiableMap(headers);
+		this.body = body;
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public Map<String, List<String>> getHeaders() {
+		return headers;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * Writes this recorded response to the given, uncommitted response.
+	 * 
+	 * @param response
+	 *            the response to write to
+	 * @throws IOException
+	 *             if the body cannot be written
+	 */
+	public void replay(final HttpServletResponse response) throws IOException {
+		response.setStatus(status);
+		for (final Map.Entry<String, List<String>> header : headers.entrySet()) {
+			for (final String value : header.getValue()) {
+				response.addHeader(header.getKey(), value);
+			}
+		}
+		if (contentType != null) {
+			response.setContentType(contentType);
+		}
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+	}
+
+}
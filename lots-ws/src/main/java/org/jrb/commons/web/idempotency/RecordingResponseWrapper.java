@@ -0,0 +1,209 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.idempotency;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response wrapper that passes a response through to the client while
+ * keeping a copy of its status, of the headers set through the wrapper and of
+ * up to a bounded number of body bytes. Responses that overflow that bound,
+ * or that end in a container error page or redirect, cannot be recorded.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class RecordingResponseWrapper extends HttpServletResponseWrapper {
+
+	private final int maxBody;
+	private final Map<String, List<String>> headers = new LinkedHashMap<>();
+	private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+	private int status = SC_OK;
+	private boolean recordable = true;
+	private ServletOutputStream outputStream;
+	private PrintWriter writer;
+
+	public RecordingResponseWrapper(final HttpServletResponse response, final int maxBody) {
+		super(response);
+		this.maxBody = maxBody;
+	}
+
+	@Override
+	public void addDateHeader(final String name, final long date) {
+		super.addDateHeader(name, date);
+		record(name, getHeader(name), false);
+	}
+
+	@Override
+	public void addHeader(final String name, final String value) {
+		super.addHeader(name, value);
+		record(name, value, false);
+	}
+
+	@Override
+	public void addIntHeader(final String name, final int value) {
+		super.addIntHeader(name, value);
+		record(name, String.valueOf(value), false);
+	}
+
+	@Override
+	public void flushBuffer() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+		super.flushBuffer();
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (outputStream == null) {
+			final ServletOutputStream delegate = super.getOutputStream();
+			outputStream = new ServletOutputStream() {
+				@Override
+				public void close() throws IOException {
+					delegate.close();
+				}
+
+				@Override
+				public void flush() throws IOException {
+					delegate.flush();
+				}
+
+				@Override
+				public void write(final byte[] b, final int off, final int len) throws IOException {
+					delegate.write(b, off, len);
+					copy(b, off, len);
+				}
+
+				@Override
+				public void write(final int b) throws IOException {
+					delegate.write(b);
+					copy(new byte[] { (byte) b }, 0, 1);
+				}
+			};
+		}
+		return outputStream;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (writer == null) {
+			writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+		}
+		return writer;
+	}
+
+	/**
+	 * @return the recorded response, or <code>null</code> if it could not be
+	 *         recorded in full
+	 */
+	public RecordedResponse getRecordedResponse() {
+		if (writer != null) {
+			writer.flush();
+		}
+		return recordable ? new RecordedResponse(status, getContentType(), headers, body.toByteArray()) : null;
+	}
+
+	@Override
+	public void sendError(final int sc) throws IOException {
+		recordable = false;
+		super.sendError(sc);
+	}
+
+	@Override
+	public void sendError(final int sc, final String msg) throws IOException {
+		recordable = false;
+		super.sendError(sc, msg);
+	}
+
+	@Override
+	public void sendRedirect(final String location) throws IOException {
+		recordable = false;
+		super.sendRedirect(location);
+	}
+
+	@Override
+	public void setDateHeader(final String name, final long date) {
+		super.setDateHeader(name, date);
+		record(name, getHeader(name), true);
+	}
+
+	@Override
+	public void setHeader(final String name, final String value) {
+		super.setHeader(name, value);
+		record(name, value, true);
+	}
+
+	@Override
+	public void setIntHeader(final String name, final int value) {
+		super.setIntHeader(name, value);
+		record(name, String.valueOf(value), true);
+	}
+
+	@Override
+	public void setStatus(final int sc) {
+		super.setStatus(sc);
+		status = sc;
+	}
+
+	@Override
+	@Deprecated
+	public void setStatus(final int sc, final String sm) {
+		super.setStatus(sc, sm);
+		status = sc;
+	}
+
+	private void copy(final byte[] b, final int off, final int len) {
+		if (recordable) {
+			if (body.size() + len > maxBody) {
+				recordable = false;
+				body.reset();
+			} else {
+				body.write(b, off, len);
+			}
+		}
+	}
+
+	private void record(final String name, final String value, final boolean replace) {
+		if ("Content-Type".equalsIgnoreCase(name) || "Content-Length".equalsIgnoreCase(name)) {
+			return;
+		}
+		List<String> values = headers.get(name);
+		if (values == null || replace) {
+			values = new ArrayList<>();
+			headers.put(name, values);
+		}
+		values.add(value);
+	}
+
+}
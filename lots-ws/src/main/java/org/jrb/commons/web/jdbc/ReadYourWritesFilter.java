@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.jdbc;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.jrb.commons.jdbc.RoutingContext;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Servlet filter binding a {@link RoutingContext} to each request and giving
+ * clients read-your-writes consistency over a lagging replica: for a window
+ * after a client's request wrote, all of its requests are pinned to the
+ * primary. Clients are identified by their principal, or failing that by
+ * their remote address, so the filter must run after the security filter
+ * chain; ahead of it every user behind one address shares a window.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+	private final static String ATTRIBUTE = ReadYourWritesFilter.class.getName() + ".CONTEXT";
+
+	private final Cache<String, Boolean> recentWriters;
+
+	public ReadYourWritesFilter(final long window, final TimeUnit unit, final long maxClients) {
+		this.recentWriters = CacheBuilder.newBuilder()
+				.expireAfterWrite(window, unit)
+				.maximumSize(maxClients)
+				.build();
+	}
+
+	@Override
+	protected void doFilterInternal(
+			final HttpServletRequest request,
+			final HttpServletResponse response,
+			final FilterChain filterChain) throws ServletException, IOException {
+		final String client = client(request);
+		final RoutingContext context;
+		if (isAsyncDispatch(request)) {
+			context = RoutingContext.resume((RoutingContext) request.getAttribute(ATTRIBUTE));
+		} else {
+			context = RoutingContext.begin();
+			context.setPrimaryOnly(recentWriters.getIfPresent(client) != null);
+		}
+		if (context == null) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			RoutingContext.end();
+			if (isAsyncStarted(request)) {
+				request.setAttribute(ATTRIBUTE, context);
+			} else if (context.isWritten()) {
+				recentWriters.put(client, Boolean.TRUE);
+			}
+		}
+	}
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	private String client(final HttpServletRequest request) {
+		final Principal principal = request.getUserPrincipal();
+		return (principal != null) ? "user:" + principal.getName() : "addr:" + request.getRemoteAddr();
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.jdbc;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.jrb.commons.jdbc.StatementBudget;
+import org.jrb.commons.jdbc.StatementStatistics;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Spring MVC interceptor applying the statement budget of the mapped
+ * endpoint to the {@link StatementStatistics} of the current request.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class StatementBudgetInterceptor extends HandlerInterceptorAdapter {
+
+	private final StatementBudget budget;
+
+	public StatementBudgetInterceptor(final StatementBudget budget) {
+		this.budget = budget;
+	}
+
+	@Override
+	public boolean preHandle(
+			final HttpServletRequest request,
+			final HttpServletResponse response,
+			final Object handler) throws Exception {
+		final StatementStatistics statistics = StatementStatistics.current();
+		if (statistics != null) {
+			final String endpoint = StatementCountingFilter.endpoint(request);
+			statistics.setBudget(budget.forEndpoint(endpoint), budget.isFailOverBudget());
+		}
+		return true;
+	}
+
+}
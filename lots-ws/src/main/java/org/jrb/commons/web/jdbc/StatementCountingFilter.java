@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.jdbc;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.jrb.commons.jdbc.StatementStatistics;
+import org.jrb.commons.metrics.LatencyRegistry;
+import org.jrb.commons.web.CommitAwareResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Servlet filter binding {@link StatementStatistics} to each request. The
+ * statement count, rows, commits and database time are reported in the
+ * <code>x-db-statements</code>, <code>x-db-rows</code>,
+ * <code>x-db-commits</code> and <code>x-db-time</code> response headers; the
+ * statement count, rows and time are also published as metrics per endpoint,
+ * and requests exceeding their statement budget are logged. Statistics of an
+ * asynchronous request span all of its dispatches and its worker.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class StatementCountingFilter extends OncePerRequestFilter {
+
+	public final static String HEADER_DB_COMMITS = "x-db-commits";
+	public final static String HEADER_DB_ROWS = "x-db-rows";
+	public final static String HEADER_DB_STATEMENTS = "x-db-statements";
+	public final static String HEADER_DB_TIME = "x-db-time";
+
+	private final static Logger LOG = LoggerFactory.getLogger(StatementCountingFilter.class);
+
+	/**
+	 * Builds the endpoint key of a request from its method and mapped URI
+	 * pattern (e.g. <code>GET./api/thing/{thingId}</code>).
+	 * 
+	 * @param request
+	 *            the request
+	 * @return the endpoint key
+	 */
+	public static String endpoint(final HttpServletRequest request) {
+		final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		return request.getMethod() + "." + (pattern != null ? pattern : "unmapped");
+	}
+
+	private final static String ATTRIBUTE = StatementCountingFilter.class.getName() + ".STATISTICS";
+
+	private final CounterService counterService;
+	private final GaugeService gaugeService;
+	private final LatencyRegistry latencyRegistry;
+
+	public StatementCountingFilter(
+			final CounterService counterService,
+			final GaugeService gaugeService,
+			final LatencyRegistry latencyRegistry) {
+		this.counterService = counterService;
+		this.gaugeService = gaugeService;
+		this.latencyRegistry = latencyRegistry;
+	}
+
+	@Override
+	protected void doFilterInternal(
+			final HttpServletRequest request,
+			final HttpServletResponse response,
+			final FilterChain filterChain) throws ServletException, IOException {
+		final StatementStatistics statistics = isAsyncDispatch(request)
+				? StatementStatistics.resume((StatementStatistics) request.getAttribute(ATTRIBUTE))
+				: StatementStatistics.begin();
+		if (statistics == null) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		final CommitAwareResponseWrapper wrapper = new CommitAwareResponseWrapper(response) {
+			@Override
+			protected void onCommit() {
+				setHeader(HEADER_DB_STATEMENTS, Integer.toString(statistics.getStatements()));
+				setHeader(HEADER_DB_ROWS, Long.toString(statistics.getRows()));
+				setHeader(HEADER_DB_COMMITS, Integer.toString(statistics.getCommits()));
+				setHeader(HEADER_DB_TIME, Double.toString(statistics.getElapsedMillis()));
+			}
+		};
+		try {
+			filterChain.doFilter(request, wrapper);
+			if (!isAsyncStarted(request)) {
+				wrapper.commitHeaders();
+			}
+		} finally {
+			StatementStatistics.end();
+			if (isAsyncStarted(request)) {
+				request.setAttribute(ATTRIBUTE, statistics);
+			} else {
+				publish(request, statistics);
+			}
+		}
+	}
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	private void publish(final HttpServletRequest request, final StatementStatistics statistics) {
+		if (statistics.getStatements() == 0) {
+			return;
+		}
+		final String endpoint = endpoint(request);
+		gaugeService.submit("db.statements." + endpoint, statistics.getStatements());
+		gaugeService.submit("db.rows." + endpoint, statistics.getRows());
+		latencyRegistry.record("db." + endpoint, statistics.getElapsedNanos());
+		if (statistics.isOverBudget()) {
+			counterService.increment("db.overbudget." + endpoint);
+			LOG.warn("Statement budget exceeded! endpoint = {}, uri = {}, statistics = {}",
+					endpoint, request.getRequestURI(), statistics);
+		}
+	}
+
+}
@@ -0,0 +1,186 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.jetty;
+
+import org.eclipse.jetty.server.AbstractConnector;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.nio.AbstractNIOConnector;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.embedded.jetty.JettyServerCustomizer;
+
+/**
+ * Customizes the thread pool and connectors of an embedded Jetty server. The
+ * defaults are those of Jetty itself, so only what is set changes.
+ * <p>
+ * In Jetty 8, each acceptor thread also gets a selector set of its own, so
+ * {@link #setAcceptors(int)} sizes both. The response buffer is the servlet
+ * output buffer: responses up to its size are sent with a content length in
+ * one write, larger ones are chunked. A bounded request queue makes the
+ * server refuse connections it cannot dispatch instead of queueing them
+ * without limit.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class JettyConnectorCustomizer implements JettyServerCustomizer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(JettyConnectorCustomizer.class);
+
+	private int acceptors = 1;
+	private int acceptQueueSize = 0;
+	private int idleTimeout = 200000;
+	private int lowResourcesConnections = 0;
+	private int lowResourcesIdleTimeout = 0;
+	private int requestHeaderSize = 6144;
+	private int requestBufferSize = 16384;
+	private int responseHeaderSize = 6144;
+	private int responseBufferSize = 32768;
+	private boolean directBuffers = true;
+	private int minThreads = 8;
+	private int maxThreads = 254;
+	private int maxQueued = -1;
+
+	@Override
+	public void customize(final Server server) {
+		final QueuedThreadPool threadPool = new QueuedThreadPool();
+		threadPool.setName("http");
+		threadPool.setMinThreads(minThreads);
+		threadPool.setMaxThreads(maxThreads);
+		threadPool.setMaxQueued(maxQueued);
+		server.setThreadPool(threadPool);
+
+		for (final Connector connector : server.getConnectors()) {
+			if (connector instanceof AbstractConnector) {
+				final AbstractConnector configured = (AbstractConnector) connector;
+				configured.setAcceptors(acceptors);
+				configured.setAcceptQueueSize(acceptQueueSize);
+				configured.setMaxIdleTime(idleTimeout);
+				configured.setLowResourcesMaxIdleTime(lowResourcesIdleTimeout);
+				configured.setRequestHeaderSize(requestHeaderSize);
+				configured.setRequestBufferSize(requestBufferSize);
+				configured.setResponseHeaderSize(responseHeaderSize);
+				configured.setResponseBufferSize(responseBufferSize);
+			}
+			if (connector instanceof SelectChannelConnector) {
+				((SelectChannelConnector) connector)
+						.setLowResourcesConnections(lowResourcesConnections);
+			}
+			if (connector instanceof AbstractNIOConnector) {
+				((AbstractNIOConnector) connector).setUseDirectBuffers(directBuffers);
+			}
+		}
+		LOG.info("Customized Jetty: {}", this);
+	}
+
+	public void setAcceptors(final int acceptors) {
+		this.acceptors = acceptors;
+	}
+
+	public void setAcceptQueueSize(final int acceptQueueSize) {
+		this.acceptQueueSize = acceptQueueSize;
+	}
+
+	public void setDirectBuffers(final boolean directBuffers) {
+		this.directBuffers = directBuffers;
+	}
+
+	/**
+	 * @param idleTimeout
+	 *            the time in milliseconds an idle connection is kept open
+	 */
+	public void setIdleTimeout(final int idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * @param lowResourcesConnections
+	 *            the number of connections beyond which the server is low on
+	 *            resources and closes idle connections sooner, or 0 never to
+	 *            be
+	 */
+	public void setLowResourcesConnections(final int lowResourcesConnections) {
+		this.lowResourcesConnections = lowResourcesConnections;
+	}
+
+	/**
+	 * @param lowResourcesIdleTimeout
+	 *            the time in milliseconds an idle connection is kept open
+	 *            while the server is low on resources
+	 */
+	public void setLowResourcesIdleTimeout(final int lowResourcesIdleTimeout) {
+		this.lowResourcesIdleTimeout = lowResourcesIdleTimeout;
+	}
+
+	/**
+	 * @param maxQueued
+	 *            the number of requests waiting for a server thread beyond
+	 *            which connections are refused, or -1 for no limit
+	 */
+	public void setMaxQueued(final int maxQueued) {
+		this.maxQueued = maxQueued;
+	}
+
+	public void setMaxThreads(final int maxThreads) {
+		this.maxThreads = maxThreads;
+	}
+
+	public void setMinThreads(final int minThreads) {
+		this.minThreads = minThreads;
+	}
+
+	public void setRequestBufferSize(final int requestBufferSize) {
+		this.requestBufferSize = requestBufferSize;
+	}
+
+	public void setRequestHeaderSize(final int requestHeaderSize) {
+		this.requestHeaderSize = requestHeaderSize;
+	}
+
+	public void setResponseBufferSize(final int responseBufferSize) {
+		this.responseBufferSize = responseBufferSize;
+	}
+
+	public void setResponseHeaderSize(final int responseHeaderSize) {
+		this.responseHeaderSize = responseHeaderSize;
+	}
+
+	@Override
+	public String toString() {
+		return "acceptors=" + acceptors
+				+ ", acceptQueueSize=" + acceptQueueSize
+				+ ", idleTimeout=" + idleTimeout
+				+ ", lowResourcesConnections=" + lowResourcesConnections
+				+ ", lowResourcesIdleTimeout=" + lowResourcesIdleTimeout
+				+ ", requestHeaderSize=" + requestHeaderSize
+				+ ", requestBufferSize=" + requestBufferSize
+				+ ", responseHeaderSize=" + responseHeaderSize
+				+ ", responseBufferSize=" + responseBufferSize
+				+ ", directBuffers=" + directBuffers
+				+ ", threads=" + minThreads + ".." + maxThreads
+				+ ", maxQueued=" + maxQueued;
+	}
+
+}
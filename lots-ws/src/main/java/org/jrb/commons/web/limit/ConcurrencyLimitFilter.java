@@ -0,0 +1,245 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.limit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.jrb.commons.web.async.RequestRejectedException;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Servlet filter shedding load once more requests are in flight than a
+ * {@link GradientLimit} allows. Excess requests are answered at once with a
+ * <code>503 Service Unavailable</code> and a <code>Retry-After</code> hint,
+ * before they reach security, a worker or the database. Reads (GET and HEAD)
+ * may use the whole limit, while other requests may only hold a share of it
+ * at once, so that reads keep flowing under a burst of bulk writes.
+ * <p>
+ * Each request admitted feeds its round trip time back into the limit; an
+ * asynchronous request counts until it completes, and a request answered
+ * with a 503 or a 504 further on counts as dropped. Rejections are counted as
+ * <code>http.limit.rejected.read</code> and
+ * <code>http.limit.rejected.write</code>, and the limit and the requests in
+ * flight are gauged as <code>http.limit.limit</code> and
+ * <code>http.limit.inflight</code> whenever the limit is recalculated.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter implements Ordered {
+
+	private final static byte[] REJECTED_BODY =
+			"{\"message\":\"Too many requests in progress\"}".getBytes(StandardCharsets.UTF_8);
+
+	private final GradientLimit limit;
+	private final String[] paths;
+	private final double writeShare;
+	private final String retryAfter;
+	private final CounterService counterService;
+	private final GaugeService gaugeService;
+	private final AtomicInteger inflight = new AtomicInteger();
+	private final AtomicInteger writes = new AtomicInteger();
+
+	/**
+	 * @param limit
+	 *            the adaptive limit
+	 * @param paths
+	 *            the request path prefixes, relative to the context, that are
+	 *            limited
+	 * @param writeShare
+	 *            the share of the limit, from 0 to 1, that requests other
+	 *            than reads may use
+	 * @param retryAfter
+	 *            the retry hint given to rejected requests, in seconds
+	 * @param counterService
+	 *            the service counting rejections
+	 * @param gaugeService
+	 *            the service gauging the limiter state
+	 */
+	public ConcurrencyLimitFilter(
+			final GradientLimit limit,
+			final String[] paths,
+			final double writeShare,
+			final long retryAfter,
+			final CounterService counterService,
+			final GaugeService gaugeService) {
+		this.limit = limit;
+		this.paths = paths;
+		this.writeShare = writeShare;
+		this.retryAfter = Long.toString(retryAfter);
+		this.counterService = counterService;
+		this.gaugeService = gaugeService;
+	}
+
+	/**
+	 * @return the number of requests in flight
+	 */
+	public int getInflight() {
+		return inflight.get();
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE + 1;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(final HttpServletRequest request) throws ServletException {
+		final String path = request.getRequestURI().substring(request.getContextPath().length());
+		for (final String prefix : paths) {
+			if (path.startsWith(prefix)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	protected void doFilterInternal(
+			final HttpServletRequest request,
+			final HttpServletResponse response,
+			final FilterChain filterChain) throws ServletException, IOException {
+		final boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+		final int allowed = limit.getLimit();
+		if (!read && acquire(writes, Math.max(1, (int) (allowed * writeShare))) == 0) {
+			reject(response, read);
+			return;
+		}
+		final int current = acquire(inflight, allowed);
+		if (current == 0) {
+			if (!read) {
+				writes.decrementAndGet();
+			}
+			reject(response, read);
+			return;
+		}
+
+		final Sample sample = new Sample(response, current, read);
+		boolean async = false;
+		try {
+			filterChain.doFilter(request, response);
+			if (isAsyncStarted(request)) {
+				request.getAsyncContext().addListener(sample);
+				async = true;
+			}
+		} finally {
+			if (!async) {
+				sample.complete(false);
+			}
+		}
+	}
+
+	/**
+	 * Increments a count of requests unless it has reached what is allowed.
+	 * 
+	 * @return the incremented count, or 0 if the count was not incremented
+	 */
+	private static int acquire(final AtomicInteger counter, final int allowed) {
+		int current;
+		do {
+			current = counter.get();
+			if (current >= allowed) {
+				return 0;
+			}
+		} while (!counter.compareAndSet(current, current + 1));
+		return current + 1;
+	}
+
+	private void reject(final HttpServletResponse response, final boolean read) throws IOException {
+		counterService.increment(read ? "http.limit.rejected.read" : "http.limit.rejected.write");
+		response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+		response.setHeader(RequestRejectedException.HEADER_RETRY_AFTER, retryAfter);
+		response.setContentType("application/json");
+		response.setContentLength(REJECTED_BODY.length);
+		response.getOutputStream().write(REJECTED_BODY);
+	}
+
+	/**
+	 * The admission of a request, completed once it has been answered.
+	 */
+	private class Sample implements AsyncListener {
+
+		private final HttpServletResponse response;
+		private final int inflightAtStart;
+		private final boolean read;
+		private final long startTime = System.nanoTime();
+		private final AtomicBoolean completed = new AtomicBoolean();
+
+		Sample(final HttpServletResponse response, final int inflightAtStart, final boolean read) {
+			this.response = response;
+			this.inflightAtStart = inflightAtStart;
+			this.read = read;
+		}
+
+		void complete(final boolean failed) {
+			if (!completed.compareAndSet(false, true)) {
+				return;
+			}
+			final int remaining = inflight.decrementAndGet();
+			if (!read) {
+				writes.decrementAndGet();
+			}
+			final boolean dropped = failed
+					|| response.getStatus() == HttpServletResponse.SC_SERVICE_UNAVAILABLE
+					|| response.getStatus() == HttpServletResponse.SC_GATEWAY_TIMEOUT;
+			if (limit.onSample(System.nanoTime() - startTime, inflightAtStart, dropped)) {
+				gaugeService.submit("http.limit.limit", limit.getLimit());
+				gaugeService.submit("http.limit.inflight", remaining);
+			}
+		}
+
+		@Override
+		public void onComplete(final AsyncEvent event) {
+			complete(false);
+		}
+
+		@Override
+		public void onError(final AsyncEvent event) {
+			complete(true);
+		}
+
+		@Override
+		public void onStartAsync(final AsyncEvent event) {
+			event.getAsyncContext().addListener(this);
+		}
+
+		@Override
+		public void onTimeout(final AsyncEvent event) {
+			// the timeout is answered by a further dispatch
+		}
+
+	}
+
+}
@@ -0,0 +1,176 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.limit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrency limit adjusted by latency feedback, after the gradient
+ * algorithm. Request round trip times are averaged over short windows and
+ * compared with a long-term average standing in for the latency without
+ * queueing:
+ * 
+ * <pre>
+ * gradient = clamp(tolerance * longRtt / shortRtt, 0.5, 1.0)
+ * limit    = limit * gradient + sqrt(limit)
+ * </pre>
+ * 
+ * As long as requests take no longer than <code>tolerance</code> times their
+ * usual latency the limit probes upwards, and once queueing inflates latency
+ * it shrinks in proportion. A window holding dropped requests, such as
+ * requests timed out downstream, backs the limit off by a tenth instead.
+ * Windows in which the limit was not approached leave it alone, so that an
+ * idle period does not inflate it. Changes are smoothed.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class GradientLimit {
+
+	private final static int MIN_WINDOW_SAMPLES = 10;
+	private final static long MIN_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+	private final static double LONG_RTT_FACTOR = 2.0 / (600 + 1);
+	private final static double BACKOFF = 0.9;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final double tolerance;
+	private final double smoothing;
+
+	private volatile int limit;
+	private double estimatedLimit;
+	private double longRtt;
+
+	private long windowStart;
+	private long windowSamples;
+	private long windowRttSum;
+	private int windowMaxInflight;
+	private boolean windowDropped;
+
+	/**
+	 * @param initialLimit
+	 *            the limit to start with
+	 * @param minLimit
+	 *            the lowest limit
+	 * @param maxLimit
+	 *            the highest limit
+	 * @param tolerance
+	 *            how many times its long-term latency a request may take
+	 *            before the limit shrinks
+	 * @param smoothing
+	 *            the weight, from 0 to 1, of each new limit against the
+	 *            current one
+	 */
+	public GradientLimit(
+			final int initialLimit,
+			final int minLimit,
+			final int maxLimit,
+			final double tolerance,
+			final double smoothing) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.tolerance = tolerance;
+		this.smoothing = smoothing;
+		this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+		this.limit = (int) estimatedLimit;
+		this.windowStart = System.nanoTime();
+	}
+
+	/**
+	 * @return the current concurrency limit
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return the long-term round trip time, in nanoseconds
+	 */
+	public synchronized long getLongRtt() {
+		return (long) longRtt;
+	}
+
+	/**
+	 * Records the outcome of a request.
+	 * 
+	 * @param rttNanos
+	 *            the round trip time of the request, in nanoseconds
+	 * @param inflight
+	 *            the number of requests in flight when it started, itself
+	 *            included
+	 * @param dropped
+	 *            whether the request was dropped for lack of capacity
+	 * @return <code>true</code> if the limit was recalculated
+	 */
+	public boolean onSample(final long rttNanos, final int inflight, final boolean dropped) {
+		return onSample(System.nanoTime(), rttNanos, inflight, dropped);
+	}
+
+	synchronized boolean onSample(final long now, final long rttNanos, final int inflight, final boolean dropped) {
+		windowSamples++;
+		windowRttSum += rttNanos;
+		windowMaxInflight = Math.max(windowMaxInflight, inflight);
+		windowDropped |= dropped;
+		if (windowSamples < MIN_WINDOW_SAMPLES || now - windowStart < MIN_WINDOW_NANOS) {
+			return false;
+		}
+
+		final double shortRtt = (double) windowRttSum / windowSamples;
+		final int maxInflight = windowMaxInflight;
+		final boolean droppedAny = windowDropped;
+		windowStart = now;
+		windowSamples = 0;
+		windowRttSum = 0;
+		windowMaxInflight = 0;
+		windowDropped = false;
+
+		if (longRtt == 0) {
+			longRtt = shortRtt;
+		} else {
+			longRtt += (shortRtt - longRtt) * LONG_RTT_FACTOR;
+			// let the baseline fall quickly once a burst of queueing is over
+			if (longRtt > 2 * shortRtt) {
+				longRtt *= 0.95;
+			}
+		}
+
+		final double newLimit;
+		if (droppedAny) {
+			newLimit = estimatedLimit * BACKOFF;
+		} else if (maxInflight < estimatedLimit / 2) {
+			return true;
+		} else {
+			final double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+			newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+		}
+		estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+				estimatedLimit * (1 - smoothing) + newLimit * smoothing));
+		limit = (int) estimatedLimit;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[limit=" + limit + ", longRtt=" + getLongRtt() + "]";
+	}
+
+}
@@ -0,0 +1,202 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.limit;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.jrb.commons.web.async.RequestRejectedException;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Spring MVC interceptor limiting the rate of requests of each client with
+ * a {@link TokenBucket}. Clients are told apart by their principal, falling
+ * back to their address; the interceptor runs after the security filter
+ * chain, so the principal is known. Each endpoint class has its own budget:
+ * reads (GET and HEAD), other requests, and any path prefixes given a budget
+ * of their own, such as batches.
+ * <p>
+ * Every limited response carries the <code>RateLimit-Limit</code>,
+ * <code>RateLimit-Remaining</code> and <code>RateLimit-Reset</code> headers;
+ * a request over its budget is answered with a
+ * <code>429 Too Many Requests</code> and a <code>Retry-After</code> hint,
+ * and counted as <code>http.ratelimit.rejected.&lt;budget&gt;</code>.
+ * <p>
+ * Buckets live in a cache split into independently locked segments, and
+ * each is a single {@link AtomicLong} updated with compare-and-set, so that
+ * clients do not contend with one another. Buckets of idle clients are
+ * evicted.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class RateLimitInterceptor extends HandlerInterceptorAdapter {
+
+	public final static String HEADER_LIMIT = "RateLimit-Limit";
+	public final static String HEADER_REMAINING = "RateLimit-Remaining";
+	public final static String HEADER_RESET = "RateLimit-Reset";
+
+	private final static byte[] REJECTED_BODY =
+			"{\"message\":\"Too many requests\"}".getBytes(StandardCharsets.UTF_8);
+
+	private final String[] paths;
+	private final TokenBucket read;
+	private final TokenBucket write;
+	private final Map<String, TokenBucket> pathBudgets;
+	private final ConcurrentMap<String, AtomicLong> buckets;
+	private final CounterService counterService;
+
+	/**
+	 * @param paths
+	 *            the request path prefixes, relative to the context, that are
+	 *            limited
+	 * @param read
+	 *            the budget of reads
+	 * @param write
+	 *            the budget of other requests
+	 * @param pathBudgets
+	 *            the budgets of path prefixes with a budget of their own
+	 * @param idle
+	 *            the time after which the bucket of an idle client is evicted
+	 * @param unit
+	 *            the unit of the idle time
+	 * @param maxClients
+	 *            the maximum number of buckets kept
+	 * @param stripes
+	 *            the number of independently locked segments of buckets
+	 * @param counterService
+	 *            the service counting rejections
+	 */
+	public RateLimitInterceptor(
+			final String[] paths,
+			final TokenBucket read,
+			final TokenBucket write,
+			final Map<String, TokenBucket> pathBudgets,
+			final long idle,
+			final TimeUnit unit,
+			final long maxClients,
+			final int stripes,
+			final CounterService counterService) {
+		this.paths = paths;
+		this.read = read;
+		this.write = write;
+		this.pathBudgets = pathBudgets;
+		this.buckets = CacheBuilder.newBuilder()
+				.expireAfterAccess(idle, unit)
+				.maximumSize(maxClients)
+				.concurrencyLevel(stripes)
+				.<String, AtomicLong> build()
+				.asMap();
+		this.counterService = counterService;
+	}
+
+	/**
+	 * @return the number of buckets kept
+	 */
+	public int getClients() {
+		return buckets.size();
+	}
+
+	@Override
+	public boolean preHandle(
+			final HttpServletRequest request,
+			final HttpServletResponse response,
+			final Object handler) throws Exception {
+		if (request.getDispatcherType() == DispatcherType.ASYNC) {
+			return true;
+		}
+		final String path = request.getRequestURI().substring(request.getContextPath().length());
+		final TokenBucket budget = budget(request, path);
+		if (budget == null) {
+			return true;
+		}
+
+		final String key = budget.getName() + " " + client(request);
+		AtomicLong bucket = buckets.get(key);
+		if (bucket == null) {
+			final AtomicLong created = budget.newBucket();
+			bucket = buckets.putIfAbsent(key, created);
+			if (bucket == null) {
+				bucket = created;
+			}
+		}
+
+		final long now = System.nanoTime();
+		final long remaining = budget.tryConsume(bucket, now);
+		response.setHeader(HEADER_LIMIT, Integer.toString(budget.getCapacity()));
+		response.setHeader(HEADER_REMAINING, Long.toString(Math.max(0L, remaining)));
+		response.setHeader(HEADER_RESET, Long.toString(seconds(budget.untilFull(bucket, now))));
+		if (remaining >= 0) {
+			return true;
+		}
+
+		counterService.increment("http.ratelimit.rejected." + budget.getName());
+		response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+		response.setHeader(RequestRejectedException.HEADER_RETRY_AFTER, Long.toString(seconds(-remaining)));
+		response.setContentType("application/json");
+		response.setContentLength(REJECTED_BODY.length);
+		response.getOutputStream().write(REJECTED_BODY);
+		return false;
+	}
+
+	private TokenBucket budget(final HttpServletRequest request, final String path) {
+		boolean limited = false;
+		for (final String prefix : paths) {
+			if (path.startsWith(prefix)) {
+				limited = true;
+				break;
+			}
+		}
+		if (!limited) {
+			return null;
+		}
+		for (final Map.Entry<String, TokenBucket> entry : pathBudgets.entrySet()) {
+			if (path.startsWith(entry.getKey())) {
+				return entry.getValue();
+			}
+		}
+		final String method = request.getMethod();
+		return ("GET".equals(method) || "HEAD".equals(method)) ? read : write;
+	}
+
+	private String client(final HttpServletRequest request) {
+		final Principal principal = request.getUserPrincipal();
+		return (principal != null) ? "user:" + principal.getName() : "addr:" + request.getRemoteAddr();
+	}
+
+	private static long seconds(final long nanos) {
+		return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+	}
+
+}
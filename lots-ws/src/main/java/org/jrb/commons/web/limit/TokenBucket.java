@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket budget: up to <code>capacity</code> requests at once, refilled
+ * at a steady rate. The state of each bucket is a single
+ * {@link AtomicLong}, so that buckets cost a few bytes each and are updated
+ * without locks. It holds the theoretical arrival time of the generic cell
+ * rate algorithm, which is equivalent to a token bucket: the time at which
+ * the bucket would be full again, were no more requests made.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class TokenBucket {
+
+	private final String name;
+	private final int capacity;
+	private final long interval;
+	private final long tolerance;
+
+	/**
+	 * @param name
+	 *            the name of the budget
+	 * @param capacity
+	 *            the number of requests a full bucket allows at once
+	 * @param rate
+	 *            the number of requests allowed per second thereafter
+	 */
+	public TokenBucket(final String name, final int capacity, final double rate) {
+		this.name = name;
+		this.capacity = capacity;
+		this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+		this.tolerance = interval * capacity;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Creates the state of a full bucket.
+	 * 
+	 * @return the bucket state
+	 */
+	public AtomicLong newBucket() {
+		return new AtomicLong(Long.MIN_VALUE);
+	}
+
+	/**
+	 * Takes a token from a bucket, if there is one.
+	 * 
+	 * @param bucket
+	 *            the bucket state
+	 * @param now
+	 *            the current {@link System#nanoTime()}
+	 * @return the number of tokens left, or if the bucket is empty, the
+	 *         negated number of nanoseconds until a token is available
+	 */
+	public long tryConsume(final AtomicLong bucket, final long now) {
+		while (true) {
+			final long arrival = bucket.get();
+			final long next = Math.max(arrival, now) + interval;
+			if (next - now > tolerance) {
+				return -(next - now - tolerance);
+			}
+			if (bucket.compareAndSet(arrival, next)) {
+				return (tolerance - (next - now)) / interval;
+			}
+		}
+	}
+
+	/**
+	 * Determines how long a bucket takes to fill up again.
+	 * 
+	 * @param bucket
+	 *            the bucket state
+	 * @param now
+	 *            the current {@link System#nanoTime()}
+	 * @return the nanoseconds until the bucket is full
+	 */
+	public long untilFull(final AtomicLong bucket, final long now) {
+		return Math.max(0L, bucket.get() - now);
+	}
+
+}
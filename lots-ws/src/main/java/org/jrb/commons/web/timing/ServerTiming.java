@@ -0,0 +1,191 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.timing;
+
+/**
+ * Request-scoped accumulator of phase timings, rendered as a standard
+ * <code>Server-Timing</code> response header. The timing of the current
+ * request is bound to the request thread by {@link ServerTimingFilter}; when
+ * timing is disabled there, or no request is bound, {@link #start()} and
+ * {@link #stop(String, long)} reduce to a single thread-local lookup.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class ServerTiming {
+
+	public final static String HEADER = "Server-Timing";
+
+	public final static String PHASE_DB = "db";
+	public final static String PHASE_FILTER = "filter";
+	public final static String PHASE_LINKS = "links";
+	public final static String PHASE_SERIALIZE = "serialize";
+	public final static String PHASE_SERVICE = "service";
+	public final static String PHASE_TOTAL = "total";
+
+	public final static long INACTIVE = Long.MIN_VALUE;
+
+	private final static int MAX_PHASES = 8;
+
+	private final static ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * Binds a new timing to the current thread.
+	 * 
+	 * @return the new timing
+	 */
+	public static ServerTiming begin() {
+		final ServerTiming timing = new ServerTiming();
+		CURRENT.set(timing);
+		return timing;
+	}
+
+	/**
+	 * Retrieves the timing bound to the current thread.
+	 * 
+	 * @return the current timing, or <code>null</code> if none
+	 */
+	public static ServerTiming current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Rebinds timing captured on another thread to the current thread, as when
+	 * an asynchronous request continues on a worker or is dispatched back to
+	 * the container.
+	 * 
+	 * @param timing
+	 *            the timing to bind, possibly <code>null</code>
+	 * @return the given timing
+	 */
+	public static ServerTiming resume(final ServerTiming timing) {
+		if (timing != null) {
+			CURRENT.set(timing);
+		} else {
+			CURRENT.remove();
+		}
+		return timing;
+	}
+
+	/**
+	 * Unbinds any timing from the current thread.
+	 */
+	public static void end() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * Marks the start of a phase.
+	 * 
+	 * @return the start mark, or {@link #INACTIVE} if no timing is bound
+	 */
+	public static long start() {
+		return (CURRENT.get() != null) ? System.nanoTime() : INACTIVE;
+	}
+
+	/**
+	 * Marks the end of a phase, adding its duration to the current timing.
+	 * 
+	 * @param phase
+	 *            the phase name
+	 * @param mark
+	 *            the start mark returned by {@link #start()}
+	 */
+	public static void stop(final String phase, final long mark) {
+		if (mark != INACTIVE) {
+			final ServerTiming timing = CURRENT.get();
+			if (timing != null) {
+				timing.add(phase, System.nanoTime() - mark);
+			}
+		}
+	}
+
+	private final long startTime = System.nanoTime();
+	private final String[] phases = new String[MAX_PHASES];
+	private final long[] durations = new long[MAX_PHASES];
+	private int size;
+	private boolean written;
+
+	private ServerTiming() {
+	}
+
+	/**
+	 * Adds a duration to a phase. Repeated phases, such as several repository
+	 * calls, are summed.
+	 * 
+	 * @param phase
+	 *            the phase name
+	 * @param nanos
+	 *            the duration in nanoseconds
+	 */
+	public void add(final String phase, final long nanos) {
+		for (int i = 0; i < size; i++) {
+			if (phases[i].equals(phase)) {
+				durations[i] += nanos;
+				return;
+			}
+		}
+		if (size < MAX_PHASES) {
+			phases[size] = phase;
+			durations[size] = nanos;
+			size++;
+		}
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public boolean isWritten() {
+		return written;
+	}
+
+	/**
+	 * Renders the phases recorded so far, plus the total elapsed time, as a
+	 * <code>Server-Timing</code> header value and marks this timing as written.
+	 * 
+	 * @return the header value
+	 */
+	public String toHeader() {
+		final StringBuilder header = new StringBuilder(32 * (size + 1));
+		for (int i = 0; i < size; i++) {
+			appendPhase(header, phases[i], durations[i]).append(", ");
+		}
+		appendPhase(header, PHASE_TOTAL, System.nanoTime() - startTime);
+		written = true;
+		return header.toString();
+	}
+
+	private static StringBuilder appendPhase(final StringBuilder header, final String phase, final long nanos) {
+		final long micros = nanos / 1000;
+		final long fraction = micros % 1000;
+		header.append(phase).append(";dur=").append(micros / 1000).append('.');
+		if (fraction < 100) {
+			header.append('0');
+		}
+		if (fraction < 10) {
+			header.append('0');
+		}
+		return header.append(fraction);
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.timing;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Outermost servlet filter binding a {@link ServerTiming} to each request.
+ * Responses with a body receive their <code>Server-Timing</code> header from
+ * {@link ServerTimingMessageConverter}; any other response still uncommitted
+ * when the chain returns receives it here. An asynchronous request keeps its
+ * timing across dispatches, so the header covers the worker as well. A
+ * disabled filter binds no timing, leaving every phase untimed.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class ServerTimingFilter extends OncePerRequestFilter implements Ordered {
+
+	private final static String ATTRIBUTE = ServerTimingFilter.class.getName() + ".TIMING";
+
+	private final boolean enabled;
+
+	/**
+	 * @param enabled
+	 *            whether requests are timed
+	 */
+	public ServerTimingFilter(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	@Override
+	protected void doFilterInternal(
+			final HttpServletRequest request,
+			final HttpServletResponse response,
+			final FilterChain filterChain) throws ServletException, IOException {
+		final ServerTiming timing = isAsyncDispatch(request)
+				? ServerTiming.resume((ServerTiming) request.getAttribute(ATTRIBUTE))
+				: ServerTiming.begin();
+		if (timing == null) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			if (isAsyncStarted(request)) {
+				request.setAttribute(ATTRIBUTE, timing);
+			} else if (!timing.isWritten() && !response.isCommitted()) {
+				response.setHeader(ServerTiming.HEADER, timing.toHeader());
+			}
+			ServerTiming.end();
+		}
+	}
+
+	@Override
+	protected boolean shouldNotFilter(final HttpServletRequest request) throws ServletException {
+		return !enabled;
+	}
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+}
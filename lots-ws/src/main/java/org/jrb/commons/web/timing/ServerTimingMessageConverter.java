@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.web.timing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * JSON message converter that times serialization and emits the
+ * <code>Server-Timing</code> header. Since the header must precede the body,
+ * a timed response is serialized into a buffer first; untimed responses are
+ * streamed as usual.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class ServerTimingMessageConverter extends MappingJackson2HttpMessageConverter {
+
+	@Override
+	protected void writeInternal(final Object object, final HttpOutputMessage outputMessage)
+			throws IOException, HttpMessageNotWritableException {
+		final ServerTiming timing = ServerTiming.current();
+		if (timing == null) {
+			super.writeInternal(object, outputMessage);
+			return;
+		}
+
+		final long mark = System.nanoTime();
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+		super.writeInternal(object, new HttpOutputMessage() {
+			@Override
+			public OutputStream getBody() throws IOException {
+				return buffer;
+			}
+
+			@Override
+			public HttpHeaders getHeaders() {
+				return outputMessage.getHeaders();
+			}
+		});
+		timing.add(ServerTiming.PHASE_SERIALIZE, System.nanoTime() - mark);
+
+		outputMessage.getHeaders().set(ServerTiming.HEADER, timing.toHeader());
+		buffer.writeTo(outputMessage.getBody());
+	}
+
+}
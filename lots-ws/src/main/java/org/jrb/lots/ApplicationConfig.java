@@ -22,7 +22,13 @@
  */
 package org.jrb.lots;
 
+import javax.sql.DataSource;
+
+import org.jrb.commons.service.NameFilter;
+import org.jrb.commons.service.RetryInterceptor;
+import org.springframework.aop.framework.autoproxy.BeanNameAutoProxyCreator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -36,12 +42,18 @@ import org.springframework.core.env.Environment;
  */
 @Configuration
 @ComponentScan({ "org.jrb.lots.service" })
-@Import({ DatabaseConfig.class, WebConfig.class })
+@Import({ DatabaseConfig.class, MetricsConfig.class, SecurityConfig.class, WebConfig.class })
 public class ApplicationConfig {
 
 	@Autowired
 	private Environment env;
 
+	@Autowired
+	private CounterService counterService;
+
+	@Autowired
+	private DataSource dataSource;
+
 	@Bean
 	public String product() {
 		return env.getRequiredProperty("application.name");
@@ -52,4 +64,53 @@ public class ApplicationConfig {
 		return env.getRequiredProperty("application.version");
 	}
 
+	@Bean
+	public NameFilter thingNameFilter() {
+		return nameFilter("thing");
+	}
+
+	@Bean
+	public NameFilter tagNameFilter() {
+		return nameFilter("tag");
+	}
+
+	private NameFilter nameFilter(final String table) {
+		final NameFilter filter = new NameFilter(table,
+				env.getProperty("service.name-filter.expected-names", Integer.class, 100000),
+				env.getProperty("service.name-filter.fpp", Double.class, 0.01));
+		filter.load(dataSource, "select count(*) from " + table, "select name from " + table);
+		return filter;
+	}
+
+	@Bean
+	public RetryInterceptor serviceRetryInterceptor() {
+		final int maxAttempts = env.getProperty("service.retry.max-attempts", Integer.class, 4);
+		final long initialBackoff = env.getProperty("service.retry.initial-backoff", Long.class, 10L);
+		final long maxBackoff = env.getProperty("service.retry.max-backoff", Long.class, 200L);
+		return new RetryInterceptor(counterService, maxAttempts, initialBackoff, maxBackoff);
+	}
+
+	/**
+	 * Wraps the services in their interceptors, listed from the outermost in.
+	 * The transaction of a service call is applied first, by the creator
+	 * behind {@link DatabaseConfig}'s transaction management, so that all of
+	 * these sit outside it:
+	 * <ol>
+	 * <li>latency, timing the call as its caller sees it, retries included;</li>
+	 * <li>retry, running each attempt in a transaction of its own;</li>
+	 * <li>read-only routing, entering the call before its transaction takes a
+	 * connection.</li>
+	 * </ol>
+	 */
+	@Bean
+	public static BeanNameAutoProxyCreator serviceProxyCreator() {
+		final BeanNameAutoProxyCreator proxyCreator = new BeanNameAutoProxyCreator();
+		proxyCreator.setBeanNames(new String[] { "tagService", "thingService" });
+		proxyCreator.setInterceptorNames(new String[] {
+				"serviceLatencyInterceptor",
+				"serviceRetryInterceptor",
+				"readOnlyRoutingInterceptor" });
+		return proxyCreator;
+	}
+
 }
@@ -26,13 +26,26 @@ import java.sql.SQLException;
 
 import javax.sql.DataSource;
 
+import org.apache.tomcat.jdbc.pool.PoolProperties;
+import org.jrb.commons.jdbc.ConnectionPoolEndpoint;
+import org.jrb.commons.jdbc.ConnectionValidator;
+import org.jrb.commons.jdbc.ReadOnlyRoutingInterceptor;
+import org.jrb.commons.jdbc.ReadWriteRoutingDataSource;
+import org.jrb.commons.jdbc.SchemaUtils;
+import org.jrb.commons.jdbc.SlowStatementEndpoint;
+import org.jrb.commons.jdbc.SlowStatementLog;
+import org.jrb.commons.jdbc.StatementCountingBeanPostProcessor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 /**
  * Database configuration for the List Of ThingS (LOTS) application.
@@ -44,8 +57,39 @@ import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
 	"org.jrb.lots.domain",
 	"org.jrb.lots.repository"
 })
+@EnableTransactionManagement
 public class DatabaseConfig {
-	
+
+	@Bean
+	public static SlowStatementLog slowStatementLog(final Environment env) {
+		return new SlowStatementLog(
+				env.getProperty("db.slow.threshold", Long.class, 250L),
+				env.getProperty("db.slow.capacity", Integer.class, 100),
+				env.getProperty("db.slow.redact-binds", Boolean.class, false),
+				env.getProperty("db.slow.explain", Boolean.class, true));
+	}
+
+	@Bean
+	public static StatementCountingBeanPostProcessor statementCountingBeanPostProcessor(
+			final SlowStatementLog slowStatementLog) {
+		return new StatementCountingBeanPostProcessor(slowStatementLog);
+	}
+
+	@Bean
+	public ReadOnlyRoutingInterceptor readOnlyRoutingInterceptor() {
+		return new ReadOnlyRoutingInterceptor();
+	}
+
+	@Bean
+	public SlowStatementEndpoint slowStatementEndpoint(final SlowStatementLog slowStatementLog) {
+		return new SlowStatementEndpoint(slowStatementLog);
+	}
+
+	@Bean
+	public ConnectionPoolEndpoint connectionPoolEndpoint(final DataSource dataSource) {
+		return new ConnectionPoolEndpoint(dataSource);
+	}
+
 	@Configuration
 	@Profile(SpringApplication.ENV_LOCAL)
 	static class Config_Local {
@@ -62,4 +106,64 @@ public class DatabaseConfig {
 		
 	}
 
+	@Configuration
+	@Profile("!" + SpringApplication.ENV_LOCAL)
+	static class Config_Pooled {
+
+		@Autowired
+		private Environment env;
+
+		@Bean
+		public DataSource database() throws SQLException {
+			final DataSource primary = pool("lots", "db", false);
+			SchemaUtils.createIfMissing(primary, new ClassPathResource("sql/schema.sql"), "thing");
+			if (env.getProperty("db.replica.url") == null) {
+				return primary;
+			}
+			return new ReadWriteRoutingDataSource(primary, pool("lots-replica", "db.replica", true));
+		}
+
+		private DataSource pool(final String name, final String prefix, final boolean readOnly) {
+			final int maxActive = env.getProperty("db.pool.max-active", Integer.class, 20);
+			final int minIdle = env.getProperty("db.pool.min-idle", Integer.class, 5);
+
+			final PoolProperties pool = new PoolProperties();
+			pool.setName(name);
+			pool.setDriverClassName(env.getProperty("db.driver", "org.hsqldb.jdbc.JDBCDriver"));
+			pool.setUrl(env.getRequiredProperty(prefix + ".url"));
+			pool.setUsername(env.getProperty(prefix + ".username", "sa"));
+			pool.setPassword(env.getProperty(prefix + ".password", ""));
+			pool.setDefaultReadOnly(readOnly);
+
+			// bounded pool; callers wait at most max-wait for a connection
+			pool.setMaxActive(maxActive);
+			pool.setMaxIdle(maxActive);
+			pool.setMinIdle(minIdle);
+			pool.setInitialSize(minIdle);
+			pool.setMaxWait(env.getProperty("db.pool.max-wait", Integer.class, 5000));
+			pool.setRollbackOnReturn(true);
+
+			// validate with Connection.isValid, at most once per interval
+			pool.setValidator(new ConnectionValidator());
+			pool.setTestOnBorrow(true);
+			pool.setTestWhileIdle(true);
+			pool.setValidationInterval(env.getProperty("db.pool.validation-interval", Long.class, 30000L));
+			pool.setTimeBetweenEvictionRunsMillis(env.getProperty("db.pool.eviction-interval", Integer.class, 30000));
+
+			// leaks: warn after suspect-timeout, reclaim after abandoned-timeout
+			pool.setLogAbandoned(true);
+			pool.setSuspectTimeout(env.getProperty("db.pool.suspect-timeout", Integer.class, 60));
+			pool.setRemoveAbandoned(true);
+			pool.setRemoveAbandonedTimeout(env.getProperty("db.pool.abandoned-timeout", Integer.class, 300));
+
+			pool.setJdbcInterceptors("ConnectionState;StatementFinalizer;ResetAbandonedTimer;"
+					+ "StatementCache(prepared=true,callable=false,max="
+					+ env.getProperty("db.pool.statement-cache", Integer.class, 200) + ")");
+			pool.setJmxEnabled(true);
+
+			return new org.apache.tomcat.jdbc.pool.DataSource(pool);
+		}
+
+	}
+
 }
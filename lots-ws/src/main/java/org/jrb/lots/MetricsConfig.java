@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jrb.commons.metrics.LatencyEndpoint;
+import org.jrb.commons.metrics.LatencyHandlerInterceptor;
+import org.jrb.commons.metrics.LatencyRegistry;
+import org.jrb.commons.metrics.MethodLatencyInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Metrics configuration for the List Of ThingS (LOTS) application.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@Configuration
+public class MetricsConfig {
+
+	@Autowired
+	private Environment env;
+
+	@Bean
+	public LatencyRegistry latencyRegistry() {
+		final long window = env.getProperty("metrics.latency.window", Long.class, 60L);
+		final int slices = env.getProperty("metrics.latency.slices", Integer.class, 6);
+		return new LatencyRegistry(window, TimeUnit.SECONDS, slices);
+	}
+
+	@Bean
+	public LatencyEndpoint latencyEndpoint() {
+		return new LatencyEndpoint(latencyRegistry());
+	}
+
+	@Bean
+	public LatencyHandlerInterceptor latencyHandlerInterceptor() {
+		return new LatencyHandlerInterceptor(latencyRegistry());
+	}
+
+	@Bean
+	public MethodLatencyInterceptor serviceLatencyInterceptor() {
+		return new MethodLatencyInterceptor(latencyRegistry(), "service");
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jrb.commons.security.CachingAuthenticationProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.config.annotation.authentication.configurers.GlobalAuthenticationConfigurerAdapter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+/**
+ * Security configuration for the List Of ThingS (LOTS) application. The
+ * application user (<code>security.user.*</code>) keeps Spring Boot's plain
+ * text password check by default; a BCrypt hash is opt-in
+ * (<code>auth.bcrypt.enabled</code>) as it costs tens of milliseconds per
+ * check. Either way, the credentials clients send with every request are
+ * remembered once verified.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@Configuration
+public class SecurityConfig extends GlobalAuthenticationConfigurerAdapter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SecurityConfig.class);
+
+	@Autowired
+	private Environment env;
+
+	@Autowired
+	private SecurityProperties security;
+
+	@Autowired
+	private CounterService counterService;
+
+	@Override
+	public void init(final AuthenticationManagerBuilder auth) throws Exception {
+		// once a provider is configured, Boot no longer defaults the user
+		auth.authenticationProvider(authenticationProvider());
+	}
+
+	@Bean
+	public AuthenticationProvider authenticationProvider() {
+		final SecurityProperties.User user = security.getUser();
+		if (user.isDefaultPassword()) {
+			LOG.info("Using default password for application endpoints: {}", user.getPassword());
+		}
+		final List<GrantedAuthority> authorities = new ArrayList<GrantedAuthority>();
+		for (final String role : user.getRole()) {
+			authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
+		}
+
+		final DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+		String password = user.getPassword();
+		if (env.getProperty("auth.bcrypt.enabled", Boolean.class, false)) {
+			// every check, including every wrong password, costs about 90 ms at
+			// strength 10; the cache below only spares the verified ones
+			final BCryptPasswordEncoder encoder =
+					new BCryptPasswordEncoder(env.getProperty("auth.bcrypt.strength", Integer.class, 10));
+			password = encoder.encode(password);
+			provider.setPasswordEncoder(encoder);
+		}
+		provider.setUserDetailsService(new InMemoryUserDetailsManager(Collections.<UserDetails> singletonList(
+				new User(user.getName(), password, authorities))));
+
+		if (!env.getProperty("auth.cache.enabled", Boolean.class, true)) {
+			return provider;
+		}
+		return new CachingAuthenticationProvider(
+				provider,
+				env.getProperty("auth.cache.ttl", Long.class, 300L), TimeUnit.SECONDS,
+				env.getProperty("auth.cache.max-entries", Long.class, 10000L),
+				counterService);
+	}
+
+}
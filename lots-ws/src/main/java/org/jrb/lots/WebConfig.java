@@ -22,11 +22,49 @@
  */
 package org.jrb.lots;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import javax.servlet.Filter;
+
+import org.jrb.commons.jdbc.StatementBudget;
+import org.jrb.commons.metrics.LatencyHandlerInterceptor;
+import org.jrb.commons.metrics.LatencyRegistry;
+import org.jrb.commons.web.ResponseFactory;
 import org.jrb.commons.web.ResponseUtils;
+import org.jrb.commons.web.async.RequestContextInterceptor;
+import org.jrb.commons.web.async.RequestExecutor;
+import org.jrb.commons.web.idempotency.IdempotencyFilter;
+import org.jrb.commons.web.jdbc.ReadYourWritesFilter;
+import org.jrb.commons.web.jdbc.StatementBudgetInterceptor;
+import org.jrb.commons.web.jdbc.StatementCountingFilter;
+import org.jrb.commons.web.jetty.JettyConnectorCustomizer;
+import org.jrb.commons.web.limit.ConcurrencyLimitFilter;
+import org.jrb.commons.web.limit.GradientLimit;
+import org.jrb.commons.web.limit.RateLimitInterceptor;
+import org.jrb.commons.web.limit.TokenBucket;
+import org.jrb.commons.web.timing.ServerTiming;
+import org.jrb.commons.web.timing.ServerTimingFilter;
+import org.jrb.commons.web.timing.ServerTimingHandlerInterceptor;
+import org.jrb.commons.web.timing.ServerTimingMessageConverter;
+import org.jrb.commons.web.timing.ServerTimingMethodInterceptor;
+import org.jrb.lots.web.response.BatchResponse;
+import org.jrb.lots.web.response.TagListResponse;
+import org.jrb.lots.web.response.TagResponse;
+import org.jrb.lots.web.response.ThingListResponse;
+import org.jrb.lots.web.response.ThingResponse;
+import org.springframework.aop.framework.autoproxy.BeanNameAutoProxyCreator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.embedded.EmbeddedServletContainerFactory;
+import org.springframework.boot.context.embedded.FilterRegistrationBean;
 import org.springframework.boot.context.embedded.jetty.JettyEmbeddedServletContainerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
@@ -34,11 +72,15 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.google.common.collect.Sets;
 
 /**
  * Web configuration for the List Of ThingS (LOTS) application.
@@ -52,22 +94,315 @@ public class WebConfig {
 	@Autowired
 	private Environment env;
 
+	@Autowired
+	private CounterService counterService;
+
+	@Autowired
+	private GaugeService gaugeService;
+
+	@Autowired
+	private LatencyHandlerInterceptor latencyHandlerInterceptor;
+
+	@Autowired
+	private LatencyRegistry latencyRegistry;
+
+	/**
+	 * Assembles the JSON mapper used to render all responses.
+	 * 
+	 * @return the JSON mapper
+	 */
+	public static ObjectMapper objectMapper() {
+		final ObjectMapper objectMapper = new ObjectMapper();
+		objectMapper.registerModule(new JodaModule());
+		objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+		return objectMapper;
+	}
+
 	@Bean
 	public ResponseUtils responseUtils() {
-		return new ResponseUtils();
+		final ResponseUtils responseUtils = new ResponseUtils();
+		responseUtils.register(BatchResponse.class, new ResponseFactory<BatchResponse>() {
+			@Override
+			public BatchResponse newResponse() {
+				return new BatchResponse();
+			}
+		});
+		responseUtils.register(TagResponse.class, new ResponseFactory<TagResponse>() {
+			@Override
+			public TagResponse newResponse() {
+				return new TagResponse();
+			}
+		});
+		responseUtils.register(TagListResponse.class, new ResponseFactory<TagListResponse>() {
+			@Override
+			public TagListResponse newResponse() {
+				return new TagListResponse();
+			}
+		});
+		responseUtils.register(ThingResponse.class, new ResponseFactory<ThingResponse>() {
+			@Override
+			public ThingResponse newResponse() {
+				return new ThingResponse();
+			}
+		});
+		responseUtils.register(ThingListResponse.class, new ResponseFactory<ThingListResponse>() {
+			@Override
+			public ThingListResponse newResponse() {
+				return new ThingListResponse();
+			}
+		});
+		return responseUtils;
 	}
 
 	@Bean
-	public EmbeddedServletContainerFactory servletContainer() {
+	public EmbeddedServletContainerFactory servletContainer() throws UnknownHostException {
 		final int port = env.getRequiredProperty("http.server.port", Integer.class);
+		final String address = env.getProperty("http.server.address");
 		final JettyEmbeddedServletContainerFactory factory = new JettyEmbeddedServletContainerFactory();
 		factory.setPort(port);
+		if (address != null) {
+			factory.setAddress(InetAddress.getByName(address));
+		}
+		factory.addServerCustomizers(jettyConnectorCustomizer());
 		return factory;
 	}
 
+	private JettyConnectorCustomizer jettyConnectorCustomizer() {
+		final String prefix = "http.server.";
+		final JettyConnectorCustomizer customizer = new JettyConnectorCustomizer();
+		customizer.setAcceptors(env.getProperty(prefix + "acceptors", Integer.class,
+				Math.max(1, (Runtime.getRuntime().availableProcessors() + 3) / 4)));
+		customizer.setAcceptQueueSize(env.getProperty(prefix + "accept-queue-size", Integer.class, 0));
+		customizer.setIdleTimeout(env.getProperty(prefix + "idle-timeout", Integer.class, 30000));
+		customizer.setLowResourcesConnections(env.getProperty(prefix + "low-resources-connections", Integer.class, 0));
+		customizer.setLowResourcesIdleTimeout(env.getProperty(prefix + "low-resources-idle-timeout", Integer.class, 5000));
+		customizer.setRequestHeaderSize(env.getProperty(prefix + "request-header-size", Integer.class, 8192));
+		customizer.setRequestBufferSize(env.getProperty(prefix + "request-buffer-size", Integer.class, 16384));
+		customizer.setResponseHeaderSize(env.getProperty(prefix + "response-header-size", Integer.class, 8192));
+		customizer.setResponseBufferSize(env.getProperty(prefix + "response-buffer-size", Integer.class, 32768));
+		customizer.setDirectBuffers(env.getProperty(prefix + "direct-buffers", Boolean.class, true));
+		customizer.setMinThreads(env.getProperty(prefix + "min-threads", Integer.class, 8));
+		customizer.setMaxThreads(env.getProperty(prefix + "max-threads", Integer.class, 200));
+		customizer.setMaxQueued(env.getProperty(prefix + "max-queued", Integer.class, -1));
+		return customizer;
+	}
+
+	@Bean
+	public ServerTimingFilter serverTimingFilter() {
+		return new ServerTimingFilter(env.getProperty("http.server.timing.enabled", Boolean.class, true));
+	}
+
+	@Bean
+	public ServerTimingMethodInterceptor repositoryTimingInterceptor() {
+		return new ServerTimingMethodInterceptor(ServerTiming.PHASE_DB);
+	}
+
+	@Bean
+	public static BeanNameAutoProxyCreator repositoryTimingProxyCreator() {
+		final BeanNameAutoProxyCreator proxyCreator = new BeanNameAutoProxyCreator();
+		proxyCreator.setBeanNames(new String[] { "tagRepository", "thingRepository" });
+		proxyCreator.setInterceptorNames(new String[] { "repositoryTimingInterceptor" });
+		return proxyCreator;
+	}
+
+	@Bean
+	public StatementCountingFilter statementCountingFilter() {
+		return new StatementCountingFilter(counterService, gaugeService, latencyRegistry);
+	}
+
+	@Bean
+	public ReadYourWritesFilter readYourWritesFilter() {
+		return new ReadYourWritesFilter(
+				env.getProperty("db.replica.sticky-window", Long.class, 5000L), TimeUnit.MILLISECONDS,
+				env.getProperty("db.replica.sticky-clients", Long.class, 10000L));
+	}
+
+	@Bean
+	public IdempotencyFilter idempotencyFilter() {
+		return new IdempotencyFilter(
+				Sets.newHashSet(env.getProperty("http.idempotency.paths", String[].class,
+						new String[] { "/api/thing", "/api/tag" })),
+				env.getProperty("http.idempotency.ttl", Long.class, 86400L), TimeUnit.SECONDS,
+				env.getProperty("http.idempotency.max-keys", Long.class, 10000L),
+				env.getProperty("http.idempotency.max-body", Integer.class, 65536),
+				env.getProperty("http.idempotency.wait-timeout", Long.class, 10000L));
+	}
+
+	@Bean
+	public ConcurrencyLimitFilter concurrencyLimitFilter() {
+		final GradientLimit limit = new GradientLimit(
+				env.getProperty("http.limit.initial", Integer.class, 20),
+				env.getProperty("http.limit.min", Integer.class, 4),
+				env.getProperty("http.limit.max", Integer.class, 500),
+				env.getProperty("http.limit.tolerance", Double.class, 2.0),
+				env.getProperty("http.limit.smoothing", Double.class, 0.2));
+		final String[] paths = env.getProperty("http.limit.enabled", Boolean.class, true)
+				? env.getProperty("http.limit.paths", String[].class, new String[] { "/api/" })
+				: new String[0];
+		return new ConcurrencyLimitFilter(
+				limit,
+				paths,
+				env.getProperty("http.limit.write-share", Double.class, 0.5),
+				env.getProperty("http.limit.retry-after", Long.class, 1L),
+				counterService,
+				gaugeService);
+	}
+
+	@Bean
+	public RateLimitInterceptor rateLimitInterceptor() {
+		final String[] paths = env.getProperty("http.ratelimit.enabled", Boolean.class, true)
+				? env.getProperty("http.ratelimit.paths", String[].class, new String[] { "/api/" })
+				: new String[0];
+		final Map<String, TokenBucket> pathBudgets = new LinkedHashMap<String, TokenBucket>();
+		pathBudgets.put(
+				env.getProperty("http.ratelimit.batch.path", "/api/batch"),
+				tokenBucket("batch", 10, 1.0));
+		return new RateLimitInterceptor(
+				paths,
+				tokenBucket("read", 200, 100.0),
+				tokenBucket("write", 50, 20.0),
+				pathBudgets,
+				env.getProperty("http.ratelimit.idle", Long.class, 600L), TimeUnit.SECONDS,
+				env.getProperty("http.ratelimit.max-clients", Long.class, 500000L),
+				env.getProperty("http.ratelimit.stripes", Integer.class, 64),
+				counterService);
+	}
+
+	private TokenBucket tokenBucket(final String name, final int capacity, final double rate) {
+		final String prefix = "http.ratelimit." + name + ".";
+		return new TokenBucket(
+				name,
+				env.getProperty(prefix + "capacity", Integer.class, capacity),
+				env.getProperty(prefix + "rate", Double.class, rate));
+	}
+
+	@Bean
+	public RequestExecutor readRequestExecutor() {
+		return requestExecutor("read", 16, 200, 10000L);
+	}
+
+	@Bean
+	public RequestExecutor writeRequestExecutor() {
+		return requestExecutor("write", 4, 50, 30000L);
+	}
+
+	private RequestExecutor requestExecutor(
+			final String name,
+			final int threads,
+			final int queue,
+			final long timeout) {
+		final String prefix = "http.async." + name + ".";
+		return new RequestExecutor(
+				name,
+				env.getProperty(prefix + "threads", Integer.class, threads),
+				env.getProperty(prefix + "queue", Integer.class, queue),
+				env.getProperty(prefix + "timeout", Long.class, timeout),
+				env.getProperty("http.async.retry-after", Long.class, 1L),
+				env.getProperty("http.async.virtual-threads", Boolean.class, false),
+				counterService,
+				gaugeService);
+	}
+
+	@Bean
+	public StatementBudget statementBudget() {
+		return new StatementBudget(env, "db.statements.budget");
+	}
+
 	@Bean
 	public WebMvcConfigurer webConfiguration() {
-		return new WebMvcConfigurer();
+		return new WebMvcConfigurer(
+				new ServerTimingHandlerInterceptor(),
+				rateLimitInterceptor(),
+				new StatementBudgetInterceptor(statementBudget()),
+				latencyHandlerInterceptor);
+	}
+
+	/**
+	 * Registers the servlet filters in an explicit order. Filter beans that
+	 * are not registered run after all registered ones, in bean order, so
+	 * the security filter chain is registered here too:
+	 * <ol>
+	 * <li>timing and metrics, so that they see every response;</li>
+	 * <li>load shedding, before a request costs anything;</li>
+	 * <li>statement counting, around everything that may query;</li>
+	 * <li>security, which authenticates the principal;</li>
+	 * <li>read-your-writes and idempotency, keyed by that principal.</li>
+	 * </ol>
+	 * 
+	 * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+	 */
+	@Configuration
+	@ConditionalOnWebApplication
+	protected static class FilterOrderConfig {
+
+		@Autowired
+		private ServerTimingFilter serverTimingFilter;
+
+		@Autowired
+		@Qualifier("metricFilter")
+		private Filter metricFilter;
+
+		@Autowired
+		private ConcurrencyLimitFilter concurrencyLimitFilter;
+
+		@Autowired
+		private StatementCountingFilter statementCountingFilter;
+
+		@Autowired
+		@Qualifier("springSecurityFilterChain")
+		private Filter springSecurityFilterChain;
+
+		@Autowired
+		private ReadYourWritesFilter readYourWritesFilter;
+
+		@Autowired
+		private IdempotencyFilter idempotencyFilter;
+
+		@Bean
+		public FilterRegistrationBean serverTimingFilterRegistration() {
+			return filterRegistration("serverTimingFilter", serverTimingFilter, 1);
+		}
+
+		@Bean
+		public FilterRegistrationBean metricFilterRegistration() {
+			return filterRegistration("metricFilter", metricFilter, 2);
+		}
+
+		@Bean
+		public FilterRegistrationBean concurrencyLimitFilterRegistration() {
+			return filterRegistration("concurrencyLimitFilter", concurrencyLimitFilter, 3);
+		}
+
+		@Bean
+		public FilterRegistrationBean statementCountingFilterRegistration() {
+			return filterRegistration("statementCountingFilter", statementCountingFilter, 4);
+		}
+
+		@Bean
+		public FilterRegistrationBean springSecurityFilterChainRegistration() {
+			return filterRegistration("springSecurityFilterChain", springSecurityFilterChain, 5);
+		}
+
+		@Bean
+		public FilterRegistrationBean readYourWritesFilterRegistration() {
+			return filterRegistration("readYourWritesFilter", readYourWritesFilter, 6);
+		}
+
+		@Bean
+		public FilterRegistrationBean idempotencyFilterRegistration() {
+			return filterRegistration("idempotencyFilter", idempotencyFilter, 7);
+		}
+
+		private static FilterRegistrationBean filterRegistration(
+				final String name,
+				final Filter filter,
+				final int order) {
+			final FilterRegistrationBean registration = new FilterRegistrationBean(filter);
+			registration.setName(name);
+			registration.setOrder(order);
+			return registration;
+		}
+
 	}
 
 	/**
@@ -77,6 +412,24 @@ public class WebConfig {
 	 */
 	protected static class WebMvcConfigurer extends WebMvcConfigurerAdapter {
 
+		private final HandlerInterceptor[] interceptors;
+
+		public WebMvcConfigurer(final HandlerInterceptor... interceptors) {
+			this.interceptors = interceptors;
+		}
+
+		@Override
+		public void addInterceptors(final InterceptorRegistry registry) {
+			for (final HandlerInterceptor interceptor : interceptors) {
+				registry.addInterceptor(interceptor);
+			}
+		}
+
+		@Override
+		public void configureAsyncSupport(final AsyncSupportConfigurer configurer) {
+			configurer.registerCallableInterceptors(new RequestContextInterceptor());
+		}
+
 		@Override
 		public void configureMessageConverters(final List<HttpMessageConverter<?>> converters) {
 			converters.add(mappingJackson2HttpMessageConverter());
@@ -84,14 +437,9 @@ public class WebConfig {
 
 		private MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter() {
 
-			// assemble json mapper
-			final ObjectMapper objectMapper = new ObjectMapper();
-			objectMapper.registerModule(new JodaModule());
-			objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-
 			// assemble json message converter
-			final MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-			converter.setObjectMapper(objectMapper);
+			final MappingJackson2HttpMessageConverter converter = new ServerTimingMessageConverter();
+			converter.setObjectMapper(objectMapper());
 
 			return converter;
 		}
@@ -90,6 +90,11 @@ public class Tag implements Identifiable<Long> {
 			return this;
 		}
 
+		public Builder setId(final Long id) {
+			tag.id = id;
+			return this;
+		}
+
 		public Builder setName(final String name) {
 			tag.name = name;
 			return this;
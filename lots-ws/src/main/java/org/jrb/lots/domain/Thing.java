@@ -120,6 +120,11 @@ public class Thing implements Identifiable<Long> {
 			return this;
 		}
 
+		public Builder setId(final Long id) {
+			thing.id = id;
+			return this;
+		}
+
 		public Builder setName(final String name) {
 			thing.name = name;
 			return this;
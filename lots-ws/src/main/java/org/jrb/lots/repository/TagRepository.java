@@ -22,10 +22,18 @@
  */
 package org.jrb.lots.repository;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
 import org.jrb.lots.domain.Tag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * JPA repository for an {@link Tag}.
@@ -34,8 +42,85 @@ import org.springframework.data.repository.CrudRepository;
  */
 public interface TagRepository extends CrudRepository<Tag, Long> {
 
+	/**
+	 * Counts the tags with a given name, using the unique index on the name.
+	 * 
+	 * @param name
+	 *            the tag name
+	 * @return 1 if the name is in use; otherwise, 0
+	 */
+	@Query("select count(e.id) from Tag e where e.name = ?1")
+	long countByName(String name);
+
+	/**
+	 * Deletes a tag by id in a single statement.
+	 * 
+	 * @param id
+	 *            the tag identifier
+	 * @return the number of tags deleted
+	 */
+	@Modifying(clearAutomatically = true)
+	@Transactional
+	@Query(value = "delete from tag where id = ?1", nativeQuery = true)
+	int deleteById(Long id);
+
+	/**
+	 * Deletes a tag by name in a single statement.
+	 * 
+	 * @param name
+	 *            the tag name
+	 * @return the number of tags deleted
+	 */
+	@Modifying(clearAutomatically = true)
+	@Transactional
+	@Query(value = "delete from tag where name = ?1", nativeQuery = true)
+	int deleteByName(String name);
+
 	Page<Tag> findAll(Pageable pageable);
 	
 	Tag findByName(String name);
 
+	/**
+	 * Finds the tags with the given identifiers in a single statement.
+	 * 
+	 * @param ids
+	 *            the tag identifiers
+	 * @return the tags found, in no particular order
+	 */
+	List<Tag> findByIdIn(Collection<Long> ids);
+
+	/**
+	 * Updates a tag by id in a single statement, whatever its current version.
+	 * A <code>null</code> name leaves the name unchanged.
+	 * 
+	 * @return the number of tags updated
+	 */
+	@Modifying(clearAutomatically = true)
+	@Transactional
+	@Query("update Tag e set e.name = coalesce(:name, e.name), e.description = :description, "
+			+ "e.updatedOn = :updatedOn, e.version = e.version + 1 where e.id = :id")
+	int updateById(
+			@Param("id") Long id,
+			@Param("name") String name,
+			@Param("description") String description,
+			@Param("updatedOn") Date updatedOn);
+
+	/**
+	 * Updates a tag by id in a single statement, provided it is still at the
+	 * given version. A <code>null</code> name leaves the name unchanged.
+	 * 
+	 * @return the number of tags updated; zero if the tag is unknown or
+	 *         has been changed since
+	 */
+	@Modifying(clearAutomatically = true)
+	@Transactional
+	@Query("update Tag e set e.name = coalesce(:name, e.name), e.description = :description, "
+			+ "e.updatedOn = :updatedOn, e.version = e.version + 1 where e.id = :id and e.version = :version")
+	int updateByIdAndVersion(
+			@Param("id") Long id,
+			@Param("version") Integer version,
+			@Param("name") String name,
+			@Param("description") String description,
+			@Param("updatedOn") Date updatedOn);
+
 }
@@ -22,20 +22,118 @@
  */
 package org.jrb.lots.repository;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
 import org.jrb.lots.domain.Thing;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * JPA repository for an {@link Thing}.
  * 
  * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
  */
-public interface ThingRepository extends CrudRepository<Thing, Long> {
+public interface ThingRepository extends CrudRepository<Thing, Long>, ThingRepositoryCustom {
+
+	/**
+	 * Counts the things with a given name, using the unique index on the name.
+	 * 
+	 * @param name
+	 *            the thing name
+	 * @return 1 if the name is in use; otherwise, 0
+	 */
+	@Query("select count(e.id) from Thing e where e.name = ?1")
+	long countByName(String name);
+
+	/**
+	 * Deletes a thing by id in a single statement.
+	 * 
+	 * @param id
+	 *            the thing identifier
+	 * @return the number of things deleted
+	 */
+	@Modifying(clearAutomatically = true)
+	@Transactional
+	@Query(value = "delete from thing where id = ?1", nativeQuery = true)
+	int deleteById(Long id);
+
+	/**
+	 * Deletes a thing by name in a single statement.
+	 * 
+	 * @param name
+	 *            the thing name
+	 * @return the number of things deleted
+	 */
+	@Modifying(clearAutomatically = true)
+	@Transactional
+	@Query(value = "delete from thing where name = ?1", nativeQuery = true)
+	int deleteByName(String name);
 
 	Page<Thing> findAll(Pageable pageable);
 	
 	Thing findByName(String name);
 
+	/**
+	 * Finds the things with the given identifiers, along with their tags, in a
+	 * single statement.
+	 * 
+	 * @param ids
+	 *            the thing identifiers
+	 * @return the things found, in no particular order
+	 */
+	@Query("select distinct e from Thing e left join fetch e.tags where e.id in :ids")
+	List<Thing> findByIdIn(@Param("ids") Collection<Long> ids);
+
+	/**
+	 * Finds the things with the given names, along with their tags, in a
+	 * single statement.
+	 * 
+	 * @param names
+	 *            the thing names
+	 * @return the things found, in no particular order
+	 */
+	@Query("select distinct e from Thing e left join fetch e.tags where e.name in :names")
+	List<Thing> findByNameIn(@Param("names") Collection<String> names);
+
+	/**
+	 * Updates a thing by id in a single statement, whatever its current version.
+	 * A <code>null</code> name leaves the name unchanged.
+	 * 
+	 * @return the number of things updated
+	 */
+	@Modifying(clearAutomatically = true)
+	@Transactional
+	@Query("update Thing e set e.name = coalesce(:name, e.name), e.description = :description, "
+			+ "e.updatedOn = :updatedOn, e.version = e.version + 1 where e.id = :id")
+	int updateById(
+			@Param("id") Long id,
+			@Param("name") String name,
+			@Param("description") String description,
+			@Param("updatedOn") Date updatedOn);
+
+	/**
+	 * Updates a thing by id in a single statement, provided it is still at the
+	 * given version. A <code>null</code> name leaves the name unchanged.
+	 * 
+	 * @return the number of things updated; zero if the thing is unknown or
+	 *         has been changed since
+	 */
+	@Modifying(clearAutomatically = true)
+	@Transactional
+	@Query("update Thing e set e.name = coalesce(:name, e.name), e.description = :description, "
+			+ "e.updatedOn = :updatedOn, e.version = e.version + 1 where e.id = :id and e.version = :version")
+	int updateByIdAndVersion(
+			@Param("id") Long id,
+			@Param("version") Integer version,
+			@Param("name") String name,
+			@Param("description") String description,
+			@Param("updatedOn") Date updatedOn);
+
 }
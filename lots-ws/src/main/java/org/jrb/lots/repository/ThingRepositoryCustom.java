@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+
+import org.jrb.lots.domain.Thing;
+
+/**
+ * Batched JDBC operations of a {@link ThingRepository} that have no JPA
+ * equivalent.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public interface ThingRepositoryCustom {
+
+	/**
+	 * Creates or updates things by name with one batched MERGE statement. An
+	 * existing thing gets the submitted description, and a new update time and
+	 * version only if its description differs.
+	 * 
+	 * @param things
+	 *            the things to merge, with distinct names
+	 * @param timestamp
+	 *            the creation or update time to record
+	 * @return the number of things created or updated, per thing
+	 */
+	int[] mergeByName(Collection<Thing> things, Date timestamp);
+
+	/**
+	 * Replaces the tags of things by name with one batched delete and one
+	 * batched insert statement.
+	 * 
+	 * @param tagIdsByName
+	 *            the identifiers of the tags each named thing is to have
+	 */
+	void replaceTags(Map<String, ? extends Collection<Long>> tagIdsByName);
+
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.jrb.lots.domain.Thing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * {@link JdbcTemplate} implementation of a {@link ThingRepositoryCustom}. It
+ * runs on the connection of the current JPA transaction, so its writes commit
+ * or roll back with the rest of the service call.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public class ThingRepositoryImpl implements ThingRepositoryCustom {
+
+	private static final String MERGE_BY_NAME = "merge into thing t "
+			+ "using (values (cast(? as varchar(255)), cast(? as varchar(255)), cast(? as timestamp))) "
+			+ "as s (name, description, stamp) on t.name = s.name "
+			+ "when matched then update set t.description = s.description, "
+			+ "t.updated_on = case when t.description is distinct from s.description "
+			+ "then s.stamp else t.updated_on end, "
+			+ "t.version = case when t.description is distinct from s.description "
+			+ "then t.version + 1 else t.version end "
+			+ "when not matched then insert (name, description, created_on, updated_on, version) "
+			+ "values (s.name, s.description, s.stamp, s.stamp, 0)";
+
+	private static final String DELETE_TAGS = "delete from thing_tags "
+			+ "where thing = (select id from thing where name = ?)";
+
+	private static final String INSERT_TAG = "insert into thing_tags (thing, tags) "
+			+ "select id, ? from thing where name = ?";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public ThingRepositoryImpl(final DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@Override
+	public int[] mergeByName(final Collection<Thing> things, final Date timestamp) {
+		final List<Thing> batch = new ArrayList<>(things);
+		final Timestamp stamp = new Timestamp(timestamp.getTime());
+		return jdbcTemplate.batchUpdate(MERGE_BY_NAME, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+				final Thing thing = batch.get(i);
+				ps.setString(1, thing.getName());
+				ps.setString(2, thing.getDescription());
+				ps.setTimestamp(3, stamp);
+			}
+
+			@Override
+			public int getBatchSize() {
+				return batch.size();
+			}
+		});
+	}
+
+	@Override
+	public void replaceTags(final Map<String, ? extends Collection<Long>> tagIdsByName) {
+		final List<String> names = new ArrayList<>(tagIdsByName.keySet());
+		final List<Object[]> links = new ArrayList<>();
+		for (final Map.Entry<String, ? extends Collection<Long>> entry : tagIdsByName.entrySet()) {
+			for (final Long tagId : entry.getValue()) {
+				links.add(new Object[] { tagId, entry.getKey() });
+			}
+		}
+		if (!names.isEmpty()) {
+			jdbcTemplate.batchUpdate(DELETE_TAGS, new BatchPreparedStatementSetter() {
+				@Override
+				public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+					ps.setString(1, names.get(i));
+				}
+
+				@Override
+				public int getBatchSize() {
+					return names.size();
+				}
+			});
+		}
+		if (!links.isEmpty()) {
+			jdbcTemplate.batchUpdate(INSERT_TAG, links);
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.service.batch;
+
+import org.jrb.lots.domain.Tag;
+import org.jrb.lots.domain.Thing;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/**
+ * A single operation of a batch, addressed like the equivalent request to the
+ * thing or tag API: a method and either a thing or a tag. The entity carries
+ * the submitted data and, where the method needs one, the identifier (or the
+ * name) of the entity operated upon.
+ * <ul>
+ * <li><em>GET</em> - finds the entity by id, or else by name</li>
+ * <li><em>POST</em> - creates the entity</li>
+ * <li><em>PATCH</em> - updates the entity with the given id</li>
+ * <li><em>PUT</em> - creates or updates a thing by name</li>
+ * <li><em>DELETE</em> - deletes the entity by id, or else by name</li>
+ * </ul>
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@JsonInclude(Include.NON_NULL)
+public class BatchOperation {
+
+	public enum Method {
+		GET, POST, PATCH, PUT, DELETE
+	}
+
+	private Method method;
+	private Tag tag;
+	private Thing thing;
+
+	public BatchOperation() {
+	}
+
+	public BatchOperation(final Method method, final Thing thing) {
+		this.method = method;
+		this.thing = thing;
+	}
+
+	public BatchOperation(final Method method, final Tag tag) {
+		this.method = method;
+		this.tag = tag;
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	public Tag getTag() {
+		return tag;
+	}
+
+	public Thing getThing() {
+		return thing;
+	}
+
+	/**
+	 * Tells whether this operation only reads, and so may share a read-only
+	 * transaction with its neighbours.
+	 * 
+	 * @return <code>true</code> for a lookup
+	 */
+	@JsonIgnore
+	public boolean isRead() {
+		return method == Method.GET;
+	}
+
+	public void setMethod(final Method method) {
+		this.method = method;
+	}
+
+	public void setTag(final Tag tag) {
+		this.tag = tag;
+	}
+
+	public void setThing(final Thing thing) {
+		this.thing = thing;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchOperation [method=" + method + ", tag=" + tag + ", thing=" + thing + "]";
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.service.batch;
+
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+/**
+ * The result of a single batch operation: the status the equivalent request
+ * would have responded with, and either the resulting entity or a message.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@JsonInclude(Include.NON_NULL)
+public class BatchResult {
+
+	private final HttpStatus status;
+	private final Object entity;
+	private final String message;
+
+	public BatchResult(final HttpStatus status, final Object entity, final String message) {
+		this.status = status;
+		this.entity = entity;
+		this.message = message;
+	}
+
+	public static BatchResult entity(final HttpStatus status, final Object entity) {
+		return new BatchResult(status, entity, null);
+	}
+
+	public static BatchResult message(final HttpStatus status, final String message) {
+		return new BatchResult(status, null, message);
+	}
+
+	public Object getEntity() {
+		return entity;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public int getStatus() {
+		return status.value();
+	}
+
+	@JsonIgnore
+	public boolean isSuccessful() {
+		return status.is2xxSuccessful();
+	}
+
+	@JsonIgnore
+	public HttpStatus getHttpStatus() {
+		return status;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchResult [status=" + status + ", entity=" + entity + ", message=" + message + "]";
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.service.batch;
+
+import java.util.List;
+
+/**
+ * Defines the contract for a service that executes batches of independent
+ * thing and tag operations.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+public interface BatchService {
+
+	/**
+	 * Executes a batch of operations in order.
+	 * <p>
+	 * By default, every operation stands on its own: a failing operation is
+	 * reported in its result and the others are still applied. Consecutive
+	 * lookups share one read-only transaction, while each write runs in its
+	 * own transaction so that it cannot be undone by another's failure.
+	 * <p>
+	 * An atomic batch runs in a single transaction instead: at the first
+	 * failure, the operations already executed are rolled back and those
+	 * remaining are skipped, all being reported with a
+	 * <em>424 Failed Dependency</em> status.
+	 * 
+	 * @param operations
+	 *            the operations to execute
+	 * @param atomic
+	 *            whether to apply all the operations or none
+	 * @return the results, one per operation and in the same order
+	 * @throws InvalidBatchException
+	 *             if the batch holds more operations than allowed
+	 */
+	List<BatchResult> execute(List<BatchOperation> operations, boolean atomic)
+			throws InvalidBatchException;
+
+}
@@ -0,0 +1,286 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.service.batch;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.jrb.commons.jdbc.RoutingContext;
+import org.jrb.lots.domain.Tag;
+import org.jrb.lots.domain.Thing;
+import org.jrb.lots.service.tag.DuplicateTagException;
+import org.jrb.lots.service.tag.InvalidTagException;
+import org.jrb.lots.service.tag.StaleTagException;
+import org.jrb.lots.service.tag.TagService;
+import org.jrb.lots.service.tag.UnknownTagException;
+import org.jrb.lots.service.thing.DuplicateThingException;
+import org.jrb.lots.service.thing.InvalidThingException;
+import org.jrb.lots.service.thing.StaleThingException;
+import org.jrb.lots.service.thing.ThingService;
+import org.jrb.lots.service.thing.UnknownThingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@link BatchService} dispatching each operation to the {@link ThingService}
+ * or the {@link TagService}, and mapping failures to the statuses the
+ * equivalent requests would have responded with.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@Service("batchService")
+public class BatchServiceImpl implements BatchService {
+
+	private final static Logger LOG = LoggerFactory.getLogger(BatchService.class);
+
+	@Autowired
+	private Environment env;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private TagService tagService;
+
+	@Autowired
+	private ThingService thingService;
+
+	private int maxOperations;
+
+	private TransactionTemplate readTemplate;
+
+	private TransactionTemplate writeTemplate;
+
+	@PostConstruct
+	public void init() {
+		maxOperations = env.getProperty("service.batch.max-operations", Integer.class, 100);
+		readTemplate = new TransactionTemplate(transactionManager);
+		readTemplate.setReadOnly(true);
+		writeTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@Override
+	public List<BatchResult> execute(final List<BatchOperation> operations, final boolean atomic)
+			throws InvalidBatchException {
+		if (operations.size() > maxOperations) {
+			throw new InvalidBatchException("Too many batch operations! operations = " + operations.size()
+					+ ", maximum = " + maxOperations);
+		}
+		final BatchResult[] results = new BatchResult[operations.size()];
+		if (atomic) {
+			executeAtomically(operations, results);
+		} else {
+			executeIndependently(operations, results);
+		}
+		return Arrays.asList(results);
+	}
+
+	private void executeAtomically(final List<BatchOperation> operations, final BatchResult[] results) {
+		try {
+			writeTemplate.execute(new TransactionCallbackWithoutResult() {
+				@Override
+				protected void doInTransactionWithoutResult(final TransactionStatus status) {
+					for (int i = 0; i < results.length; i++) {
+						results[i] = apply(operations.get(i));
+						if (!results[i].isSuccessful()) {
+							status.setRollbackOnly();
+							abandon(results, i);
+							return;
+						}
+					}
+				}
+			});
+		} catch (final RuntimeException e) {
+			// the commit itself failed, taking every operation with it
+			Arrays.fill(results, failure(e));
+		}
+	}
+
+	private void executeIndependently(final List<BatchOperation> operations, final BatchResult[] results) {
+		int i = 0;
+		while (i < results.length) {
+			int end = i + 1;
+			while (end < results.length && operations.get(i).isRead() && operations.get(end).isRead()) {
+				end++;
+			}
+			if (end - i > 1) {
+				executeReads(operations, results, i, end);
+			} else {
+				results[i] = apply(operations.get(i));
+			}
+			i = end;
+		}
+	}
+
+	private void executeReads(
+			final List<BatchOperation> operations,
+			final BatchResult[] results,
+			final int start,
+			final int end) {
+		// the shared transaction takes its connection before any read-only
+		// service call is entered, so the group is entered as read-only here
+		// to be routed to a replica as a single read would be
+		RoutingContext context = RoutingContext.current();
+		final boolean owner = (context == null);
+		if (owner) {
+			context = RoutingContext.begin();
+		}
+		context.enter(true);
+		try {
+			readTemplate.execute(new TransactionCallbackWithoutResult() {
+				@Override
+				protected void doInTransactionWithoutResult(final TransactionStatus status) {
+					for (int i = start; i < end; i++) {
+						results[i] = apply(operations.get(i));
+					}
+				}
+			});
+		} catch (final RuntimeException e) {
+			// nothing to lose: the lookups' results are already recorded
+			if (LOG.isDebugEnabled()) {
+				LOG.debug(e.getMessage(), e);
+			}
+		} finally {
+			context.exit(true);
+			if (owner) {
+				RoutingContext.end();
+			}
+		}
+	}
+
+	/**
+	 * Marks the results of an atomic batch once an operation has failed: the
+	 * operations before it are rolled back, and those after it are skipped.
+	 */
+	private static void abandon(final BatchResult[] results, final int failed) {
+		for (int i = 0; i < results.length; i++) {
+			if (i < failed) {
+				results[i] = BatchResult.message(HttpStatus.FAILED_DEPENDENCY,
+						"Rolled back as operation " + failed + " failed");
+			} else if (i > failed) {
+				results[i] = BatchResult.message(HttpStatus.FAILED_DEPENDENCY,
+						"Skipped as operation " + failed + " failed");
+			}
+		}
+	}
+
+	private BatchResult apply(final BatchOperation operation) {
+		try {
+			if (operation.getMethod() == null || (operation.getThing() == null) == (operation.getTag() == null)) {
+				return BatchResult.message(HttpStatus.BAD_REQUEST,
+						"Invalid batch operation! operation = " + operation);
+			}
+			return (operation.getThing() != null)
+					? applyThing(operation.getMethod(), operation.getThing())
+					: applyTag(operation.getMethod(), operation.getTag());
+		} catch (final RuntimeException e) {
+			return failure(e);
+		}
+	}
+
+	private BatchResult applyTag(final BatchOperation.Method method, final Tag tag) {
+		switch (method) {
+		case GET:
+			return BatchResult.entity(HttpStatus.OK,
+					(tag.getId() != null) ? tagService.findTag(tag.getId()) : tagService.findTag(tag.getName()));
+		case POST:
+			return BatchResult.entity(HttpStatus.CREATED, tagService.createTag(tag));
+		case PATCH:
+			if (tag.getId() == null) {
+				return BatchResult.message(HttpStatus.BAD_REQUEST, "Tag id is missing! tag = " + tag);
+			}
+			return BatchResult.entity(HttpStatus.OK, tagService.updateTag(tag));
+		case DELETE:
+			if (tag.getId() != null) {
+				tagService.deleteTag(tag.getId());
+				return BatchResult.message(HttpStatus.OK, "Tag(" + tag.getId() + ") has been deleted");
+			}
+			tagService.deleteTag(tag.getName());
+			return BatchResult.message(HttpStatus.OK, "Tag(" + tag.getName() + ") has been deleted");
+		default:
+			return BatchResult.message(HttpStatus.METHOD_NOT_ALLOWED, "Unsupported tag operation! method = " + method);
+		}
+	}
+
+	private BatchResult applyThing(final BatchOperation.Method method, final Thing thing) {
+		switch (method) {
+		case GET:
+			return BatchResult.entity(HttpStatus.OK, (thing.getId() != null)
+					? thingService.findThing(thing.getId())
+					: thingService.findThing(thing.getName()));
+		case POST:
+			return BatchResult.entity(HttpStatus.CREATED, thingService.createThing(thing));
+		case PATCH:
+			if (thing.getId() == null) {
+				return BatchResult.message(HttpStatus.BAD_REQUEST, "Thing id is missing! thing = " + thing);
+			}
+			return BatchResult.entity(HttpStatus.OK, thingService.updateThing(thing));
+		case PUT:
+			return BatchResult.entity(HttpStatus.OK, thingService.upsertThing(thing));
+		case DELETE:
+			if (thing.getId() != null) {
+				thingService.deleteThing(thing.getId());
+				return BatchResult.message(HttpStatus.OK, "Thing(" + thing.getId() + ") has been deleted");
+			}
+			thingService.deleteThing(thing.getName());
+			return BatchResult.message(HttpStatus.OK, "Thing(" + thing.getName() + ") has been deleted");
+		default:
+			return BatchResult.message(HttpStatus.METHOD_NOT_ALLOWED, "Unsupported thing operation! method = " + method);
+		}
+	}
+
+	/**
+	 * Maps a failed operation to a result, as the global exception handler
+	 * maps a failed request to a response.
+	 */
+	private static BatchResult failure(final RuntimeException e) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(e.getMessage(), e);
+		}
+		final HttpStatus status;
+		if (e instanceof InvalidTagException || e instanceof InvalidThingException) {
+			status = HttpStatus.BAD_REQUEST;
+		} else if (e instanceof UnknownTagException || e instanceof UnknownThingException) {
+			status = HttpStatus.NOT_FOUND;
+		} else if (e instanceof DuplicateTagException || e instanceof DuplicateThingException
+				|| e instanceof StaleTagException || e instanceof StaleThingException
+				|| e instanceof ConcurrencyFailureException) {
+			status = HttpStatus.CONFLICT;
+		} else {
+			status = HttpStatus.INTERNAL_SERVER_ERROR;
+		}
+		return BatchResult.message(status, e.getMessage());
+	}
+
+}
@@ -36,4 +36,11 @@ public class DuplicateTagException extends TagServiceException {
 		super(message, cause);
 	}
 
+	/**
+	 * Creates a stackless instance whose message is formatted lazily.
+	 */
+	public DuplicateTagException(Throwable cause, String format, Object... args) {
+		super(cause, format, args);
+	}
+
 }
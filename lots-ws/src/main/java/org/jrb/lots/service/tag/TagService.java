@@ -22,8 +22,12 @@
  */
 package org.jrb.lots.service.tag;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
+import org.jrb.commons.jdbc.ReadOnly;
+import org.jrb.commons.service.Idempotent;
 import org.jrb.lots.domain.Tag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -47,25 +51,48 @@ public interface TagService {
 	Tag createTag(String name, String description) 
 			throws DuplicateTagException, InvalidTagException, TagServiceException;
 
+	@Idempotent
 	void deleteTag(Long id)
 			throws UnknownTagException, TagServiceException;
 
+	@Idempotent
 	void deleteTag(String name)
 			throws UnknownTagException, TagServiceException;
 
+	@ReadOnly
 	Tag findTag(Long id)
 			throws UnknownTagException, TagServiceException;
 
+	@ReadOnly
 	Tag findTag(String name)
 			throws UnknownTagException, TagServiceException;
 
+	/**
+	 * Finds several tags by identifier at once, serving cached tags from the
+	 * cache and loading the others together.
+	 * 
+	 * @param ids
+	 *            the tag identifiers
+	 * @return the tags found, keyed by identifier in the order the identifiers
+	 *         were given; unknown identifiers are left out
+	 * @throws TagServiceException
+	 *             if an unexpected error occurred while finding the tags
+	 */
+	@ReadOnly
+	Map<Long, Tag> findTags(Collection<Long> ids)
+			throws TagServiceException;
+
+	@ReadOnly
 	List<Tag> retrieveTags(Tag criteria)
 			throws TagServiceException;
 
+	@ReadOnly
 	Page<Tag> retrieveTags(Tag criteria, Pageable pageable)
 			throws TagServiceException;
 
+	@Idempotent
 	Tag updateTag(Tag tag)
-			throws InvalidTagException, TagServiceException;
+			throws DuplicateTagException, InvalidTagException, StaleTagException, UnknownTagException,
+			TagServiceException;
 
 }
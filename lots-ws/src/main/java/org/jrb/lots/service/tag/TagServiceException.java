@@ -38,4 +38,8 @@ public class TagServiceException extends ServiceException {
 		super(message, cause);
 	}
 
+	protected TagServiceException(Throwable cause, String format, Object... args) {
+		super(cause, format, args);
+	}
+
 }
@@ -22,28 +22,40 @@
  */
 package org.jrb.lots.service.tag;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.jrb.commons.service.NameFilter;
 import org.jrb.commons.service.NamedKey;
 import org.jrb.lots.domain.Tag;
 import org.jrb.lots.repository.TagRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
 
 /**
- * JPA implementation of a {@link TagService}.
+ * JPA implementation of a {@link TagService}. Writes are transactional and
+ * join the caller's transaction, if any; lookups by id or name are served
+ * from a cache and only open a transaction on a miss. Duplicate names are
+ * detected before inserting, through a {@link NameFilter} confirmed by an
+ * indexed query.
  * 
  * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
  */
@@ -55,21 +67,15 @@ public class TagServiceImpl implements TagService {
 	@Autowired
 	private TagRepository tagRepository;
 
+	@Autowired
+	@Qualifier("tagNameFilter")
+	private NameFilter tagNames;
+
 	private final int maxCacheSize = 1000;
 
-	private final LoadingCache<NamedKey, Tag> tagCache = CacheBuilder.newBuilder()
+	private final Cache<NamedKey, Tag> tagCache = CacheBuilder.newBuilder()
 			.maximumSize(maxCacheSize)
-			.build(new CacheLoader<NamedKey, Tag>() {
-				@Override
-				public Tag load(final NamedKey key) throws TagServiceException {
-					try {
-						return loadTag(key);
-					} catch (final Throwable t) {
-						LOG.error(t.getMessage(), t);
-						throw new TagServiceException(t.getMessage(), t);
-					}
-				}
-			});
+			.build();
 
 	@Override
 	public void clearCache() {
@@ -87,98 +93,219 @@ public class TagServiceImpl implements TagService {
 	}
 
 	@Override
+	@Transactional
 	public Tag createTag(final String name, final String description)
 			throws DuplicateTagException, InvalidTagException, TagServiceException {
 		try {
-			final Tag tag = new Tag.Builder()
+			if (nameInUse(name)) {
+				throw new DuplicateTagException(null, "Duplicate tag! name = %s", name);
+			}
+			final Tag tag = tagRepository.save(new Tag.Builder()
 					.setName(name)
 					.setDescription(description)
-					.markAsCreated().build();
-			return tagRepository.save(tag);
+					.markAsCreated().build());
+			tagNames.put(tag.getName());
+			return tag;
 		} catch (final DataIntegrityViolationException e) {
-			throw new DuplicateTagException("Duplicate tag! name = " + name, e);
+			throw new DuplicateTagException(e, "Duplicate tag! name = %s", name);
 		} catch (final IllegalArgumentException e) {
 			throw new InvalidTagException("Invalid tag! name = " + name, e);
+		} catch (final DuplicateTagException e) {
+			throw e;
 		} catch (final Throwable t) {
 			throw new TagServiceException("Unable to create tag! name = " + name, t);
 		}
 	}
 
 	@Override
+	@Transactional
 	public Tag createTag(final Tag submitted)
 			throws DuplicateTagException, InvalidTagException, TagServiceException {
 		try {
-			final Tag tag = new Tag.Builder()
+			if (nameInUse(submitted.getName())) {
+				throw new DuplicateTagException(null, "Duplicate tag! submitted = %s", submitted);
+			}
+			final Tag tag = tagRepository.save(new Tag.Builder()
 					.setName(submitted.getName())
 					.setDescription(submitted.getDescription())
-					.markAsCreated().build();
-			return tagRepository.save(tag);
+					.markAsCreated().build());
+			tagNames.put(tag.getName());
+			return tag;
 		} catch (final DataIntegrityViolationException e) {
-			throw new DuplicateTagException("Duplicate tag! submitted = " + submitted, e);
+			throw new DuplicateTagException(e, "Duplicate tag! submitted = %s", submitted);
 		} catch (final IllegalArgumentException e) {
 			throw new InvalidTagException("Invalid tag! submitted = " + submitted, e);
+		} catch (final DuplicateTagException e) {
+			throw e;
 		} catch (final Throwable t) {
 			throw new TagServiceException("Unable to create tag! submitted = " + submitted, t);
 		}
 	}
 
 	@Override
+	@Transactional
 	public void deleteTag(final Long id) throws UnknownTagException, TagServiceException {
+		final int deleted;
 		try {
-			final Tag tag = tagRepository.findOne(id);
-			if (tag != null) {
-				tagRepository.delete(tag);
-				tagCache.invalidate(new NamedKey(id));
-			} else {
-				throw new UnknownTagException("Tag is unknown! id = " + id);
-			}
-		} catch (final UnknownTagException e) {
-			throw e;
+			deleted = tagRepository.deleteById(id);
+		} catch (final ConcurrencyFailureException e) {
+			throw new StaleTagException(e, "Tag is being changed concurrently! id = %s", id);
 		} catch (final Throwable t) {
 			throw new TagServiceException("Unable to delete tag! id = " + id, t);
 		}
+		if (deleted == 0) {
+			throw UnknownTagException.forId(id);
+		}
+		evict(new NamedKey(id));
 	}
 
 	@Override
+	@Transactional
 	public void deleteTag(final String name) throws UnknownTagException, TagServiceException {
+		final int deleted;
 		try {
-			final Tag tag = tagRepository.findByName(name);
-			if (tag != null) {
-				tagRepository.delete(tag);
-				tagCache.invalidate(new NamedKey(name));
-			} else {
-				throw new UnknownTagException("Tag is unknown! name = " + name);
-			}
-		} catch (final UnknownTagException e) {
-			throw e;
+			deleted = tagRepository.deleteByName(name);
+		} catch (final ConcurrencyFailureException e) {
+			throw new StaleTagException(e, "Tag is being changed concurrently! name = %s", name);
 		} catch (final Throwable t) {
 			throw new TagServiceException("Unable to delete tag! name = " + name, t);
 		}
+		if (deleted == 0) {
+			throw UnknownTagException.forName(name);
+		}
+		evict(new NamedKey(name));
 	}
 
 	@Override
 	public Tag findTag(final Long id) throws UnknownTagException, TagServiceException {
+		final Tag tag;
 		try {
-			return tagCache.get(new NamedKey(id));
-		} catch (final InvalidCacheLoadException e) {
-			throw new UnknownTagException("Tag is unknown! id = " + id, e);
+			tag = cachedTag(new NamedKey(id));
 		} catch (final Throwable t) {
 			throw new TagServiceException("Unable to find tag! id = " + id, t);
 		}
+		if (tag == null) {
+			throw UnknownTagException.forId(id);
+		}
+		return tag;
 	}
 
 	@Override
 	public Tag findTag(final String name) throws UnknownTagException, TagServiceException {
+		final Tag tag;
 		try {
-			return tagCache.get(new NamedKey(name));
-		} catch (final InvalidCacheLoadException e) {
-			throw new UnknownTagException("Tag is unknown! name = " + name, e);
+			tag = cachedTag(new NamedKey(name));
 		} catch (final Throwable t) {
 			throw new TagServiceException("Unable to find tag! name = " + name, t);
 		}
+		if (tag == null) {
+			throw UnknownTagException.forName(name);
+		}
+		return tag;
+	}
+
+	@Override
+	public Map<Long, Tag> findTags(final Collection<Long> ids) throws TagServiceException {
+		try {
+			final Map<Long, Tag> found = new HashMap<>();
+			final List<Long> misses = new ArrayList<>();
+			for (final Long id : ids) {
+				final Tag tag = tagCache.getIfPresent(new NamedKey(id));
+				if (tag != null) {
+					found.put(id, tag);
+				} else {
+					misses.add(id);
+				}
+			}
+			if (!misses.isEmpty()) {
+				for (final Tag tag : tagRepository.findByIdIn(misses)) {
+					cache(new NamedKey(tag.getId()), tag);
+					found.put(tag.getId(), tag);
+				}
+			}
+			final Map<Long, Tag> tags = new LinkedHashMap<>();
+			for (final Long id : ids) {
+				final Tag tag = found.get(id);
+				if (tag != null) {
+					tags.put(id, tag);
+				}
+			}
+			return tags;
+		} catch (final Throwable t) {
+			throw new TagServiceException("Unable to find tags! ids = " + ids, t);
+		}
+	}
+
+	/**
+	 * Looks a tag up in the cache, loading and caching it on a miss. An
+	 * unknown tag is reported as <code>null</code> rather than through an
+	 * exception, and is not cached.
+	 */
+	private Tag cachedTag(final NamedKey key) {
+		Tag tag = tagCache.getIfPresent(key);
+		if (tag == null) {
+			tag = loadTag(key);
+			if (tag != null) {
+				cache(key, tag);
+			}
+		}
+		return tag;
+	}
+
+	/**
+	 * Caches a loaded tag. Within a transaction the tag may be one it has
+	 * inserted but not yet committed, so it is only cached once the
+	 * transaction commits, and evicted should it roll back instead.
+	 */
+	private void cache(final NamedKey key, final Tag tag) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()
+				&& TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					tagCache.put(key, tag);
+				}
+
+				@Override
+				public void afterCompletion(final int status) {
+					if (status != STATUS_COMMITTED) {
+						tagCache.invalidate(key);
+					}
+				}
+			});
+		} else {
+			tagCache.put(key, tag);
+		}
 	}
 
-	private Tag loadTag(final NamedKey key) throws IOException {
+	/**
+	 * Evicts a cached tag, under both its id and its name, now and, when
+	 * called within a transaction, again once it completes, so that a
+	 * concurrent lookup cannot re-cache the uncommitted state.
+	 */
+	private void evict(final NamedKey key) {
+		final Tag cached = tagCache.getIfPresent(key);
+		final NamedKey alias = (cached == null) ? null
+				: key.hasId() ? new NamedKey(cached.getName()) : new NamedKey(cached.getId());
+		invalidate(key, alias);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(final int status) {
+					invalidate(key, alias);
+				}
+			});
+		}
+	}
+
+	private void invalidate(final NamedKey key, final NamedKey alias) {
+		tagCache.invalidate(key);
+		if (alias != null) {
+			tagCache.invalidate(alias);
+		}
+	}
+
+	private Tag loadTag(final NamedKey key) {
 		final Tag tag = (key.hasId())
 				? tagRepository.findOne(key.getId())
 				: tagRepository.findByName(key.getName());
@@ -186,6 +313,7 @@ public class TagServiceImpl implements TagService {
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public List<Tag> retrieveTags(final Tag criteria) throws TagServiceException {
 		try {
 			return Lists.newArrayList(tagRepository.findAll());
@@ -195,6 +323,7 @@ public class TagServiceImpl implements TagService {
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public Page<Tag> retrieveTags(final Tag criteria, final Pageable pageable) throws TagServiceException {
 		try {
 			return tagRepository.findAll(pageable);
@@ -204,22 +333,51 @@ public class TagServiceImpl implements TagService {
 	}
 
 	@Override
-	public Tag updateTag(final Tag tag) throws InvalidTagException, TagServiceException {
+	@Transactional
+	public Tag updateTag(final Tag tag)
+			throws DuplicateTagException, InvalidTagException, StaleTagException, UnknownTagException,
+			TagServiceException {
+		final int updated;
 		try {
-			final Tag toBeUpdated = new Tag.Builder()
-					.from(tagRepository.findOne(tag.getId()))
-					.setName(tag.getName())
-					.setDescription(tag.getDescription())
-					.markAsUpdated()
-					.build();
-			final Tag updatedTag = tagRepository.save(toBeUpdated);
-			tagCache.invalidate(new NamedKey(tag.getId()));
-			return updatedTag;
+			final Tag changes = new Tag.Builder().from(tag).markAsUpdated().build();
+			updated = (changes.getVersion() != null)
+					? tagRepository.updateByIdAndVersion(changes.getId(), changes.getVersion(),
+							changes.getName(), changes.getDescription(), changes.getUpdatedOn())
+					: tagRepository.updateById(changes.getId(),
+							changes.getName(), changes.getDescription(), changes.getUpdatedOn());
+		} catch (final DataIntegrityViolationException e) {
+			throw new DuplicateTagException(e, "Duplicate tag! tag = %s", tag);
 		} catch (final IllegalArgumentException e) {
 			throw new InvalidTagException("Invalid tag! tag = " + tag, e);
+		} catch (final ConcurrencyFailureException e) {
+			throw new StaleTagException(e, "Tag is being changed concurrently! tag = %s", tag);
 		} catch (final Throwable t) {
-			throw new TagServiceException("Unable to create tag! tag = " + tag, t);
+			throw new TagServiceException("Unable to update tag! tag = " + tag, t);
+		}
+		if (updated == 0) {
+			if (tag.getVersion() != null && tagRepository.exists(tag.getId())) {
+				throw new StaleTagException(null, "Tag has changed! tag = %s", tag);
+			}
+			throw UnknownTagException.forId(tag.getId());
+		}
+		tagNames.put(tag.getName());
+		evict(new NamedKey(tag.getId()));
+		return tagRepository.findOne(tag.getId());
+	}
+
+	/**
+	 * Determines whether a tag name is in use, querying the database only
+	 * when the name filter cannot rule it out.
+	 */
+	private boolean nameInUse(final String name) {
+		if (name == null || !tagNames.mightContain(name)) {
+			return false;
+		}
+		if (tagRepository.countByName(name) > 0) {
+			return true;
 		}
+		tagNames.falsePositive();
+		return false;
 	}
 
 }
@@ -40,4 +40,19 @@ public class UnknownTagException extends TagServiceException {
 		super(message, null);
 	}
 
+	/**
+	 * Creates a stackless instance whose message is formatted lazily.
+	 */
+	public UnknownTagException(Throwable cause, String format, Object... args) {
+		super(cause, format, args);
+	}
+
+	public static UnknownTagException forId(Long id) {
+		return new UnknownTagException(null, "Tag is unknown! id = %s", id);
+	}
+
+	public static UnknownTagException forName(String name) {
+		return new UnknownTagException(null, "Tag is unknown! name = %s", name);
+	}
+
 }
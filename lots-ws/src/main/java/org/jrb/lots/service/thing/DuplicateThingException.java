@@ -37,4 +37,11 @@ public class DuplicateThingException extends ThingServiceException {
 		super(message, cause);
 	}
 
+	/**
+	 * Creates a stackless instance whose message is formatted lazily.
+	 */
+	public DuplicateThingException(Throwable cause, String format, Object... args) {
+		super(cause, format, args);
+	}
+
 }
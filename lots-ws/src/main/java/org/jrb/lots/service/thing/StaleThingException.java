@@ -0,0 +1,53 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.service.thing;
+
+/**
+ * Thrown to indicate that a thing could not be changed because it has been
+ * changed since the version the caller submitted, or is being changed
+ * concurrently, as detected by a
+ * {@link ThingService} implementation.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class StaleThingException extends ThingServiceException {
+
+	private static final long serialVersionUID = 794941779926106850L;
+
+	public StaleThingException(String message) {
+		super(message, null);
+	}
+
+	public StaleThingException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	/**
+	 * Creates a stackless instance whose message is formatted lazily.
+	 */
+	public StaleThingException(Throwable cause, String format, Object... args) {
+		super(cause, format, args);
+	}
+
+}
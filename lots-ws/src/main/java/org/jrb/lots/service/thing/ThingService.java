@@ -22,8 +22,12 @@
  */
 package org.jrb.lots.service.thing;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
+import org.jrb.commons.jdbc.ReadOnly;
+import org.jrb.commons.service.Idempotent;
 import org.jrb.lots.domain.Thing;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -38,31 +42,63 @@ public interface ThingService {
 	Thing createThing(Thing thing) 
 			throws DuplicateThingException, InvalidThingException, ThingServiceException;
 
+	@Idempotent
 	void deleteThing(Long id)
 			throws UnknownThingException, ThingServiceException;
 
+	@Idempotent
 	void deleteThing(String name)
 			throws UnknownThingException, ThingServiceException;
 
+	@ReadOnly
 	Thing findThing(Long id)
 			throws UnknownThingException, ThingServiceException;
 
+	@ReadOnly
 	Thing findThing(Long id, boolean allowUnknown)
 			throws UnknownThingException, ThingServiceException;
 
+	@ReadOnly
 	Thing findThing(String name)
 			throws UnknownThingException, ThingServiceException;
 
+	@ReadOnly
 	Thing findThing(String name, boolean allowUnknown)
 			throws UnknownThingException, ThingServiceException;
 
+	/**
+	 * Finds several things by identifier at once.
+	 * 
+	 * @param ids
+	 *            the thing identifiers
+	 * @return the things found, keyed by identifier in the order the
+	 *         identifiers were given; unknown identifiers are left out
+	 * @throws ThingServiceException
+	 *             if an unexpected error occurred while finding the things
+	 */
+	@ReadOnly
+	Map<Long, Thing> findThings(Collection<Long> ids)
+			throws ThingServiceException;
+
+	@ReadOnly
 	List<Thing> retrieveThings(Thing criteria)
 			throws ThingServiceException;
 
+	@ReadOnly
 	Page<Thing> retrieveThings(Thing criteria, Pageable pageable)
 			throws ThingServiceException;
 
+	@Idempotent
 	Thing updateThing(Thing thing)
-			throws InvalidThingException, ThingServiceException;
+			throws DuplicateThingException, InvalidThingException, StaleThingException, UnknownThingException,
+			ThingServiceException;
+
+	@Idempotent
+	Thing upsertThing(Thing thing)
+			throws InvalidThingException, StaleThingException, ThingServiceException;
+
+	@Idempotent
+	List<Thing> upsertThings(List<Thing> things)
+			throws InvalidThingException, StaleThingException, ThingServiceException;
 
 }
@@ -38,4 +38,8 @@ public class ThingServiceException extends ServiceException {
 		super(message, cause);
 	}
 
+	protected ThingServiceException(Throwable cause, String format, Object... args) {
+		super(cause, format, args);
+	}
+
 }
@@ -22,8 +22,18 @@
  */
 package org.jrb.lots.service.thing;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.jrb.commons.service.NameFilter;
 import org.jrb.lots.domain.Tag;
 import org.jrb.lots.domain.Thing;
 import org.jrb.lots.repository.ThingRepository;
@@ -31,15 +41,22 @@ import org.jrb.lots.service.tag.TagService;
 import org.jrb.lots.service.tag.TagServiceException;
 import org.jrb.lots.service.tag.UnknownTagException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.google.common.collect.Lists;
 
 /**
- * JPA implementation of a {@link ThingService}.
+ * JPA implementation of a {@link ThingService}. Each write, including the
+ * tags it creates, is a single transaction; reads run in read-only
+ * transactions, which are never flushed. Duplicate names are detected before
+ * inserting, through a {@link NameFilter} confirmed by an indexed query.
  * 
  * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
  */
@@ -52,10 +69,18 @@ public class ThingServiceImpl implements ThingService {
 	@Autowired
 	private TagService tagService;
 
+	@Autowired
+	@Qualifier("thingNameFilter")
+	private NameFilter thingNames;
+
 	@Override
+	@Transactional
 	public Thing createThing(final Thing submitted)
 			throws DuplicateThingException, InvalidThingException, ThingServiceException {
 		try {
+			if (nameInUse(submitted.getName())) {
+				throw new DuplicateThingException(null, "Duplicate thing! submitted = %s", submitted);
+			}
 			final Thing.Builder thingBuilder = new Thing.Builder()
 					.setName(submitted.getName())
 					.setDescription(submitted.getDescription())
@@ -65,69 +90,67 @@ public class ThingServiceImpl implements ThingService {
 					thingBuilder.addTag(linkTag(tagname));
 				}
 			}
-			final Thing thing = thingBuilder.markAsCreated().build();
-			return thingRepository.save(thing);
+			final Thing thing = thingRepository.save(thingBuilder.markAsCreated().build());
+			thingNames.put(thing.getName());
+			return thing;
 		} catch (final DataIntegrityViolationException e) {
-			throw new DuplicateThingException("Duplicate thing! submitted = " + submitted, e);
+			throw new DuplicateThingException(e, "Duplicate thing! submitted = %s", submitted);
 		} catch (final IllegalArgumentException e) {
 			throw new InvalidThingException("Invalid thing! submitted = " + submitted, e);
+		} catch (final DuplicateThingException e) {
+			throw e;
 		} catch (final Throwable t) {
 			throw new ThingServiceException("Unable to create thing! submitted = " + submitted, t);
 		}
 	}
 
 	@Override
+	@Transactional
 	public void deleteThing(final Long id) throws UnknownThingException, ThingServiceException {
+		final int deleted;
 		try {
-			final Thing thing = thingRepository.findOne(id);
-			if (thing != null) {
-				thingRepository.delete(thing);
-			} else {
-				throw new UnknownThingException("Thing is unknown! id = " + id);
-			}
-		} catch (final UnknownThingException e) {
-			throw e;
+			deleted = thingRepository.deleteById(id);
+		} catch (final ConcurrencyFailureException e) {
+			throw new StaleThingException(e, "Thing is being changed concurrently! id = %s", id);
 		} catch (final Throwable t) {
 			throw new ThingServiceException("Unable to delete thing! id = " + id, t);
 		}
+		if (deleted == 0) {
+			throw UnknownThingException.forId(id);
+		}
 	}
 
 	@Override
+	@Transactional
 	public void deleteThing(final String name) throws UnknownThingException, ThingServiceException {
+		final int deleted;
 		try {
-			final Thing thing = thingRepository.findByName(name);
-			if (thing != null) {
-				thingRepository.delete(thing);
-			} else {
-				throw new UnknownThingException("Thing is unknown! name = " + name);
-			}
-		} catch (final UnknownThingException e) {
-			throw e;
+			deleted = thingRepository.deleteByName(name);
+		} catch (final ConcurrencyFailureException e) {
+			throw new StaleThingException(e, "Thing is being changed concurrently! name = %s", name);
 		} catch (final Throwable t) {
 			throw new ThingServiceException("Unable to delete thing! name = " + name, t);
 		}
+		if (deleted == 0) {
+			throw UnknownThingException.forName(name);
+		}
 	}
 
 	@Override
+	@Transactional(readOnly = true, noRollbackFor = UnknownThingException.class)
 	public Thing findThing(final Long id) throws UnknownThingException, ThingServiceException {
 		return findThing(id, false);
 	}
 
 	@Override
+	@Transactional(readOnly = true, noRollbackFor = UnknownThingException.class)
 	public Thing findThing(final Long id, final boolean allowUnknown) throws UnknownThingException, ThingServiceException {
 		try {
-			Thing thing = thingRepository.findOne(id);
+			final Thing thing = thingRepository.findOne(id);
 			if (thing != null) {
-				if (thing.getTags() != null) {
-					final Thing.Builder thingBuilder = new Thing.Builder().from(thing);
-					for (final Tag tag : thing.getTags()) {
-						thingBuilder.addTagname(tag.getName());
-					}
-					thing = thingBuilder.build();
-				}
-				return thing;
+				return withTagnames(thing);
 			} else if (!allowUnknown) {
-				throw new UnknownThingException("Thing is unknown! id = " + id);
+				throw UnknownThingException.forId(id);
 			}
 			return thing;
 		} catch (final UnknownThingException e) {
@@ -138,25 +161,20 @@ public class ThingServiceImpl implements ThingService {
 	}
 
 	@Override
+	@Transactional(readOnly = true, noRollbackFor = UnknownThingException.class)
 	public Thing findThing(final String name) throws UnknownThingException, ThingServiceException {
 		return findThing(name, false);
 	}
 
 	@Override
+	@Transactional(readOnly = true, noRollbackFor = UnknownThingException.class)
 	public Thing findThing(final String name, final boolean allowUnknown) throws UnknownThingException, ThingServiceException {
 		try {
-			Thing thing = thingRepository.findByName(name);
+			final Thing thing = thingRepository.findByName(name);
 			if (thing != null) {
-				if (thing.getTags() != null) {
-					final Thing.Builder thingBuilder = new Thing.Builder().from(thing);
-					for (final Tag tag : thing.getTags()) {
-						thingBuilder.addTagname(tag.getName());
-					}
-					thing = thingBuilder.build();
-				}
-				return thing;
+				return withTagnames(thing);
 			} else if (!allowUnknown) {
-				throw new UnknownThingException("Thing is unknown! name = " + name);
+				throw UnknownThingException.forName(name);
 			}
 			return thing;
 		} catch (final UnknownThingException e) {
@@ -166,6 +184,55 @@ public class ThingServiceImpl implements ThingService {
 		}
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Map<Long, Thing> findThings(final Collection<Long> ids) throws ThingServiceException {
+		try {
+			final Map<Long, Thing> found = new HashMap<>();
+			if (!ids.isEmpty()) {
+				for (final Thing thing : thingRepository.findByIdIn(ids)) {
+					found.put(thing.getId(), withTagnames(thing));
+				}
+			}
+			final Map<Long, Thing> things = new LinkedHashMap<>();
+			for (final Long id : ids) {
+				final Thing thing = found.get(id);
+				if (thing != null) {
+					things.put(id, thing);
+				}
+			}
+			return things;
+		} catch (final Throwable t) {
+			throw new ThingServiceException("Unable to find things! ids = " + ids, t);
+		}
+	}
+
+	/**
+	 * Determines whether a thing name is in use, querying the database only
+	 * when the name filter cannot rule it out.
+	 */
+	private boolean nameInUse(final String name) {
+		if (name == null || !thingNames.mightContain(name)) {
+			return false;
+		}
+		if (thingRepository.countByName(name) > 0) {
+			return true;
+		}
+		thingNames.falsePositive();
+		return false;
+	}
+
+	private Thing withTagnames(final Thing thing) {
+		if (thing.getTags() == null) {
+			return thing;
+		}
+		final Thing.Builder thingBuilder = new Thing.Builder().from(thing);
+		for (final Tag tag : thing.getTags()) {
+			thingBuilder.addTagname(tag.getName());
+		}
+		return thingBuilder.build();
+	}
+
 	private Tag linkTag(final String tagname) throws ThingServiceException {
 		try {
 			try {
@@ -181,6 +248,7 @@ public class ThingServiceImpl implements ThingService {
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public List<Thing> retrieveThings(final Thing criteria) throws ThingServiceException {
 		try {
 			return Lists.newArrayList(thingRepository.findAll());
@@ -190,6 +258,7 @@ public class ThingServiceImpl implements ThingService {
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public Page<Thing> retrieveThings(final Thing criteria, final Pageable pageable) throws ThingServiceException {
 		try {
 			return thingRepository.findAll(pageable);
@@ -199,19 +268,95 @@ public class ThingServiceImpl implements ThingService {
 	}
 
 	@Override
-	public Thing updateThing(final Thing thing) throws InvalidThingException, ThingServiceException {
+	@Transactional
+	public Thing updateThing(final Thing thing)
+			throws InvalidThingException, StaleThingException, UnknownThingException, ThingServiceException {
+		final int updated;
 		try {
-			final Thing updated = new Thing.Builder()
-					.from(thingRepository.findOne(thing.getId()))
-					.setName(thing.getName())
-					.setDescription(thing.getDescription())
-					.markAsUpdated()
-					.build();
-			return thingRepository.save(updated);
+			final Thing changes = new Thing.Builder().from(thing).markAsUpdated().build();
+			updated = (changes.getVersion() != null)
+					? thingRepository.updateByIdAndVersion(changes.getId(), changes.getVersion(),
+							changes.getName(), changes.getDescription(), changes.getUpdatedOn())
+					: thingRepository.updateById(changes.getId(),
+							changes.getName(), changes.getDescription(), changes.getUpdatedOn());
+		} catch (final DataIntegrityViolationException e) {
+			throw new DuplicateThingException(e, "Duplicate thing! thing = %s", thing);
 		} catch (final IllegalArgumentException e) {
 			throw new InvalidThingException("Invalid thing! thing = " + thing, e);
+		} catch (final ConcurrencyFailureException e) {
+			throw new StaleThingException(e, "Thing is being changed concurrently! thing = %s", thing);
+		} catch (final Throwable t) {
+			throw new ThingServiceException("Unable to update thing! thing = " + thing, t);
+		}
+		if (updated == 0) {
+			if (thing.getVersion() != null && thingRepository.exists(thing.getId())) {
+				throw new StaleThingException(null, "Thing has changed! thing = %s", thing);
+			}
+			throw UnknownThingException.forId(thing.getId());
+		}
+		thingNames.put(thing.getName());
+		return findThing(thing.getId());
+	}
+
+	@Override
+	@Transactional
+	public Thing upsertThing(final Thing thing) throws InvalidThingException, StaleThingException, ThingServiceException {
+		return upsertThings(Collections.singletonList(thing)).get(0);
+	}
+
+	@Override
+	@Transactional
+	public List<Thing> upsertThings(final List<Thing> things)
+			throws InvalidThingException, StaleThingException, ThingServiceException {
+		final Map<String, Thing> submitted = new LinkedHashMap<>();
+		for (final Thing thing : things) {
+			if (thing == null || thing.getName() == null || thing.getName().isEmpty()) {
+				throw new InvalidThingException("Invalid thing! name is required, thing = " + thing, null);
+			}
+			submitted.put(thing.getName(), thing);
+		}
+		if (submitted.isEmpty()) {
+			return Collections.emptyList();
+		}
+		try {
+			thingRepository.mergeByName(submitted.values(), new Date());
+			for (final String name : submitted.keySet()) {
+				thingNames.put(name);
+			}
+
+			final Map<String, Set<Long>> tagIds = new LinkedHashMap<>();
+			for (final Thing thing : submitted.values()) {
+				final Set<Long> ids = new LinkedHashSet<>();
+				if (thing.getTagnames() != null) {
+					for (final String tagname : thing.getTagnames()) {
+						ids.add(linkTag(tagname).getId());
+					}
+				}
+				tagIds.put(thing.getName(), ids);
+			}
+			thingRepository.replaceTags(tagIds);
+
+			final Map<String, Thing> merged = new HashMap<>();
+			for (final Thing thing : thingRepository.findByNameIn(submitted.keySet())) {
+				merged.put(thing.getName(), withTagnames(thing));
+			}
+			final List<Thing> results = new ArrayList<>(things.size());
+			for (final Thing thing : things) {
+				results.add(merged.get(thing.getName()));
+			}
+			return results;
+		} catch (final DuplicateKeyException e) {
+			throw new StaleThingException(e, "Thing is being created concurrently! things = %s",
+					submitted.keySet());
+		} catch (final ConcurrencyFailureException e) {
+			throw new StaleThingException(e, "Thing is being changed concurrently! things = %s",
+					submitted.keySet());
+		} catch (final DataIntegrityViolationException | IllegalArgumentException e) {
+			throw new InvalidThingException("Invalid thing! things = " + submitted.keySet(), e);
+		} catch (final ThingServiceException e) {
+			throw e;
 		} catch (final Throwable t) {
-			throw new ThingServiceException("Unable to create thing! thing = " + thing, t);
+			throw new ThingServiceException("Unable to upsert things! things = " + submitted.keySet(), t);
 		}
 	}
 
@@ -41,4 +41,19 @@ public class UnknownThingException extends ThingServiceException {
 		super(message, null);
 	}
 
+	/**
+	 * Creates a stackless instance whose message is formatted lazily.
+	 */
+	public UnknownThingException(Throwable cause, String format, Object... args) {
+		super(cause, format, args);
+	}
+
+	public static UnknownThingException forId(Long id) {
+		return new UnknownThingException(null, "Thing is unknown! id = %s", id);
+	}
+
+	public static UnknownThingException forName(String name) {
+		return new UnknownThingException(null, "Thing is unknown! name = %s", name);
+	}
+
 }
@@ -24,15 +24,21 @@ package org.jrb.lots.web;
 
 import org.jrb.commons.web.MessageResponse;
 import org.jrb.commons.web.ResponseUtils;
+import org.jrb.commons.web.async.RequestRejectedException;
+import org.jrb.commons.web.async.RequestTimeoutException;
+import org.jrb.lots.service.batch.InvalidBatchException;
 import org.jrb.lots.service.tag.DuplicateTagException;
 import org.jrb.lots.service.tag.InvalidTagException;
+import org.jrb.lots.service.tag.StaleTagException;
 import org.jrb.lots.service.tag.UnknownTagException;
 import org.jrb.lots.service.thing.DuplicateThingException;
 import org.jrb.lots.service.thing.InvalidThingException;
+import org.jrb.lots.service.thing.StaleThingException;
 import org.jrb.lots.service.thing.UnknownThingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -55,6 +61,7 @@ public class GlobalExceptionHandler {
 	 * Converts one of several client-based bad request exceptions into an HTTP
 	 * 400 response with an error body. The mapped exceptions are as follows:
 	 * <ul>
+	 * <li>{@link InvalidBatchException}</li>
 	 * <li>{@link InvalidTagException}</li>
 	 * <li>{@link InvalidThingException}</li>
 	 * </ul>
@@ -63,7 +70,7 @@ public class GlobalExceptionHandler {
 	 *            the client exception
 	 * @return the error body
 	 */
-	@ExceptionHandler({ InvalidTagException.class, InvalidThingException.class })
+	@ExceptionHandler({ InvalidBatchException.class, InvalidTagException.class, InvalidThingException.class })
 	public ResponseEntity<MessageResponse> handleClientBadRequest(final Exception e) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug(e.getMessage(), e);
@@ -73,27 +80,37 @@ public class GlobalExceptionHandler {
 
 	/**
 	 * Converts one of several client-based conflict exceptions into an HTTP 409
-	 * response with an error body. The mapped exceptions are as follows:
+	 * response with an error body, using the cheap error response path. The
+	 * mapped exceptions are as follows:
 	 * <ul>
 	 * <li>{@link DuplicateTagException}</li>
 	 * <li>{@link DuplicateThingException}</li>
+	 * <li>{@link StaleTagException}</li>
+	 * <li>{@link StaleThingException}</li>
+	 * <li>{@link ConcurrencyFailureException}, when a conflict surfaces outside
+	 * a service, such as while committing</li>
 	 * </ul>
 	 * 
 	 * @param e
 	 *            the client exception
 	 * @return the error body
 	 */
-	@ExceptionHandler({ DuplicateTagException.class, DuplicateThingException.class })
+	@ExceptionHandler({
+			DuplicateTagException.class, DuplicateThingException.class,
+			StaleTagException.class, StaleThingException.class,
+			ConcurrencyFailureException.class })
 	public ResponseEntity<MessageResponse> handleConflictError(final Exception e) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug(e.getMessage(), e);
 		}
-		return utils.createMessageResponse(e.getMessage(), HttpStatus.CONFLICT);
+		return utils.createErrorResponse(e.getMessage(), HttpStatus.CONFLICT);
 	}
 
 	/**
 	 * Converts one of several client-based not found exceptions into an HTTP
-	 * 404 response with an error body. The mapped exceptions are as follows:
+	 * 404 response with an error body, using the cheap error response path as
+	 * these are expected in bulk from clients probing for ids. The mapped
+	 * exceptions are as follows:
 	 * <ul>
 	 * <li>{@link UnknownTagException}</li>
 	 * <li>{@link UnknownThingException}</li>
@@ -108,7 +125,44 @@ public class GlobalExceptionHandler {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug(e.getMessage(), e);
 		}
-		return utils.createMessageResponse(e.getMessage(), HttpStatus.NOT_FOUND);
+		return utils.createErrorResponse(e.getMessage(), HttpStatus.NOT_FOUND);
+	}
+
+	/**
+	 * Converts a request refused by its executor, or timed out before it
+	 * started, into an HTTP 503 response with an error body and a
+	 * <code>Retry-After</code> header.
+	 * 
+	 * @param e
+	 *            the rejection
+	 * @return the error body
+	 */
+	@ExceptionHandler({ RequestRejectedException.class })
+	public ResponseEntity<MessageResponse> handleRequestRejected(final RequestRejectedException e) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(e.getMessage());
+		}
+		final MessageResponse response = utils.createResponse(MessageResponse.class);
+		response.setMessage(e.getMessage());
+		response.addHeader(RequestRejectedException.HEADER_RETRY_AFTER, Long.toString(e.getRetryAfter()));
+		return utils.finalize(response, HttpStatus.SERVICE_UNAVAILABLE);
+	}
+
+	/**
+	 * Converts a request that timed out after its work started into an HTTP
+	 * 504 response with an error body. No retry hint is given, as the work
+	 * may still complete.
+	 * 
+	 * @param e
+	 *            the timeout
+	 * @return the error body
+	 */
+	@ExceptionHandler({ RequestTimeoutException.class })
+	public ResponseEntity<MessageResponse> handleRequestTimeout(final RequestTimeoutException e) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(e.getMessage());
+		}
+		return utils.createMessageResponse(e.getMessage(), HttpStatus.GATEWAY_TIMEOUT);
 	}
 
 	/**
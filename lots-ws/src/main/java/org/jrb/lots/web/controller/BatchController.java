@@ -0,0 +1,127 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.lots.web.controller;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.jrb.commons.web.ResponseUtils;
+import org.jrb.commons.web.async.RequestExecutor;
+import org.jrb.commons.web.timing.ServerTiming;
+import org.jrb.lots.service.batch.BatchOperation;
+import org.jrb.lots.service.batch.BatchResult;
+import org.jrb.lots.service.batch.BatchService;
+import org.jrb.lots.service.batch.InvalidBatchException;
+import org.jrb.lots.web.response.BatchResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+/**
+ * Batch URI controller for the Lists Of ThingS (LOTS) application.
+ *
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ */
+@Controller
+@RequestMapping("/api/batch")
+public class BatchController {
+
+	@Autowired
+	private BatchService batchService;
+
+	@Autowired
+	private ResponseUtils responseUtils;
+
+	@Autowired
+	@Qualifier("readRequestExecutor")
+	private RequestExecutor readExecutor;
+
+	@Autowired
+	@Qualifier("writeRequestExecutor")
+	private RequestExecutor writeExecutor;
+
+	/**
+	 * RESTful endpoint to execute several thing and tag operations in one
+	 * request. The response holds one result per operation, in order, and has
+	 * a <em>200 OK</em> status when every operation succeeded. Otherwise, it
+	 * has the status of the failed operation for an atomic batch, of which
+	 * nothing was applied, or a <em>207 Multi-Status</em> status. Batches of
+	 * only independent reads are executed with the reads, and any other batch
+	 * with the writes.
+	 * 
+	 * @param operations
+	 *            the operations to execute
+	 * @param atomic
+	 *            whether to apply all the operations or none
+	 * @return a task completing with a Spring MVC response containing the
+	 *         operation results
+	 * @throws InvalidBatchException
+	 *             if the batch holds more operations than allowed
+	 */
+	@RequestMapping(method = RequestMethod.POST)
+	public WebAsyncTask<ResponseEntity<BatchResponse>> executeBatch(
+			@RequestBody final List<BatchOperation> operations,
+			@RequestParam(value = "atomic", defaultValue = "false") final boolean atomic)
+			throws InvalidBatchException {
+
+		boolean readOnly = !atomic;
+		for (final BatchOperation operation : operations) {
+			readOnly &= operation != null && operation.isRead();
+		}
+		final RequestExecutor executor = readOnly ? readExecutor : writeExecutor;
+		return executor.submit(new Callable<ResponseEntity<BatchResponse>>() {
+			@Override
+			public ResponseEntity<BatchResponse> call() throws Exception {
+				return execute(operations, atomic);
+			}
+		});
+	}
+
+	private ResponseEntity<BatchResponse> execute(final List<BatchOperation> operations, final boolean atomic)
+			throws InvalidBatchException {
+		final BatchResponse response = responseUtils.createResponse(BatchResponse.class);
+		final long serviceMark = ServerTiming.start();
+		final List<BatchResult> results = batchService.execute(operations, atomic);
+		ServerTiming.stop(ServerTiming.PHASE_SERVICE, serviceMark);
+		response.setResults(results);
+
+		HttpStatus status = HttpStatus.OK;
+		for (final BatchResult result : results) {
+			if (!result.isSuccessful()) {
+				status = atomic ? result.getHttpStatus() : HttpStatus.MULTI_STATUS;
+				if (status != HttpStatus.FAILED_DEPENDENCY) {
+					break;
+				}
+			}
+		}
+		return responseUtils.finalize(response, status);
+	}
+
+}
@@ -22,34 +22,43 @@
  */
 package org.jrb.lots.web.controller;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.annotation.PostConstruct;
 
 import org.jrb.commons.service.ServiceException;
 import org.jrb.commons.web.MessageResponse;
 import org.jrb.commons.web.ResponseUtils;
+import org.jrb.commons.web.async.RequestExecutor;
 import org.jrb.commons.web.controller.CrudControllerUtils;
 import org.jrb.commons.web.controller.CrudControllerUtils.CreateEntityCallback;
 import org.jrb.commons.web.controller.CrudControllerUtils.DeleteEntityCallback;
+import org.jrb.commons.web.controller.CrudControllerUtils.FindEntitiesCallback;
 import org.jrb.commons.web.controller.CrudControllerUtils.FindEntityCallback;
 import org.jrb.commons.web.controller.CrudControllerUtils.RetrieveEntitiesCallback;
 import org.jrb.commons.web.controller.CrudControllerUtils.UpdateEntityCallback;
 import org.jrb.lots.domain.Tag;
 import org.jrb.lots.service.tag.DuplicateTagException;
 import org.jrb.lots.service.tag.InvalidTagException;
+import org.jrb.lots.service.tag.StaleTagException;
 import org.jrb.lots.service.tag.TagService;
 import org.jrb.lots.service.tag.TagServiceException;
 import org.jrb.lots.service.tag.UnknownTagException;
 import org.jrb.lots.web.response.TagListResponse;
 import org.jrb.lots.web.response.TagResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 /**
  * Thing URI controller for the Lists Of ThingS (LOTS) application.
@@ -66,6 +75,14 @@ public class TagController {
 	@Autowired
 	private ResponseUtils responseUtils;
 
+	@Autowired
+	@Qualifier("readRequestExecutor")
+	private RequestExecutor readExecutor;
+
+	@Autowired
+	@Qualifier("writeRequestExecutor")
+	private RequestExecutor writeExecutor;
+
 	private CrudControllerUtils<Tag, TagResponse, TagListResponse> controllerUtils;
 
 	@PostConstruct
@@ -78,7 +95,8 @@ public class TagController {
 	 * 
 	 * @param tag
 	 *            the tag to be created.
-	 * @return a Spring MVC response containing the newly-created tag
+	 * @return a task completing with a Spring MVC response containing the
+	 *         newly-created tag
 	 * @throws DuplicateTagException
 	 *             if attempt made to create a tag that already exists
 	 * @throws InvalidTagException
@@ -88,20 +106,25 @@ public class TagController {
 	 *             if an unexpected error occurred while creating a tag
 	 */
 	@RequestMapping(method = RequestMethod.POST)
-	public ResponseEntity<TagResponse> createTag(@RequestBody final Tag tag)
+	public WebAsyncTask<ResponseEntity<TagResponse>> createTag(@RequestBody final Tag tag)
 			throws DuplicateTagException, InvalidTagException, TagServiceException {
 
-		return controllerUtils.createEntity(
-				tag,
-				Tag.class,
-				TagResponse.class,
-				getClass(),
-				new CreateEntityCallback<Tag>() {
-					@Override
-					public Tag createEntity(Tag submitted) throws ServiceException {
-						return tagService.createTag(submitted);
-					}
-				});
+		return writeExecutor.submit(new Callable<ResponseEntity<TagResponse>>() {
+			@Override
+			public ResponseEntity<TagResponse> call() throws Exception {
+				return controllerUtils.createEntity(
+						tag,
+						Tag.class,
+						TagResponse.class,
+						TagController.class,
+						new CreateEntityCallback<Tag>() {
+							@Override
+							public Tag createEntity(Tag submitted) throws ServiceException {
+								return tagService.createTag(submitted);
+							}
+						});
+			}
+		});
 	}
 
 	/**
@@ -109,27 +132,33 @@ public class TagController {
 	 * 
 	 * @param tagId
 	 *            the identifier of the tag to be deleted
-	 * @return a Spring MVC response containing the deletion status
+	 * @return a task completing with a Spring MVC response containing the
+	 *         deletion status
 	 * @throws UnknownTagException
 	 *             if attempt made to delete an unregistered tag
 	 * @throws TagServiceException
 	 *             if an unexpected error occurred while deleting a tag
 	 */
 	@RequestMapping(value = "{tagId}", method = RequestMethod.DELETE)
-	public ResponseEntity<MessageResponse> deleteTag(@PathVariable final Long tagId)
+	public WebAsyncTask<ResponseEntity<MessageResponse>> deleteTag(@PathVariable final Long tagId)
 			throws UnknownTagException, TagServiceException {
 
-		return controllerUtils.deleteEntity(
-				tagId,
-				Tag.class,
-				TagResponse.class,
-				TagController.class,
-				new DeleteEntityCallback<Tag>() {
-					@Override
-					public void deleteEntity(Long entityId) throws ServiceException {
-						tagService.deleteTag(tagId);
-					}
-				});
+		return writeExecutor.submit(new Callable<ResponseEntity<MessageResponse>>() {
+			@Override
+			public ResponseEntity<MessageResponse> call() throws Exception {
+				return controllerUtils.deleteEntity(
+						tagId,
+						Tag.class,
+						TagResponse.class,
+						TagController.class,
+						new DeleteEntityCallback<Tag>() {
+							@Override
+							public void deleteEntity(Long entityId) throws ServiceException {
+								tagService.deleteTag(tagId);
+							}
+						});
+			}
+		});
 	}
 
 	/**
@@ -137,48 +166,91 @@ public class TagController {
 	 * 
 	 * @param tagId
 	 *            the identifier of the desired tag
-	 * @return a Spring MVC response containing the found entity
+	 * @return a task completing with a Spring MVC response containing the
+	 *         found entity
 	 * @throws UnknownTagException
 	 *             if attempt made to locate an unregistered tag
 	 * @throws TagServiceException
 	 *             if an unexpected error occurred while finding a tag
 	 */
 	@RequestMapping(value = "{tagId}", method = RequestMethod.GET)
-	public ResponseEntity<TagResponse> findEntity(@PathVariable final Long tagId)
+	public WebAsyncTask<ResponseEntity<TagResponse>> findEntity(@PathVariable final Long tagId)
 			throws UnknownTagException, TagServiceException {
 
-		return controllerUtils.findEntity(
-				tagId,
-				Tag.class,
-				TagResponse.class,
-				TagController.class,
-				new FindEntityCallback<Tag>() {
-					@Override
-					public Tag findEntity(Long entityId) throws ServiceException {
-						return tagService.findTag(tagId);
-					}
-				});
+		return readExecutor.submit(new Callable<ResponseEntity<TagResponse>>() {
+			@Override
+			public ResponseEntity<TagResponse> call() throws Exception {
+				return controllerUtils.findEntity(
+						tagId,
+						Tag.class,
+						TagResponse.class,
+						TagController.class,
+						new FindEntityCallback<Tag>() {
+							@Override
+							public Tag findEntity(Long entityId) throws ServiceException {
+								return tagService.findTag(tagId);
+							}
+						});
+			}
+		});
+	}
+
+	/**
+	 * RESTful endpoint to find several tags by identifier in one request,
+	 * e.g. <code>GET /api/tag?ids=1,2,3</code>. The tags are listed in
+	 * request order, and unknown identifiers are listed as <em>missing</em>.
+	 * 
+	 * @param ids
+	 *            the identifiers of the desired tags
+	 * @return a task completing with a Spring MVC response containing the
+	 *         found tags
+	 * @throws TagServiceException
+	 *             if an unexpected error occurred while finding the tags
+	 */
+	@RequestMapping(method = RequestMethod.GET, params = "ids")
+	public WebAsyncTask<ResponseEntity<TagListResponse>> findTags(@RequestParam final List<Long> ids)
+			throws TagServiceException {
+
+		return readExecutor.submit(new Callable<ResponseEntity<TagListResponse>>() {
+			@Override
+			public ResponseEntity<TagListResponse> call() throws Exception {
+				return controllerUtils.findEntities(
+						ids,
+						TagListResponse.class,
+						new FindEntitiesCallback<Tag>() {
+							@Override
+							public Map<Long, Tag> findEntities(Collection<Long> entityIds) throws ServiceException {
+								return tagService.findTags(entityIds);
+							}
+						});
+			}
+		});
 	}
 
 	/**
 	 * RESTful CRUD endpoint to retrieve existing tags.
 	 * 
-	 * @return a Spring MVC response containing the entity list
+	 * @return a task completing with a Spring MVC response containing the
+	 *         entity list
 	 * @throws TagServiceException
 	 *             if an unexpected error occurred while retrieving the tags
 	 */
 	@RequestMapping(method = RequestMethod.GET)
-	public ResponseEntity<TagListResponse> retrieveTags() throws TagServiceException {
-
-		return controllerUtils.retrieveEntities(
-				TagListResponse.class,
-				new RetrieveEntitiesCallback<Tag>() {
-					@Override
-					public List<Tag> retrieveEntities() throws ServiceException {
-						return tagService.retrieveTags(null);
-					}
-				});
+	public WebAsyncTask<ResponseEntity<TagListResponse>> retrieveTags() throws TagServiceException {
 
+		return readExecutor.submit(new Callable<ResponseEntity<TagListResponse>>() {
+			@Override
+			public ResponseEntity<TagListResponse> call() throws Exception {
+				return controllerUtils.retrieveEntities(
+						TagListResponse.class,
+						new RetrieveEntitiesCallback<Tag>() {
+							@Override
+							public List<Tag> retrieveEntities() throws ServiceException {
+								return tagService.retrieveTags(null);
+							}
+						});
+			}
+		});
 	}
 
 	/**
@@ -188,40 +260,44 @@ public class TagController {
 	 *            the identifier of the tag to be updated
 	 * @param tag
 	 *            the tag updates
-	 * @return a Spring MVC response containing the updated tag
+	 * @return a task completing with a Spring MVC response containing the
+	 *         updated tag
+	 * @throws DuplicateTagException
+	 *             if the tag would be renamed to the name of another tag
 	 * @throws InvalidTagException
 	 *             if the tag updates do not pass the established validation
 	 *             rules
+	 * @throws StaleTagException
+	 *             if the submitted version is no longer the current one
 	 * @throws UnknownTagException
 	 *             if attempt made to updated an unregistered tag
 	 * @throws TagServiceException
 	 *             if an unexpected error occurred while updating a tag
 	 */
 	@RequestMapping(value = "{tagId}", method = RequestMethod.PATCH)
-	public ResponseEntity<TagResponse> updateTag(
+	public WebAsyncTask<ResponseEntity<TagResponse>> updateTag(
 			@PathVariable final Long tagId,
 			@RequestBody final Tag tag)
-			throws InvalidTagException, UnknownTagException, TagServiceException {
-		return controllerUtils.updateEntity(
-				tagId,
-				tag,
-				Tag.class,
-				TagResponse.class,
-				TagController.class,
-				new UpdateEntityCallback<Tag>() {
-					@Override
-					public Tag updateEntity(Long entityId, Tag submitted) throws ServiceException {
-						final Tag existing = tagService.findTag(tagId);
-						final Tag.Builder builder = new Tag.Builder().from(existing);
-						if (controllerUtils.different(submitted.getName(), existing.getName())) {
-							builder.setName(submitted.getName());
-						}
-						if (controllerUtils.different(submitted.getDescription(), existing.getDescription())) {
-							builder.setDescription(submitted.getDescription());
-						}
-						return tagService.updateTag(builder.build());
-					}
-				});
+			throws DuplicateTagException, InvalidTagException, StaleTagException, UnknownTagException,
+			TagServiceException {
+
+		return writeExecutor.submit(new Callable<ResponseEntity<TagResponse>>() {
+			@Override
+			public ResponseEntity<TagResponse> call() throws Exception {
+				return controllerUtils.updateEntity(
+						tagId,
+						tag,
+						Tag.class,
+						TagResponse.class,
+						TagController.class,
+						new UpdateEntityCallback<Tag>() {
+							@Override
+							public Tag updateEntity(Long entityId, Tag submitted) throws ServiceException {
+								return tagService.updateTag(new Tag.Builder().from(submitted).setId(tagId).build());
+							}
+						});
+			}
+		});
 	}
 
 }
@@ -22,34 +22,43 @@
  */
 package org.jrb.lots.web.controller;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import javax.annotation.PostConstruct;
 
 import org.jrb.commons.service.ServiceException;
 import org.jrb.commons.web.MessageResponse;
 import org.jrb.commons.web.ResponseUtils;
+import org.jrb.commons.web.async.RequestExecutor;
 import org.jrb.commons.web.controller.CrudControllerUtils;
 import org.jrb.commons.web.controller.CrudControllerUtils.CreateEntityCallback;
 import org.jrb.commons.web.controller.CrudControllerUtils.DeleteEntityCallback;
+import org.jrb.commons.web.controller.CrudControllerUtils.FindEntitiesCallback;
 import org.jrb.commons.web.controller.CrudControllerUtils.FindEntityCallback;
 import org.jrb.commons.web.controller.CrudControllerUtils.RetrieveEntitiesCallback;
 import org.jrb.commons.web.controller.CrudControllerUtils.UpdateEntityCallback;
 import org.jrb.lots.domain.Thing;
 import org.jrb.lots.service.thing.DuplicateThingException;
 import org.jrb.lots.service.thing.InvalidThingException;
+import org.jrb.lots.service.thing.StaleThingException;
 import org.jrb.lots.service.thing.ThingService;
 import org.jrb.lots.service.thing.ThingServiceException;
 import org.jrb.lots.service.thing.UnknownThingException;
 import org.jrb.lots.web.response.ThingListResponse;
 import org.jrb.lots.web.response.ThingResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 /**
  * Thing URI controller for the Lists Of ThingS (LOTS) application.
@@ -66,6 +75,14 @@ public class ThingController {
 	@Autowired
 	private ResponseUtils responseUtils;
 
+	@Autowired
+	@Qualifier("readRequestExecutor")
+	private RequestExecutor readExecutor;
+
+	@Autowired
+	@Qualifier("writeRequestExecutor")
+	private RequestExecutor writeExecutor;
+
 	private CrudControllerUtils<Thing, ThingResponse, ThingListResponse> controllerUtils;
 
 	@PostConstruct
@@ -78,7 +95,8 @@ public class ThingController {
 	 * 
 	 * @param thing
 	 *            the thing to be created.
-	 * @return a Spring MVC response containing the newly-created thing
+	 * @return a task completing with a Spring MVC response containing the
+	 *         newly-created thing
 	 * @throws DuplicateThingException
 	 *             if attempt made to create a thing that already exists
 	 * @throws InvalidThingException
@@ -88,20 +106,25 @@ public class ThingController {
 	 *             if an unexpected error occurred while creating a thing
 	 */
 	@RequestMapping(method = RequestMethod.POST)
-	public ResponseEntity<ThingResponse> createThing(@RequestBody final Thing thing)
+	public WebAsyncTask<ResponseEntity<ThingResponse>> createThing(@RequestBody final Thing thing)
 			throws DuplicateThingException, InvalidThingException, ThingServiceException {
 
-		return controllerUtils.createEntity(
-				thing,
-				Thing.class,
-				ThingResponse.class,
-				getClass(),
-				new CreateEntityCallback<Thing>() {
-					@Override
-					public Thing createEntity(Thing submitted) throws ServiceException {
-						return thingService.createThing(submitted);
-					}
-				});
+		return writeExecutor.submit(new Callable<ResponseEntity<ThingResponse>>() {
+			@Override
+			public ResponseEntity<ThingResponse> call() throws Exception {
+				return controllerUtils.createEntity(
+						thing,
+						Thing.class,
+						ThingResponse.class,
+						ThingController.class,
+						new CreateEntityCallback<Thing>() {
+							@Override
+							public Thing createEntity(Thing submitted) throws ServiceException {
+								return thingService.createThing(submitted);
+							}
+						});
+			}
+		});
 	}
 
 	/**
@@ -109,27 +132,33 @@ public class ThingController {
 	 * 
 	 * @param thingId
 	 *            the identifier of the thing to be deleted
-	 * @return a Spring MVC response containing the deletion status
+	 * @return a task completing with a Spring MVC response containing the
+	 *         deletion status
 	 * @throws UnknownThingException
 	 *             if attempt made to delete an unregistered thing
 	 * @throws ThingServiceException
 	 *             if an unexpected error occurred while deleting a thing
 	 */
 	@RequestMapping(value = "{thingId}", method = RequestMethod.DELETE)
-	public ResponseEntity<MessageResponse> deleteThing(@PathVariable final Long thingId)
+	public WebAsyncTask<ResponseEntity<MessageResponse>> deleteThing(@PathVariable final Long thingId)
 			throws UnknownThingException, ThingServiceException {
 
-		return controllerUtils.deleteEntity(
-				thingId,
-				Thing.class,
-				ThingResponse.class,
-				ThingController.class,
-				new DeleteEntityCallback<Thing>() {
-					@Override
-					public void deleteEntity(Long entityId) throws ServiceException {
-						thingService.deleteThing(thingId);
-					}
-				});
+		return writeExecutor.submit(new Callable<ResponseEntity<MessageResponse>>() {
+			@Override
+			public ResponseEntity<MessageResponse> call() throws Exception {
+				return controllerUtils.deleteEntity(
+						thingId,
+						Thing.class,
+						ThingResponse.class,
+						ThingController.class,
+						new DeleteEntityCallback<Thing>() {
+							@Override
+							public void deleteEntity(Long entityId) throws ServiceException {
+								thingService.deleteThing(thingId);
+							}
+						});
+			}
+		});
 	}
 
 	/**
@@ -137,48 +166,91 @@ public class ThingController {
 	 * 
 	 * @param thingId
 	 *            the identifier of the desired thing
-	 * @return a Spring MVC response containing the found entity
+	 * @return a task completing with a Spring MVC response containing the
+	 *         found entity
 	 * @throws UnknownThingException
 	 *             if attempt made to locate an unregistered thing
 	 * @throws ThingServiceException
 	 *             if an unexpected error occurred while finding a thing
 	 */
 	@RequestMapping(value = "{thingId}", method = RequestMethod.GET)
-	public ResponseEntity<ThingResponse> findEntity(@PathVariable final Long thingId)
+	public WebAsyncTask<ResponseEntity<ThingResponse>> findEntity(@PathVariable final Long thingId)
 			throws UnknownThingException, ThingServiceException {
 
-		return controllerUtils.findEntity(
-				thingId,
-				Thing.class,
-				ThingResponse.class,
-				ThingController.class,
-				new FindEntityCallback<Thing>() {
-					@Override
-					public Thing findEntity(Long entityId) throws ServiceException {
-						return thingService.findThing(thingId);
-					}
-				});
+		return readExecutor.submit(new Callable<ResponseEntity<ThingResponse>>() {
+			@Override
+			public ResponseEntity<ThingResponse> call() throws Exception {
+				return controllerUtils.findEntity(
+						thingId,
+						Thing.class,
+						ThingResponse.class,
+						ThingController.class,
+						new FindEntityCallback<Thing>() {
+							@Override
+							public Thing findEntity(Long entityId) throws ServiceException {
+								return thingService.findThing(thingId);
+							}
+						});
+			}
+		});
+	}
+
+	/**
+	 * RESTful endpoint to find several things by identifier in one request,
+	 * e.g. <code>GET /api/thing?ids=1,2,3</code>. The things are listed in
+	 * request order, and unknown identifiers are listed as <em>missing</em>.
+	 * 
+	 * @param ids
+	 *            the identifiers of the desired things
+	 * @return a task completing with a Spring MVC response containing the
+	 *         found things
+	 * @throws ThingServiceException
+	 *             if an unexpected error occurred while finding the things
+	 */
+	@RequestMapping(method = RequestMethod.GET, params = "ids")
+	public WebAsyncTask<ResponseEntity<ThingListResponse>> findThings(@RequestParam final List<Long> ids)
+			throws ThingServiceException {
+
+		return readExecutor.submit(new Callable<ResponseEntity<ThingListResponse>>() {
+			@Override
+			public ResponseEntity<ThingListResponse> call() throws Exception {
+				return controllerUtils.findEntities(
+						ids,
+						ThingListResponse.class,
+						new FindEntitiesCallback<Thing>() {
+							@Override
+							public Map<Long, Thing> findEntities(Collection<Long> entityIds) throws ServiceException {
+								return thingService.findThings(entityIds);
+							}
+						});
+			}
+		});
 	}
 
 	/**
 	 * RESTful CRUD endpoint to retrieve existing things.
 	 * 
-	 * @return a Spring MVC response containing the entity list
+	 * @return a task completing with a Spring MVC response containing the
+	 *         entity list
 	 * @throws ThingServiceException
 	 *             if an unexpected error occurred while retrieving the things
 	 */
 	@RequestMapping(method = RequestMethod.GET)
-	public ResponseEntity<ThingListResponse> retrieveThings() throws ThingServiceException {
-
-		return controllerUtils.retrieveEntities(
-				ThingListResponse.class,
-				new RetrieveEntitiesCallback<Thing>() {
-					@Override
-					public List<Thing> retrieveEntities() throws ServiceException {
-						return thingService.retrieveThings(null);
-					}
-				});
+	public WebAsyncTask<ResponseEntity<ThingListResponse>> retrieveThings() throws ThingServiceException {
 
+		return readExecutor.submit(new Callable<ResponseEntity<ThingListResponse>>() {
+			@Override
+			public ResponseEntity<ThingListResponse> call() throws Exception {
+				return controllerUtils.retrieveEntities(
+						ThingListResponse.class,
+						new RetrieveEntitiesCallback<Thing>() {
+							@Override
+							public List<Thing> retrieveEntities() throws ServiceException {
+								return thingService.retrieveThings(null);
+							}
+						});
+			}
+		});
 	}
 
 	/**
@@ -188,40 +260,126 @@ public class ThingController {
 	 *            the identifier of the thing to be updated
 	 * @param thing
 	 *            the thing updates
-	 * @return a Spring MVC response containing the updated thing
+	 * @return a task completing with a Spring MVC response containing the
+	 *         updated thing
+	 * @throws DuplicateThingException
+	 *             if the thing would be renamed to the name of another thing
 	 * @throws InvalidThingException
 	 *             if the thing updates do not pass the established validation
 	 *             rules
+	 * @throws StaleThingException
+	 *             if the submitted version is no longer the current one
 	 * @throws UnknownThingException
 	 *             if attempt made to updated an unregistered thing
 	 * @throws ThingServiceException
 	 *             if an unexpected error occurred while updating a thing
 	 */
 	@RequestMapping(value = "{thingId}", method = RequestMethod.PATCH)
-	public ResponseEntity<ThingResponse> updateThing(
+	public WebAsyncTask<ResponseEntity<ThingResponse>> updateThing(
 			@PathVariable final Long thingId,
 			@RequestBody final Thing thing)
-			throws InvalidThingException, UnknownThingException, ThingServiceException {
-		return controllerUtils.updateEntity(
-				thingId,
-				thing,
-				Thing.class,
-				ThingResponse.class,
-				ThingController.class,
-				new UpdateEntityCallback<Thing>() {
-					@Override
-					public Thing updateEntity(Long entityId, Thing submitted) throws ServiceException {
-						final Thing existing = thingService.findThing(thingId);
-						final Thing.Builder builder = new Thing.Builder().from(existing);
-						if (controllerUtils.different(submitted.getName(), existing.getName())) {
-							builder.setName(submitted.getName());
-						}
-						if (controllerUtils.different(submitted.getDescription(), existing.getDescription())) {
-							builder.setDescription(submitted.getDescription());
-						}
-						return thingService.updateThing(builder.build());
-					}
-				});
+			throws DuplicateThingException, InvalidThingException, StaleThingException, UnknownThingException,
+			ThingServiceException {
+
+		return writeExecutor.submit(new Callable<ResponseEntity<ThingResponse>>() {
+			@Override
+			public ResponseEntity<ThingResponse> call() throws Exception {
+				return controllerUtils.updateEntity(
+						thingId,
+						thing,
+						Thing.class,
+						ThingResponse.class,
+						ThingController.class,
+						new UpdateEntityCallback<Thing>() {
+							@Override
+							public Thing updateEntity(Long entityId, Thing submitted) throws ServiceException {
+								return thingService.updateThing(new Thing.Builder().from(submitted).setId(thingId).build());
+							}
+						});
+			}
+		});
+	}
+
+	/**
+	 * RESTful endpoint to create or update a thing by name. The thing takes the
+	 * submitted description and tag names, whether or not it existed before.
+	 * 
+	 * @param name
+	 *            the name of the thing to be created or updated
+	 * @param thing
+	 *            the thing data
+	 * @return a task completing with a Spring MVC response containing the
+	 *         created or updated thing
+	 * @throws InvalidThingException
+	 *             if the thing data do not pass the established validation
+	 *             rules
+	 * @throws StaleThingException
+	 *             if the thing is being created or changed concurrently
+	 * @throws ThingServiceException
+	 *             if an unexpected error occurred while upserting a thing
+	 */
+	@RequestMapping(value = "name/{name}", method = RequestMethod.PUT)
+	public WebAsyncTask<ResponseEntity<ThingResponse>> upsertThing(
+			@PathVariable final String name,
+			@RequestBody final Thing thing)
+			throws InvalidThingException, StaleThingException, ThingServiceException {
+
+		return writeExecutor.submit(new Callable<ResponseEntity<ThingResponse>>() {
+			@Override
+			public ResponseEntity<ThingResponse> call() throws Exception {
+				return controllerUtils.updateEntity(
+						null,
+						thing,
+						Thing.class,
+						ThingResponse.class,
+						ThingController.class,
+						new UpdateEntityCallback<Thing>() {
+							@Override
+							public Thing updateEntity(Long entityId, Thing submitted) throws ServiceException {
+								return thingService.upsertThing(new Thing.Builder()
+										.from(submitted)
+										.setName(name)
+										.addTagnames(submitted.getTagnames())
+										.build());
+							}
+						});
+			}
+		});
+	}
+
+	/**
+	 * RESTful endpoint to create or update several things by name in one
+	 * transaction.
+	 * 
+	 * @param things
+	 *            the things data
+	 * @return a task completing with a Spring MVC response containing the
+	 *         created or updated things, in submitted order
+	 * @throws InvalidThingException
+	 *             if any thing data do not pass the established validation
+	 *             rules
+	 * @throws StaleThingException
+	 *             if any thing is being created or changed concurrently
+	 * @throws ThingServiceException
+	 *             if an unexpected error occurred while upserting the things
+	 */
+	@RequestMapping(value = "name", method = RequestMethod.PUT)
+	public WebAsyncTask<ResponseEntity<ThingListResponse>> upsertThings(@RequestBody final List<Thing> things)
+			throws InvalidThingException, StaleThingException, ThingServiceException {
+
+		return writeExecutor.submit(new Callable<ResponseEntity<ThingListResponse>>() {
+			@Override
+			public ResponseEntity<ThingListResponse> call() throws Exception {
+				return controllerUtils.retrieveEntities(
+						ThingListResponse.class,
+						new RetrieveEntitiesCallback<Thing>() {
+							@Override
+							public List<Thing> retrieveEntities() throws ServiceException {
+								return thingService.upsertThings(things);
+							}
+						});
+			}
+		});
 	}
 
-}
+}
\ No newline at end of file
@@ -25,4 +25,4 @@ create table thing_tags (
     tags bigint not null
 );
 alter table thing_tags add constraint fk_thing_tags_tag foreign key (tags) references tag;
-alter table thing_tags add constraint fk_thing_tags_thing foreign key (thing) references thing;
\ No newline at end of file
+alter table thing_tags add constraint fk_thing_tags_thing foreign key (thing) references thing on delete cascade;
\ No newline at end of file
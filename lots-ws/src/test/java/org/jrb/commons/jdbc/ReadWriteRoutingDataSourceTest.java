@@ -0,0 +1,258 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2013 Jon Brule
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.jrb.commons.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.jrb.commons.web.jdbc.ReadYourWritesFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+/**
+ * Routes a small DAO over two HSQLDB instances, the replica being fed from the
+ * primary on demand to simulate replication lag.
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(ReadWriteRoutingDataSourceTest.class);
+
+	public interface TagDao {
+
+		@ReadOnly
+		String findName(long id);
+
+		void insert(long id, String name);
+
+		String insertAndFind(long id, String name);
+
+	}
+
+	private EmbeddedDatabase primary;
+	private EmbeddedDatabase replica;
+	private ReadWriteRoutingDataSource routing;
+	private TagDao dao;
+
+	@Before
+	public void setUp() {
+		primary = database("primary");
+		replica = database("replica");
+		routing = new ReadWriteRoutingDataSource(primary, replica);
+		final JdbcTemplate jdbc = new JdbcTemplate(routing);
+		dao = proxy(new TagDao() {
+			@Override
+			public String findName(final long id) {
+				final List<String> names = jdbc.queryForList("select name from tag where id = ?", String.class, id);
+				return names.isEmpty() ? null : names.get(0);
+			}
+
+			@Override
+			public void insert(final long id, final String name) {
+				jdbc.update("insert into tag (id, name, created_on, updated_on, version) "
+						+ "values (?, ?, current_timestamp, current_timestamp, 0)", id, name);
+			}
+
+			@Override
+			public String insertAndFind(final long id, final String name) {
+				insert(id, name);
+				return dao.findName(id);
+			}
+		});
+	}
+
+	@After
+	public void tearDown() {
+		primary.shutdown();
+		replica.shutdown();
+	}
+
+	@Test
+	public void test01_ReadsFromReplica() {
+		LOG.info("BEGIN: test01_ReadsFromReplica()");
+		try {
+
+			dao.insert(1L, "tag1");
+			assertNull(dao.findName(1L));
+			feed();
+			assertEquals("tag1", dao.findName(1L));
+			assertEquals(1, routing.getPrimaryConnections());
+			assertEquals(2, routing.getReplicaConnections());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_ReadsFromReplica()");
+	}
+
+	@Test
+	public void test02_NestedReadStaysOnPrimary() {
+		LOG.info("BEGIN: test02_NestedReadStaysOnPrimary()");
+		try {
+
+			assertEquals("tag2", dao.insertAndFind(2L, "tag2"));
+			assertEquals(0, routing.getReplicaConnections());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test02_NestedReadStaysOnPrimary()");
+	}
+
+	@Test
+	public void test03_ReadYourWrites() {
+		LOG.info("BEGIN: test03_ReadYourWrites()");
+		final ReadYourWritesFilter filter = new ReadYourWritesFilter(200, TimeUnit.MILLISECONDS, 100);
+		final String[] found = new String[1];
+		final FilterChain write = new FilterChain() {
+			@Override
+			public void doFilter(final ServletRequest request, final ServletResponse response) {
+				dao.insert(3L, "tag3");
+			}
+		};
+		final FilterChain read = new FilterChain() {
+			@Override
+			public void doFilter(final ServletRequest request, final ServletResponse response) {
+				found[0] = dao.findName(3L);
+			}
+		};
+		try {
+
+			filter.doFilter(request("10.0.0.1"), new MockHttpServletResponse(), write);
+
+			filter.doFilter(request("10.0.0.1"), new MockHttpServletResponse(), read);
+			assertEquals("tag3", found[0]);
+
+			filter.doFilter(request("10.0.0.2"), new MockHttpServletResponse(), read);
+			assertNull(found[0]);
+
+			Thread.sleep(300);
+			filter.doFilter(request("10.0.0.1"), new MockHttpServletResponse(), read);
+			assertNull(found[0]);
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test03_ReadYourWrites()");
+	}
+
+	@Test
+	public void test04_ReadYourWritesPerPrincipal() {
+		LOG.info("BEGIN: test04_ReadYourWritesPerPrincipal()");
+		final ReadYourWritesFilter filter = new ReadYourWritesFilter(200, TimeUnit.MILLISECONDS, 100);
+		final String[] found = new String[1];
+		final FilterChain write = new FilterChain() {
+			@Override
+			public void doFilter(final ServletRequest request, final ServletResponse response) {
+				dao.insert(4L, "tag4");
+			}
+		};
+		final FilterChain read = new FilterChain() {
+			@Override
+			public void doFilter(final ServletRequest request, final ServletResponse response) {
+				found[0] = dao.findName(4L);
+			}
+		};
+		try {
+
+			// users behind one address are told apart by their principal
+			filter.doFilter(request("10.0.0.1", "alice"), new MockHttpServletResponse(), write);
+
+			filter.doFilter(request("10.0.0.1", "alice"), new MockHttpServletResponse(), read);
+			assertEquals("tag4", found[0]);
+
+			filter.doFilter(request("10.0.0.1", "bob"), new MockHttpServletResponse(), read);
+			assertNull(found[0]);
+
+			filter.doFilter(request("10.0.0.1"), new MockHttpServletResponse(), read);
+			assertNull(found[0]);
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test04_ReadYourWritesPerPrincipal()");
+	}
+
+	private EmbeddedDatabase database(final String name) {
+		return new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.HSQL)
+				.setName(getClass().getSimpleName() + "-" + name)
+				.addScript("sql/schema.sql")
+				.build();
+	}
+
+	private void feed() {
+		final JdbcTemplate source = new JdbcTemplate(primary);
+		final JdbcTemplate target = new JdbcTemplate(replica);
+		for (final Map<String, Object> row : source.queryForList("select * from tag")) {
+			if (target.queryForObject("select count(*) from tag where id = ?", Integer.class, row.get("ID")) == 0) {
+				target.update("insert into tag (id, name, description, created_on, updated_on, version) "
+						+ "values (?, ?, ?, ?, ?, ?)", row.get("ID"), row.get("NAME"), row.get("DESCRIPTION"),
+						row.get("CREATED_ON"), row.get("UPDATED_ON"), row.get("VERSION"));
+			}
+		}
+	}
+
+	private TagDao proxy(final TagDao target) {
+		final ProxyFactory proxyFactory = new ProxyFactory(target);
+		proxyFactory.addInterface(TagDao.class);
+		proxyFactory.addAdvice(new ReadOnlyRoutingInterceptor());
+		return (TagDao) proxyFactory.getProxy();
+	}
+
+	private MockHttpServletRequest request(final String remoteAddress) {
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tag/3");
+		request.setRemoteAddr(remoteAddress);
+		return request;
+	}
+
+	private MockHttpServletRequest request(final String remoteAddress, final String user) {
+		final MockHttpServletRequest request = request(remoteAddress);
+		request.setUserPrincipal(new UsernamePasswordAuthenticationToken(user, null));
+		return request;
+	}
+
+}
@@ -0,0 +1,72 @@
+package org.jrb.commons.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test cases for {@link SlowStatementLog}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class SlowStatementLogTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(SlowStatementLogTest.class);
+
+	@Test
+	public void test01_Normalize() {
+		LOG.info("BEGIN: test01_Normalize()");
+		try {
+
+			assertEquals(
+					"select thing0_.id from thing thing0_ where thing0_.name = ? and thing0_.id=?",
+					SlowStatementLog.normalize("select thing0_.id\n  from thing thing0_ where thing0_.name = 'O''Brien' and thing0_.id=42"));
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_Normalize()");
+	}
+
+	@Test
+	public void test02_RingBuffer() {
+		LOG.info("BEGIN: test02_RingBuffer()");
+		final SlowStatementLog log = new SlowStatementLog(10, 2, true, false);
+		try {
+
+			assertTrue(log.isEnabled());
+			assertFalse(log.isSlow(TimeUnit.MILLISECONDS.toNanos(5)));
+			assertTrue(log.isSlow(TimeUnit.MILLISECONDS.toNanos(10)));
+
+			log.submit(null, "select 1", null, TimeUnit.MILLISECONDS.toNanos(11), 1);
+			log.submit(null, "select 2", new Object[] { "secret" }, TimeUnit.MILLISECONDS.toNanos(12), 2);
+			log.submit(null, "select 3", new Object[] { 3L }, TimeUnit.MILLISECONDS.toNanos(13), 3);
+			for (int i = 0; i < 100 && (log.getEntries().isEmpty() || log.getEntries().get(0).getRows() != 3); i++) {
+				Thread.sleep(10);
+			}
+
+			assertEquals(2, log.getEntries().size());
+			assertEquals("select ?", log.getEntries().get(0).getSql());
+			assertEquals(3, log.getEntries().get(0).getRows());
+			assertEquals("<Long>", log.getEntries().get(0).getBinds().get(0));
+			assertEquals(2, log.getEntries().get(1).getRows());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		} finally {
+			log.shutdown();
+		}
+		LOG.info("END: test02_RingBuffer()");
+	}
+
+}
@@ -0,0 +1,62 @@
+package org.jrb.commons.jdbc;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Test helper asserting the number of JDBC statements executed by an
+ * operation. Requires the DataSource under test to be decorated by a
+ * {@link StatementCountingDataSource}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class StatementAssert {
+
+	/**
+	 * Asserts that an operation executes no more than a given number of
+	 * statements.
+	 * 
+	 * @param max
+	 *            the maximum number of statements expected
+	 * @param operation
+	 *            the operation to be measured
+	 * @return the result of the operation
+	 * @throws Exception
+	 *             if the operation fails
+	 */
+	public static <T> T assertStatementsAtMost(final int max, final Callable<T> operation) throws Exception {
+		final StatementStatistics statistics = StatementStatistics.begin();
+		try {
+			final T result = operation.call();
+			assertTrue("Expected at most " + max + " statements! " + statistics, statistics.getStatements() <= max);
+			return result;
+		} finally {
+			StatementStatistics.end();
+		}
+	}
+
+	/**
+	 * Counts the statements executed by an operation.
+	 * 
+	 * @param operation
+	 *            the operation to be measured
+	 * @return the statement statistics of the operation
+	 * @throws Exception
+	 *             if the operation fails
+	 */
+	public static StatementStatistics measure(final Callable<?> operation) throws Exception {
+		final StatementStatistics statistics = StatementStatistics.begin();
+		try {
+			operation.call();
+			return statistics;
+		} finally {
+			StatementStatistics.end();
+		}
+	}
+
+	private StatementAssert() {
+	}
+
+}
@@ -0,0 +1,70 @@
+package org.jrb.commons.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Unit test cases for {@link StatementCountingDataSource}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class StatementCountingDataSourceTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(StatementCountingDataSourceTest.class);
+
+	@Test
+	public void test01_DecorateWhileCounting() {
+		LOG.info("BEGIN: test01_DecorateWhileCounting()");
+		final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.HSQL)
+				.setName(getClass().getSimpleName())
+				.addScript("sql/schema.sql")
+				.build();
+		final StatementCountingDataSource dataSource = new StatementCountingDataSource(database);
+		try {
+
+			// nothing to count, so the connection is not decorated
+			try (final Connection connection = dataSource.getConnection()) {
+				assertFalse(Proxy.isProxyClass(connection.getClass()));
+			}
+
+			final StatementStatistics statistics = StatementStatistics.begin();
+			try (final Connection connection = dataSource.getConnection()) {
+				assertTrue(Proxy.isProxyClass(connection.getClass()));
+				try (final Statement statement = connection.createStatement();
+						final ResultSet rows = statement.executeQuery("select count(*) from thing")) {
+					while (rows.next()) {
+						// read every row
+					}
+				}
+			} finally {
+				StatementStatistics.end();
+			}
+			assertEquals(1, statistics.getStatements());
+			assertEquals(1, statistics.getRows());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		} finally {
+			database.shutdown();
+		}
+		LOG.info("END: test01_DecorateWhileCounting()");
+	}
+
+}
@@ -0,0 +1,74 @@
+package org.jrb.commons.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test cases for {@link LatencyHistogram} and
+ * {@link RollingLatencyHistogram}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class LatencyHistogramTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(LatencyHistogramTest.class);
+
+	private static void assertWithin(final long expected, final long actual, final double relativeError) {
+		assertTrue("expected ~" + expected + " but was " + actual,
+				Math.abs(actual - expected) <= expected * relativeError);
+	}
+
+	@Test
+	public void test01_Percentiles() {
+		LOG.info("BEGIN: test01_Percentiles()");
+		try {
+
+			final LatencyHistogram histogram = new LatencyHistogram();
+			for (long i = 1; i <= 100000; i++) {
+				histogram.record(i);
+			}
+			assertEquals(100000, histogram.getCount());
+			assertEquals(100000, histogram.getMax());
+			assertWithin(50000, histogram.getValueAtPercentile(50.0), 0.04);
+			assertWithin(90000, histogram.getValueAtPercentile(90.0), 0.04);
+			assertWithin(99000, histogram.getValueAtPercentile(99.0), 0.04);
+			assertWithin(99900, histogram.getValueAtPercentile(99.9), 0.04);
+
+			histogram.record(Long.MAX_VALUE);
+			assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_Percentiles()");
+	}
+
+	@Test
+	public void test02_RollingWindow() {
+		LOG.info("BEGIN: test02_RollingWindow()");
+		try {
+
+			final RollingLatencyHistogram histogram = new RollingLatencyHistogram(60, TimeUnit.SECONDS, 6);
+			histogram.record(5);
+			histogram.record(10);
+			final LatencyHistogram snapshot = histogram.snapshot();
+			assertEquals(2, snapshot.getCount());
+			assertEquals(10, snapshot.getMax());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test02_RollingWindow()");
+	}
+
+}
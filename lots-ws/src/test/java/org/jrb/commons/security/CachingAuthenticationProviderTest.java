@@ -0,0 +1,180 @@
+package org.jrb.commons.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+/**
+ * Unit test cases for {@link CachingAuthenticationProvider}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class CachingAuthenticationProviderTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(CachingAuthenticationProviderTest.class);
+
+	private static class Counters implements CounterService {
+
+		private int hits;
+		private int misses;
+
+		@Override
+		public synchronized void increment(final String name) {
+			if (name.endsWith(".hit")) {
+				hits++;
+			} else {
+				misses++;
+			}
+		}
+
+		@Override
+		public void decrement(final String name) {
+		}
+
+		@Override
+		public void reset(final String name) {
+		}
+
+	}
+
+	private static class CountingProvider implements AuthenticationProvider {
+
+		private int calls;
+
+		@Override
+		public Authentication authenticate(final Authentication authentication) throws AuthenticationException {
+			calls++;
+			if (!"secret".equals(authentication.getCredentials())) {
+				throw new BadCredentialsException("Bad credentials");
+			}
+			return new UsernamePasswordAuthenticationToken(
+					authentication.getName(), authentication.getCredentials(),
+					AuthorityUtils.createAuthorityList("ROLE_USER"));
+		}
+
+		@Override
+		public boolean supports(final Class<?> authentication) {
+			return true;
+		}
+
+	}
+
+	@Test
+	public void test01_VerifiedCredentials() {
+		LOG.info("BEGIN: test01_VerifiedCredentials()");
+		final Counters counters = new Counters();
+		final CountingProvider delegate = new CountingProvider();
+		final CachingAuthenticationProvider provider =
+				new CachingAuthenticationProvider(delegate, 5, TimeUnit.MINUTES, 100, counters);
+		try {
+
+			provider.authenticate(new UsernamePasswordAuthenticationToken("user", "secret"));
+			final Authentication cached = provider.authenticate(new UsernamePasswordAuthenticationToken("user", "secret"));
+			assertEquals(1, delegate.calls);
+			assertEquals("user", cached.getName());
+			assertNull(cached.getCredentials());
+			assertEquals(AuthorityUtils.createAuthorityList("ROLE_USER"), cached.getAuthorities());
+			assertEquals(1, counters.hits);
+
+			// other and wrong credentials are verified every time
+			for (int i = 0; i < 2; i++) {
+				try {
+					provider.authenticate(new UsernamePasswordAuthenticationToken("user", "guess"));
+					fail("Bad credentials accepted");
+				} catch (final BadCredentialsException e) {
+					// expected
+				}
+			}
+			assertEquals(3, delegate.calls);
+			assertEquals(1, provider.getSize());
+
+			provider.invalidateAll();
+			provider.authenticate(new UsernamePasswordAuthenticationToken("user", "secret"));
+			assertEquals(4, delegate.calls);
+			assertEquals(4, counters.misses);
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_VerifiedCredentials()");
+	}
+
+	@Test
+	public void test02_ConcurrentMissesVerifyOnce() {
+		LOG.info("BEGIN: test02_ConcurrentMissesVerifyOnce()");
+		final AtomicInteger calls = new AtomicInteger();
+		final CountDownLatch release = new CountDownLatch(1);
+		final AuthenticationProvider delegate = new AuthenticationProvider() {
+			@Override
+			public Authentication authenticate(final Authentication authentication) throws AuthenticationException {
+				calls.incrementAndGet();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return new UsernamePasswordAuthenticationToken(
+						authentication.getName(), authentication.getCredentials(),
+						AuthorityUtils.createAuthorityList("ROLE_USER"));
+			}
+
+			@Override
+			public boolean supports(final Class<?> authentication) {
+				return true;
+			}
+		};
+		final CachingAuthenticationProvider provider =
+				new CachingAuthenticationProvider(delegate, 5, TimeUnit.MINUTES, 100, new Counters());
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+
+			final List<Future<Authentication>> results = new ArrayList<Future<Authentication>>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(new Callable<Authentication>() {
+					@Override
+					public Authentication call() {
+						return provider.authenticate(new UsernamePasswordAuthenticationToken("user", "secret"));
+					}
+				}));
+			}
+			Thread.sleep(100);
+			release.countDown();
+
+			for (final Future<Authentication> result : results) {
+				assertEquals("user", result.get().getName());
+			}
+			assertEquals(1, calls.get());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+		LOG.info("END: test02_ConcurrentMissesVerifyOnce()");
+	}
+
+}
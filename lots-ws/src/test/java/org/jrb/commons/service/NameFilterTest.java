@@ -0,0 +1,90 @@
+package org.jrb.commons.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Unit test cases for {@link NameFilter}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class NameFilterTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(NameFilterTest.class);
+
+	@Test
+	public void test01_PutAndCheck() {
+		LOG.info("BEGIN: test01_PutAndCheck()");
+		try {
+
+			final NameFilter filter = new NameFilter("test", 10000, 0.01);
+			for (int i = 0; i < 5000; i++) {
+				filter.put("NAME_" + i);
+			}
+			for (int i = 0; i < 5000; i++) {
+				assertTrue(filter.mightContain("NAME_" + i));
+			}
+
+			int falsePositives = 0;
+			for (int i = 5000; i < 15000; i++) {
+				if (filter.mightContain("NAME_" + i)) {
+					falsePositives++;
+				}
+			}
+			LOG.info("false positives = {} of 10000", falsePositives);
+			assertTrue(falsePositives < 300);
+			assertEquals(15000, filter.getChecks());
+			assertEquals(10000 - falsePositives, filter.getNegatives());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_PutAndCheck()");
+	}
+
+	@Test
+	public void test02_Load() {
+		LOG.info("BEGIN: test02_Load()");
+		final EmbeddedDatabase db = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.HSQL)
+				.setName("namefilter")
+				.build();
+		try {
+
+			final JdbcTemplate jdbcTemplate = new JdbcTemplate(db);
+			jdbcTemplate.execute("create table tag (id bigint primary key, name varchar(255) not null unique)");
+			for (int i = 0; i < 100; i++) {
+				jdbcTemplate.update("insert into tag (id, name) values (?, ?)", i, "TAG_" + i);
+			}
+
+			final NameFilter filter = new NameFilter("tag", 10, 0.01);
+			filter.put("STALE");
+			filter.load(db, "select count(*) from tag", "select name from tag");
+			for (int i = 0; i < 100; i++) {
+				assertTrue(filter.mightContain("TAG_" + i));
+			}
+			assertFalse(filter.mightContain("STALE"));
+			assertTrue(filter.getExpectedFpp() < 0.01);
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		} finally {
+			db.shutdown();
+		}
+		LOG.info("END: test02_Load()");
+	}
+
+}
@@ -0,0 +1,198 @@
+package org.jrb.commons.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+/**
+ * Unit test cases for {@link RetryInterceptor}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class RetryInterceptorTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(RetryInterceptorTest.class);
+
+	public interface Operations {
+
+		@Idempotent
+		int update(int failures, RuntimeException failure);
+
+		int create(int failures, RuntimeException failure);
+
+	}
+
+	public static class FlakyOperations implements Operations {
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public int update(final int failures, final RuntimeException failure) {
+			return call(failures, failure);
+		}
+
+		@Override
+		public int create(final int failures, final RuntimeException failure) {
+			return call(failures, failure);
+		}
+
+		private int call(final int failures, final RuntimeException failure) {
+			final int call = calls.incrementAndGet();
+			if (call <= failures) {
+				throw failure;
+			}
+			return call;
+		}
+
+	}
+
+	public static class Counters implements CounterService {
+
+		private final ConcurrentMap<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+		@Override
+		public void increment(final String metricName) {
+			counters.putIfAbsent(metricName, new AtomicInteger());
+			counters.get(metricName).incrementAndGet();
+		}
+
+		@Override
+		public void decrement(final String metricName) {
+			counters.putIfAbsent(metricName, new AtomicInteger());
+			counters.get(metricName).decrementAndGet();
+		}
+
+		@Override
+		public void reset(final String metricName) {
+			counters.remove(metricName);
+		}
+
+		public Integer get(final String metricName) {
+			final AtomicInteger counter = counters.get(metricName);
+			return (counter != null) ? counter.get() : null;
+		}
+
+	}
+
+	private static Operations proxy(final Operations target, final CounterService counters) {
+		final ProxyFactory factory = new ProxyFactory(target);
+		factory.addInterface(Operations.class);
+		factory.addAdvice(new RetryInterceptor(counters, 3, 1, 5));
+		return (Operations) factory.getProxy();
+	}
+
+	@Test
+	public void test01_IsRetryable() {
+		LOG.info("BEGIN: test01_IsRetryable()");
+		try {
+
+			assertTrue(RetryInterceptor.isRetryable(new ObjectOptimisticLockingFailureException(Object.class, 1L)));
+			assertTrue(RetryInterceptor.isRetryable(new ServiceException("wrapped",
+					new CannotAcquireLockException("locked"))));
+			assertTrue(RetryInterceptor.isRetryable(new ServiceException("wrapped",
+					new SQLException("serialization failure", "40001"))));
+			assertFalse(RetryInterceptor.isRetryable(new ServiceException("stale")));
+			assertFalse(RetryInterceptor.isRetryable(new DataIntegrityViolationException("duplicate")));
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_IsRetryable()");
+	}
+
+	@Test
+	public void test02_RetryUntilRecovered() {
+		LOG.info("BEGIN: test02_RetryUntilRecovered()");
+		try {
+
+			final Counters counters = new Counters();
+			final Operations operations = proxy(new FlakyOperations(), counters);
+
+			assertEquals(3, operations.update(2, new CannotAcquireLockException("locked")));
+			assertEquals(Integer.valueOf(2), counters.get("service.retry.Operations.update"));
+			assertEquals(Integer.valueOf(1), counters.get("service.retry.recovered.Operations.update"));
+			assertNull(counters.get("service.retry.exhausted.Operations.update"));
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test02_RetryUntilRecovered()");
+	}
+
+	@Test
+	public void test03_RetryExhausted() {
+		LOG.info("BEGIN: test03_RetryExhausted()");
+		try {
+
+			final Counters counters = new Counters();
+			final FlakyOperations target = new FlakyOperations();
+			final Operations operations = proxy(target, counters);
+
+			try {
+				operations.update(5, new CannotAcquireLockException("locked"));
+				fail("Expected CannotAcquireLockException");
+			} catch (final CannotAcquireLockException e) {
+				assertEquals(3, target.calls.get());
+				assertEquals(Integer.valueOf(2), counters.get("service.retry.Operations.update"));
+				assertEquals(Integer.valueOf(1), counters.get("service.retry.exhausted.Operations.update"));
+			}
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test03_RetryExhausted()");
+	}
+
+	@Test
+	public void test04_NoRetry() {
+		LOG.info("BEGIN: test04_NoRetry()");
+		try {
+
+			final Counters counters = new Counters();
+			final FlakyOperations target = new FlakyOperations();
+			final Operations operations = proxy(target, counters);
+
+			try {
+				operations.update(1, new DataIntegrityViolationException("duplicate"));
+				fail("Expected DataIntegrityViolationException");
+			} catch (final DataIntegrityViolationException e) {
+				assertEquals(1, target.calls.get());
+			}
+
+			try {
+				operations.create(2, new CannotAcquireLockException("locked"));
+				fail("Expected CannotAcquireLockException");
+			} catch (final CannotAcquireLockException e) {
+				assertEquals(2, target.calls.get());
+			}
+			assertNull(counters.get("service.retry.Operations.update"));
+			assertNull(counters.get("service.retry.Operations.create"));
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test04_NoRetry()");
+	}
+
+}
@@ -0,0 +1,78 @@
+package org.jrb.commons.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test cases for {@link ServiceException}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class ServiceExceptionTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(ServiceExceptionTest.class);
+
+	private static class ExpectedException extends ServiceException {
+
+		private static final long serialVersionUID = 1L;
+
+		public ExpectedException(final Throwable cause, final String format, final Object... args) {
+			super(cause, format, args);
+		}
+
+	}
+
+	@Test
+	public void test01_Stackless() {
+		LOG.info("BEGIN: test01_Stackless()");
+		try {
+
+			final IllegalStateException cause = new IllegalStateException();
+			final ServiceException e = new ExpectedException(cause, "Thing is unknown! id = %s", 42L);
+			assertEquals(0, e.getStackTrace().length);
+			assertSame(cause, e.getCause());
+			assertEquals("Thing is unknown! id = 42", e.getMessage());
+			assertSame(e.getMessage(), e.getMessage());
+
+			assertTrue(new ServiceException("Failure!").getStackTrace().length > 0);
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_Stackless()");
+	}
+
+	@Test
+	public void test02_Serialize() {
+		LOG.info("BEGIN: test02_Serialize()");
+		try {
+
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(new ExpectedException(null, "Thing is unknown! name = %s", "ABC"));
+			}
+			try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+				assertEquals("Thing is unknown! name = ABC", ((ServiceException) in.readObject()).getMessage());
+			}
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test02_Serialize()");
+	}
+
+}
@@ -0,0 +1,129 @@
+package org.jrb.commons.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Unit test cases for {@link ResponseUtils}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class ResponseUtilsTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(ResponseUtilsTest.class);
+
+	private ResponseUtils utils;
+
+	@Before
+	public void setUp() {
+		utils = new ResponseUtils();
+		ReflectionTestUtils.setField(utils, "product", "lots");
+		ReflectionTestUtils.setField(utils, "version", "1.0");
+		utils.init();
+	}
+
+	@Test
+	public void test01_CreateResponse() {
+		LOG.info("BEGIN: test01_CreateResponse()");
+		try {
+
+			final MessageResponse response = utils.createResponse(MessageResponse.class);
+			assertNotNull(response);
+			assertEquals("lots", response.getProduct());
+			assertEquals("1.0", response.getVersion());
+			assertNull(response.getStatus());
+			assertEquals(0, response.getHeaders().size());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_CreateResponse()");
+	}
+
+	@Test
+	public void test02_FinalizeResponse() {
+		LOG.info("BEGIN: test02_FinalizeResponse()");
+		try {
+
+			final MessageResponse response = utils.createResponse(MessageResponse.class);
+			response.addHeader("x-custom", "ABC");
+			final ResponseEntity<MessageResponse> entity = utils.finalize(response, HttpStatus.CREATED);
+			assertSame(response, entity.getBody());
+			assertEquals(HttpStatus.CREATED, entity.getStatusCode());
+			assertEquals(HttpStatus.CREATED, response.getStatus());
+			assertNotNull(response.getElapsedTime());
+
+			final HttpHeaders headers = entity.getHeaders();
+			assertEquals("lots", headers.getFirst(AbstractResponse.HEADER_PRODUCT));
+			assertEquals("1.0", headers.getFirst(AbstractResponse.HEADER_VERSION));
+			assertEquals("201", headers.getFirst(AbstractResponse.HEADER_STATUS));
+			assertEquals(response.getElapsedTime().toString(), headers.getFirst(AbstractResponse.HEADER_ELAPSED_TIME));
+			assertEquals("ABC", headers.getFirst("x-custom"));
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test02_FinalizeResponse()");
+	}
+
+	@Test
+	public void test03_RegisteredFactory() {
+		LOG.info("BEGIN: test03_RegisteredFactory()");
+		try {
+
+			final MessageResponse prototype = new MessageResponse();
+			utils.register(MessageResponse.class, new ResponseFactory<MessageResponse>() {
+				@Override
+				public MessageResponse newResponse() {
+					return prototype;
+				}
+			});
+			assertSame(prototype, utils.createResponse(MessageResponse.class));
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test03_RegisteredFactory()");
+	}
+
+	@Test
+	public void test04_ErrorResponse() {
+		LOG.info("BEGIN: test04_ErrorResponse()");
+		try {
+
+			final ResponseEntity<MessageResponse> entity = utils.createErrorResponse("Thing is unknown!", HttpStatus.NOT_FOUND);
+			assertEquals(HttpStatus.NOT_FOUND, entity.getStatusCode());
+			assertEquals("Thing is unknown!", entity.getBody().getMessage());
+			assertEquals(HttpStatus.NOT_FOUND, entity.getBody().getStatus());
+			assertEquals("lots", entity.getHeaders().getFirst(AbstractResponse.HEADER_PRODUCT));
+			assertEquals("1.0", entity.getHeaders().getFirst(AbstractResponse.HEADER_VERSION));
+			assertEquals("404", entity.getHeaders().getFirst(AbstractResponse.HEADER_STATUS));
+			assertEquals("0", entity.getHeaders().getFirst(AbstractResponse.HEADER_ELAPSED_TIME));
+
+			final ResponseEntity<MessageResponse> other = utils.createErrorResponse("Other", HttpStatus.CONFLICT);
+			assertEquals("409", other.getHeaders().getFirst(AbstractResponse.HEADER_STATUS));
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test04_ErrorResponse()");
+	}
+
+}
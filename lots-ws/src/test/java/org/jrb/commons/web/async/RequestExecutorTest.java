@@ -0,0 +1,248 @@
+package org.jrb.commons.web.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+/**
+ * Unit test cases for {@link RequestExecutor}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class RequestExecutorTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(RequestExecutorTest.class);
+
+	private static class Metrics implements CounterService, GaugeService {
+
+		private final ConcurrentMap<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+		public int count(final String name) {
+			final AtomicInteger counter = counters.get(name);
+			return (counter != null) ? counter.get() : 0;
+		}
+
+		@Override
+		public void decrement(final String name) {
+			counters.putIfAbsent(name, new AtomicInteger());
+			counters.get(name).decrementAndGet();
+		}
+
+		@Override
+		public void increment(final String name) {
+			counters.putIfAbsent(name, new AtomicInteger());
+			counters.get(name).incrementAndGet();
+		}
+
+		@Override
+		public void reset(final String name) {
+			counters.remove(name);
+		}
+
+		@Override
+		public void submit(final String name, final double value) {
+		}
+
+	}
+
+	private static class BlockingCallable implements Callable<String> {
+
+		private final CountDownLatch release;
+
+		public BlockingCallable(final CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public String call() throws Exception {
+			release.await(5, TimeUnit.SECONDS);
+			return Thread.currentThread().getName();
+		}
+
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Future<T> run(final WebAsyncTask<T> task) {
+		return task.getExecutor().submit((Callable<T>) task.getCallable());
+	}
+
+	private static Callable<?> timeout(final WebAsyncTask<?> task) {
+		return (Callable<?>) ReflectionTestUtils.getField(task, "timeoutCallback");
+	}
+
+	@Test
+	public void test01_Admission() {
+		LOG.info("BEGIN: test01_Admission()");
+		final Metrics metrics = new Metrics();
+		final RequestExecutor executor = new RequestExecutor("test", 1, 1, 1000L, 2L, metrics, metrics);
+		try {
+
+			final CountDownLatch release = new CountDownLatch(1);
+			final Future<String> first = run(executor.submit(new BlockingCallable(release)));
+			final Future<String> second = run(executor.submit(new BlockingCallable(release)));
+			assertEquals(2, executor.getActive());
+
+			try {
+				executor.submit(new BlockingCallable(release));
+				fail("Request admitted over capacity");
+			} catch (final RequestRejectedException e) {
+				assertEquals(2L, e.getRetryAfter());
+			}
+			assertEquals(1, metrics.count("http.async.test.rejected"));
+
+			release.countDown();
+			assertTrue(first.get(5, TimeUnit.SECONDS).startsWith("http-test-"));
+			assertTrue(second.get(5, TimeUnit.SECONDS).startsWith("http-test-"));
+			assertEquals(0, executor.getActive());
+
+			final WebAsyncTask<String> third = executor.submit(new BlockingCallable(release));
+			assertEquals(Long.valueOf(1000L), third.getTimeout());
+			run(third).get(5, TimeUnit.SECONDS);
+			assertEquals(0, executor.getActive());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		} finally {
+			executor.shutdown();
+		}
+		LOG.info("END: test01_Admission()");
+	}
+
+	@Test
+	public void test02_FailedRequest() {
+		LOG.info("BEGIN: test02_FailedRequest()");
+		final Metrics metrics = new Metrics();
+		final RequestExecutor executor = new RequestExecutor("test", 1, 0, 1000L, 1L, metrics, metrics);
+		try {
+
+			final Future<Object> failed = run(executor.submit(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					throw new IllegalStateException("failed");
+				}
+			}));
+			try {
+				failed.get(5, TimeUnit.SECONDS);
+				fail("Failure not propagated");
+			} catch (final Exception e) {
+				assertTrue(e.getCause() instanceof IllegalStateException);
+			}
+			assertEquals(0, executor.getActive());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		} finally {
+			executor.shutdown();
+		}
+		LOG.info("END: test02_FailedRequest()");
+	}
+
+	@Test
+	public void test03_VirtualThreads() {
+		LOG.info("BEGIN: test03_VirtualThreads()");
+		final Metrics metrics = new Metrics();
+		final RequestExecutor executor = new RequestExecutor("test", 1, 2, 1000L, 1L, true, metrics, metrics);
+		try {
+
+			assertEquals(VirtualThreads.isAvailable(), executor.isVirtual());
+
+			final CountDownLatch release = new CountDownLatch(1);
+			final Future<String> first = run(executor.submit(new BlockingCallable(release)));
+			final Future<String> second = run(executor.submit(new BlockingCallable(release)));
+			final Future<String> third = run(executor.submit(new BlockingCallable(release)));
+			try {
+				executor.submit(new BlockingCallable(release));
+				fail("Request admitted over capacity");
+			} catch (final RequestRejectedException e) {
+				assertEquals(1, metrics.count("http.async.test.rejected"));
+			}
+
+			release.countDown();
+			for (final Future<String> future : Arrays.asList(first, second, third)) {
+				assertTrue(future.get(5, TimeUnit.SECONDS).startsWith("http-test-"));
+			}
+			assertEquals(0, executor.getActive());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		} finally {
+			executor.shutdown();
+		}
+		LOG.info("END: test03_VirtualThreads()");
+	}
+
+	@Test
+	public void test04_Timeout() {
+		LOG.info("BEGIN: test04_Timeout()");
+		final Metrics metrics = new Metrics();
+		final RequestExecutor executor = new RequestExecutor("test", 1, 1, 1000L, 3L, metrics, metrics);
+		try {
+
+			final CountDownLatch started = new CountDownLatch(1);
+			final CountDownLatch release = new CountDownLatch(1);
+			final WebAsyncTask<String> running = executor.submit(new Callable<String>() {
+				@Override
+				public String call() throws Exception {
+					started.countDown();
+					return new BlockingCallable(release).call();
+				}
+			});
+			final Future<String> first = run(running);
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			final WebAsyncTask<String> queued = executor.submit(new BlockingCallable(release));
+			final Future<String> second = run(queued);
+
+			// work that never started may be retried elsewhere
+			try {
+				timeout(queued).call();
+				fail("Timeout not signalled");
+			} catch (final RequestRejectedException e) {
+				assertEquals(3L, e.getRetryAfter());
+			}
+
+			// work that started may still complete, so no retry is hinted
+			try {
+				timeout(running).call();
+				fail("Timeout not signalled");
+			} catch (final RequestTimeoutException e) {
+				// expected
+			}
+			assertEquals(2, metrics.count("http.async.test.timeout"));
+
+			release.countDown();
+			assertTrue(first.get(5, TimeUnit.SECONDS).startsWith("http-test-"));
+			assertNull(second.get(5, TimeUnit.SECONDS));
+			assertEquals(0, executor.getActive());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		} finally {
+			executor.shutdown();
+		}
+		LOG.info("END: test04_Timeout()");
+	}
+
+}
@@ -0,0 +1,228 @@
+package org.jrb.commons.web.idempotency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Unit test cases for {@link IdempotencyFilter}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class IdempotencyFilterTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(IdempotencyFilterTest.class);
+
+	private static class CreatingChain implements FilterChain {
+
+		private final AtomicInteger executions = new AtomicInteger();
+		private final int status;
+		private final CountDownLatch release;
+
+		public CreatingChain(final int status, final CountDownLatch release) {
+			this.status = status;
+			this.release = release;
+		}
+
+		@Override
+		public void doFilter(final ServletRequest request, final ServletResponse response)
+				throws IOException, ServletException {
+			final int execution = executions.incrementAndGet();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (final InterruptedException e) {
+				throw new ServletException(e);
+			}
+			final HttpServletResponse httpResponse = (HttpServletResponse) response;
+			httpResponse.setStatus(status);
+			httpResponse.setHeader("Location", "/api/thing/" + execution);
+			httpResponse.setContentType("application/json");
+			httpResponse.getOutputStream().write(("{\"id\":" + execution + "}").getBytes("UTF-8"));
+		}
+
+	}
+
+	private static IdempotencyFilter filter() {
+		return new IdempotencyFilter(Sets.newHashSet("/api/thing"), 1, TimeUnit.MINUTES, 100, 1024, 5000);
+	}
+
+	private static MockHttpServletResponse post(final IdempotencyFilter filter, final FilterChain chain,
+			final String path, final String key) throws Exception {
+		return post(filter, chain, path, key, "user", "{}");
+	}
+
+	private static MockHttpServletResponse post(final IdempotencyFilter filter, final FilterChain chain,
+			final String path, final String key, final String user, final String body) throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+		request.setContent(body.getBytes("UTF-8"));
+		if (user != null) {
+			request.setUserPrincipal(new UsernamePasswordAuthenticationToken(user, null));
+		}
+		if (key != null) {
+			request.addHeader(IdempotencyFilter.HEADER_KEY, key);
+		}
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+
+	@Test
+	public void test01_ReplayResponse() {
+		LOG.info("BEGIN: test01_ReplayResponse()");
+		try {
+
+			final IdempotencyFilter filter = filter();
+			final CreatingChain chain = new CreatingChain(HttpServletResponse.SC_CREATED, new CountDownLatch(0));
+
+			final MockHttpServletResponse first = post(filter, chain, "/api/thing", "key-1");
+			final MockHttpServletResponse retry = post(filter, chain, "/api/thing", "key-1");
+			assertEquals(1, chain.executions.get());
+			assertEquals(HttpServletResponse.SC_CREATED, retry.getStatus());
+			assertEquals(first.getContentAsString(), retry.getContentAsString());
+			assertEquals("/api/thing/1", retry.getHeader("Location"));
+			assertEquals("application/json", retry.getContentType());
+			assertEquals("true", retry.getHeader(IdempotencyFilter.HEADER_REPLAYED));
+			assertNull(first.getHeader(IdempotencyFilter.HEADER_REPLAYED));
+
+			// other keys, no key and other paths execute
+			post(filter, chain, "/api/thing", "key-2");
+			post(filter, chain, "/api/thing", null);
+			post(filter, chain, "/api/other", "key-1");
+			assertEquals(4, chain.executions.get());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_ReplayResponse()");
+	}
+
+	@Test
+	public void test02_ServerErrorNotKept() {
+		LOG.info("BEGIN: test02_ServerErrorNotKept()");
+		try {
+
+			final IdempotencyFilter filter = filter();
+			final CreatingChain chain = new CreatingChain(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+					new CountDownLatch(0));
+
+			post(filter, chain, "/api/thing", "key-1");
+			final MockHttpServletResponse retry = post(filter, chain, "/api/thing", "key-1");
+			assertEquals(2, chain.executions.get());
+			assertNull(retry.getHeader(IdempotencyFilter.HEADER_REPLAYED));
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test02_ServerErrorNotKept()");
+	}
+
+	@Test
+	public void test03_ConcurrentDuplicatesWait() {
+		LOG.info("BEGIN: test03_ConcurrentDuplicatesWait()");
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+
+			final IdempotencyFilter filter = filter();
+			final CountDownLatch release = new CountDownLatch(1);
+			final CreatingChain chain = new CreatingChain(HttpServletResponse.SC_CREATED, release);
+
+			final Future<?>[] results = new Future<?>[8];
+			for (int i = 0; i < results.length; i++) {
+				results[i] = executor.submit(new Callable<MockHttpServletResponse>() {
+					@Override
+					public MockHttpServletResponse call() throws Exception {
+						return post(filter, chain, "/api/thing", "key-1");
+					}
+				});
+			}
+			Thread.sleep(100);
+			release.countDown();
+
+			for (final Future<?> result : results) {
+				final MockHttpServletResponse response = (MockHttpServletResponse) result.get();
+				assertEquals(HttpServletResponse.SC_CREATED, response.getStatus());
+				assertEquals("{\"id\":1}", response.getContentAsString());
+			}
+			assertEquals(1, chain.executions.get());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+		LOG.info("END: test03_ConcurrentDuplicatesWait()");
+	}
+
+	@Test
+	public void test04_KeyReusedWithOtherBody() {
+		LOG.info("BEGIN: test04_KeyReusedWithOtherBody()");
+		try {
+
+			final IdempotencyFilter filter = filter();
+			final CreatingChain chain = new CreatingChain(HttpServletResponse.SC_CREATED, new CountDownLatch(0));
+
+			post(filter, chain, "/api/thing", "key-1", "user", "{\"name\":\"a\"}");
+			final MockHttpServletResponse other = post(filter, chain, "/api/thing", "key-1", "user",
+					"{\"name\":\"b\"}");
+			assertEquals(1, chain.executions.get());
+			assertEquals(422, other.getStatus());
+			assertNull(other.getHeader(IdempotencyFilter.HEADER_REPLAYED));
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test04_KeyReusedWithOtherBody()");
+	}
+
+	@Test
+	public void test05_KeysScopedToPrincipal() {
+		LOG.info("BEGIN: test05_KeysScopedToPrincipal()");
+		try {
+
+			final IdempotencyFilter filter = filter();
+			final CreatingChain chain = new CreatingChain(HttpServletResponse.SC_CREATED, new CountDownLatch(0));
+
+			post(filter, chain, "/api/thing", "key-1", "alice", "{}");
+			final MockHttpServletResponse other = post(filter, chain, "/api/thing", "key-1", "bob", "{}");
+			final MockHttpServletResponse anonymous = post(filter, chain, "/api/thing", "key-1", null, "{}");
+			assertEquals(3, chain.executions.get());
+			assertNull(other.getHeader(IdempotencyFilter.HEADER_REPLAYED));
+			assertNull(anonymous.getHeader(IdempotencyFilter.HEADER_REPLAYED));
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test05_KeysScopedToPrincipal()");
+	}
+
+}
@@ -0,0 +1,63 @@
+package org.jrb.commons.web.jetty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.nio.SelectChannelConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test cases for {@link JettyConnectorCustomizer}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class JettyConnectorCustomizerTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(JettyConnectorCustomizerTest.class);
+
+	@Test
+	public void test01_Customize() {
+		LOG.info("BEGIN: test01_Customize()");
+		try {
+
+			final Server server = new Server(0);
+			final JettyConnectorCustomizer customizer = new JettyConnectorCustomizer();
+			customizer.setAcceptors(2);
+			customizer.setAcceptQueueSize(128);
+			customizer.setIdleTimeout(15000);
+			customizer.setLowResourcesConnections(500);
+			customizer.setLowResourcesIdleTimeout(1000);
+			customizer.setResponseBufferSize(8192);
+			customizer.setDirectBuffers(false);
+			customizer.setMaxThreads(32);
+			customizer.setMaxQueued(64);
+			customizer.customize(server);
+
+			final SelectChannelConnector connector = (SelectChannelConnector) server.getConnectors()[0];
+			assertEquals(2, connector.getAcceptors());
+			assertEquals(128, connector.getAcceptQueueSize());
+			assertEquals(15000, connector.getMaxIdleTime());
+			assertEquals(500, connector.getLowResourcesConnections());
+			assertEquals(1000, connector.getLowResourcesMaxIdleTime());
+			assertEquals(8192, connector.getResponseBufferSize());
+			assertEquals(6144, connector.getRequestHeaderSize());
+			assertFalse(connector.getUseDirectBuffers());
+
+			final QueuedThreadPool threadPool = (QueuedThreadPool) server.getThreadPool();
+			assertEquals(32, threadPool.getMaxThreads());
+			assertEquals(64, threadPool.getMaxQueued());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_Customize()");
+	}
+
+}
@@ -0,0 +1,155 @@
+package org.jrb.commons.web.limit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Unit test cases for {@link ConcurrencyLimitFilter}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class ConcurrencyLimitFilterTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(ConcurrencyLimitFilterTest.class);
+
+	private static class Metrics implements CounterService, GaugeService {
+
+		private int rejected;
+
+		@Override
+		public synchronized void increment(final String name) {
+			rejected++;
+		}
+
+		@Override
+		public void decrement(final String name) {
+		}
+
+		@Override
+		public void reset(final String name) {
+		}
+
+		@Override
+		public void submit(final String name, final double value) {
+		}
+
+	}
+
+	private static class BlockingChain implements FilterChain {
+
+		private final CountDownLatch entered;
+		private final CountDownLatch release;
+
+		public BlockingChain(final CountDownLatch entered, final CountDownLatch release) {
+			this.entered = entered;
+			this.release = release;
+		}
+
+		@Override
+		public void doFilter(final ServletRequest request, final ServletResponse response)
+				throws IOException, ServletException {
+			entered.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (final InterruptedException e) {
+				throw new ServletException(e);
+			}
+		}
+
+	}
+
+	private static int execute(final ConcurrencyLimitFilter filter, final FilterChain chain,
+			final String method, final String path) throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response.getStatus();
+	}
+
+	@Test
+	public void test01_ShedExcessWrites() {
+		LOG.info("BEGIN: test01_ShedExcessWrites()");
+		final Metrics metrics = new Metrics();
+		final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+				new GradientLimit(4, 4, 4, 2.0, 0.2), new String[] { "/api/" }, 0.5, 3L, metrics, metrics);
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+
+			final CountDownLatch entered = new CountDownLatch(2);
+			final CountDownLatch release = new CountDownLatch(1);
+			final BlockingChain chain = new BlockingChain(entered, release);
+			final Callable<Integer> write = new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					return execute(filter, chain, "POST", "/api/thing");
+				}
+			};
+			final Future<Integer> first = executor.submit(write);
+			final Future<Integer> second = executor.submit(write);
+			entered.await(5, TimeUnit.SECONDS);
+			assertEquals(2, filter.getInflight());
+
+			final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/thing");
+			final MockHttpServletResponse response = new MockHttpServletResponse();
+			filter.doFilter(request, response, chain);
+			assertEquals(503, response.getStatus());
+			assertEquals("3", response.getHeader("Retry-After"));
+			assertEquals(1, metrics.rejected);
+
+			final CountDownLatch readEntered = new CountDownLatch(2);
+			final BlockingChain readChain = new BlockingChain(readEntered, release);
+			final Future<Integer> read = executor.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					return execute(filter, readChain, "GET", "/api/thing/1");
+				}
+			});
+			final Future<Integer> otherRead = executor.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					return execute(filter, readChain, "GET", "/api/tag");
+				}
+			});
+			readEntered.await(5, TimeUnit.SECONDS);
+			assertEquals(4, filter.getInflight());
+			assertEquals(503, execute(filter, readChain, "GET", "/api/thing"));
+			assertEquals(200, execute(filter, readChain, "GET", "/health"));
+
+			release.countDown();
+			for (final Future<?> future : new Future<?>[] { first, second, read, otherRead }) {
+				assertEquals(Integer.valueOf(200), future.get(5, TimeUnit.SECONDS));
+			}
+			assertEquals(0, filter.getInflight());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+		LOG.info("END: test01_ShedExcessWrites()");
+	}
+
+}
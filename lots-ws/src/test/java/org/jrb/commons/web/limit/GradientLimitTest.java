@@ -0,0 +1,95 @@
+package org.jrb.commons.web.limit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test cases for {@link GradientLimit}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class GradientLimitTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(GradientLimitTest.class);
+
+	private final static long WINDOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private long now = System.nanoTime();
+
+	private void window(final GradientLimit limit, final long rttMillis, final int inflight, final boolean dropped) {
+		now += WINDOW;
+		for (int i = 0; i < 10; i++) {
+			limit.onSample(now, TimeUnit.MILLISECONDS.toNanos(rttMillis), inflight, dropped);
+		}
+	}
+
+	@Test
+	public void test01_GrowWhileLatencyHolds() {
+		LOG.info("BEGIN: test01_GrowWhileLatencyHolds()");
+		try {
+
+			final GradientLimit limit = new GradientLimit(20, 4, 100, 2.0, 0.5);
+			for (int i = 0; i < 50; i++) {
+				window(limit, 10, limit.getLimit(), false);
+			}
+			assertEquals(100, limit.getLimit());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_GrowWhileLatencyHolds()");
+	}
+
+	@Test
+	public void test02_ShrinkWhenQueueing() {
+		LOG.info("BEGIN: test02_ShrinkWhenQueueing()");
+		try {
+
+			final GradientLimit limit = new GradientLimit(50, 4, 100, 2.0, 0.5);
+			window(limit, 10, 50, false);
+			for (int i = 0; i < 10; i++) {
+				window(limit, 100, limit.getLimit(), false);
+			}
+			assertTrue("limit = " + limit.getLimit(), limit.getLimit() < 20);
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test02_ShrinkWhenQueueing()");
+	}
+
+	@Test
+	public void test03_IdleAndDropped() {
+		LOG.info("BEGIN: test03_IdleAndDropped()");
+		try {
+
+			final GradientLimit limit = new GradientLimit(40, 4, 100, 2.0, 1.0);
+			window(limit, 10, 5, false);
+			assertEquals(40, limit.getLimit());
+
+			window(limit, 10, 5, true);
+			assertEquals(36, limit.getLimit());
+
+			for (int i = 0; i < 100; i++) {
+				window(limit, 10, 1, true);
+			}
+			assertEquals(4, limit.getLimit());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test03_IdleAndDropped()");
+	}
+
+}
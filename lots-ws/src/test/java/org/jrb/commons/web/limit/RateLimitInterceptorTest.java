@@ -0,0 +1,107 @@
+package org.jrb.commons.web.limit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Unit test cases for {@link RateLimitInterceptor}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class RateLimitInterceptorTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(RateLimitInterceptorTest.class);
+
+	private static class Counters implements CounterService {
+
+		private String last;
+
+		@Override
+		public void increment(final String name) {
+			last = name;
+		}
+
+		@Override
+		public void decrement(final String name) {
+		}
+
+		@Override
+		public void reset(final String name) {
+		}
+
+	}
+
+	@Test
+	public void test01_PerClientBudgets() {
+		LOG.info("BEGIN: test01_PerClientBudgets()");
+		final Counters counters = new Counters();
+		final RateLimitInterceptor interceptor = new RateLimitInterceptor(
+				new String[] { "/api/" },
+				new TokenBucket("read", 2, 0.01),
+				new TokenBucket("write", 1, 0.01),
+				Collections.singletonMap("/api/batch", new TokenBucket("batch", 1, 0.01)),
+				10, TimeUnit.MINUTES, 1000, 4, counters);
+		try {
+
+			assertEquals("1", handle(interceptor, "GET", "/api/thing", "alice").getHeader(RateLimitInterceptor.HEADER_REMAINING));
+			assertEquals(200, handle(interceptor, "GET", "/api/thing", "alice").getStatus());
+
+			final MockHttpServletResponse rejected = handle(interceptor, "GET", "/api/thing", "alice");
+			assertEquals(429, rejected.getStatus());
+			assertEquals("2", rejected.getHeader(RateLimitInterceptor.HEADER_LIMIT));
+			assertEquals("0", rejected.getHeader(RateLimitInterceptor.HEADER_REMAINING));
+			assertTrue(Long.parseLong(rejected.getHeader("Retry-After")) > 0);
+			assertEquals("http.ratelimit.rejected.read", counters.last);
+
+			// other clients, endpoint classes and paths have budgets of their own
+			assertEquals(200, handle(interceptor, "GET", "/api/thing", "bob").getStatus());
+			assertEquals(200, handle(interceptor, "GET", "/api/thing", null).getStatus());
+			assertEquals(200, handle(interceptor, "POST", "/api/thing", "alice").getStatus());
+			assertEquals(200, handle(interceptor, "POST", "/api/batch", "alice").getStatus());
+			assertEquals(429, handle(interceptor, "POST", "/api/batch", "alice").getStatus());
+			assertEquals("http.ratelimit.rejected.batch", counters.last);
+			assertEquals(200, handle(interceptor, "GET", "/metrics", "alice").getStatus());
+			assertEquals(5, interceptor.getClients());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_PerClientBudgets()");
+	}
+
+	private MockHttpServletResponse handle(
+			final RateLimitInterceptor interceptor,
+			final String method,
+			final String uri,
+			final String user) throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+		if (user != null) {
+			request.setUserPrincipal(new Principal() {
+				@Override
+				public String getName() {
+					return user;
+				}
+			});
+		}
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+		final boolean handled = interceptor.preHandle(request, response, null);
+		assertFalse(handled == (response.getStatus() == 429));
+		return response;
+	}
+
+}
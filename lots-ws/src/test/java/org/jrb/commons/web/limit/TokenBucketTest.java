@@ -0,0 +1,53 @@
+package org.jrb.commons.web.limit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Unit test cases for {@link TokenBucket}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class TokenBucketTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(TokenBucketTest.class);
+
+	@Test
+	public void test01_BurstAndRefill() {
+		LOG.info("BEGIN: test01_BurstAndRefill()");
+		try {
+
+			final TokenBucket budget = new TokenBucket("read", 3, 10.0);
+			final AtomicLong bucket = budget.newBucket();
+			final long now = System.nanoTime();
+
+			assertEquals(2, budget.tryConsume(bucket, now));
+			assertEquals(1, budget.tryConsume(bucket, now));
+			assertEquals(0, budget.tryConsume(bucket, now));
+			assertEquals(TimeUnit.MILLISECONDS.toNanos(300), budget.untilFull(bucket, now));
+
+			final long wait = budget.tryConsume(bucket, now);
+			assertEquals(-TimeUnit.MILLISECONDS.toNanos(100), wait);
+			assertEquals(0, budget.tryConsume(bucket, now - wait));
+
+			final long later = now + TimeUnit.SECONDS.toNanos(1);
+			assertEquals(2, budget.tryConsume(bucket, later));
+			assertTrue(budget.untilFull(bucket, later) > 0);
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_BurstAndRefill()");
+	}
+
+}
@@ -0,0 +1,76 @@
+package org.jrb.commons.web.timing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+/**
+ * Unit test cases for {@link ServerTimingMessageConverter}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class ServerTimingMessageConverterTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(ServerTimingMessageConverterTest.class);
+
+	private static MockHttpOutputMessage write(final Object body) throws Exception {
+		final MockHttpOutputMessage message = new MockHttpOutputMessage();
+		new ServerTimingMessageConverter().write(body, MediaType.APPLICATION_JSON, message);
+		return message;
+	}
+
+	@Test
+	public void test01_TimedResponse() {
+		LOG.info("BEGIN: test01_TimedResponse()");
+		try {
+
+			final ServerTiming timing = ServerTiming.begin();
+			final MockHttpOutputMessage message;
+			try {
+				timing.add(ServerTiming.PHASE_SERVICE, 1000000L);
+				message = write(Collections.singletonMap("name", "thing"));
+			} finally {
+				ServerTiming.end();
+			}
+
+			// the header is set ahead of the buffered body
+			final String header = message.getHeaders().getFirst(ServerTiming.HEADER);
+			assertTrue(header, header.matches(
+					"service;dur=1\\.000, serialize;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}"));
+			assertTrue(timing.isWritten());
+			assertEquals("{\"name\":\"thing\"}", message.getBodyAsString());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_TimedResponse()");
+	}
+
+	@Test
+	public void test02_UntimedResponse() {
+		LOG.info("BEGIN: test02_UntimedResponse()");
+		try {
+
+			final MockHttpOutputMessage message = write(Collections.singletonMap("name", "thing"));
+			assertNull(message.getHeaders().getFirst(ServerTiming.HEADER));
+			assertEquals("{\"name\":\"thing\"}", message.getBodyAsString());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test02_UntimedResponse()");
+	}
+
+}
@@ -0,0 +1,134 @@
+package org.jrb.commons.web.timing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Unit test cases for {@link ServerTiming} and {@link ServerTimingFilter}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+public class ServerTimingTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(ServerTimingTest.class);
+
+	private final static String TOTAL = ServerTiming.PHASE_TOTAL + ";dur=\\d+\\.\\d{3}";
+
+	@Test
+	public void test01_HeaderFormat() {
+		LOG.info("BEGIN: test01_HeaderFormat()");
+		try {
+
+			final ServerTiming timing = ServerTiming.begin();
+			try {
+				assertSame(timing, ServerTiming.current());
+				timing.add(ServerTiming.PHASE_DB, 1234567L);
+				timing.add(ServerTiming.PHASE_SERVICE, 5000L);
+				timing.add(ServerTiming.PHASE_LINKS, 2040000000L);
+				assertFalse(timing.isWritten());
+
+				final String header = timing.toHeader();
+				assertTrue(header, header.matches(
+						"db;dur=1\\.234, service;dur=0\\.005, links;dur=2040\\.000, " + TOTAL));
+				assertTrue(timing.isWritten());
+			} finally {
+				ServerTiming.end();
+			}
+			assertNull(ServerTiming.current());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_HeaderFormat()");
+	}
+
+	@Test
+	public void test02_PhaseAccumulation() {
+		LOG.info("BEGIN: test02_PhaseAccumulation()");
+		try {
+
+			// untimed outside of a request
+			final long untimed = ServerTiming.start();
+			assertEquals(ServerTiming.INACTIVE, untimed);
+			ServerTiming.stop(ServerTiming.PHASE_DB, untimed);
+
+			final ServerTiming timing = ServerTiming.begin();
+			try {
+				timing.add(ServerTiming.PHASE_DB, 1000000L);
+				timing.add(ServerTiming.PHASE_DB, 2500000L);
+				final long mark = ServerTiming.start();
+				assertTrue(mark != ServerTiming.INACTIVE);
+				ServerTiming.stop(ServerTiming.PHASE_SERVICE, mark);
+
+				// phases beyond the bound are dropped
+				for (int i = 0; i < 10; i++) {
+					timing.add("p" + i, 1000L);
+				}
+
+				final String header = timing.toHeader();
+				assertTrue(header, header.startsWith("db;dur=3.500, service;dur="));
+				assertTrue(header, header.matches(".*, p5;dur=0\\.001, " + TOTAL));
+				assertFalse(header, header.contains("p6"));
+			} finally {
+				ServerTiming.end();
+			}
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test02_PhaseAccumulation()");
+	}
+
+	@Test
+	public void test03_Filter() {
+		LOG.info("BEGIN: test03_Filter()");
+		try {
+
+			final ServerTiming[] bound = new ServerTiming[1];
+			final MockFilterChain chain = new MockFilterChain() {
+				@Override
+				public void doFilter(final ServletRequest request, final ServletResponse response)
+						throws IOException, ServletException {
+					bound[0] = ServerTiming.current();
+				}
+			};
+
+			final MockHttpServletResponse timed = new MockHttpServletResponse();
+			new ServerTimingFilter(true).doFilter(new MockHttpServletRequest("DELETE", "/api/thing/1"), timed, chain);
+			assertTrue(bound[0] != null);
+			assertTrue(timed.getHeader(ServerTiming.HEADER).matches(TOTAL));
+			assertNull(ServerTiming.current());
+
+			final MockHttpServletResponse untimed = new MockHttpServletResponse();
+			new ServerTimingFilter(false).doFilter(new MockHttpServletRequest("DELETE", "/api/thing/1"), untimed, chain);
+			assertNull(bound[0]);
+			assertNull(untimed.getHeader(ServerTiming.HEADER));
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test03_Filter()");
+	}
+
+}
@@ -0,0 +1,113 @@
+package org.jrb.lots;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+
+import org.jrb.commons.web.idempotency.IdempotencyFilter;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.codec.Base64;
+
+/**
+ * Integration test cases for {@link IdempotencyFilter} running behind the
+ * security filter chain of the embedded server.
+ *
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ *
+ */
+public class IdempotencyIntegrationTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(IdempotencyIntegrationTest.class);
+
+	private static final String PASSWORD = "secret";
+
+	private static ConfigurableApplicationContext context;
+	private static String baseUrl;
+
+	@BeforeClass
+	public static void startServer() throws IOException {
+		final int port;
+		try (final ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		// a private pooled database, apart from the embedded one of the other tests
+		context = new SpringApplicationBuilder(SpringApplication.class)
+				.showBanner(false)
+				.run("--db.url=jdbc:hsqldb:mem:idempotency",
+						"--http.server.port=" + port,
+						"--http.server.address=127.0.0.1",
+						"--security.user.password=" + PASSWORD,
+						"--http.ratelimit.enabled=false");
+		baseUrl = "http://127.0.0.1:" + port;
+	}
+
+	@AfterClass
+	public static void stopServer() {
+		if (context != null) {
+			context.close();
+		}
+	}
+
+	private static HttpURLConnection post(final String key, final String body, final boolean authenticated)
+			throws IOException {
+		final HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/api/thing").openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setRequestProperty("Content-Type", "application/json");
+		connection.setRequestProperty(IdempotencyFilter.HEADER_KEY, key);
+		if (authenticated) {
+			connection.setRequestProperty("Authorization",
+					"Basic " + new String(Base64.encode(("user:" + PASSWORD).getBytes("UTF-8")), "UTF-8"));
+		}
+		try (final OutputStream out = connection.getOutputStream()) {
+			out.write(body.getBytes("UTF-8"));
+		}
+		connection.getResponseCode();
+		return connection;
+	}
+
+	@Test
+	public void test01_ReplayOnlyToAuthenticatedOwner() {
+		LOG.info("BEGIN: test01_ReplayOnlyToAuthenticatedOwner()");
+		try {
+
+			final String key = "it-" + System.nanoTime();
+			final String body = "{\"name\":\"" + key + "\"}";
+
+			final HttpURLConnection first = post(key, body, true);
+			assertEquals(201, first.getResponseCode());
+			assertNull(first.getHeaderField(IdempotencyFilter.HEADER_REPLAYED));
+
+			// an anonymous retry is refused by security, not replayed
+			final HttpURLConnection anonymous = post(key, body, false);
+			assertEquals(401, anonymous.getResponseCode());
+			assertNull(anonymous.getHeaderField(IdempotencyFilter.HEADER_REPLAYED));
+
+			final HttpURLConnection retry = post(key, body, true);
+			assertEquals(201, retry.getResponseCode());
+			assertEquals("true", retry.getHeaderField(IdempotencyFilter.HEADER_REPLAYED));
+			assertEquals(first.getHeaderField("Location"), retry.getHeaderField("Location"));
+
+			final HttpURLConnection other = post(key, "{\"name\":\"" + key + "-other\"}", true);
+			assertEquals(422, other.getResponseCode());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_ReplayOnlyToAuthenticatedOwner()");
+	}
+
+}
@@ -0,0 +1,79 @@
+package org.jrb.lots;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jrb.commons.jdbc.ReadOnlyRoutingInterceptor;
+import org.jrb.commons.metrics.MethodLatencyInterceptor;
+import org.jrb.commons.service.RetryInterceptor;
+import org.jrb.lots.service.tag.TagService;
+import org.jrb.lots.service.thing.ThingService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+/**
+ * Test cases for the interceptors wrapping the services, as configured by
+ * {@link ApplicationConfig#serviceProxyCreator()}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = SpringApplication.class)
+@ActiveProfiles("LOCAL")
+public class ServiceProxyTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(ServiceProxyTest.class);
+
+	@Autowired
+	private TagService tagService;
+
+	@Autowired
+	private ThingService thingService;
+
+	private static List<Class<?>> advices(final Object proxy) {
+		final List<Class<?>> advices = new ArrayList<>();
+		for (final Advisor advisor : ((Advised) proxy).getAdvisors()) {
+			advices.add(advisor.getAdvice().getClass());
+		}
+		return advices;
+	}
+
+	@Test
+	public void test01_InterceptorOrder() {
+		LOG.info("BEGIN: test01_InterceptorOrder()");
+		try {
+
+			for (final Object service : Arrays.asList(tagService, thingService)) {
+				assertEquals(
+						Arrays.<Class<?>> asList(MethodLatencyInterceptor.class, RetryInterceptor.class,
+								ReadOnlyRoutingInterceptor.class),
+						advices(service));
+
+				// the transaction sits inside all of them
+				final Object target = ((Advised) service).getTargetSource().getTarget();
+				assertTrue(advices(target).contains(TransactionInterceptor.class));
+			}
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_InterceptorOrder()");
+	}
+
+}
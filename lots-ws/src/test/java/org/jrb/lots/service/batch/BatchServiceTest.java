@@ -0,0 +1,206 @@
+package org.jrb.lots.service.batch;
+
+import static org.jrb.commons.jdbc.StatementAssert.measure;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.jrb.commons.jdbc.StatementStatistics;
+import org.jrb.lots.SpringApplication;
+import org.jrb.lots.domain.Tag;
+import org.jrb.lots.domain.Thing;
+import org.jrb.lots.service.batch.BatchOperation.Method;
+import org.jrb.lots.service.tag.TagService;
+import org.jrb.lots.service.tag.UnknownTagException;
+import org.jrb.lots.service.thing.ThingService;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Unit test cases for {@link BatchServiceImpl}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = SpringApplication.class)
+@ActiveProfiles("LOCAL")
+@DirtiesContext(classMode = ClassMode.AFTER_CLASS)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class BatchServiceTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(BatchServiceTest.class);
+
+	@Autowired
+	private BatchService batchService;
+
+	@Autowired
+	private TagService tagService;
+
+	@Autowired
+	private ThingService thingService;
+
+	private static Thing thing(final Long id, final String name) {
+		return new Thing.Builder().setId(id).setName(name).setDescription("Batch thing").build();
+	}
+
+	private static List<Integer> statuses(final List<BatchResult> results) {
+		final List<Integer> statuses = new ArrayList<>();
+		for (final BatchResult result : results) {
+			statuses.add(result.getStatus());
+		}
+		return statuses;
+	}
+
+	@Test
+	public void test01_ExecuteIndependently() {
+		LOG.info("BEGIN: test01_ExecuteIndependently()");
+		try {
+
+			final List<BatchResult> results = batchService.execute(Arrays.asList(
+					new BatchOperation(Method.POST, new Tag.Builder().setName("BATCH_TAG").build()),
+					new BatchOperation(Method.POST, thing(null, "BATCH_1")),
+					new BatchOperation(Method.POST, thing(null, "BATCH_1")),
+					new BatchOperation(Method.GET, thing(null, "BATCH_1")),
+					new BatchOperation(Method.PATCH, thing(-1L, "BATCH_X")),
+					new BatchOperation(Method.PUT, new Tag.Builder().setName("BATCH_TAG").build()),
+					new BatchOperation(Method.DELETE, new Tag.Builder().setName("BATCH_TAG").build())), false);
+			LOG.info("results = {}", results);
+
+			// a failed operation does not undo the others
+			assertEquals(Arrays.asList(201, 201, 409, 200, 404, 405, 200), statuses(results));
+			assertEquals("BATCH_1", ((Thing) results.get(3).getEntity()).getName());
+			assertNotNull(thingService.findThing("BATCH_1"));
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_ExecuteIndependently()");
+	}
+
+	@Test
+	public void test02_ExecuteAtomically() {
+		LOG.info("BEGIN: test02_ExecuteAtomically()");
+		try {
+
+			final List<BatchResult> results = batchService.execute(Arrays.asList(
+					new BatchOperation(Method.POST, thing(null, "BATCH_2")),
+					new BatchOperation(Method.POST, thing(null, "BATCH_1")),
+					new BatchOperation(Method.POST, thing(null, "BATCH_3"))), true);
+			LOG.info("results = {}", results);
+
+			// the duplicate rolls back the thing created before it, and the
+			// one after it is skipped
+			assertEquals(Arrays.asList(424, 409, 424), statuses(results));
+			assertNull(thingService.findThing("BATCH_2", true));
+			assertNull(thingService.findThing("BATCH_3", true));
+
+			final List<BatchResult> applied = batchService.execute(Arrays.asList(
+					new BatchOperation(Method.POST, thing(null, "BATCH_2")),
+					new BatchOperation(Method.DELETE, thing(null, "BATCH_1"))), true);
+			assertEquals(Arrays.asList(201, 200), statuses(applied));
+			assertNotNull(thingService.findThing("BATCH_2", true));
+			assertNull(thingService.findThing("BATCH_1", true));
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test02_ExecuteAtomically()");
+	}
+
+	@Test
+	public void test03_ReadsShareTransaction() {
+		LOG.info("BEGIN: test03_ReadsShareTransaction()");
+		try {
+
+			final StatementStatistics statistics = measure(new Callable<List<BatchResult>>() {
+				@Override
+				public List<BatchResult> call() throws Exception {
+					return batchService.execute(Arrays.asList(
+							new BatchOperation(Method.GET, thing(null, "BATCH_2")),
+							new BatchOperation(Method.GET, thing(null, "BATCH_X")),
+							new BatchOperation(Method.GET, thing(null, "BATCH_2"))), false);
+				}
+			});
+			LOG.info("read batch statistics = {}", statistics);
+			assertEquals(1, statistics.getCommits());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test03_ReadsShareTransaction()");
+	}
+
+	@Test
+	public void test04_TooManyOperations() {
+		LOG.info("BEGIN: test04_TooManyOperations()");
+		try {
+
+			try {
+				batchService.execute(Collections.nCopies(101,
+						new BatchOperation(Method.GET, thing(null, "BATCH_2"))), false);
+				fail("Unsuccessfully executed an oversized batch!");
+			} catch (final InvalidBatchException e) {
+			}
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test04_TooManyOperations()");
+	}
+
+	@Test
+	public void test05_RolledBackTagNotCached() {
+		LOG.info("BEGIN: test05_RolledBackTagNotCached()");
+		try {
+
+			final Thing tagged = new Thing.Builder().setName("BATCH_T1").setDescription("Batch thing")
+					.addTagname("BATCH_PH").build();
+			final List<BatchResult> results = batchService.execute(Arrays.asList(
+					new BatchOperation(Method.POST, new Tag.Builder().setName("BATCH_PH").build()),
+					new BatchOperation(Method.POST, tagged),
+					new BatchOperation(Method.POST, thing(null, "BATCH_2"))), true);
+			LOG.info("results = {}", results);
+			assertEquals(Arrays.asList(424, 424, 409), statuses(results));
+
+			// the tag looked up by the rolled back batch must not outlive it
+			try {
+				tagService.findTag("BATCH_PH");
+				fail("Found a tag created by a rolled back batch!");
+			} catch (final UnknownTagException e) {
+			}
+
+			final Thing thing = thingService.createThing(new Thing.Builder().setName("BATCH_T2")
+					.setDescription("Batch thing").addTagname("BATCH_PH").build());
+			assertNotNull(thing.getId());
+			assertEquals("BATCH_PH", tagService.findTag("BATCH_PH").getName());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test05_RolledBackTagNotCached()");
+	}
+
+}
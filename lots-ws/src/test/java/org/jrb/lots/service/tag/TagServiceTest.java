@@ -2,10 +2,14 @@ package org.jrb.lots.service.tag;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.jrb.lots.SpringApplication;
 import org.jrb.lots.domain.Tag;
@@ -154,6 +158,14 @@ public class TagServiceTest {
 			assertNotNull(updated.getCreatedOn());
 			assertNotNull(updated.getUpdatedOn());
 
+			// attempt to update from a stale version
+			try {
+				tagService.updateTag(new Tag.Builder().from(tag).setDescription("456").build());
+				fail("Successfully updated a stale tag!");
+			} catch (final StaleTagException e) {
+			}
+			assertEquals("123", tagService.findTag("ABC").getDescription());
+
 		} catch (Throwable t) {
 			LOG.error(t.getMessage(), t);
 			fail(t.getMessage());
@@ -188,4 +200,27 @@ public class TagServiceTest {
 		LOG.info("END: test05_DeleteTags()");
 	}
 
+	@Test
+	public void test06_FindTagsByIds() {
+		LOG.info("BEGIN: test06_FindTagsByIds()");
+		try {
+
+			// found tags are keyed in request order, unknown ones left out
+			final Map<Long, Tag> tags = tagService.findTags(Arrays.asList(4L, 2L, 3L, 99L));
+			assertEquals(Arrays.asList(4L, 3L), new ArrayList<>(tags.keySet()));
+			assertEquals("TAG_4", tags.get(4L).getName());
+			assertEquals("TAG_3", tags.get(3L).getName());
+
+			// loaded tags are cached
+			final Map<Long, Tag> cached = tagService.findTags(Arrays.asList(3L, 4L));
+			assertSame(tags.get(3L), cached.get(3L));
+			assertSame(tags.get(4L), cached.get(4L));
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test06_FindTagsByIds()");
+	}
+
 }
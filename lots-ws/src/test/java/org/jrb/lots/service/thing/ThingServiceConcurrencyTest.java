@@ -0,0 +1,118 @@
+package org.jrb.lots.service.thing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jrb.lots.SpringApplication;
+import org.jrb.lots.domain.Thing;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Concurrent update test cases for {@link ThingServiceImpl}, with many writers
+ * editing a single thing.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = SpringApplication.class)
+@ActiveProfiles("LOCAL")
+@DirtiesContext(classMode = ClassMode.AFTER_CLASS)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ThingServiceConcurrencyTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(ThingServiceConcurrencyTest.class);
+
+	private final static int WRITERS = 16;
+	private final static int UPDATES = 25;
+
+	@Autowired
+	private ThingService thingService;
+
+	@Test
+	public void test01_ConcurrentWriters() {
+		LOG.info("BEGIN: test01_ConcurrentWriters()");
+		final ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+		try {
+
+			final Thing created = thingService.createThing(new Thing.Builder()
+					.setName("HOT_1")
+					.setDescription("Hot thing")
+					.build());
+			final Long id = created.getId();
+			final CountDownLatch start = new CountDownLatch(1);
+
+			// even writers update blindly, odd writers update the version they read
+			final List<Future<int[]>> results = new ArrayList<>();
+			for (int w = 0; w < WRITERS; w++) {
+				final boolean versioned = (w % 2 == 1);
+				final String writer = "writer " + w;
+				results.add(executor.submit(new Callable<int[]>() {
+					@Override
+					public int[] call() throws Exception {
+						start.await();
+						int applied = 0;
+						int stale = 0;
+						for (int u = 0; u < UPDATES; u++) {
+							final Thing.Builder changes = versioned
+									? new Thing.Builder().from(thingService.findThing(id))
+									: new Thing.Builder().setId(id);
+							try {
+								thingService.updateThing(changes.setDescription(writer + " update " + u).build());
+								applied++;
+							} catch (final StaleThingException e) {
+								assertTrue(versioned);
+								stale++;
+							}
+						}
+						return new int[] { applied, stale };
+					}
+				}));
+			}
+			start.countDown();
+
+			int applied = 0;
+			int stale = 0;
+			for (final Future<int[]> result : results) {
+				final int[] counts = result.get();
+				applied += counts[0];
+				stale += counts[1];
+			}
+			LOG.info("applied = {}, stale = {}", applied, stale);
+
+			// every update either applied or was rejected as a conflict, and none was lost
+			assertEquals(WRITERS * UPDATES, applied + stale);
+			assertTrue(applied >= WRITERS / 2 * UPDATES);
+			final Thing current = thingService.findThing(id);
+			assertEquals(created.getVersion() + applied, current.getVersion().intValue());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		} finally {
+			executor.shutdownNow();
+		}
+		LOG.info("END: test01_ConcurrentWriters()");
+	}
+
+}
@@ -0,0 +1,453 @@
+package org.jrb.lots.service.thing;
+
+import static org.jrb.commons.jdbc.StatementAssert.assertStatementsAtMost;
+import static org.jrb.commons.jdbc.StatementAssert.measure;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.jrb.commons.jdbc.StatementStatistics;
+import org.jrb.lots.SpringApplication;
+import org.jrb.lots.domain.Thing;
+import org.jrb.lots.service.tag.TagService;
+import org.jrb.lots.service.tag.UnknownTagException;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Statement count test cases for {@link ThingServiceImpl}.
+ * 
+ * @author <a href="mailto:brulejr@gmail.com">Jon Brule</a>
+ * 
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = SpringApplication.class)
+@ActiveProfiles("LOCAL")
+@DirtiesContext(classMode = ClassMode.AFTER_CLASS)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ThingServiceStatementTest {
+
+	private final static Logger LOG = LoggerFactory.getLogger(ThingServiceStatementTest.class);
+
+	@Autowired
+	private TagService tagService;
+
+	@Autowired
+	private ThingService thingService;
+
+	@Test
+	public void test01_CreateThing() {
+		LOG.info("BEGIN: test01_CreateThing()");
+		try {
+
+			final StatementStatistics statistics = measure(new Callable<Thing>() {
+				@Override
+				public Thing call() throws Exception {
+					return thingService.createThing(new Thing.Builder()
+							.setName("STMT_1")
+							.setDescription("Statement counting thing")
+							.setTagnames(Sets.newHashSet("STMT_A", "STMT_B", "STMT_C"))
+							.build());
+				}
+			});
+			LOG.info("createThing statistics = {}", statistics);
+
+			// per tag: a lookup, an insert and a join row; plus the thing insert
+			assertTrue(statistics.toString(), statistics.getStatements() <= 3 * 3 + 1);
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test01_CreateThing()");
+	}
+
+	@Test
+	public void test02_FindThing() {
+		LOG.info("BEGIN: test02_FindThing()");
+		try {
+
+			final Thing thing = assertStatementsAtMost(2, new Callable<Thing>() {
+				@Override
+				public Thing call() throws Exception {
+					return thingService.findThing("STMT_1");
+				}
+			});
+			assertEquals(3, thing.getTagnames().size());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test02_FindThing()");
+	}
+
+	@Test
+	public void test03_RetrieveThings() {
+		LOG.info("BEGIN: test03_RetrieveThings()");
+		try {
+
+			final List<Thing> things = thingService.retrieveThings(null);
+
+			// the eager tag collection costs at most one extra select per thing
+			assertStatementsAtMost(1 + things.size(), new Callable<List<Thing>>() {
+				@Override
+				public List<Thing> call() throws Exception {
+					return thingService.retrieveThings(null);
+				}
+			});
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test03_RetrieveThings()");
+	}
+
+	@Test
+	public void test04_CreateThingCommits() {
+		LOG.info("BEGIN: test04_CreateThingCommits()");
+		try {
+
+			final ThingService unbounded = unproxied(thingService);
+			final StatementStatistics before = measure(new Callable<Thing>() {
+				@Override
+				public Thing call() throws Exception {
+					return unbounded.createThing(new Thing.Builder()
+							.setName("STMT_2")
+							.setTagnames(Sets.newHashSet("STMT_D", "STMT_E"))
+							.build());
+				}
+			});
+			final StatementStatistics after = measure(new Callable<Thing>() {
+				@Override
+				public Thing call() throws Exception {
+					return thingService.createThing(new Thing.Builder()
+							.setName("STMT_3")
+							.setTagnames(Sets.newHashSet("STMT_F", "STMT_G"))
+							.build());
+				}
+			});
+			LOG.info("createThing commits: {} -> {}", before.getCommits(), after.getCommits());
+
+			// per tag: an insert; plus the thing insert
+			assertEquals(2 + 1, before.getCommits());
+			assertEquals(1, after.getCommits());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test04_CreateThingCommits()");
+	}
+
+	@Test
+	public void test05_UpdateThingCommits() {
+		LOG.info("BEGIN: test05_UpdateThingCommits()");
+		try {
+
+			final ThingService unbounded = unproxied(thingService);
+			final Thing thing = thingService.findThing("STMT_1");
+			final StatementStatistics before = measure(new Callable<Thing>() {
+				@Override
+				public Thing call() throws Exception {
+					return unbounded.updateThing(new Thing.Builder().from(thing).setDescription("before").build());
+				}
+			});
+			final Thing current = thingService.findThing("STMT_1");
+			final StatementStatistics after = measure(new Callable<Thing>() {
+				@Override
+				public Thing call() throws Exception {
+					return thingService.updateThing(new Thing.Builder().from(current).setDescription("after").build());
+				}
+			});
+			LOG.info("updateThing commits: {} -> {}", before.getCommits(), after.getCommits());
+
+			assertEquals(2, before.getCommits());
+			assertEquals(1, after.getCommits());
+			assertEquals("after", thingService.findThing("STMT_1").getDescription());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test05_UpdateThingCommits()");
+	}
+
+	@Test
+	public void test06_CreateThingRollsBack() {
+		LOG.info("BEGIN: test06_CreateThingRollsBack()");
+		try {
+
+			try {
+				thingService.createThing(new Thing.Builder()
+						.setName("STMT_1")
+						.setTagnames(Sets.newHashSet("STMT_H"))
+						.build());
+				fail("Duplicate thing was created!");
+			} catch (final DuplicateThingException e) {
+				LOG.info("Duplicate thing rejected: {}", e.getMessage());
+			}
+
+			// the tag created for the rejected thing is rolled back with it
+			try {
+				tagService.findTag("STMT_H");
+				fail("Tag of a rejected thing was kept!");
+			} catch (final UnknownTagException e) {
+				LOG.info("Tag rolled back: {}", e.getMessage());
+			}
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test06_CreateThingRollsBack()");
+	}
+
+	@Test
+	public void test07_UpdateThingConditionally() {
+		LOG.info("BEGIN: test07_UpdateThingConditionally()");
+		try {
+
+			final Thing stale = thingService.findThing("STMT_2");
+			final Thing updated = assertStatementsAtMost(3, new Callable<Thing>() {
+				@Override
+				public Thing call() throws Exception {
+					return thingService.updateThing(new Thing.Builder().from(stale).setDescription("first").build());
+				}
+			});
+			assertEquals(stale.getVersion() + 1, updated.getVersion().intValue());
+			assertEquals("first", updated.getDescription());
+
+			try {
+				thingService.updateThing(new Thing.Builder().from(stale).setDescription("second").build());
+				fail("Stale thing was updated!");
+			} catch (final StaleThingException e) {
+				LOG.info("Stale thing rejected: {}", e.getMessage());
+			}
+			try {
+				thingService.updateThing(new Thing.Builder().from(stale).setId(-1L).build());
+				fail("Unknown thing was updated!");
+			} catch (final UnknownThingException e) {
+				LOG.info("Unknown thing rejected: {}", e.getMessage());
+			}
+			assertEquals("first", thingService.findThing("STMT_2").getDescription());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test07_UpdateThingConditionally()");
+	}
+
+	@Test
+	public void test08_DeleteThing() {
+		LOG.info("BEGIN: test08_DeleteThing()");
+		try {
+
+			final Long id = thingService.findThing("STMT_3").getId();
+			assertStatementsAtMost(1, new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					thingService.deleteThing(id);
+					return null;
+				}
+			});
+			assertNull(thingService.findThing(id, true));
+			try {
+				thingService.deleteThing(id);
+				fail("Unknown thing was deleted!");
+			} catch (final UnknownThingException e) {
+				LOG.info("Unknown thing rejected: {}", e.getMessage());
+			}
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test08_DeleteThing()");
+	}
+
+	@Test
+	public void test09_UpsertThing() {
+		LOG.info("BEGIN: test09_UpsertThing()");
+		try {
+
+			// upsert: a merge, a tag lookup (if not cached), a link delete and
+			// insert and a reload, in one transaction
+			final StatementStatistics upsert = measure(new Callable<Thing>() {
+				@Override
+				public Thing call() throws Exception {
+					return thingService.upsertThing(new Thing.Builder()
+							.setName("STMT_2")
+							.setDescription("upsert")
+							.setTagnames(Sets.newHashSet("STMT_A"))
+							.build());
+				}
+			});
+			LOG.info("upsert statistics = {}", upsert);
+			assertTrue(upsert.toString(), upsert.getStatements() <= 5);
+			assertEquals(1, upsert.getCommits());
+
+			final Thing updated = thingService.findThing("STMT_2");
+			assertEquals("upsert", updated.getDescription());
+			assertEquals(Sets.newHashSet("STMT_A"), Sets.newHashSet(updated.getTagnames()));
+
+			// an unchanged description keeps the version
+			final Thing same = thingService.upsertThing(new Thing.Builder()
+					.setName("STMT_2")
+					.setDescription("upsert")
+					.setTagnames(Sets.newHashSet("STMT_A", "STMT_B"))
+					.build());
+			assertEquals(updated.getVersion(), same.getVersion());
+			assertEquals(Sets.newHashSet("STMT_A", "STMT_B"), Sets.newHashSet(same.getTagnames()));
+
+			final Thing created = thingService.upsertThing(new Thing.Builder()
+					.setName("STMT_4")
+					.setDescription("upserted")
+					.setTagnames(Sets.newHashSet("STMT_I"))
+					.build());
+			assertEquals(Integer.valueOf(0), created.getVersion());
+			assertEquals(Sets.newHashSet("STMT_I"), Sets.newHashSet(created.getTagnames()));
+
+			// no tag names, as on create, means no tags
+			final Thing untagged = thingService.upsertThing(new Thing.Builder()
+					.setName("STMT_4")
+					.setDescription("upserted")
+					.build());
+			assertTrue(untagged.getTagnames() == null || untagged.getTagnames().isEmpty());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test09_UpsertThing()");
+	}
+
+	@Test
+	public void test10_UpsertThings() {
+		LOG.info("BEGIN: test10_UpsertThings()");
+		try {
+
+			final List<Thing> things = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				things.add(new Thing.Builder()
+						.setName("STMT_BATCH_" + (i % 10))
+						.setDescription("batch " + i)
+						.setTagnames(Sets.newHashSet("STMT_A"))
+						.build());
+			}
+
+			// the same statements, batched, whatever the number of things; the
+			// tag is cached by now
+			final List<Thing> upserted = assertStatementsAtMost(4, new Callable<List<Thing>>() {
+				@Override
+				public List<Thing> call() throws Exception {
+					return thingService.upsertThings(things);
+				}
+			});
+			assertEquals(things.size(), upserted.size());
+			for (int i = 0; i < things.size(); i++) {
+				assertEquals(things.get(i).getName(), upserted.get(i).getName());
+				assertEquals("batch " + (i % 10 + 10), upserted.get(i).getDescription());
+			}
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test10_UpsertThings()");
+	}
+
+	@Test
+	public void test11_CreateDuplicateThing() {
+		LOG.info("BEGIN: test11_CreateDuplicateThing()");
+		try {
+
+			// the name filter sends a known name to a single existence query,
+			// without an insert or the tags' lookups
+			final StatementStatistics statistics = measure(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					try {
+						thingService.createThing(new Thing.Builder()
+								.setName("STMT_1")
+								.setTagnames(Sets.newHashSet("STMT_J"))
+								.build());
+						fail("Duplicate thing was created!");
+					} catch (final DuplicateThingException e) {
+						LOG.info("Duplicate thing rejected: {}", e.getMessage());
+					}
+					return null;
+				}
+			});
+			LOG.info("duplicate createThing statistics = {}", statistics);
+			assertEquals(1, statistics.getStatements());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test11_CreateDuplicateThing()");
+	}
+
+	@Test
+	public void test12_FindThings() {
+		LOG.info("BEGIN: test12_FindThings()");
+		try {
+
+			final Long first = thingService.findThing("STMT_1").getId();
+			final Long second = thingService.findThing("STMT_BATCH_3").getId();
+
+			// one statement fetches the things along with their tags
+			final Map<Long, Thing> things = assertStatementsAtMost(1, new Callable<Map<Long, Thing>>() {
+				@Override
+				public Map<Long, Thing> call() throws Exception {
+					return thingService.findThings(Arrays.asList(second, -1L, first));
+				}
+			});
+			assertEquals(Arrays.asList(second, first), new ArrayList<>(things.keySet()));
+			assertEquals("STMT_BATCH_3", things.get(second).getName());
+			assertEquals(3, things.get(first).getTagnames().size());
+
+		} catch (Throwable t) {
+			LOG.error(t.getMessage(), t);
+			fail(t.getMessage());
+		}
+		LOG.info("END: test12_FindThings()");
+	}
+
+	/**
+	 * Strips the proxies off a service, leaving the implementation to run
+	 * each repository and tag service call in a transaction of its own.
+	 */
+	private static ThingService unproxied(final ThingService service) throws Exception {
+		Object target = service;
+		while (AopUtils.isAopProxy(target)) {
+			target = ((Advised) target).getTargetSource().getTarget();
+		}
+		return (ThingService) target;
+	}
+
+}
\ No newline at end of file